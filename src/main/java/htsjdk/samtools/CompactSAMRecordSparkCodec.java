@@ -0,0 +1,264 @@
+package htsjdk.samtools;
+
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.RuntimeEOFException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A more compact alternative to {@link SAMRecordSparkCodec} for serialization/deserialization of headerless SAMRecords
+ * in Spark shuffles. The records round-trip exactly as with SAMRecordSparkCodec, but:
+ * <ul>
+ *     <li>the fixed-size fields of the BAM record (positions, flags, lengths, ...) are written as variable-length ints,</li>
+ *     <li>the cigar operators are written as variable-length ints,</li>
+ *     <li>the base qualities are run-length encoded when that is smaller, which is usually the case for binned qualities
+ *     and always for reads without qualities.</li>
+ * </ul>
+ * Bases are packed two per byte and tags are written in their BAM encoding, as in BAM. As with SAMRecordSparkCodec,
+ * the reference indices are neither written nor restored.
+ */
+public final class CompactSAMRecordSparkCodec {
+    private static final byte RAW_QUALITIES = 0;
+    private static final byte RUN_LENGTH_ENCODED_QUALITIES = 1;
+    private static final byte NO_QUALITY = (byte) 0xFF;
+
+    private final BinaryCodec binaryCodec = new BinaryCodec();
+    private final SAMRecordFactory samRecordFactory;
+
+    // buffer for encoding the tags of records that have no binary representation
+    private final ByteArrayOutputStream tagBuffer = new ByteArrayOutputStream();
+    private final BinaryCodec tagBinaryCodec = new BinaryCodec(tagBuffer);
+    private final BinaryTagCodec binaryTagCodec = new BinaryTagCodec(tagBinaryCodec);
+
+    public CompactSAMRecordSparkCodec() {
+        this(new DefaultSAMRecordFactory());
+    }
+
+    public CompactSAMRecordSparkCodec(final SAMRecordFactory factory) {
+        this.samRecordFactory = factory;
+    }
+
+    /** Sets the output stream that records will be written to. */
+    public void setOutputStream(final OutputStream os) {
+        this.binaryCodec.setOutputStream(os);
+    }
+
+    /** Sets the input stream that records will be read from. */
+    public void setInputStream(final InputStream is) {
+        this.binaryCodec.setInputStream(is);
+    }
+
+    /**
+     * Write a record to the OutputStream.
+     *
+     * @param alignment Record to be written.
+     */
+    public void encode(final SAMRecord alignment) {
+        final int readLength = alignment.getReadLength();
+
+        writeVarInt(alignment.getAlignmentStart());
+        this.binaryCodec.writeUByte((short) alignment.getMappingQuality());
+        writeVarInt(alignment.getFlags());
+        writeVarInt(readLength);
+        writeVarInt(alignment.getMateAlignmentStart());
+        writeVarInt(zigZag(alignment.getInferredInsertSize()));
+
+        final byte[] variableLengthBinaryBlock = alignment.getVariableBinaryRepresentation();
+        if (variableLengthBinaryBlock != null) {
+            // take the fields from the block of a record read from a BAM file, without decoding them
+            final ByteBuffer block = ByteBuffer.wrap(variableLengthBinaryBlock).order(ByteOrder.LITTLE_ENDIAN);
+            final int readNameLength = alignment.getReadNameLength();
+            writeVarInt(readNameLength);
+            this.binaryCodec.writeBytes(variableLengthBinaryBlock, 0, readNameLength);
+            int offset = readNameLength + 1;
+            final int cigarLength = alignment.getCigarLength();
+            writeVarInt(cigarLength);
+            for (int i = 0; i < cigarLength; i++, offset += 4) {
+                writeVarInt(block.getInt(offset));
+            }
+            final int compressedBasesLength = (readLength + 1) / 2;
+            this.binaryCodec.writeBytes(variableLengthBinaryBlock, offset, compressedBasesLength);
+            offset += compressedBasesLength;
+            writeQualities(Arrays.copyOfRange(variableLengthBinaryBlock, offset, offset + readLength));
+            offset += readLength;
+            writeVarInt(variableLengthBinaryBlock.length - offset);
+            this.binaryCodec.writeBytes(variableLengthBinaryBlock, offset, variableLengthBinaryBlock.length - offset);
+        } else {
+            if (readLength != alignment.getBaseQualities().length && alignment.getBaseQualities().length != 0) {
+                throw new RuntimeException("Mismatch between read length and quals length writing read " +
+                        alignment.getReadName() + "; read length: " + readLength +
+                        "; quals length: " + alignment.getBaseQualities().length);
+            }
+            final String readName = alignment.getReadName();
+            writeVarInt(alignment.getReadNameLength());
+            if (readName != null) {
+                this.binaryCodec.writeString(readName, false, false);
+            }
+            final int[] binaryCigar = BinaryCigarCodec.encode(alignment.getCigar());
+            writeVarInt(binaryCigar.length);
+            for (final int cigarElement : binaryCigar) {
+                writeVarInt(cigarElement);
+            }
+            this.binaryCodec.writeBytes(SAMUtils.bytesToCompressedBases(alignment.getReadBases()));
+            byte[] qualities = alignment.getBaseQualities();
+            if (qualities.length == 0) {
+                qualities = new byte[readLength];
+                Arrays.fill(qualities, NO_QUALITY);
+            }
+            writeQualities(qualities);
+
+            tagBuffer.reset();
+            SAMBinaryTagAndValue attribute = alignment.getBinaryAttributes();
+            while (attribute != null) {
+                this.binaryTagCodec.writeTag(attribute.tag, attribute.value, attribute.isUnsignedArray());
+                attribute = attribute.getNext();
+            }
+            writeVarInt(tagBuffer.size());
+            this.binaryCodec.writeBytes(tagBuffer.toByteArray());
+        }
+    }
+
+    /**
+     * Read the next record from the input stream and convert into a java object.
+     *
+     * @return null if no more records.  Should throw exception if EOF is encountered in the middle of
+     *         a record.
+     */
+    public SAMRecord decode() {
+        final int coordinate;
+        try {
+            coordinate = readVarInt();
+        } catch (final RuntimeEOFException e) {
+            return null;
+        }
+        final short mappingQuality = this.binaryCodec.readUByte();
+        final int flags = readVarInt();
+        final int readLength = readVarInt();
+        final int mateCoordinate = readVarInt();
+        final int insertSize = unZigZag(readVarInt());
+
+        // rebuild the variable-length block of the BAM record
+        final int readNameLength = readVarInt();
+        final byte[] readName = new byte[readNameLength];
+        this.binaryCodec.readBytes(readName);
+        final int cigarLength = readVarInt();
+        final int[] binaryCigar = new int[cigarLength];
+        for (int i = 0; i < cigarLength; i++) {
+            binaryCigar[i] = readVarInt();
+        }
+        final byte[] compressedBases = new byte[(readLength + 1) / 2];
+        this.binaryCodec.readBytes(compressedBases);
+        final byte[] qualities = readQualities(readLength);
+        final int tagsLength = readVarInt();
+
+        final ByteBuffer block = ByteBuffer.allocate(readNameLength + 1 + cigarLength * 4 + compressedBases.length + readLength + tagsLength)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        block.put(readName).put((byte) 0);
+        for (final int cigarElement : binaryCigar) {
+            block.putInt(cigarElement);
+        }
+        block.put(compressedBases).put(qualities);
+        this.binaryCodec.readBytes(block.array(), block.position(), tagsLength);
+
+        return this.samRecordFactory.createBAMRecord(
+                null, SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX, coordinate, (short) (readNameLength + 1), mappingQuality,
+                0, cigarLength, flags, readLength, SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX, mateCoordinate, insertSize, block.array());
+    }
+
+    private void writeQualities(final byte[] qualities) {
+        int runs = 0;
+        int runLengthEncodedSize = 0;
+        for (int i = 0; i < qualities.length; ) {
+            int end = i + 1;
+            while (end < qualities.length && qualities[end] == qualities[i]) {
+                end++;
+            }
+            runs++;
+            runLengthEncodedSize += 1 + varIntSize(end - i);
+            i = end;
+        }
+        if (runLengthEncodedSize >= qualities.length) {
+            this.binaryCodec.writeByte(RAW_QUALITIES);
+            this.binaryCodec.writeBytes(qualities);
+            return;
+        }
+        this.binaryCodec.writeByte(RUN_LENGTH_ENCODED_QUALITIES);
+        writeVarInt(runs);
+        for (int i = 0; i < qualities.length; ) {
+            int end = i + 1;
+            while (end < qualities.length && qualities[end] == qualities[i]) {
+                end++;
+            }
+            this.binaryCodec.writeByte(qualities[i]);
+            writeVarInt(end - i);
+            i = end;
+        }
+    }
+
+    private byte[] readQualities(final int readLength) {
+        final byte[] qualities = new byte[readLength];
+        final byte encoding = this.binaryCodec.readByte();
+        if (encoding == RAW_QUALITIES) {
+            this.binaryCodec.readBytes(qualities);
+            return qualities;
+        }
+        if (encoding != RUN_LENGTH_ENCODED_QUALITIES) {
+            throw new SAMFormatException("Invalid quality encoding: " + encoding);
+        }
+        final int runs = readVarInt();
+        int position = 0;
+        for (int run = 0; run < runs; run++) {
+            final byte quality = this.binaryCodec.readByte();
+            final int runLength = readVarInt();
+            Arrays.fill(qualities, position, position + runLength, quality);
+            position += runLength;
+        }
+        if (position != readLength) {
+            throw new SAMFormatException("Run-length encoded qualities have length " + position + " instead of " + readLength);
+        }
+        return qualities;
+    }
+
+    // writes the bits of an int, 7 at a time, least significant first; negative values take 5 bytes
+    private void writeVarInt(final int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            this.binaryCodec.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        this.binaryCodec.writeByte(remaining);
+    }
+
+    private int readVarInt() {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = this.binaryCodec.readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new SAMFormatException("Malformed variable-length int");
+    }
+
+    private static int varIntSize(final int value) {
+        int size = 1;
+        for (int remaining = value >>> 7; remaining != 0; remaining >>>= 7) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int zigZag(final int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(final int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,141 @@
+package htsjdk.samtools;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.seqdoop.hadoop_bam.BAMOutputFormat;
+import org.seqdoop.hadoop_bam.SAMRecordWritable;
+import org.seqdoop.hadoop_bam.SplittingBAMIndexer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes one headerless part of a coordinate-sorted BAM file (as Hadoop-BAM's BAMRecordWriter does), and builds the
+ * BAM index of the part at the same time from the virtual offsets of the records, so that the index of the whole file
+ * can be made by {@link org.broadinstitute.hellbender.engine.spark.datasources.BAMIndexMerger} without reading the
+ * records again. This class is in the htsjdk package because the indexer finds the offsets of a record in its file
+ * source, which only htsjdk can set. As in Hadoop-BAM's KeyIgnoringBAMRecordWriter, the keys are ignored.
+ *
+ * Since a virtual offset of 0 means "no record" in a BAM index, whereas the first record of a part is at virtual
+ * offset 0 in the part, the offsets in the index of a part are those of the records as if the part were preceded by
+ * {@link #PART_INDEX_OFFSET} bytes. The splitting index (if any) has the actual offsets, as usual.
+ */
+public final class IndexingBAMRecordWriter<K> extends RecordWriter<K, SAMRecordWritable> {
+    /**
+     * The number of (compressed) bytes that the index of a part assumes to precede the part.
+     */
+    public static final long PART_INDEX_OFFSET = 1;
+
+    private final OutputStream output;
+    private final BlockCompressedOutputStream compressedOut;
+    private final BAMRecordCodec recordCodec;
+    private final BAMIndexer bamIndexer;
+    private final SplittingBAMIndexer splittingBAMIndexer;
+    private SAMRecord pendingRecord = null;
+    private long pendingRecordStart;
+
+    /**
+     * @param output the stream to write the headerless BAM part to
+     * @param indexOutput the stream to write the BAM index of the part to
+     * @param splittingIndexOutput the stream to write the splitting index of the part to, or null for no splitting index
+     * @param header the header of the BAM file, which must be coordinate sorted
+     */
+    public IndexingBAMRecordWriter(final OutputStream output, final OutputStream indexOutput,
+                                   final OutputStream splittingIndexOutput, final SAMFileHeader header) {
+        Utils.nonNull(output);
+        Utils.nonNull(indexOutput);
+        Utils.validateArg(header.getSortOrder() == SAMFileHeader.SortOrder.coordinate, "The header must be coordinate sorted to index the records");
+        this.output = output;
+        this.compressedOut = new BlockCompressedOutputStream(output, (File) null);
+        this.recordCodec = new BAMRecordCodec(header);
+        this.recordCodec.setOutputStream(compressedOut);
+        this.bamIndexer = new BAMIndexer(indexOutput, header);
+        this.splittingBAMIndexer = splittingIndexOutput == null ? null : new SplittingBAMIndexer(splittingIndexOutput);
+    }
+
+    /**
+     * Makes a writer for a part file of a Hadoop task. The index of the part is written next to it, in the file given
+     * by {@link #getPartIndexName}, and the splitting index if {@link BAMOutputFormat#WRITE_SPLITTING_BAI} is set.
+     */
+    public static <K> IndexingBAMRecordWriter<K> create(final Path part, final SAMFileHeader header, final TaskAttemptContext ctx) throws IOException {
+        final Configuration conf = ctx.getConfiguration();
+        final FileSystem fs = part.getFileSystem(conf);
+        final OutputStream splittingIndexOutput = conf.getBoolean(BAMOutputFormat.WRITE_SPLITTING_BAI, false) ?
+                fs.create(part.suffix(SplittingBAMIndexer.OUTPUT_FILE_EXTENSION)) : null;
+        return new IndexingBAMRecordWriter<>(fs.create(part), fs.create(new Path(part.getParent(), getPartIndexName(part.getName()))),
+                splittingIndexOutput, header);
+    }
+
+    /**
+     * @return the name of the file with the BAM index of a part. The name does not start like the names of part files,
+     * so that the index is not taken for a part when the parts are merged.
+     */
+    public static String getPartIndexName(final String partName) {
+        return "_" + partName + BAMIndex.BAMIndexSuffix;
+    }
+
+    @Override
+    public void write(final K ignored, final SAMRecordWritable rec) throws IOException {
+        writeAlignment(rec.get());
+    }
+
+    /**
+     * Writes a record, which must have a header and come after (in coordinate order) the records written before.
+     */
+    public void writeAlignment(final SAMRecord rec) throws IOException {
+        final long start = compressedOut.getFilePointer();
+        if (splittingBAMIndexer != null) {
+            processAlignment(rec, splittingBAMIndexer::processAlignment, start, start);
+        }
+        // a record is indexed when the next one is written, so that its chunk ends where the next one starts, as it
+        // does for a reader (the writer only moves to the next block when more data is written)
+        if (pendingRecord != null) {
+            final long shift = PART_INDEX_OFFSET << 16;
+            processAlignment(pendingRecord, bamIndexer::processAlignment, pendingRecordStart + shift, start + shift);
+        }
+        recordCodec.encode(rec);
+        pendingRecord = rec;
+        pendingRecordStart = start;
+    }
+
+    // the indexers find the offsets of the record in its file source, which is restored afterwards
+    private static void processAlignment(final SAMRecord rec, final IOConsumer<SAMRecord> indexer, final long start, final long end) throws IOException {
+        final SAMFileSource source = rec.getFileSource();
+        rec.setFileSource(new SAMFileSource(null, new BAMFileSpan(new Chunk(start, end))));
+        indexer.accept(rec);
+        rec.setFileSource(source);
+    }
+
+    @FunctionalInterface
+    private interface IOConsumer<T> {
+        void accept(T t) throws IOException;
+    }
+
+    @Override
+    public void close(final TaskAttemptContext ctx) throws IOException {
+        close();
+    }
+
+    /**
+     * Finishes the part (without a terminator block, as it is to be merged) and its indices.
+     */
+    public void close() throws IOException {
+        compressedOut.flush();
+        if (pendingRecord != null) {
+            final long shift = PART_INDEX_OFFSET << 16;
+            processAlignment(pendingRecord, bamIndexer::processAlignment, pendingRecordStart + shift, compressedOut.getFilePointer() + shift);
+            pendingRecord = null;
+        }
+        if (splittingBAMIndexer != null) {
+            splittingBAMIndexer.finish(compressedOut.getFilePointer() >> 16);
+        }
+        bamIndexer.finish();
+        output.close();
+    }
+}
@@ -0,0 +1,106 @@
+package htsjdk.samtools;
+
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.RuntimeIOException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.seqdoop.hadoop_bam.SplittingBAMIndexer;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a BAM file (as htsjdk's BAMFileWriter does), and builds the splitting index that Hadoop-BAM uses to split the
+ * file at record boundaries at the same time, from the virtual offsets of the records as they are written. The file is
+ * then an efficient Spark input without the extra pass over it of
+ * {@link org.broadinstitute.hellbender.tools.spark.CreateHadoopBamSplittingIndex}. The BAM index of the file may be
+ * built at the same time too. This class is in the htsjdk package because the indexers find the offsets of a record in
+ * its file source, which only htsjdk can set.
+ */
+public final class SplittingIndexingBAMFileWriter extends SAMFileWriterImpl {
+
+    private final String filename;
+    private final BlockCompressedOutputStream compressedOut;
+    private final BinaryCodec outputBinaryCodec;
+    private final SplittingBAMIndexer splittingBAMIndexer;
+    private final OutputStream indexOutput;
+    private BAMRecordCodec recordCodec;
+    private BAMIndexer bamIndexer;
+
+    /**
+     * @param output the stream to write the BAM file to
+     * @param filename the name of the BAM file, for error messages (may be null)
+     * @param splittingIndexOutput the stream to write the splitting index to
+     * @param granularity the number of records between the entries of the splitting index
+     * @param indexOutput the stream to write the BAM index to, or null for no BAM index. If not null, the header must be
+     *                    coordinate sorted.
+     */
+    public SplittingIndexingBAMFileWriter(final OutputStream output, final String filename, final OutputStream splittingIndexOutput,
+                                          final int granularity, final OutputStream indexOutput) {
+        Utils.nonNull(output);
+        Utils.nonNull(splittingIndexOutput);
+        Utils.validateArg(granularity > 0, "granularity must be positive");
+        this.filename = filename;
+        this.compressedOut = new BlockCompressedOutputStream(output, (File) null);
+        this.outputBinaryCodec = new BinaryCodec(new DataOutputStream(compressedOut));
+        this.outputBinaryCodec.setOutputFileName(filename);
+        this.splittingBAMIndexer = new SplittingBAMIndexer(splittingIndexOutput, granularity);
+        this.indexOutput = indexOutput;
+    }
+
+    @Override
+    protected void writeHeader(final String textHeader) {
+        final SAMFileHeader header = getFileHeader();
+        BAMFileWriter.writeHeader(outputBinaryCodec, header, textHeader);
+        recordCodec = new BAMRecordCodec(header);
+        recordCodec.setOutputStream(outputBinaryCodec.getOutputStream(), filename);
+        if (indexOutput != null) {
+            Utils.validate(header.getSortOrder() == SAMFileHeader.SortOrder.coordinate, "The header must be coordinate sorted to index the records");
+            bamIndexer = new BAMIndexer(indexOutput, header);
+        }
+    }
+
+    @Override
+    protected void writeAlignment(final SAMRecord rec) {
+        // the indexers find the offsets of the record in its file source, which is restored afterwards
+        final SAMFileSource source = rec.getFileSource();
+        try {
+            final long start = compressedOut.getFilePointer();
+            rec.setFileSource(new SAMFileSource(null, new BAMFileSpan(new Chunk(start, start))));
+            splittingBAMIndexer.processAlignment(rec);
+            recordCodec.encode(rec);
+            if (bamIndexer != null) {
+                rec.setFileSource(new SAMFileSource(null, new BAMFileSpan(new Chunk(start, compressedOut.getFilePointer()))));
+                bamIndexer.processAlignment(rec);
+            }
+        } catch (final IOException e) {
+            throw new RuntimeIOException("Failed to write the splitting index of " + filename, e);
+        } finally {
+            rec.setFileSource(source);
+        }
+    }
+
+    @Override
+    protected void finish() {
+        try {
+            // the splitting index ends with the length of the file, including the terminator block that closing adds
+            compressedOut.flush();
+            final long length = (compressedOut.getFilePointer() >> 16) + BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK.length;
+            outputBinaryCodec.close();
+            splittingBAMIndexer.finish(length);
+        } catch (final IOException e) {
+            throw new RuntimeIOException("Failed to write the splitting index of " + filename, e);
+        }
+        if (bamIndexer != null) {
+            bamIndexer.finish();
+        }
+    }
+
+    @Override
+    protected String getFilename() {
+        return filename;
+    }
+}
@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.*;
 
+import java.io.File;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,6 +29,7 @@ public abstract class IntervalArgumentCollection implements Serializable {
     public static final String INTERVAL_PADDING_LONG_NAME = "interval-padding";
     public static final String INTERVAL_EXCLUSION_PADDING_LONG_NAME = "interval-exclusion-padding";
     public static final String INTERVAL_MERGING_RULE_LONG_NAME = "interval-merging-rule";
+    public static final String INTERVAL_CACHE_DIRECTORY_LONG_NAME = "interval-cache-directory";
 
 
 
@@ -94,6 +96,15 @@ public abstract class IntervalArgumentCollection implements Serializable {
     @Argument(fullName = INTERVAL_MERGING_RULE_LONG_NAME, shortName = "imr", doc = "Interval merging rule for abutting intervals", optional = true)
     protected IntervalMergingRule intervalMergingRule = IntervalMergingRule.ALL;
 
+    /**
+     * Use this to keep binary copies of parsed interval files (e.g. whole-genome bins or exome target lists) in the
+     * given directory, so that later runs with the same interval files and reference skip parsing them. Cached copies
+     * are keyed by the checksum of the interval file and the reference sequence dictionary, so edited files are
+     * always parsed again.
+     */
+    @Argument(fullName = INTERVAL_CACHE_DIRECTORY_LONG_NAME, doc = "Directory in which to cache parsed interval files for faster loading in later runs", optional = true)
+    protected File intervalCacheDirectory = null;
+
     /**
      * Full parameters for traversal, including our parsed intervals and a flag indicating whether unmapped records
      * should be returned. Lazily initialized.
@@ -162,6 +173,7 @@ public abstract class IntervalArgumentCollection implements Serializable {
             throw new GATKException("Cannot call parseIntervals() without specifying either intervals to include or exclude.");
         }
 
+        final IntervalFileCache intervalFileCache = intervalCacheDirectory == null ? null : new IntervalFileCache(intervalCacheDirectory);
         GenomeLocSortedSet includeSortedSet;
         if (getIntervalStrings().isEmpty()){
             // the -L argument isn't specified, which means that -XL was, since we checked intervalsSpecified()
@@ -169,13 +181,13 @@ public abstract class IntervalArgumentCollection implements Serializable {
             includeSortedSet = GenomeLocSortedSet.createSetFromSequenceDictionary(genomeLocParser.getSequenceDictionary());
         } else {
             try {
-                includeSortedSet = IntervalUtils.loadIntervals(getIntervalStrings(), intervalSetRule, intervalMergingRule, intervalPadding, genomeLocParser);
+                includeSortedSet = IntervalUtils.loadIntervals(getIntervalStrings(), intervalSetRule, intervalMergingRule, intervalPadding, genomeLocParser, intervalFileCache);
             } catch( UserException.EmptyIntersection e) {
                 throw new CommandLineException.BadArgumentValue("-L, --" + IntervalArgumentCollection.INTERVAL_SET_RULE_LONG_NAME, getIntervalStrings()+","+intervalSetRule, "The specified intervals had an empty intersection");
             }
         }
 
-        final GenomeLocSortedSet excludeSortedSet = IntervalUtils.loadIntervals(excludeIntervalStrings, IntervalSetRule.UNION, intervalMergingRule, intervalExclusionPadding, genomeLocParser);
+        final GenomeLocSortedSet excludeSortedSet = IntervalUtils.loadIntervals(excludeIntervalStrings, IntervalSetRule.UNION, intervalMergingRule, intervalExclusionPadding, genomeLocParser, intervalFileCache);
         if ( excludeSortedSet.contains(GenomeLoc.UNMAPPED) ) {
             throw new UserException("-XL unmapped is not currently supported");
         }
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.engine;
 
 import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
+import org.broadinstitute.hellbender.utils.pileup.ColumnarPileup;
 
 /**
  * Classes that implement this interface have the ability to evaluate how likely it is that a site is "active"
@@ -19,4 +20,23 @@ public interface AssemblyRegionEvaluator {
      * @return ActivityProfileState containing the probability between 0.0 and 1.0 that the site is active
      */
     ActivityProfileState isActive( final AlignmentContext locusPileup, final ReferenceContext referenceContext, final FeatureContext featureContext );
+
+    /**
+     * Columnar version of {@link #isActive(AlignmentContext, ReferenceContext, FeatureContext)}, which is the one
+     * called during assembly region traversal.
+     *
+     * The default implementation materializes the pileup and delegates to
+     * {@link #isActive(AlignmentContext, ReferenceContext, FeatureContext)}. Evaluators that can decide on the
+     * primitive columns of the pileup (at least for most loci) should override this method to avoid creating a
+     * {@link org.broadinstitute.hellbender.utils.pileup.PileupElement} per read at every locus. The pileup is reused
+     * at the next locus, so it must not be retained.
+     *
+     * @param locusPileup reads pileup to examine
+     * @param referenceContext reference base overlapping the pileup locus
+     * @param featureContext features overlapping the pileup locus
+     * @return ActivityProfileState containing the probability between 0.0 and 1.0 that the site is active
+     */
+    default ActivityProfileState isActive( final ColumnarPileup locusPileup, final ReferenceContext referenceContext, final FeatureContext featureContext ) {
+        return isActive(locusPileup.toAlignmentContext(), referenceContext, featureContext);
+    }
 }
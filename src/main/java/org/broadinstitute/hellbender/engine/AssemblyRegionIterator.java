@@ -10,9 +10,9 @@ import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfile;
 import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
 import org.broadinstitute.hellbender.utils.activityprofile.BandPassActivityProfile;
 import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
-import org.broadinstitute.hellbender.utils.iterators.AllLocusIterator;
 import org.broadinstitute.hellbender.utils.iterators.ReadCachingIterator;
 import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
+import org.broadinstitute.hellbender.utils.pileup.ColumnarPileup;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
@@ -48,7 +48,12 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
     private List<GATKRead> previousRegionReads;
     private final ReadCachingIterator readCachingIterator;
     private Queue<GATKRead> readCache;
-    private final Iterator<AlignmentContext> locusIterator;
+    private final LocusIteratorByState libs;
+    private final ColumnarPileup libsPileup;
+    private final ColumnarPileup emptyPileup;
+    private boolean libsPileupPending;
+    private boolean libsExhausted;
+    private int nextLocusPosition;
     private final ActivityProfile activityProfile;
 
     /**
@@ -106,10 +111,14 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
         this.readCache = new ArrayDeque<>();
         this.activityProfile = new BandPassActivityProfile(null, maxProbPropagationDistance, activeProbThreshold, BandPassActivityProfile.MAX_FILTER_SIZE, BandPassActivityProfile.DEFAULT_SIGMA, readHeader);
 
-        // We wrap our LocusIteratorByState inside an AllLocusIterator so that we get empty loci
-        // for uncovered locations. This is critical for reproducing GATK 3.x behavior!
-        final LocusIteratorByState libs = new LocusIteratorByState(readCachingIterator, DownsamplingMethod.NONE, false, ReadUtils.getSamplesFromHeader(readHeader), readHeader, includeReadsWithDeletionsInIsActivePileups);
-        this.locusIterator = new AllLocusIterator(readShard.getInterval(), libs);
+        // We visit every locus of the shard, using empty pileups for the locations not covered by our LocusIteratorByState
+        // (as AllLocusIterator does). This is critical for reproducing GATK 3.x behavior!
+        // The pileups are columnar and reused from one locus to the next, so that evaluators that can work on them
+        // directly need not allocate a PileupElement per read at every locus.
+        this.libs = new LocusIteratorByState(readCachingIterator, DownsamplingMethod.NONE, false, ReadUtils.getSamplesFromHeader(readHeader), readHeader, includeReadsWithDeletionsInIsActivePileups);
+        this.libsPileup = new ColumnarPileup();
+        this.emptyPileup = new ColumnarPileup();
+        this.nextLocusPosition = readShard.getInterval().getStart();
 
         readyRegion = loadNextAssemblyRegion();
     }
@@ -134,8 +143,8 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
     private AssemblyRegion loadNextAssemblyRegion() {
         AssemblyRegion nextRegion = null;
 
-        while ( locusIterator.hasNext() && nextRegion == null ) {
-            final AlignmentContext pileup = locusIterator.next();
+        while ( hasNextLocus() && nextRegion == null ) {
+            final ColumnarPileup pileup = nextLocus();
 
             // Ignore sites that are not contained within this shard's interval
             if ( ! readShard.getInterval().contains(pileup) ) {
@@ -152,7 +161,7 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
             }
 
             // Add the current pileup to the activity profile
-            final SimpleInterval pileupInterval = new SimpleInterval(pileup);
+            final SimpleInterval pileupInterval = pileup.getLocation();
             final ReferenceContext pileupRefContext = new ReferenceContext(reference, pileupInterval);
             final FeatureContext pileupFeatureContext = new FeatureContext(features, pileupInterval);
 
@@ -168,7 +177,12 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
 
         // When we run out of loci, close out the activity profile, and close out any remaining pending regions one at a time
         // It may require multiple invocations before the pendingRegions queue is cleared out.
-        if ( ! locusIterator.hasNext() ) {
+        if ( ! hasNextLocus() ) {
+            // Pull on the locus iterator until it's exhausted, so that all reads in the shard reach our read cache
+            while ( ! libsExhausted && libs.nextColumnarPileup(libsPileup) ) { }
+            libsExhausted = true;
+            libsPileupPending = false;
+
             if ( ! activityProfile.isEmpty() ) {
                 // Pop the activity profile a final time with forceConversion == true
                 pendingRegions.addAll(activityProfile.popReadyAssemblyRegions(assemblyRegionPadding, minRegionSize, maxRegionSize, true));
@@ -189,6 +203,36 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
         return nextRegion;
     }
 
+    private boolean hasNextLocus() {
+        return nextLocusPosition <= readShard.getInterval().getEnd();
+    }
+
+    /**
+     * @return the pileup at the next locus of the shard, which is empty if no reads cover that locus.
+     *         Valid only until the next call.
+     */
+    private ColumnarPileup nextLocus() {
+        // Discard pileups from the locus iterator that are before our current position
+        while ( ! libsExhausted && (! libsPileupPending || libsPileup.getStart() < nextLocusPosition) ) {
+            libsPileupPending = libs.nextColumnarPileup(libsPileup);
+            libsExhausted = ! libsPileupPending;
+        }
+
+        final ColumnarPileup toReturn;
+        if ( libsPileupPending && libsPileup.getStart() == nextLocusPosition ) {
+            toReturn = libsPileup;
+            libsPileupPending = false;
+        } else {
+            // Otherwise, the next pileup from our locus iterator (if any) must come after our current position,
+            // so keep it around and return an empty pileup for the current position
+            emptyPileup.reset(readShard.getInterval().getContig(), nextLocusPosition);
+            toReturn = emptyPileup;
+        }
+
+        nextLocusPosition++;
+        return toReturn;
+    }
+
     private void fillNextAssemblyRegionWithReads( final AssemblyRegion region ) {
         // First we need to check the previous region for reads that also belong in this region
         if ( previousRegionReads != null ) {
@@ -13,6 +13,7 @@ import org.broadinstitute.barclay.argparser.CommandLineParser;
 import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.ClassIndex;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.config.ConfigFactory;
 import org.broadinstitute.hellbender.utils.config.GATKConfig;
@@ -32,7 +33,7 @@ import java.util.stream.Collectors;
  * and creation/management/querying of FeatureDataSources for each source of Features.
  *
  * At startup, walks the packages specified in {@link GATKConfig#codec_packages} in the config file to discover what codecs are available
- * to decode Feature-containing files.
+ * to decode Feature-containing files (using the build-time {@link ClassIndex} for packages it covers).
  *
  * Then, given a tool instance, it discovers what FeatureInput argument fields are declared in the
  * tool's class hierarchy (and associated ArgumentCollections), and for each argument actually specified
@@ -69,12 +70,12 @@ public final class FeatureManager implements AutoCloseable {
         // Get our configuration:
         final GATKConfig config = ConfigFactory.getInstance().getGATKConfig();
 
-        final ClassFinder finder = new ClassFinder();
+        final Set<Class<?>> codecs = new LinkedHashSet<>();
         for ( final String codecPackage : config.codec_packages() ) {
-            finder.find(codecPackage, CODEC_BASE_CLASS);
+            // Exclude abstract classes and interfaces from the list of discovered codec classes
+            ClassIndex.find(codecPackage, CODEC_BASE_CLASS).stream().filter(ClassFinder::isConcrete).forEach(codecs::add);
         }
-        // Exclude abstract classes and interfaces from the list of discovered codec classes
-        DISCOVERED_CODECS = Collections.unmodifiableSet(finder.getConcreteClasses());
+        DISCOVERED_CODECS = Collections.unmodifiableSet(codecs);
     }
 
     /**
@@ -88,6 +89,12 @@ public final class FeatureManager implements AutoCloseable {
      */
     private final Map<FeatureInput<? extends Feature>, FeatureDataSource<? extends Feature>> featureSources;
 
+    /**
+     * The sizes of the {@link SharedWindowCache} of the JVM that queries go through, or null if queries go straight
+     * to the data sources
+     */
+    private SharedWindowCache.Settings sharedWindowCacheSettings = null;
+
     /**
      * Create a FeatureManager given a CommandLineProgram tool instance, discovering all FeatureInput
      * arguments in the tool and creating query-able FeatureDataSources for them. Uses the default
@@ -300,12 +307,36 @@ public final class FeatureManager implements AutoCloseable {
      *         the provided interval (may be empty if there are none, but never null)
      */
     public <T extends Feature> List<T> getFeatures( final FeatureInput<T> featureDescriptor, final SimpleInterval interval ) {
+        if ( sharedWindowCacheSettings != null ) {
+            return SharedWindowCache.getInstance(sharedWindowCacheSettings).getFeatures(this, featureDescriptor, interval);
+        }
+        return queryDataSource(featureDescriptor, interval);
+    }
+
+    /**
+     * Queries the data source of a FeatureInput directly, bypassing the {@link SharedWindowCache}. Queries are
+     * serialized per data source, since the threads of a JVM may share this FeatureManager when using the cache.
+     */
+    <T extends Feature> List<T> queryDataSource( final FeatureInput<T> featureDescriptor, final SimpleInterval interval ) {
         final FeatureDataSource<T> dataSource = lookupDataSource(featureDescriptor);
 
         // No danger of a ClassCastException here, since we verified that the FeatureDataSource for this
         // FeatureInput will return Features of the expected type T when we first created the data source
         // in initializeFeatureSources()
-        return dataSource.queryAndPrefetch(interval);
+        synchronized ( dataSource ) {
+            return dataSource.queryAndPrefetch(interval);
+        }
+    }
+
+    /**
+     * Makes {@link #getFeatures} fetch the features from the {@link SharedWindowCache} of the JVM, which is shared
+     * by all the threads that use this FeatureManager (such as the Spark tasks on an executor that use a broadcast
+     * FeatureManager).
+     *
+     * @param sharedWindowCacheSettings the sizes of the shared cache, or null to query the data sources directly
+     */
+    public void setSharedWindowCacheSettings( final SharedWindowCache.Settings sharedWindowCacheSettings ) {
+        this.sharedWindowCacheSettings = sharedWindowCacheSettings;
     }
 
     /**
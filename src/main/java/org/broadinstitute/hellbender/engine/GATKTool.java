@@ -79,6 +79,10 @@ public abstract class GATKTool extends CommandLineProgram {
             doc = "If true, create a MD5 digest for any BAM/SAM/CRAM file created", optional=true, common = true)
     public boolean createOutputBamMD5 = false;
 
+    @Argument(fullName=StandardArgumentDefinitions.CREATE_OUTPUT_BAM_SPLITTING_INDEX_LONG_NAME,
+            doc = "If true, create a Hadoop-BAM splitting index (.splitting-bai) while writing a BAM file, so that Spark tools can split it efficiently", optional=true, common = true)
+    public boolean createOutputBamSplittingIndex = false;
+
     @Argument(fullName=StandardArgumentDefinitions.CREATE_OUTPUT_VARIANT_INDEX_LONG_NAME,
             shortName=StandardArgumentDefinitions.CREATE_OUTPUT_VARIANT_INDEX_SHORT_NAME,
             doc = "If true, create a VCF index when writing a coordinate-sorted VCF file.", optional=true, common = true)
@@ -683,7 +687,8 @@ public abstract class GATKTool extends CommandLineProgram {
                 getHeaderForSAMWriter(),
                 preSorted,
                 createOutputBamIndex,
-                createOutputBamMD5
+                createOutputBamMD5,
+                createOutputBamSplittingIndex
             )
         );
     }
@@ -8,11 +8,18 @@ import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.CompactIntervalSet;
+import org.broadinstitute.hellbender.utils.IntervalMergingRule;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.locusiterator.AlignmentContextIteratorBuilder;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.locusiterator.LIBSDownsamplingInfo;
+import org.broadinstitute.hellbender.utils.locusiterator.LocusBaseCounter;
+import org.broadinstitute.hellbender.utils.locusiterator.LocusBaseCounts;
 import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
+import org.broadinstitute.hellbender.utils.pileup.ColumnarPileup;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.*;
@@ -89,6 +96,45 @@ public abstract class LocusWalker extends GATKTool {
         return false;
     }
 
+    /**
+     * Does this tool process pileups in columnar form? Tools that do should override to return {@code true}, in which
+     * case {@link #apply(ColumnarPileup, ReferenceContext, FeatureContext)} is called instead of
+     * {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)} for every locus, and no
+     * {@link org.broadinstitute.hellbender.utils.pileup.PileupElement} objects are created unless the tool asks for them.
+     *
+     * NOTE: columnar pileups are not used by tools that {@link #emitEmptyLoci()}.
+     *
+     * @return {@code true} if this tool processes columnar pileups, {@code false} otherwise
+     */
+    protected boolean useColumnarPileups() {
+        return false;
+    }
+
+    /**
+     * Does this tool only need the base counts at each locus? Tools that do should override to return {@code true},
+     * in which case reads are swept directly into counts by a {@link LocusBaseCounter} and
+     * {@link #apply(LocusBaseCounts, ReferenceContext, FeatureContext)} is called instead of
+     * {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)} for every locus.
+     *
+     * NOTE: base counts are not used when downsampling is requested with {@link #maxDepthPerSample}.
+     * NOTE: deletions are always counted, so without {@link #emitEmptyLoci()} a locus covered only by deletions is
+     * visited even if this tool does not {@link #includeDeletions()}.
+     *
+     * @return {@code true} if this tool only needs base counts, {@code false} otherwise
+     */
+    protected boolean useBaseCounts() {
+        return false;
+    }
+
+    /**
+     * Returns the increasing lower bounds of the base-quality bins of the counts passed to
+     * {@link #apply(LocusBaseCounts, ReferenceContext, FeatureContext)}, the first of which must be 0.
+     * Default implementation uses a single bin.
+     */
+    protected int[] baseCountQualityBins() {
+        return new int[]{0};
+    }
+
 
     /**
      * Returns default value for the {@link #maxDepthPerSample} parameter, if none is provided on the command line.
@@ -156,6 +202,18 @@ public abstract class LocusWalker extends GATKTool {
         // get the filter and transformed iterator
         final Iterator<GATKRead> readIterator = getTransformedReadStream(countedFilter).iterator();
 
+        if ( useBaseCounts() && maxDepthPerSample == 0 ) {
+            traverseBaseCounts(readIterator);
+            logger.info(countedFilter.getSummaryLine());
+            return;
+        }
+
+        if ( useColumnarPileups() && ! emitEmptyLoci() ) {
+            traverseColumnarPileups(readIterator, header, samples);
+            logger.info(countedFilter.getSummaryLine());
+            return;
+        }
+
         final AlignmentContextIteratorBuilder alignmentContextIteratorBuilder = new AlignmentContextIteratorBuilder();
         alignmentContextIteratorBuilder.setDownsamplingInfo(getDownsamplingInfo());
         alignmentContextIteratorBuilder.setEmitEmptyLoci(emitEmptyLoci());
@@ -177,6 +235,71 @@ public abstract class LocusWalker extends GATKTool {
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Traversal of the loci covered by reads (restricted to the intervals, if any) with a single {@link ColumnarPileup}
+     * that is refilled at every locus.
+     */
+    private void traverseColumnarPileups(final Iterator<GATKRead> readIterator, final SAMFileHeader header, final Set<String> samples) {
+        final LocusIteratorByState libs = new LocusIteratorByState(readIterator, getDownsamplingInfo(), keepUniqueReadListInLibs(),
+                samples, header, includeDeletions(), includeNs());
+        final CompactIntervalSet intervals = intervalsForTraversal == null ? null
+                : CompactIntervalSet.fromLocatables(intervalsForTraversal, IntervalMergingRule.ALL);
+        final ColumnarPileup pileup = new ColumnarPileup();
+        while ( libs.nextColumnarPileup(pileup) ) {
+            if ( intervals == null || intervals.overlaps(pileup) ) {
+                final SimpleInterval pileupInterval = pileup.getLocation();
+                apply(pileup, new ReferenceContext(reference, pileupInterval), new FeatureContext(features, pileupInterval));
+                progressMeter.update(pileupInterval);
+            }
+        }
+    }
+
+    /**
+     * Traversal of the loci covered by reads (or of all loci in the intervals, if {@link #emitEmptyLoci()}) with the
+     * base counts at each locus.
+     */
+    private void traverseBaseCounts(final Iterator<GATKRead> readIterator) {
+        List<SimpleInterval> intervals = intervalsForTraversal;
+        if ( emitEmptyLoci() && intervals == null ) {
+            // as in AlignmentContextIteratorBuilder, emitting empty loci without intervals covers the whole reference
+            intervals = IntervalUtils.getAllIntervalsForReference(getBestAvailableSequenceDictionary());
+        }
+        final LocusBaseCounter counter = new LocusBaseCounter(getHeaderForReads().getSequenceDictionary(), intervals,
+                emitEmptyLoci(), baseCountQualityBins(), baseCounts -> {
+                    final SimpleInterval locus = baseCounts.getLocation();
+                    apply(baseCounts, new ReferenceContext(reference, locus), new FeatureContext(features, locus));
+                    progressMeter.update(locus);
+                });
+        readIterator.forEachRemaining(counter::add);
+        counter.finish();
+    }
+
+    /**
+     * Process the base counts at an individual locus, for tools that {@link #useBaseCounts()}.
+     * The counts are only valid during this call.
+     *
+     * @param baseCounts base counts at the current locus
+     * @param referenceContext Reference bases spanning the current locus
+     * @param featureContext Features spanning the current locus
+     */
+    public void apply(final LocusBaseCounts baseCounts, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        throw new GATKException.ShouldNeverReachHereException("Tools that use base counts must override apply(LocusBaseCounts, ...).");
+    }
+
+    /**
+     * Process the pileup at an individual locus in columnar form, for tools that {@link #useColumnarPileups()}.
+     * The pileup is refilled at the next locus, so it must not be retained.
+     *
+     * The default implementation materializes the pileup and calls {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)}.
+     *
+     * @param pileup pileup at the current locus
+     * @param referenceContext Reference bases spanning the current locus
+     * @param featureContext Features spanning the current locus
+     */
+    public void apply(final ColumnarPileup pileup, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        apply(pileup.toAlignmentContext(), referenceContext, featureContext);
+    }
+
     /**
      * Process an individual AlignmentContext (with optional contextual information). Must be implemented by tool authors.
      * In general, tool authors should simply stream their output from apply(), and maintain as little internal state
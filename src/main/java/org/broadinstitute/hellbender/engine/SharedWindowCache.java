@@ -0,0 +1,354 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.cloud.dataflow.sdk.options.PipelineOptions;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.tribble.Feature;
+import org.broadinstitute.hellbender.engine.datasources.ReferenceSource;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A thread-safe cache of reference bases and features, shared by all the threads (and so all the Spark tasks) in the JVM.
+ *
+ * Spark walkers fetch the reference bases and features for each shard from a broadcast {@link ReferenceSource} or
+ * {@link FeatureManager}, which every task on an executor shares. Neighbouring shards overlap by their padding, so
+ * when they arrive in sorted order the same windows would be fetched over and over again. Instead, this cache
+ * fetches fixed-size, aligned blocks of the genome, and assembles the requested windows from them. The least
+ * recently used blocks are evicted once the cache holds more than a maximum number of bases (or features).
+ *
+ * Blocks are keyed on the identity of the source they were fetched from: a broadcast value is deserialized once per
+ * executor, so this is shared by all the tasks that use the same broadcast. The keys only hold weak references to
+ * the sources, so the cache does not keep a source (such as a whole 2bit reference) alive once its broadcast is gone,
+ * and the blocks of a source are discarded once it has been garbage collected.
+ *
+ * The sizes of the cache are set by a {@link Settings}, which tools pass to the tasks that use the cache.
+ * Hit and miss counts are available from {@link #getReferenceStats()} and {@link #getFeatureStats()}.
+ */
+public final class SharedWindowCache {
+
+    public static final int DEFAULT_REFERENCE_BLOCK_SIZE = 64 * 1024;
+    public static final long DEFAULT_MAX_REFERENCE_BASES = 128L * 1024 * 1024;
+    public static final int DEFAULT_FEATURE_BLOCK_SIZE = 64 * 1024;
+    public static final long DEFAULT_MAX_FEATURES = 1000000L;
+
+    private static SharedWindowCache instance = new SharedWindowCache(new Settings(DEFAULT_MAX_REFERENCE_BASES, DEFAULT_MAX_FEATURES));
+
+    private final Settings settings;
+    private final int referenceBlockSize;
+    private final int featureBlockSize;
+    private final Cache<BlockKey, byte[]> referenceBlocks;
+    private final Cache<BlockKey, List<? extends Feature>> featureBlocks;
+
+    // a single weak reference for each source, which is enqueued once the source has been garbage collected
+    private final ConcurrentMap<Object, WeakReference<Object>> sourceReferences = new MapMaker().weakKeys().makeMap();
+    private final ReferenceQueue<Object> collectedSources = new ReferenceQueue<>();
+
+    /**
+     * @return the cache shared by all the threads in this JVM
+     */
+    public static synchronized SharedWindowCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the cache shared by all the threads in this JVM, with the sizes of the given settings. If the cache of
+     * the JVM has different sizes, it is replaced by a new, empty cache.
+     *
+     * @param settings the sizes of the cache
+     * @return the cache shared by all the threads in this JVM
+     */
+    public static synchronized SharedWindowCache getInstance(final Settings settings) {
+        Utils.nonNull(settings);
+        if ( !instance.settings.equals(settings) ) {
+            instance = new SharedWindowCache(settings);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the reference bases of an interval, through the cache of the JVM if {@code settings} is not
+     * {@code null}, or straight from the source otherwise.
+     *
+     * @param settings the sizes of the cache, or {@code null} to bypass the cache
+     * @param source the reference source
+     * @param pipelineOptions the pipeline options to fetch the bases with, if the source needs them
+     * @param interval the interval, which must lie within its contig
+     * @param sequenceDictionary the sequence dictionary of the reference
+     * @return the reference bases of the interval
+     */
+    public static ReferenceBases fetchReferenceBases(final Settings settings, final ReferenceSource source, final PipelineOptions pipelineOptions,
+                                                     final SimpleInterval interval, final SAMSequenceDictionary sequenceDictionary) {
+        if ( settings != null ) {
+            return getInstance(settings).getReferenceBases(source, pipelineOptions, interval, sequenceDictionary);
+        }
+        try {
+            return source.getReferenceBases(pipelineOptions, interval);
+        } catch ( final IOException e ) {
+            throw new GATKException("Failed to load reference bases for " + interval, e);
+        }
+    }
+
+    private SharedWindowCache(final Settings settings) {
+        this(DEFAULT_REFERENCE_BLOCK_SIZE, settings.getMaxReferenceBases(), DEFAULT_FEATURE_BLOCK_SIZE, settings.getMaxFeatures());
+    }
+
+    @VisibleForTesting
+    SharedWindowCache(final int referenceBlockSize, final long maxReferenceBases, final int featureBlockSize, final long maxFeatures) {
+        Utils.validateArg(referenceBlockSize > 0, "referenceBlockSize must be positive");
+        Utils.validateArg(featureBlockSize > 0, "featureBlockSize must be positive");
+        this.settings = new Settings(maxReferenceBases, maxFeatures);
+        this.referenceBlockSize = referenceBlockSize;
+        this.featureBlockSize = featureBlockSize;
+        referenceBlocks = CacheBuilder.newBuilder()
+                .maximumWeight(maxReferenceBases)
+                .weigher((BlockKey key, byte[] bases) -> bases.length)
+                .recordStats()
+                .build();
+        featureBlocks = CacheBuilder.newBuilder()
+                .maximumWeight(maxFeatures)
+                .weigher((BlockKey key, List<? extends Feature> features) -> features.size() + 1)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the reference bases of an interval, fetching the blocks that cover it from the source if they are not
+     * already cached.
+     *
+     * @param source the reference source; blocks are cached by the identity of this object, without keeping it alive
+     * @param pipelineOptions the pipeline options to fetch the bases with, if the source needs them
+     * @param interval the interval, which must lie within its contig
+     * @param sequenceDictionary the sequence dictionary of the reference
+     * @return the reference bases of the interval
+     */
+    public ReferenceBases getReferenceBases(final ReferenceSource source, final PipelineOptions pipelineOptions,
+                                            final SimpleInterval interval, final SAMSequenceDictionary sequenceDictionary) {
+        Utils.nonNull(source);
+        Utils.nonNull(interval);
+        final SAMSequenceRecord contig = Utils.nonNull(sequenceDictionary).getSequence(interval.getContig());
+        Utils.validateArg(contig != null && interval.getEnd() <= contig.getSequenceLength(),
+                () -> "interval " + interval + " is not within the sequence dictionary");
+
+        final WeakReference<Object> sourceReference = getSourceReference(source);
+        final byte[] bases = new byte[interval.size()];
+        final int firstBlock = (interval.getStart() - 1) / referenceBlockSize;
+        final int lastBlock = (interval.getEnd() - 1) / referenceBlockSize;
+        for ( int block = firstBlock; block <= lastBlock; block++ ) {
+            final int blockStart = block * referenceBlockSize + 1;
+            final int blockEnd = Math.min(blockStart + referenceBlockSize - 1, contig.getSequenceLength());
+            final byte[] blockBases = get(referenceBlocks, new BlockKey(sourceReference, null, interval.getContig(), block), () ->
+                    source.getReferenceBases(pipelineOptions, new SimpleInterval(interval.getContig(), blockStart, blockEnd)).getBases());
+            final int from = Math.max(interval.getStart(), blockStart);
+            final int to = Math.min(interval.getEnd(), blockEnd);
+            System.arraycopy(blockBases, from - blockStart, bases, from - interval.getStart(), to - from + 1);
+        }
+        return new ReferenceBases(bases, interval);
+    }
+
+    /**
+     * Returns the features of a {@link FeatureInput} that overlap an interval, in the order they are returned by
+     * {@link FeatureManager#getFeatures}. The features overlapping the blocks that cover the interval are fetched
+     * from the manager if they are not already cached.
+     *
+     * @param manager the feature manager; blocks are cached by the identity of this object, without keeping it alive
+     * @param featureDescriptor the FeatureInput to query
+     * @param interval the interval to query over
+     * @return the features overlapping the interval
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Feature> List<T> getFeatures(final FeatureManager manager, final FeatureInput<T> featureDescriptor, final SimpleInterval interval) {
+        Utils.nonNull(manager);
+        Utils.nonNull(featureDescriptor);
+        Utils.nonNull(interval);
+
+        final WeakReference<Object> managerReference = getSourceReference(manager);
+        final List<T> features = new ArrayList<>();
+        final int firstBlock = (interval.getStart() - 1) / featureBlockSize;
+        final int lastBlock = (interval.getEnd() - 1) / featureBlockSize;
+        for ( int block = firstBlock; block <= lastBlock; block++ ) {
+            final int blockStart = block * featureBlockSize + 1;
+            final int blockEnd = blockStart + featureBlockSize - 1;
+            final List<T> blockFeatures = (List<T>) get(featureBlocks, new BlockKey(managerReference, featureDescriptor, interval.getContig(), block), () ->
+                    Collections.unmodifiableList(manager.queryDataSource(featureDescriptor, new SimpleInterval(interval.getContig(), blockStart, blockEnd))));
+            for ( final T feature : blockFeatures ) {
+                // a feature that spans several blocks is in all of them, so only take it from the block that holds
+                // the first of its positions within the interval
+                final int firstOverlappingPosition = Math.max(feature.getStart(), interval.getStart());
+                if ( firstOverlappingPosition >= blockStart && firstOverlappingPosition <= blockEnd && feature.getEnd() >= interval.getStart()
+                        && feature.getStart() <= interval.getEnd() ) {
+                    features.add(feature);
+                }
+            }
+        }
+        return features;
+    }
+
+    /**
+     * @return the hit and miss counts of the reference blocks
+     */
+    public CacheStats getReferenceStats() {
+        return referenceBlocks.stats();
+    }
+
+    /**
+     * @return the hit and miss counts of the feature blocks
+     */
+    public CacheStats getFeatureStats() {
+        return featureBlocks.stats();
+    }
+
+    /**
+     * Discards all cached blocks.
+     */
+    public void invalidateAll() {
+        referenceBlocks.invalidateAll();
+        featureBlocks.invalidateAll();
+    }
+
+    /**
+     * @return the sizes of this cache
+     */
+    public Settings getSettings() {
+        return settings;
+    }
+
+    // returns the weak reference to a source, and discards the blocks of the sources that have been garbage collected
+    private WeakReference<Object> getSourceReference(final Object source) {
+        Reference<?> collected;
+        while ( (collected = collectedSources.poll()) != null ) {
+            final Reference<?> collectedSource = collected;
+            referenceBlocks.asMap().keySet().removeIf(key -> key.source == collectedSource);
+            featureBlocks.asMap().keySet().removeIf(key -> key.source == collectedSource);
+        }
+        return sourceReferences.computeIfAbsent(source, s -> new WeakReference<>(s, collectedSources));
+    }
+
+    private static <V> V get(final Cache<BlockKey, V> cache, final BlockKey key, final BlockLoader<V> loader) {
+        try {
+            return cache.get(key, loader::load);
+        } catch ( final ExecutionException | UncheckedExecutionException e ) {
+            final Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            throw new GATKException("Failed to load " + key, cause);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlockLoader<V> {
+        V load() throws IOException;
+    }
+
+    /**
+     * The maximum sizes of a {@link SharedWindowCache}, which tools pass to the tasks that use the cache.
+     */
+    public static final class Settings implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long maxReferenceBases;
+        private final long maxFeatures;
+
+        /**
+         * @param maxReferenceBases the maximum number of reference bases to cache
+         * @param maxFeatures the maximum number of features to cache
+         */
+        public Settings(final long maxReferenceBases, final long maxFeatures) {
+            Utils.validateArg(maxReferenceBases >= 0, "maxReferenceBases must not be negative");
+            Utils.validateArg(maxFeatures >= 0, "maxFeatures must not be negative");
+            this.maxReferenceBases = maxReferenceBases;
+            this.maxFeatures = maxFeatures;
+        }
+
+        public long getMaxReferenceBases() {
+            return maxReferenceBases;
+        }
+
+        public long getMaxFeatures() {
+            return maxFeatures;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( o == null || getClass() != o.getClass() ) {
+                return false;
+            }
+            final Settings other = (Settings) o;
+            return maxReferenceBases == other.maxReferenceBases && maxFeatures == other.maxFeatures;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(maxReferenceBases) + Long.hashCode(maxFeatures);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d reference bases and %d features", maxReferenceBases, maxFeatures);
+        }
+    }
+
+    /**
+     * A block of a contig of a given source, which is compared by the identity of the (weak) reference to the source.
+     */
+    private static final class BlockKey {
+        private final WeakReference<Object> source;
+        private final FeatureInput<?> featureInput;
+        private final String contig;
+        private final int block;
+
+        BlockKey(final WeakReference<Object> source, final FeatureInput<?> featureInput, final String contig, final int block) {
+            this.source = source;
+            this.featureInput = featureInput;
+            this.contig = contig;
+            this.block = block;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( o == null || getClass() != o.getClass() ) {
+                return false;
+            }
+            final BlockKey other = (BlockKey) o;
+            return source == other.source && block == other.block && contig.equals(other.contig)
+                    && Objects.equals(featureInput, other.featureInput);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * System.identityHashCode(source) + Objects.hashCode(featureInput)) + contig.hashCode()) + block;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("block %d of %s%s", block, contig, featureInput == null ? "" : " of " + featureInput.getName());
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package org.broadinstitute.hellbender.engine;
 
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.utils.CompactIntervalSet;
+import org.broadinstitute.hellbender.utils.IntervalMergingRule;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 
 import java.io.Serializable;
@@ -18,6 +21,11 @@ public class TraversalParameters implements Serializable{
     private final List<SimpleInterval> intervalsForTraversal;
     private final boolean traverseUnmapped;
 
+    /**
+     * Index of {@link #intervalsForTraversal} for overlap queries. Lazily initialized, and rebuilt after deserialization.
+     */
+    private transient CompactIntervalSet intervalSet = null;
+
     /**
      * @param intervalsForTraversal List of intervals for traversal. Only records overlapping these intervals will be returned.
      * @param traverseUnmapped True if unmapped records should be traversed
@@ -34,6 +42,23 @@ public class TraversalParameters implements Serializable{
         return Collections.unmodifiableList(intervalsForTraversal);
     }
 
+    /**
+     * @return the intervals for traversal as a {@link CompactIntervalSet}, for fast overlap queries
+     */
+    public CompactIntervalSet getIntervalSet() {
+        if ( intervalSet == null ) {
+            intervalSet = CompactIntervalSet.fromLocatables(intervalsForTraversal, IntervalMergingRule.OVERLAPPING_ONLY);
+        }
+        return intervalSet;
+    }
+
+    /**
+     * @return True if any interval for traversal overlaps {@code location}
+     */
+    public boolean overlapsIntervalsForTraversal( final Locatable location ) {
+        return getIntervalSet().overlaps(location);
+    }
+
     /**
      * @return True if unmapped records should be traversed
      */
@@ -98,6 +98,16 @@ public abstract class AssemblyRegionWalkerSpark extends GATKSparkTool {
     @Argument(doc = "whether to use the shuffle implementation or not", shortName = "shuffle", fullName = "shuffle", optional = true)
     public boolean shuffle = false;
 
+    public static final int DEFAULT_MAX_READS_PER_SHARD = 10000;
+
+    @Advanced
+    @Argument(fullName = "balanceShardsByReadCount", shortName = "balanceShardsByReadCount", doc = "Whether to count the reads in each read shard first, split the shards with the most reads, and spread the shards over the partitions so that each partition has about the same number of reads. This takes an extra pass over the reads and a shuffle, but keeps a few shards over high-depth regions from holding up the whole stage.", optional = true)
+    public boolean balanceShardsByReadCount = false;
+
+    @Advanced
+    @Argument(fullName = "maxReadsPerShard", shortName = "maxReadsPerShard", doc = "When balancing shards by read count, read shards with more reads than this are split into smaller shards (of at least maxAssemblyRegionSize bases).", optional = true)
+    public int maxReadsPerShard = DEFAULT_MAX_READS_PER_SHARD;
+
     @Override
     public final boolean requiresReads() { return true; }
 
@@ -144,15 +154,18 @@ public abstract class AssemblyRegionWalkerSpark extends GATKSparkTool {
      */
     protected JavaRDD<AssemblyRegionWalkerContext> getAssemblyRegions(JavaSparkContext ctx) {
         SAMSequenceDictionary sequenceDictionary = getBestAvailableSequenceDictionary();
-        JavaRDD<Shard<GATKRead>> shardedReads = SparkSharder.shard(ctx, getReads(), GATKRead.class, sequenceDictionary, intervalShards, readShardSize, shuffle);
+        JavaRDD<Shard<GATKRead>> shardedReads = balanceShardsByReadCount ?
+                SparkSharder.shardBalancedByCount(ctx, getReads(), sequenceDictionary, intervalShards, readShardPadding, maxReadsPerShard, maxAssemblyRegionSize) :
+                SparkSharder.shard(ctx, getReads(), GATKRead.class, sequenceDictionary, intervalShards, readShardSize, shuffle);
         Broadcast<ReferenceMultiSource> bReferenceSource = hasReference() ? ctx.broadcast(getReference()) : null;
         Broadcast<FeatureManager> bFeatureManager = features == null ? null : ctx.broadcast(features);
-        return shardedReads.flatMap(getAssemblyRegionsFunction(bReferenceSource, bFeatureManager, sequenceDictionary, getHeaderForReads(),
+        return shardedReads.flatMap(getAssemblyRegionsFunction(bReferenceSource, getSharedWindowCacheSettings(), bFeatureManager, sequenceDictionary, getHeaderForReads(),
                 assemblyRegionEvaluator(), minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance));
     }
 
     private static FlatMapFunction<Shard<GATKRead>, AssemblyRegionWalkerContext> getAssemblyRegionsFunction(
             final Broadcast<ReferenceMultiSource> bReferenceSource,
+            final SharedWindowCache.Settings windowCacheSettings,
             final Broadcast<FeatureManager> bFeatureManager,
             final SAMSequenceDictionary sequenceDictionary,
             final SAMFileHeader header,
@@ -167,7 +180,7 @@ public abstract class AssemblyRegionWalkerSpark extends GATKSparkTool {
             SimpleInterval assemblyRegionPaddedInterval = paddedInterval.expandWithinContig(assemblyRegionPadding, sequenceDictionary);
 
             ReferenceDataSource reference = bReferenceSource == null ? null :
-                    new ReferenceMemorySource(bReferenceSource.getValue().getReferenceBases(null, assemblyRegionPaddedInterval), sequenceDictionary);
+                    new ReferenceMemorySource(SharedWindowCache.fetchReferenceBases(windowCacheSettings, bReferenceSource.getValue(), null, assemblyRegionPaddedInterval, sequenceDictionary), sequenceDictionary);
             FeatureManager features = bFeatureManager == null ? null : bFeatureManager.getValue();
             ReferenceContext referenceContext = new ReferenceContext(reference, paddedInterval);
             FeatureContext featureContext = new FeatureContext(features, paddedInterval);
@@ -16,6 +16,7 @@ import org.broadinstitute.hellbender.engine.datasources.ReferenceMultiSource;
 import org.broadinstitute.hellbender.engine.datasources.ReferenceWindowFunctions;
 import org.broadinstitute.hellbender.engine.FeatureDataSource;
 import org.broadinstitute.hellbender.engine.FeatureManager;
+import org.broadinstitute.hellbender.engine.SharedWindowCache;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSink;
@@ -89,8 +90,25 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
             shortName = "numReducers", fullName = "numReducers", optional = true)
     protected int numReducers = 0;
 
+    @Argument(doc = "For tools that write a single BAM file, also write its Hadoop-BAM splitting index (.splitting-bai), so that Spark tools can split it efficiently",
+            fullName = StandardArgumentDefinitions.CREATE_OUTPUT_BAM_SPLITTING_INDEX_LONG_NAME, optional = true)
+    protected boolean createOutputBamSplittingIndex = true;
+
+    @Argument(doc = "Whether to share the reference bases and features fetched for overlapping shards between the tasks on an executor",
+            shortName = "sharedWindowCache", fullName = "sharedWindowCache", optional = true)
+    protected boolean useSharedWindowCache = true;
+
+    @Argument(doc = "Maximum number of reference bases to keep in the cache shared by the tasks on an executor",
+            shortName = "sharedWindowCacheMaxBases", fullName = "sharedWindowCacheMaxBases", optional = true, minValue = 0)
+    protected long sharedWindowCacheMaxBases = SharedWindowCache.DEFAULT_MAX_REFERENCE_BASES;
+
+    @Argument(doc = "Maximum number of features to keep in the cache shared by the tasks on an executor",
+            shortName = "sharedWindowCacheMaxFeatures", fullName = "sharedWindowCacheMaxFeatures", optional = true, minValue = 0)
+    protected long sharedWindowCacheMaxFeatures = SharedWindowCache.DEFAULT_MAX_FEATURES;
+
     private ReadsSparkSource readsSource;
     private SAMFileHeader readsHeader;
+    private SAMFileHeader.SortOrder readInputSortOrder;
     private String readInput;
     private ReferenceMultiSource referenceSource;
     private SAMSequenceDictionary referenceDictionary;
@@ -249,17 +267,44 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
     }
 
     /**
-     * Writes the reads from a {@link JavaRDD} to an output file.
+     * Returns whether the reads input is a coordinate-sorted file whose reads are returned by {@link #getReads()} in
+     * file order, partitioned by their position in the file. The reads of such an input, or reads derived from them
+     * without reordering them or changing their positions, can be written with
+     * {@link #writeReads(JavaSparkContext, String, JavaRDD, boolean)} without sorting them again.
+     *
+     * @return true if the reads input is a coordinate-sorted SAM/BAM/CRAM file
+     */
+    public boolean hasCoordinateSortedReadsInput() {
+        // ADAM reads are not returned in the order of the input
+        return hasReads() && !readInput.endsWith(".adam") && readInputSortOrder == SAMFileHeader.SortOrder.coordinate;
+    }
+
+    /**
+     * Writes the reads from a {@link JavaRDD} to an output file, sorting them in the sort order of the header.
      * @param ctx the JavaSparkContext to write.
      * @param outputFile path to the output bam/cram.
      * @param reads reads to write.
      */
     public void writeReads(final JavaSparkContext ctx, final String outputFile, JavaRDD<GATKRead> reads) {
+        writeReads(ctx, outputFile, reads, true);
+    }
+
+    /**
+     * Writes the reads from a {@link JavaRDD} to an output file.
+     * @param ctx the JavaSparkContext to write.
+     * @param outputFile path to the output bam/cram.
+     * @param reads reads to write.
+     * @param sortReadsToHeader whether to sort the reads in the sort order of the header. If false, the reads must
+     *                          already be sorted and range-partitioned, as after a sort or when they come straight from
+     *                          a coordinate-sorted input (see {@link #hasCoordinateSortedReadsInput()}), which saves a
+     *                          shuffle.
+     */
+    public void writeReads(final JavaSparkContext ctx, final String outputFile, JavaRDD<GATKRead> reads, final boolean sortReadsToHeader) {
         try {
             ReadsSparkSink.writeReads(ctx, outputFile,
                     hasReference() ? referenceArguments.getReferenceFile().getAbsolutePath() : null,
                     reads, readsHeader, shardedOutput ? ReadsWriteFormat.SHARDED : ReadsWriteFormat.SINGLE,
-                    getRecommendedNumReducers());
+                    getRecommendedNumReducers(), sortReadsToHeader, createOutputBamSplittingIndex);
         } catch (IOException e) {
             throw new UserException.CouldNotCreateOutputFile(outputFile,"writing failed", e);
         }
@@ -360,6 +405,26 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
         initializeToolInputs(sparkContext);
         validateToolInputs();
         runTool(sparkContext);
+        logSharedWindowCacheStats();
+    }
+
+    /**
+     * @return the sizes of the {@link SharedWindowCache} that tasks should fetch reference bases and features through,
+     *         or null if the cache is disabled
+     */
+    protected SharedWindowCache.Settings getSharedWindowCacheSettings() {
+        return useSharedWindowCache ? new SharedWindowCache.Settings(sharedWindowCacheMaxBases, sharedWindowCacheMaxFeatures) : null;
+    }
+
+    /**
+     * Logs the hit and miss counts of the {@link SharedWindowCache} of this JVM, which only covers the tasks that ran
+     * in the driver (as when running locally).
+     */
+    private void logSharedWindowCacheStats() {
+        if ( useSharedWindowCache ) {
+            final SharedWindowCache cache = SharedWindowCache.getInstance();
+            logger.info("Shared window cache of the driver: reference blocks " + cache.getReferenceStats() + ", feature blocks " + cache.getFeatureStats());
+        }
     }
 
     /**
@@ -390,6 +455,8 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
         readsHeader = readsSource.getHeader(
                 readInput,
                 hasReference() ?  referenceArguments.getReferenceFile().getAbsolutePath() : null);
+        // tools may change the sort order of the header before writing, so the sort order of the input is kept
+        readInputSortOrder = readsHeader.getSortOrder();
     }
 
     /**
@@ -413,12 +480,15 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
      * Package-private so that engine classes can access it, but concrete tool child classes cannot.
      * May be overridden by traversals that require custom initialization of Feature data sources.
      *
-     * By default, this method initializes the FeatureManager to use the lookahead cache of {@link FeatureDataSource#DEFAULT_QUERY_LOOKAHEAD_BASES} bases.
+     * By default, this method initializes the FeatureManager to use the lookahead cache of {@link FeatureDataSource#DEFAULT_QUERY_LOOKAHEAD_BASES} bases,
+     * and to query features through the {@link SharedWindowCache} shared by the tasks on an executor, unless it is disabled.
      */
     void initializeFeatures() {
         features = new FeatureManager(this);
         if ( features.isEmpty() ) {  // No available sources of Features discovered for this tool
             features = null;
+        } else {
+            features.setSharedWindowCacheSettings(getSharedWindowCacheSettings());
         }
     }
 
@@ -62,11 +62,11 @@ public abstract class IntervalWalkerSpark extends GATKSparkTool {
         JavaRDD<Shard<GATKRead>> shardedReads = SparkSharder.shard(ctx, getReads(), GATKRead.class, sequenceDictionary, intervalShardBoundaries, Integer.MAX_VALUE, shuffle);
         Broadcast<ReferenceMultiSource> bReferenceSource = hasReference() ? ctx.broadcast(getReference()) : null;
         Broadcast<FeatureManager> bFeatureManager = features == null ? null : ctx.broadcast(features);
-        return shardedReads.map(getIntervalsFunction(bReferenceSource, bFeatureManager, sequenceDictionary, intervalShardPadding));
+        return shardedReads.map(getIntervalsFunction(bReferenceSource, getSharedWindowCacheSettings(), bFeatureManager, sequenceDictionary, intervalShardPadding));
     }
 
     private static org.apache.spark.api.java.function.Function<Shard<GATKRead>, IntervalWalkerContext> getIntervalsFunction(
-            Broadcast<ReferenceMultiSource> bReferenceSource, Broadcast<FeatureManager> bFeatureManager,
+            Broadcast<ReferenceMultiSource> bReferenceSource, SharedWindowCache.Settings windowCacheSettings, Broadcast<FeatureManager> bFeatureManager,
             SAMSequenceDictionary sequenceDictionary, int intervalShardPadding) {
         return (org.apache.spark.api.java.function.Function<Shard<GATKRead>, IntervalWalkerContext>) shard -> {
             // get reference bases for this shard (padded)
@@ -84,7 +84,7 @@ public abstract class IntervalWalkerSpark extends GATKSparkTool {
                 }
             }, shard.getInterval());
             ReferenceDataSource reference = bReferenceSource == null ? null :
-                    new ReferenceMemorySource(bReferenceSource.getValue().getReferenceBases(null, paddedInterval), sequenceDictionary);
+                    new ReferenceMemorySource(SharedWindowCache.fetchReferenceBases(windowCacheSettings, bReferenceSource.getValue(), null, paddedInterval, sequenceDictionary), sequenceDictionary);
             FeatureManager features = bFeatureManager == null ? null : bFeatureManager.getValue();
             return new IntervalWalkerContext(interval, readsContext, new ReferenceContext(reference, interval), new FeatureContext(features, interval));
         };
@@ -0,0 +1,36 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import java.io.Serializable;
+
+/**
+ * Reduces the loci of a {@link LocusWalkerSpark} into a summary, such as a count or a histogram, without materializing
+ * a per-locus result. Each partition folds its loci into its own summary, and the summaries of the partitions are then
+ * merged. See {@link LocusWalkerSpark#aggregateLoci}.
+ *
+ * Summaries may be mutated and returned by {@link #add} and {@link #merge}, so primitive arrays make for cheap summaries.
+ *
+ * @param <A> the type of the summary
+ */
+public interface LocusAggregator<A> extends Serializable {
+
+    /**
+     * @return an empty summary, with which each partition starts
+     */
+    A createSummary();
+
+    /**
+     * Adds a locus to a summary.
+     *
+     * @param summary the summary of the loci seen so far
+     * @param context the locus, which must not be retained as it is reused for the next locus
+     * @return the summary including the locus, which may be {@code summary} itself
+     */
+    A add(A summary, LocusWalkerContext context);
+
+    /**
+     * Merges the summaries of two partitions.
+     *
+     * @return the merged summary, which may be one of the arguments
+     */
+    A merge(A summary1, A summary2);
+}
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.engine.spark;
 
+import com.google.common.collect.Iterators;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMSequenceDictionary;
 import org.apache.spark.api.java.JavaRDD;
@@ -24,6 +25,11 @@ import java.util.stream.StreamSupport;
 /**
  * A Spark version of {@link LocusWalker}. Subclasses should implement {@link #processAlignments(JavaRDD, JavaSparkContext)}
  * and operate on the passed in RDD.
+ *
+ * Tools that look at a large number of loci, but only keep a little of each one (such as coverage tools), may also
+ * override {@link #runTool(JavaSparkContext)} to stream the loci of each partition through {@link #mapLociByPartition},
+ * or to reduce them with {@link #aggregateLoci}, which avoid creating a {@link LocusWalkerContext} per locus. They still
+ * implement {@link #processAlignments(JavaRDD, JavaSparkContext)}, for callers that have an RDD of contexts.
  */
 public abstract class LocusWalkerSpark extends GATKSparkTool {
     private static final long serialVersionUID = 1L;
@@ -86,20 +92,60 @@ public abstract class LocusWalkerSpark extends GATKSparkTool {
      */
     public JavaRDD<LocusWalkerContext> getAlignments(JavaSparkContext ctx) {
         SAMSequenceDictionary sequenceDictionary = getBestAvailableSequenceDictionary();
+        Broadcast<ReferenceMultiSource> bReferenceSource = hasReference() ? ctx.broadcast(getReference()) : null;
+        Broadcast<FeatureManager> bFeatureManager = features == null ? null : ctx.broadcast(features);
+        return getShardedReads(ctx, sequenceDictionary).flatMap(getAlignmentsFunction(bReferenceSource, getSharedWindowCacheSettings(), bFeatureManager, sequenceDictionary, getHeaderForReads(), getDownsamplingInfo(), emitEmptyLoci()));
+    }
+
+    /**
+     * Streams the alignments of each partition, with the corresponding reference and features, through a function
+     * for the intervals specified (or all the alignments if no intervals were specified).
+     *
+     * Unlike {@link #getAlignments}, no {@link LocusWalkerContext} is created per locus: the iterator passed to the
+     * function returns the same context, moved to the next locus, on every call to {@code next()}. The function must
+     * therefore not retain the contexts (or their reference and feature contexts), only what it derives from them.
+     * The reference and feature contexts are only created for the loci where they are asked for.
+     *
+     * @param function the function mapping the loci of a partition into results
+     * @return the results of all partitions as a {@link JavaRDD}
+     */
+    public <T> JavaRDD<T> mapLociByPartition(JavaSparkContext ctx, FlatMapFunction<Iterator<LocusWalkerContext>, T> function) {
+        SAMSequenceDictionary sequenceDictionary = getBestAvailableSequenceDictionary();
+        Broadcast<ReferenceMultiSource> bReferenceSource = hasReference() ? ctx.broadcast(getReference()) : null;
+        Broadcast<FeatureManager> bFeatureManager = features == null ? null : ctx.broadcast(features);
+        return getShardedReads(ctx, sequenceDictionary).mapPartitions(getLociByPartitionFunction(bReferenceSource, getSharedWindowCacheSettings(), bFeatureManager, sequenceDictionary, getHeaderForReads(), getDownsamplingInfo(), emitEmptyLoci(), function));
+    }
+
+    /**
+     * Reduces the loci (see {@link #mapLociByPartition}) into a summary. Each partition folds its loci into a single
+     * summary, so only one summary per partition is sent back to the driver, where they are merged.
+     *
+     * @param aggregator the aggregator adding the loci to the summaries, and merging the summaries of the partitions
+     * @return the summary of all the loci
+     */
+    public <A> A aggregateLoci(JavaSparkContext ctx, LocusAggregator<A> aggregator) {
+        return mapLociByPartition(ctx, (FlatMapFunction<Iterator<LocusWalkerContext>, A>) loci -> {
+            A summary = aggregator.createSummary();
+            while (loci.hasNext()) {
+                summary = aggregator.add(summary, loci.next());
+            }
+            return Collections.singletonList(summary).iterator();
+        }).fold(aggregator.createSummary(), aggregator::merge);
+    }
+
+    private JavaRDD<Shard<GATKRead>> getShardedReads(JavaSparkContext ctx, SAMSequenceDictionary sequenceDictionary) {
         List<SimpleInterval> intervals = hasIntervals() ? getIntervals() : IntervalUtils.getAllIntervalsForReference(sequenceDictionary);
         final List<ShardBoundary> intervalShards = intervals.stream()
                 .flatMap(interval -> Shard.divideIntervalIntoShards(interval, readShardSize, readShardPadding, sequenceDictionary).stream())
                 .collect(Collectors.toList());
         int maxLocatableSize = Math.min(readShardSize, readShardPadding);
-        JavaRDD<Shard<GATKRead>> shardedReads = SparkSharder.shard(ctx, getReads(), GATKRead.class, sequenceDictionary, intervalShards, maxLocatableSize, shuffle);
-        Broadcast<ReferenceMultiSource> bReferenceSource = hasReference() ? ctx.broadcast(getReference()) : null;
-        Broadcast<FeatureManager> bFeatureManager = features == null ? null : ctx.broadcast(features);
-        return shardedReads.flatMap(getAlignmentsFunction(bReferenceSource, bFeatureManager, sequenceDictionary, getHeaderForReads(), getDownsamplingInfo(), emitEmptyLoci()));
+        return SparkSharder.shard(ctx, getReads(), GATKRead.class, sequenceDictionary, intervalShards, maxLocatableSize, shuffle);
     }
 
     /**
      * Return a function that maps a {@link Shard} of reads into a tuple of alignments and their corresponding reference and features.
      * @param bReferenceSource the reference source broadcast
+     * @param windowCacheSettings the sizes of the {@link SharedWindowCache} to fetch reference bases through, or null to bypass it
      * @param bFeatureManager the feature manager broadcast
      * @param sequenceDictionary the sequence dictionary for the reads
      * @param header the reads header
@@ -107,28 +153,13 @@ public abstract class LocusWalkerSpark extends GATKSparkTool {
      * @return a function that maps a {@link Shard} of reads into a tuple of alignments and their corresponding reference and features.
      */
     private static FlatMapFunction<Shard<GATKRead>, LocusWalkerContext> getAlignmentsFunction(
-            Broadcast<ReferenceMultiSource> bReferenceSource, Broadcast<FeatureManager> bFeatureManager,
+            Broadcast<ReferenceMultiSource> bReferenceSource, SharedWindowCache.Settings windowCacheSettings, Broadcast<FeatureManager> bFeatureManager,
             SAMSequenceDictionary sequenceDictionary, SAMFileHeader header, LIBSDownsamplingInfo downsamplingInfo, boolean isEmitEmptyLoci) {
         return (FlatMapFunction<Shard<GATKRead>, LocusWalkerContext>) shardedRead -> {
-            SimpleInterval interval = shardedRead.getInterval();
-            SimpleInterval paddedInterval = shardedRead.getPaddedInterval();
-            Iterator<GATKRead> readIterator = shardedRead.iterator();
-            ReferenceDataSource reference = bReferenceSource == null ? null :
-                    new ReferenceMemorySource(bReferenceSource.getValue().getReferenceBases(null, paddedInterval), sequenceDictionary);
+            ReferenceDataSource reference = getReference(bReferenceSource, windowCacheSettings, shardedRead, sequenceDictionary);
             FeatureManager fm = bFeatureManager == null ? null : bFeatureManager.getValue();
 
-            final SAMSequenceDictionary referenceDictionary = reference == null? null : reference.getSequenceDictionary();
-
-            final AlignmentContextIteratorBuilder alignmentContextIteratorBuilder = new AlignmentContextIteratorBuilder();
-            alignmentContextIteratorBuilder.setDownsamplingInfo(downsamplingInfo);
-            alignmentContextIteratorBuilder.setEmitEmptyLoci(isEmitEmptyLoci);
-            alignmentContextIteratorBuilder.setIncludeDeletions(true);
-            alignmentContextIteratorBuilder.setKeepUniqueReadListInLibs(false);
-            alignmentContextIteratorBuilder.setIncludeNs(false);
-
-            final Iterator<AlignmentContext> alignmentContextIterator = alignmentContextIteratorBuilder.build(
-                    readIterator, header, Collections.singletonList(interval), sequenceDictionary,
-                    reference != null);
+            final Iterator<AlignmentContext> alignmentContextIterator = getAlignmentContextIterator(shardedRead, reference, sequenceDictionary, header, downsamplingInfo, isEmitEmptyLoci);
 
             return StreamSupport.stream(Spliterators.spliteratorUnknownSize(alignmentContextIterator, 0), false).map(alignmentContext -> {
                 final SimpleInterval alignmentInterval = new SimpleInterval(alignmentContext);
@@ -137,6 +168,45 @@ public abstract class LocusWalkerSpark extends GATKSparkTool {
         };
     }
 
+    /**
+     * Return a function that streams the alignments of all the {@link Shard}s of reads in a partition, through a
+     * single {@link ReusableLocusWalkerContext}, into a function.
+     */
+    private static <T> FlatMapFunction<Iterator<Shard<GATKRead>>, T> getLociByPartitionFunction(
+            Broadcast<ReferenceMultiSource> bReferenceSource, SharedWindowCache.Settings windowCacheSettings, Broadcast<FeatureManager> bFeatureManager,
+            SAMSequenceDictionary sequenceDictionary, SAMFileHeader header, LIBSDownsamplingInfo downsamplingInfo, boolean isEmitEmptyLoci,
+            FlatMapFunction<Iterator<LocusWalkerContext>, T> function) {
+        return (FlatMapFunction<Iterator<Shard<GATKRead>>, T>) shardedReads -> {
+            final ReusableLocusWalkerContext context = new ReusableLocusWalkerContext(bFeatureManager == null ? null : bFeatureManager.getValue());
+            final Iterator<LocusWalkerContext> loci = Iterators.concat(Iterators.transform(shardedReads, shardedRead -> {
+                final ReferenceDataSource reference = getReference(bReferenceSource, windowCacheSettings, shardedRead, sequenceDictionary);
+                return Iterators.transform(
+                        getAlignmentContextIterator(shardedRead, reference, sequenceDictionary, header, downsamplingInfo, isEmitEmptyLoci),
+                        alignmentContext -> context.moveTo(reference, alignmentContext));
+            }));
+            return function.call(loci);
+        };
+    }
+
+    private static ReferenceDataSource getReference(Broadcast<ReferenceMultiSource> bReferenceSource, SharedWindowCache.Settings windowCacheSettings, Shard<GATKRead> shardedRead, SAMSequenceDictionary sequenceDictionary) {
+        return bReferenceSource == null ? null :
+                new ReferenceMemorySource(SharedWindowCache.fetchReferenceBases(windowCacheSettings, bReferenceSource.getValue(), null, shardedRead.getPaddedInterval(), sequenceDictionary), sequenceDictionary);
+    }
+
+    private static Iterator<AlignmentContext> getAlignmentContextIterator(Shard<GATKRead> shardedRead, ReferenceDataSource reference,
+            SAMSequenceDictionary sequenceDictionary, SAMFileHeader header, LIBSDownsamplingInfo downsamplingInfo, boolean isEmitEmptyLoci) {
+        final AlignmentContextIteratorBuilder alignmentContextIteratorBuilder = new AlignmentContextIteratorBuilder();
+        alignmentContextIteratorBuilder.setDownsamplingInfo(downsamplingInfo);
+        alignmentContextIteratorBuilder.setEmitEmptyLoci(isEmitEmptyLoci);
+        alignmentContextIteratorBuilder.setIncludeDeletions(true);
+        alignmentContextIteratorBuilder.setKeepUniqueReadListInLibs(false);
+        alignmentContextIteratorBuilder.setIncludeNs(false);
+
+        return alignmentContextIteratorBuilder.build(
+                shardedRead.iterator(), header, Collections.singletonList(shardedRead.getInterval()), sequenceDictionary,
+                reference != null);
+    }
+
     @Override
     protected void runTool(JavaSparkContext ctx) {
         processAlignments(getAlignments(ctx), ctx);
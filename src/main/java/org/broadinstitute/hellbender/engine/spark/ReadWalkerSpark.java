@@ -67,17 +67,17 @@ public abstract class ReadWalkerSpark extends GATKSparkTool {
         JavaRDD<Shard<GATKRead>> shardedReads = SparkSharder.shard(ctx, getReads(), GATKRead.class, sequenceDictionary, intervalShards, readShardSize, shuffle);
         Broadcast<ReferenceMultiSource> bReferenceSource = hasReference() ? ctx.broadcast(getReference()) : null;
         Broadcast<FeatureManager> bFeatureManager = features == null ? null : ctx.broadcast(features);
-        return shardedReads.flatMap(getReadsFunction(bReferenceSource, bFeatureManager, sequenceDictionary, readShardPadding));
+        return shardedReads.flatMap(getReadsFunction(bReferenceSource, getSharedWindowCacheSettings(), bFeatureManager, sequenceDictionary, readShardPadding));
     }
 
     private static FlatMapFunction<Shard<GATKRead>, ReadWalkerContext> getReadsFunction(
-            Broadcast<ReferenceMultiSource> bReferenceSource, Broadcast<FeatureManager> bFeatureManager,
+            Broadcast<ReferenceMultiSource> bReferenceSource, SharedWindowCache.Settings windowCacheSettings, Broadcast<FeatureManager> bFeatureManager,
             SAMSequenceDictionary sequenceDictionary, int readShardPadding) {
         return (FlatMapFunction<Shard<GATKRead>, ReadWalkerContext>) shard -> {
             // get reference bases for this shard (padded)
             SimpleInterval paddedInterval = shard.getInterval().expandWithinContig(readShardPadding, sequenceDictionary);
             ReferenceDataSource reference = bReferenceSource == null ? null :
-                    new ReferenceMemorySource(bReferenceSource.getValue().getReferenceBases(null, paddedInterval), sequenceDictionary);
+                    new ReferenceMemorySource(SharedWindowCache.fetchReferenceBases(windowCacheSettings, bReferenceSource.getValue(), null, paddedInterval, sequenceDictionary), sequenceDictionary);
             FeatureManager features = bFeatureManager == null ? null : bFeatureManager.getValue();
 
             return StreamSupport.stream(shard.spliterator(), false)
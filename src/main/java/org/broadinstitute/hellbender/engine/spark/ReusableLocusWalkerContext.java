@@ -0,0 +1,72 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.FeatureManager;
+import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+
+/**
+ * A {@link LocusWalkerContext} that is moved from locus to locus, rather than created anew for each one. The
+ * {@link ReferenceContext} and {@link FeatureContext} of a locus are only created if they are asked for, so tools that
+ * only look at the pileup don't pay for them.
+ */
+final class ReusableLocusWalkerContext extends LocusWalkerContext {
+    private final FeatureManager featureManager;
+
+    private ReferenceDataSource reference;
+    private AlignmentContext alignmentContext;
+    private SimpleInterval interval;
+    private ReferenceContext referenceContext;
+    private FeatureContext featureContext;
+
+    ReusableLocusWalkerContext(final FeatureManager featureManager) {
+        super(null, null, null);
+        this.featureManager = featureManager;
+    }
+
+    /**
+     * Moves this context to a new locus.
+     *
+     * @param reference the reference of the locus (may be null if there is no reference)
+     * @param alignmentContext the alignments at the locus
+     * @return this context
+     */
+    ReusableLocusWalkerContext moveTo(final ReferenceDataSource reference, final AlignmentContext alignmentContext) {
+        this.reference = reference;
+        this.alignmentContext = alignmentContext;
+        interval = null;
+        referenceContext = null;
+        featureContext = null;
+        return this;
+    }
+
+    @Override
+    public AlignmentContext getAlignmentContext() {
+        return alignmentContext;
+    }
+
+    @Override
+    public ReferenceContext getReferenceContext() {
+        if ( referenceContext == null ) {
+            referenceContext = new ReferenceContext(reference, getInterval());
+        }
+        return referenceContext;
+    }
+
+    @Override
+    public FeatureContext getFeatureContext() {
+        if ( featureContext == null ) {
+            featureContext = new FeatureContext(featureManager, getInterval());
+        }
+        return featureContext;
+    }
+
+    private SimpleInterval getInterval() {
+        if ( interval == null ) {
+            interval = new SimpleInterval(alignmentContext);
+        }
+        return interval;
+    }
+}
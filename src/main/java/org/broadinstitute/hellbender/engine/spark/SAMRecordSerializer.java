@@ -6,12 +6,14 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import htsjdk.samtools.*;
 
+import java.util.Objects;
+
 /**
- * Efficient serializer for SAMRecords that uses SAMRecordSparkCodec for encoding/decoding.
+ * Efficient serializer for SAMRecords that uses CompactSAMRecordSparkCodec for encoding/decoding.
  * Assumes that the SAMRecords are headerless (and clears their header if they're not).
  */
 public final class SAMRecordSerializer extends Serializer<SAMRecord> {
-    private SAMRecordSparkCodec lazyCodec = new SAMRecordSparkCodec();
+    private CompactSAMRecordSparkCodec lazyCodec = new CompactSAMRecordSparkCodec();
 
     @Override
     public void write(Kryo kryo, Output output, SAMRecord record) {
@@ -19,9 +21,12 @@ public final class SAMRecordSerializer extends Serializer<SAMRecord> {
         // measure in case it's not, set the header to null explicitly.
         record.setHeaderStrict(null);
 
-        // serialize reference names to avoid having to have a header at read time
-        output.writeString(record.getReferenceName());
-        output.writeString(record.getMateReferenceName());
+        // serialize reference names to avoid having to have a header at read time;
+        // the mate reference name is written as null when it is the same as the reference name
+        final String referenceName = record.getReferenceName();
+        final String mateReferenceName = record.getMateReferenceName();
+        output.writeString(referenceName);
+        output.writeString(Objects.equals(referenceName, mateReferenceName) ? null : mateReferenceName);
         lazyCodec.setOutputStream(output);
         lazyCodec.encode(record);
 
@@ -32,7 +37,8 @@ public final class SAMRecordSerializer extends Serializer<SAMRecord> {
     @Override
     public SAMRecord read(Kryo kryo, Input input, Class<SAMRecord> type) {
         final String referenceName = input.readString();
-        final String mateReferenceName = input.readString();
+        final String mateReferenceNameOrNull = input.readString();
+        final String mateReferenceName = mateReferenceNameOrNull == null ? referenceName : mateReferenceNameOrNull;
         lazyCodec.setInputStream(input);
         final SAMRecord record = lazyCodec.decode();
 
@@ -0,0 +1,58 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import org.apache.spark.Partitioner;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * A Spark Partitioner for shards, keyed by the (Integer) index of the shard, that spreads the shards over the
+ * partitions so that each partition has about the same total cost.
+ *
+ * Shards are assigned in decreasing order of cost, each to the partition with the lowest total cost so far
+ * (the "longest processing time first" rule). This puts the most costly shards into different partitions, and fills
+ * the remaining capacity of the partitions with cheap shards. Like
+ * {@link org.broadinstitute.hellbender.tools.spark.sv.utils.ComplexityPartitioner}, it is meant for stages where
+ * a few tasks would otherwise take much longer than the rest.
+ */
+public final class ShardCostPartitioner extends Partitioner {
+    private static final long serialVersionUID = 1L;
+
+    private final int numPartitions;
+    private final int[] partitions;
+
+    /**
+     * @param costs the estimated cost of each shard (in any unit), indexed by shard
+     * @param numPartitions the number of partitions to spread the shards over
+     */
+    public ShardCostPartitioner( final long[] costs, final int numPartitions ) {
+        Utils.nonNull(costs);
+        Utils.validateArg(numPartitions > 0, "The number of partitions must be positive");
+        this.numPartitions = numPartitions;
+
+        final Integer[] shards = new Integer[costs.length];
+        for ( int idx = 0; idx != shards.length; ++idx ) {
+            shards[idx] = idx;
+        }
+        // by decreasing cost, and by index for shards of equal cost so that the assignment is deterministic
+        Arrays.sort(shards, (a, b) -> costs[a] != costs[b] ? Long.compare(costs[b], costs[a]) : Integer.compare(a, b));
+
+        final long[] loads = new long[numPartitions];
+        final PriorityQueue<Integer> leastLoaded = new PriorityQueue<>(numPartitions,
+                (a, b) -> loads[a] != loads[b] ? Long.compare(loads[a], loads[b]) : Integer.compare(a, b));
+        for ( int partition = 0; partition != numPartitions; ++partition ) {
+            leastLoaded.add(partition);
+        }
+        partitions = new int[costs.length];
+        for ( final int shard : shards ) {
+            final int partition = leastLoaded.poll();
+            partitions[shard] = partition;
+            loads[partition] += costs[shard];
+            leastLoaded.add(partition);
+        }
+    }
+
+    @Override public int numPartitions() { return numPartitions; }
+    @Override public int getPartition( final Object key ) { return partitions[(Integer)key]; }
+}
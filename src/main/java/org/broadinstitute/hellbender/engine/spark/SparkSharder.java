@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.engine.spark;
 
 import com.google.common.base.Function;
 import com.google.common.collect.*;
+import com.google.common.primitives.Longs;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.util.Locatable;
@@ -107,6 +108,89 @@ public class SparkSharder {
         });
     }
 
+    /**
+     * Create an RDD of {@link Shard} from an RDD of {@link Locatable}, using a shuffle that balances the cost of
+     * processing the shards across partitions.
+     *
+     * The cost of a shard is estimated by the number of locatables that overlap it (including overlapping only padding),
+     * which are counted in a first pass over the locatables. Shards that overlap more than {@code maxLocatablesPerShard}
+     * locatables are split into smaller shards (of at least {@code minShardSize} bases), and the shards are then
+     * spread over the partitions with a {@link ShardCostPartitioner}, so that the few shards over high-depth regions do
+     * not hold up the whole stage. Unlike with {@link #shard}, the shards in a partition are not in coordinate order.
+     * @param ctx the Spark Context
+     * @param locatables the RDD of {@link Locatable}, which need not be sorted
+     * @param sequenceDictionary the sequence dictionary to use to find contig lengths
+     * @param intervals the {@link ShardBoundary} objects to create shards for
+     * @param padding the padding of the shards, in bases, which is also used for the shards that are split
+     * @param maxLocatablesPerShard shards that overlap more locatables than this are split
+     * @param minShardSize the minimum size of the shards that shards are split into, in bases
+     * @param <L> the {@link Locatable} type
+     * @return an RDD of {@link Shard} of overlapping {@link Locatable} objects (including overlapping only padding)
+     */
+    public static <L extends Locatable> JavaRDD<Shard<L>> shardBalancedByCount(JavaSparkContext ctx, JavaRDD<L> locatables,
+                                                                               SAMSequenceDictionary sequenceDictionary, List<ShardBoundary> intervals,
+                                                                               int padding, int maxLocatablesPerShard, int minShardSize) {
+        Utils.validateArg(maxLocatablesPerShard > 0, "The maximum number of locatables per shard must be positive");
+        Utils.validateArg(minShardSize > 0, "The minimum shard size must be positive");
+
+        long[] counts = countOverlapping(ctx, locatables, intervals);
+        List<ShardBoundary> balancedIntervals = new ArrayList<>(intervals.size());
+        List<Long> costs = new ArrayList<>(intervals.size());
+        for (int i = 0; i < intervals.size(); i++) {
+            ShardBoundary interval = intervals.get(i);
+            long numPieces = Math.min((counts[i] + maxLocatablesPerShard - 1) / maxLocatablesPerShard, interval.getInterval().size() / minShardSize);
+            if (numPieces <= 1) {
+                balancedIntervals.add(interval);
+                costs.add(counts[i]);
+                continue;
+            }
+            // the locatables are assumed to be spread evenly over the shard
+            int pieceSize = (int) ((interval.getInterval().size() + numPieces - 1) / numPieces);
+            List<ShardBoundary> pieces = Shard.divideIntervalIntoShards(interval.getInterval(), pieceSize, padding, sequenceDictionary);
+            for (ShardBoundary piece : pieces) {
+                balancedIntervals.add(piece);
+                costs.add(counts[i] / pieces.size());
+            }
+        }
+
+        Broadcast<List<ShardBoundary>> intervalsBroadcast = ctx.broadcast(balancedIntervals);
+        Broadcast<OverlapDetector<Integer>> overlapDetectorBroadcast = ctx.broadcast(createPaddedIntervalOverlapDetector(balancedIntervals));
+        ShardCostPartitioner partitioner = new ShardCostPartitioner(Longs.toArray(costs), locatables.getNumPartitions());
+        JavaPairRDD<Integer, L> intervalsToLocatables = locatables.flatMapToPair(locatable ->
+                overlapDetectorBroadcast.getValue().getOverlaps(locatable).stream().map(index -> new Tuple2<>(index, locatable)).iterator());
+        return intervalsToLocatables.groupByKey(partitioner)
+                .map((org.apache.spark.api.java.function.Function<Tuple2<Integer, Iterable<L>>, Shard<L>>) value ->
+                        new ShardBoundaryShard<>(intervalsBroadcast.getValue().get(value._1()), value._2()));
+    }
+
+    /**
+     * Count the locatables that overlap each of the given intervals (including overlapping only padding), in one pass
+     * over the locatables.
+     * @param ctx the Spark Context
+     * @param locatables the RDD of {@link Locatable}, which need not be sorted
+     * @param intervals the {@link ShardBoundary} objects to count the locatables of
+     * @param <L> the {@link Locatable} type
+     * @return the number of locatables that overlap each interval, in the order of the intervals
+     */
+    public static <L extends Locatable> long[] countOverlapping(JavaSparkContext ctx, JavaRDD<L> locatables, List<ShardBoundary> intervals) {
+        Broadcast<OverlapDetector<Integer>> overlapDetectorBroadcast = ctx.broadcast(createPaddedIntervalOverlapDetector(intervals));
+        Map<Integer, Long> countsByInterval = locatables
+                .flatMap(locatable -> overlapDetectorBroadcast.getValue().getOverlaps(locatable).iterator())
+                .countByValue();
+        long[] counts = new long[intervals.size()];
+        countsByInterval.forEach((index, count) -> counts[index] = count);
+        return counts;
+    }
+
+    // finds the indices of the intervals whose padded intervals overlap a locatable
+    private static OverlapDetector<Integer> createPaddedIntervalOverlapDetector(List<ShardBoundary> intervals) {
+        OverlapDetector<Integer> overlapDetector = new OverlapDetector<>(0, 0);
+        for (int i = 0; i < intervals.size(); i++) {
+            overlapDetector.addLhs(i, intervals.get(i).getPaddedInterval());
+        }
+        return overlapDetector;
+    }
+
     /**
      * Join an RDD of locatables with a set of intervals, and apply a function to process the locatables that overlap each interval.
      * @param ctx the Spark Context
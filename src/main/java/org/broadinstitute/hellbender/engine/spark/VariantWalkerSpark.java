@@ -129,18 +129,19 @@ public abstract class VariantWalkerSpark extends GATKSparkTool {
         JavaRDD<Shard<VariantContext>> shardedVariants = SparkSharder.shard(ctx, variants, VariantContext.class, sequenceDictionary, intervalShards, variantShardSize, shuffle);
         Broadcast<ReferenceMultiSource> bReferenceSource = hasReference() ? ctx.broadcast(getReference()) : null;
         Broadcast<FeatureManager> bFeatureManager = features == null ? null : ctx.broadcast(features);
-        return shardedVariants.flatMap(getVariantsFunction(bReferenceSource, bFeatureManager, sequenceDictionary, variantShardPadding));
+        return shardedVariants.flatMap(getVariantsFunction(bReferenceSource, getSharedWindowCacheSettings(), bFeatureManager, sequenceDictionary, variantShardPadding));
     }
 
     private static FlatMapFunction<Shard<VariantContext>, VariantWalkerContext> getVariantsFunction(
             final Broadcast<ReferenceMultiSource> bReferenceSource,
+            final SharedWindowCache.Settings windowCacheSettings,
             final Broadcast<FeatureManager> bFeatureManager,
             final SAMSequenceDictionary sequenceDictionary, final int variantShardPadding) {
         return (FlatMapFunction<Shard<VariantContext>, VariantWalkerContext>) shard -> {
             // get reference bases for this shard (padded)
             SimpleInterval paddedInterval = shard.getInterval().expandWithinContig(variantShardPadding, sequenceDictionary);
             ReferenceDataSource reference = bReferenceSource == null ? null :
-                    new ReferenceMemorySource(bReferenceSource.getValue().getReferenceBases(null, paddedInterval), sequenceDictionary);
+                    new ReferenceMemorySource(SharedWindowCache.fetchReferenceBases(windowCacheSettings, bReferenceSource.getValue(), null, paddedInterval, sequenceDictionary), sequenceDictionary);
             FeatureManager features = bFeatureManager == null ? null : bFeatureManager.getValue();
 
             return StreamSupport.stream(shard.spliterator(), false)
@@ -0,0 +1,188 @@
+package org.broadinstitute.hellbender.engine.spark.datasources;
+
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.GenomicIndexUtil;
+import htsjdk.samtools.IndexingBAMRecordWriter;
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.samtools.util.RuntimeEOFException;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Makes the BAM index (.bai) of a coordinate-sorted BAM file that is the concatenation of a header, of headerless parts
+ * and of a terminator block, from the indices of the parts written by {@link IndexingBAMRecordWriter}.
+ *
+ * The indices of the parts are added in the order of the parts. The chunks of each bin are shifted to the position of
+ * their part in the file (and chunks that htsjdk's indexer would have combined across the boundary of two parts are
+ * combined), the linear indices are combined by taking the smallest offset for each window, and the record counts are
+ * summed, so that the result is the index htsjdk would have made by reading the whole file.
+ */
+public final class BAMIndexMerger {
+    private static final byte[] BAI_MAGIC = {'B', 'A', 'I', 1};
+    private static final int METADATA_BIN = GenomicIndexUtil.MAX_BINS;
+
+    // until the index is written, the offsets are those of a file with the parts preceded by PART_INDEX_OFFSET bytes
+    // (as in the indices of the parts), so that 0 still means "no record"
+    private final ReferenceIndex[] references;
+    private long noCoordinateRecords = 0;
+    private long partsLength = 0;
+
+    private static final class ReferenceIndex {
+        private final SortedMap<Integer, List<Chunk>> bins = new TreeMap<>();
+        private final LongArrayList linearIndex = new LongArrayList();
+        private long firstOffset = -1;
+        private long lastOffset = 0;
+        private long alignedRecords = 0;
+        private long unalignedRecords = 0;
+
+        private void addChunk(final int bin, final Chunk chunk) {
+            final List<Chunk> chunks = bins.computeIfAbsent(bin, b -> new ArrayList<>());
+            final Chunk lastChunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (lastChunk != null && BlockCompressedFilePointerUtil.areInSameOrAdjacentBlocks(lastChunk.getChunkEnd(), chunk.getChunkStart())) {
+                chunks.set(chunks.size() - 1, new Chunk(lastChunk.getChunkStart(), chunk.getChunkEnd()));
+            } else {
+                chunks.add(chunk);
+            }
+        }
+
+        private void addLinearIndexEntry(final int window, final long offset) {
+            while (linearIndex.size() <= window) {
+                linearIndex.add(0);
+            }
+            if (offset != 0 && (linearIndex.getLong(window) == 0 || offset < linearIndex.getLong(window))) {
+                linearIndex.set(window, offset);
+            }
+        }
+    }
+
+    /**
+     * @param numReferences the number of references in the sequence dictionary of the BAM file
+     */
+    public BAMIndexMerger(final int numReferences) {
+        Utils.validateArg(numReferences >= 0, "The number of references must not be negative");
+        this.references = new ReferenceIndex[numReferences];
+    }
+
+    /**
+     * Adds the index of the next part of the file.
+     * @param partIndex the BAM index of the part, as written by {@link IndexingBAMRecordWriter}
+     * @param partLength the length of the part, in bytes
+     */
+    public void addPart(final InputStream partIndex, final long partLength) {
+        Utils.nonNull(partIndex);
+        Utils.validateArg(partLength >= 0, "The length of a part must not be negative");
+        final BinaryCodec codec = new BinaryCodec(partIndex);
+        final byte[] magic = new byte[BAI_MAGIC.length];
+        codec.readBytes(magic);
+        if (!Arrays.equals(magic, BAI_MAGIC)) {
+            throw new GATKException("Invalid BAM index of a part: bad magic number");
+        }
+        final int numReferences = codec.readInt();
+        if (numReferences != references.length) {
+            throw new GATKException("The BAM index of a part has " + numReferences + " references instead of " + references.length);
+        }
+        final long shift = partsLength << 16;
+        for (int r = 0; r < numReferences; r++) {
+            final int numBins = codec.readInt();
+            if (numBins > 0 && references[r] == null) {
+                references[r] = new ReferenceIndex();
+            }
+            final ReferenceIndex reference = references[r];
+            for (int b = 0; b < numBins; b++) {
+                final int bin = codec.readInt();
+                final int numChunks = codec.readInt();
+                if (bin == METADATA_BIN) {
+                    final long firstOffset = codec.readLong() + shift;
+                    final long lastOffset = codec.readLong() + shift;
+                    reference.firstOffset = reference.firstOffset == -1 ? firstOffset : Math.min(reference.firstOffset, firstOffset);
+                    reference.lastOffset = Math.max(reference.lastOffset, lastOffset);
+                    reference.alignedRecords += codec.readLong();
+                    reference.unalignedRecords += codec.readLong();
+                    continue;
+                }
+                for (int c = 0; c < numChunks; c++) {
+                    final long chunkStart = codec.readLong() + shift;
+                    final long chunkEnd = codec.readLong() + shift;
+                    reference.addChunk(bin, new Chunk(chunkStart, chunkEnd));
+                }
+            }
+            final int numWindows = codec.readInt();
+            for (int w = 0; w < numWindows; w++) {
+                final long offset = codec.readLong();
+                if (reference != null) {
+                    reference.addLinearIndexEntry(w, offset == 0 ? 0 : offset + shift);
+                }
+            }
+        }
+        // the count of unplaced unmapped records is optional
+        try {
+            noCoordinateRecords += codec.readLong();
+        } catch (final RuntimeEOFException e) {
+            // no count
+        }
+        partsLength += partLength;
+    }
+
+    /**
+     * @return the total length of the parts added so far
+     */
+    public long getPartsLength() {
+        return partsLength;
+    }
+
+    /**
+     * Writes the index of the whole file.
+     * @param out the stream to write the index to, which is not closed
+     * @param headerLength the length of the header of the file, that is, the position of the first part in the file
+     */
+    public void writeIndex(final OutputStream out, final long headerLength) {
+        Utils.nonNull(out);
+        Utils.validateArg(headerLength >= IndexingBAMRecordWriter.PART_INDEX_OFFSET, "The header is too short");
+        final long shift = (headerLength - IndexingBAMRecordWriter.PART_INDEX_OFFSET) << 16;
+        final BinaryCodec codec = new BinaryCodec(out);
+        codec.writeBytes(BAI_MAGIC);
+        codec.writeInt(references.length);
+        for (final ReferenceIndex reference : references) {
+            if (reference == null) {
+                codec.writeInt(0);
+                codec.writeInt(0);
+                continue;
+            }
+            codec.writeInt(reference.bins.size() + 1);
+            for (final SortedMap.Entry<Integer, List<Chunk>> bin : reference.bins.entrySet()) {
+                codec.writeInt(bin.getKey());
+                codec.writeInt(bin.getValue().size());
+                for (final Chunk chunk : bin.getValue()) {
+                    codec.writeLong(chunk.getChunkStart() + shift);
+                    codec.writeLong(chunk.getChunkEnd() + shift);
+                }
+            }
+            codec.writeInt(METADATA_BIN);
+            codec.writeInt(2);
+            codec.writeLong(reference.firstOffset + shift);
+            codec.writeLong(reference.lastOffset + shift);
+            codec.writeLong(reference.alignedRecords);
+            codec.writeLong(reference.unalignedRecords);
+
+            // windows without records take the offset of the previous window, as in htsjdk
+            codec.writeInt(reference.linearIndex.size());
+            long previousOffset = 0;
+            for (int w = 0; w < reference.linearIndex.size(); w++) {
+                final long offset = reference.linearIndex.getLong(w);
+                previousOffset = offset == 0 ? previousOffset : offset + shift;
+                codec.writeLong(previousOffset);
+            }
+        }
+        codec.writeLong(noCoordinateRecords);
+    }
+}
@@ -1,9 +1,12 @@
 package org.broadinstitute.hellbender.engine.spark.datasources;
 
+import htsjdk.samtools.BAMIndex;
 import htsjdk.samtools.BamFileIoUtils;
+import htsjdk.samtools.IndexingBAMRecordWriter;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.cram.build.CramIO;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
@@ -18,6 +21,7 @@ import org.bdgenomics.adam.models.RecordGroupDictionary;
 import org.bdgenomics.adam.models.SequenceDictionary;
 import org.bdgenomics.formats.avro.AlignmentRecord;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -29,9 +33,17 @@ import org.seqdoop.hadoop_bam.*;
 import org.seqdoop.hadoop_bam.util.SAMFileMerger;
 import scala.Tuple2;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * ReadsSparkSink writes GATKReads to a file. This code lifts from the HadoopGenomics/Hadoop-BAM
@@ -39,6 +51,9 @@ import java.util.Comparator;
  */
 public final class ReadsSparkSink {
 
+    // the names of the part files that SAMFileMerger merges (but not their splitting indices)
+    private static final Pattern PART_FILE_NAME = Pattern.compile("part-[mr]-[0-9]{5}.*(?<!" + Pattern.quote(SplittingBAMIndexer.OUTPUT_FILE_EXTENSION) + ")");
+
     // Output format class for writing BAM files through saveAsNewAPIHadoopFile. Must be public.
     public static class SparkBAMOutputFormat extends KeyIgnoringBAMOutputFormat<NullWritable> {
         public static SAMFileHeader bamHeader = null;
@@ -72,6 +87,14 @@ public final class ReadsSparkSink {
         }
     }
 
+    // Output format class for writing the parts of a single coordinate-sorted BAM file together with their BAM indices.
+    public static class SparkHeaderlessIndexingBAMOutputFormat extends SparkHeaderlessBAMOutputFormat {
+        @Override
+        public RecordWriter<NullWritable, SAMRecordWritable> getRecordWriter(TaskAttemptContext ctx) throws IOException {
+            return IndexingBAMRecordWriter.create(getDefaultWorkFile(ctx, BamFileIoUtils.BAM_FILE_EXTENSION), bamHeader, ctx);
+        }
+    }
+
     // Output format class for writing CRAM files through saveAsNewAPIHadoopFile. Must be public.
     public static class SparkCRAMOutputFormat extends KeyIgnoringCRAMOutputFormat<NullWritable> {
         public static SAMFileHeader bamHeader = null;
@@ -134,6 +157,64 @@ public final class ReadsSparkSink {
     public static void writeReads(
             final JavaSparkContext ctx, final String outputFile, final String referenceFile, final JavaRDD<GATKRead> reads,
             final SAMFileHeader header, ReadsWriteFormat format, final int numReducers) throws IOException {
+        writeReads(ctx, outputFile, referenceFile, reads, header, format, numReducers, true);
+    }
+
+    /**
+     * writeReads writes rddReads to outputFile with header as the file header.
+     *
+     * A single coordinate-sorted BAM file is written together with its BAM index, which is merged from the indices that
+     * the executors make of the parts they write.
+     *
+     * @param ctx the JavaSparkContext to write.
+     * @param outputFile path to the output bam.
+     * @param referenceFile path to the reference. required for cram output, otherwise may be null.
+     * @param reads reads to write.
+     * @param header the header to put at the top of the files
+     * @param format should the output be a single file, sharded, ADAM, etc.
+     * @param numReducers the number of reducers to use when writing a single file. A value of zero indicates that the default
+     *                    should be used.
+     * @param sortReadsToHeader whether to sort the reads in the sort order of the header when writing a single file. If
+     *                          false, the reads must already be sorted, and partitioned so that all the reads in partition i
+     *                          are less than those in partition i+1 (as after a sort, or when the reads are read from a
+     *                          sorted file and not reordered), which saves a shuffle. For coordinate-sorted output, the
+     *                          positions of the reads are checked within partitions.
+     */
+    public static void writeReads(
+            final JavaSparkContext ctx, final String outputFile, final String referenceFile, final JavaRDD<GATKRead> reads,
+            final SAMFileHeader header, ReadsWriteFormat format, final int numReducers, final boolean sortReadsToHeader) throws IOException {
+        writeReads(ctx, outputFile, referenceFile, reads, header, format, numReducers, sortReadsToHeader, true);
+    }
+
+    /**
+     * writeReads writes rddReads to outputFile with header as the file header.
+     *
+     * A single coordinate-sorted BAM file is written together with its BAM index, which is merged from the indices that
+     * the executors make of the parts they write.
+     *
+     * @param ctx the JavaSparkContext to write.
+     * @param outputFile path to the output bam.
+     * @param referenceFile path to the reference. required for cram output, otherwise may be null.
+     * @param reads reads to write.
+     * @param header the header to put at the top of the files
+     * @param format should the output be a single file, sharded, ADAM, etc.
+     * @param numReducers the number of reducers to use when writing a single file. A value of zero indicates that the default
+     *                    should be used.
+     * @param sortReadsToHeader whether to sort the reads in the sort order of the header when writing a single file. If
+     *                          false, the reads must already be sorted, and partitioned so that all the reads in partition i
+     *                          are less than those in partition i+1 (as after a sort, or when the reads are read from a
+     *                          sorted file and not reordered), which saves a shuffle. For coordinate-sorted output, the
+     *                          positions of the reads are checked within partitions.
+     * @param writeSplittingIndex whether to write the Hadoop-BAM splitting index (.splitting-bai) of a single BAM file. The
+     *                            executors index the parts as they write them, from the virtual offsets of the records,
+     *                            and the indices of the parts are merged, so no extra pass over the file is needed. Sharded
+     *                            output is never indexed, as the indices would be taken for parts when the output
+     *                            directory is read.
+     */
+    public static void writeReads(
+            final JavaSparkContext ctx, final String outputFile, final String referenceFile, final JavaRDD<GATKRead> reads,
+            final SAMFileHeader header, ReadsWriteFormat format, final int numReducers, final boolean sortReadsToHeader,
+            final boolean writeSplittingIndex) throws IOException {
 
         SAMFormat samOutputFormat = IOUtils.isCramFileName(outputFile) ? SAMFormat.CRAM : SAMFormat.BAM;
 
@@ -141,7 +222,7 @@ public final class ReadsSparkSink {
         String absoluteReferenceFile = referenceFile != null ?
                                         BucketUtils.makeFilePathAbsolute(referenceFile) :
                                         referenceFile;
-        setHadoopBAMConfigurationProperties(ctx, absoluteOutputFile, absoluteReferenceFile, format);
+        setHadoopBAMConfigurationProperties(ctx, absoluteOutputFile, absoluteReferenceFile, format, writeSplittingIndex);
 
         // The underlying reads are required to be in SAMRecord format in order to be
         // written out, so we convert them to SAMRecord explicitly here. If they're already
@@ -150,7 +231,7 @@ public final class ReadsSparkSink {
         final JavaRDD<SAMRecord> samReads = reads.map(read -> read.convertToSAMRecord(null));
 
         if (format == ReadsWriteFormat.SINGLE) {
-            writeReadsSingle(ctx, absoluteOutputFile, absoluteReferenceFile, samOutputFormat, samReads, header, numReducers);
+            writeReadsSingle(ctx, absoluteOutputFile, absoluteReferenceFile, samOutputFormat, samReads, header, numReducers, sortReadsToHeader);
         } else if (format == ReadsWriteFormat.SHARDED) {
             saveAsShardedHadoopFiles(ctx, absoluteOutputFile, absoluteReferenceFile, samOutputFormat, samReads, header, true);
         } else if (format == ReadsWriteFormat.ADAM) {
@@ -185,6 +266,13 @@ public final class ReadsSparkSink {
             final JavaSparkContext ctx, final String outputFile, final String referenceFile,
             final SAMFormat samOutputFormat, final JavaRDD<SAMRecord> reads, final SAMFileHeader header,
             final boolean writeHeader) throws IOException {
+        saveAsShardedHadoopFiles(ctx, outputFile, referenceFile, samOutputFormat, reads, header, writeHeader, false);
+    }
+
+    private static void saveAsShardedHadoopFiles(
+            final JavaSparkContext ctx, final String outputFile, final String referenceFile,
+            final SAMFormat samOutputFormat, final JavaRDD<SAMRecord> reads, final SAMFileHeader header,
+            final boolean writeHeader, final boolean writeIndex) throws IOException {
         // Set the static header on the driver thread.
         if (samOutputFormat == SAMFormat.CRAM) {
             SparkCRAMOutputFormat.setHeader(header);
@@ -200,7 +288,7 @@ public final class ReadsSparkSink {
         // The expected format for writing is JavaPairRDD where the key is ignored and the value is SAMRecordWritable.
         final JavaPairRDD<SAMRecord, SAMRecordWritable> rddSamRecordWriteable = pairReadsWithSAMRecordWritables(headerBroadcast, readsRDD);
 
-        rddSamRecordWriteable.saveAsNewAPIHadoopFile(outputFile, SAMRecord.class, SAMRecordWritable.class, getOutputFormat(samOutputFormat, writeHeader), ctx.hadoopConfiguration());
+        rddSamRecordWriteable.saveAsNewAPIHadoopFile(outputFile, SAMRecord.class, SAMRecordWritable.class, getOutputFormat(samOutputFormat, writeHeader, writeIndex), ctx.hadoopConfiguration());
     }
 
     /**
@@ -223,18 +311,55 @@ public final class ReadsSparkSink {
 
     private static void writeReadsSingle(
             final JavaSparkContext ctx, final String outputFile, final String referenceFile, final SAMFormat samOutputFormat, final JavaRDD<SAMRecord> reads,
-            final SAMFileHeader header, final int numReducers) throws IOException {
+            final SAMFileHeader header, final int numReducers, final boolean sortReadsToHeader) throws IOException {
 
-        final JavaRDD<SAMRecord> sortedReads = SparkUtils.sortReads(reads, header, numReducers);
+        final JavaRDD<SAMRecord> sortedReads = sortReadsToHeader ?
+                SparkUtils.sortReads(reads, header, numReducers) :
+                SparkUtils.checkReadsAreSortedWithinPartitions(reads, header);
         final String outputPartsDirectory = outputFile + ".parts/";
-        saveAsShardedHadoopFiles(ctx, outputPartsDirectory, referenceFile, samOutputFormat, sortedReads,  header, false);
+        final boolean writeIndex = samOutputFormat == SAMFormat.BAM && header.getSortOrder() == SAMFileHeader.SortOrder.coordinate;
+        saveAsShardedHadoopFiles(ctx, outputPartsDirectory, referenceFile, samOutputFormat, sortedReads,  header, false, writeIndex);
+        if (!writeIndex) {
+            SAMFileMerger.mergeParts(outputPartsDirectory, outputFile, samOutputFormat, header);
+            return;
+        }
+        // the parts directory is deleted by the merge, so the indices of the parts are read first
+        final BAMIndexMerger indexMerger = readPartIndices(outputPartsDirectory, header);
         SAMFileMerger.mergeParts(outputPartsDirectory, outputFile, samOutputFormat, header);
+        final long headerLength = Files.size(IOUtils.getPath(outputFile)) - indexMerger.getPartsLength()
+                - BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK.length;
+        try (final OutputStream indexOutput = Files.newOutputStream(IOUtils.getPath(outputFile + BAMIndex.BAMIndexSuffix))) {
+            indexMerger.writeIndex(indexOutput, headerLength);
+        }
     }
 
-    private static Class<? extends OutputFormat<NullWritable, SAMRecordWritable>> getOutputFormat(final SAMFormat samFormat, final boolean writeHeader) {
+    // reads the BAM indices of the parts, in the order in which SAMFileMerger merges the parts
+    private static BAMIndexMerger readPartIndices(final String partsDirectory, final SAMFileHeader header) throws IOException {
+        final java.nio.file.Path partsPath = IOUtils.getPath(partsDirectory);
+        final List<java.nio.file.Path> parts;
+        try (final Stream<java.nio.file.Path> files = Files.list(partsPath)) {
+            parts = files.filter(path -> PART_FILE_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        final BAMIndexMerger indexMerger = new BAMIndexMerger(header.getSequenceDictionary().size());
+        for (final java.nio.file.Path part : parts) {
+            final java.nio.file.Path partIndex = part.resolveSibling(IndexingBAMRecordWriter.getPartIndexName(part.getFileName().toString()));
+            try (final InputStream partIndexInput = new BufferedInputStream(Files.newInputStream(partIndex))) {
+                indexMerger.addPart(partIndexInput, Files.size(part));
+            }
+        }
+        return indexMerger;
+    }
+
+    private static Class<? extends OutputFormat<NullWritable, SAMRecordWritable>> getOutputFormat(final SAMFormat samFormat, final boolean writeHeader, final boolean writeIndex) {
         if (samFormat == SAMFormat.CRAM) {
             return writeHeader ? SparkCRAMOutputFormat.class : SparkHeaderlessCRAMOutputFormat.class;
         }
+        else if (writeIndex) {
+            Utils.validate(!writeHeader, "Only headerless BAM parts can be indexed");
+            return SparkHeaderlessIndexingBAMOutputFormat.class;
+        }
         else {
             return writeHeader ? SparkBAMOutputFormat.class : SparkHeaderlessBAMOutputFormat.class;
         }
@@ -262,14 +387,16 @@ public final class ReadsSparkSink {
      *   - if the output file is not CRAM, the reference property is *unset* to prevent Hadoop-BAM
      *     from passing a stale value through to htsjdk when multiple calls are made serially
      *     with different outputs but the same Spark context
+     *   - the splitting index is only written for a single BAM file, if it is asked for
      */
     private static void setHadoopBAMConfigurationProperties(final JavaSparkContext ctx, final String outputName,
-                                                            final String referenceName, final ReadsWriteFormat format) {
+                                                            final String referenceName, final ReadsWriteFormat format,
+                                                            final boolean writeSplittingIndex) {
         final Configuration conf = ctx.hadoopConfiguration();
 
         if (!IOUtils.isCramFileName(outputName)) { // only set the reference for CRAM output
             conf.unset(CRAMInputFormat.REFERENCE_SOURCE_PATH_PROPERTY);
-            if (format == ReadsWriteFormat.SINGLE && IOUtils.isBamFileName(outputName)) {
+            if (writeSplittingIndex && format == ReadsWriteFormat.SINGLE && IOUtils.isBamFileName(outputName)) {
                 conf.setBoolean(BAMOutputFormat.WRITE_SPLITTING_BAI, true);
             } else {
                 conf.setBoolean(BAMOutputFormat.WRITE_SPLITTING_BAI, false);
@@ -23,11 +23,12 @@ import org.bdgenomics.formats.avro.AlignmentRecord;
 import org.broadinstitute.hellbender.engine.ReadsDataSource;
 import org.broadinstitute.hellbender.engine.TraversalParameters;
 import org.broadinstitute.hellbender.exceptions.UserException;
-import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.CompactIntervalSet;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.BDGAlignmentRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.ReadConstants;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.utils.spark.SparkUtils;
@@ -43,6 +44,9 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+
+import scala.Tuple2;
 
 /** Loads the reads from disk either serially (using samReaderFactory) or in parallel using Hadoop-BAM.
  * The parallel code is a modified version of the example writing code from Hadoop-BAM.
@@ -209,36 +213,76 @@ public final class ReadsSparkSource implements Serializable {
     }
 
     /**
-     * Ensure reads in a pair fall in the same partition (input split), if the reads are queryname-sorted,
-     * so they are processed together. No shuffle is needed.
+     * Ensure reads in a pair fall in the same partition (input split), if the reads are queryname-sorted
+     * or query-grouped, so they are processed together. No shuffle is needed.
+     *
+     * All the records of a template (including secondary and supplementary alignments, in any order) are moved to
+     * the partition that holds its first record: at each partition boundary, the leading records of the following
+     * partitions that have the name of the last record of the partition are appended to it, and dropped from the
+     * partitions they came from.
      */
     JavaRDD<GATKRead> putPairsInSamePartition(final SAMFileHeader header, final JavaRDD<GATKRead> reads) {
-        if (!header.getSortOrder().equals(SAMFileHeader.SortOrder.queryname)) {
+        if (!ReadUtils.isQueryGrouped(header)) {
             return reads;
         }
         int numPartitions = reads.getNumPartitions();
-        // Find the first read in each partition
-        List<GATKRead> firstReadInEachPartition = reads
-                .mapPartitions((FlatMapFunction<Iterator<GATKRead>, GATKRead>) it -> Iterators.singletonIterator(it.next()))
+        // Find the leading records with the same name in each partition, and the name of the last record
+        List<Tuple2<List<GATKRead>, String>> partitionEnds = reads
+                .mapPartitions((FlatMapFunction<Iterator<GATKRead>, Tuple2<List<GATKRead>, String>>) it -> {
+                    final List<GATKRead> leadingReads = new ArrayList<>();
+                    String lastName = null;
+                    boolean leading = true;
+                    while (it.hasNext()) {
+                        final GATKRead read = it.next();
+                        leading &= leadingReads.isEmpty() || Objects.equals(read.getName(), lastName);
+                        if (leading) {
+                            leadingReads.add(read);
+                        }
+                        lastName = read.getName();
+                    }
+                    return Iterators.singletonIterator(new Tuple2<>(leadingReads, lastName));
+                })
                 .collect();
-        // Shift left, so that each partition will be joined with the first read from the _next_ partition
-        List<GATKRead> firstReadInNextPartition = new ArrayList<>(firstReadInEachPartition.subList(1, numPartitions));
-        firstReadInNextPartition.add(null); // the last partition does not have any reads to add to it
 
-        // Join the reads with the first read from the _next_ partition, then filter out the first and/or last read if not in a pair
-        return reads.zipPartitions(ctx.parallelize(firstReadInNextPartition, numPartitions),
-                (FlatMapFunction2<Iterator<GATKRead>, Iterator<GATKRead>, GATKRead>) (it1, it2) -> {
-            PeekingIterator<GATKRead> current = Iterators.peekingIterator(it1);
-            // skip the first read in the _current_ partition if it is the second in a pair since it will be handled in the previous partition
-            if (current.hasNext() && current.peek() != null && current.peek().isSecondOfPair()) {
-                current.next();
-            }
-            // append the first read in the _next_ partition to the _current_ partition if it is the second in a pair
-            PeekingIterator<GATKRead> next = Iterators.peekingIterator(it2);
-            if (next.hasNext() && next.peek() != null && next.peek().isSecondOfPair()) {
-                return Iterators.concat(current, next);
+        // For each partition, the number of leading records to drop and the records to append
+        final List<Tuple2<Integer, List<GATKRead>>> fixes = new ArrayList<>(numPartitions);
+        for (int i = 0; i < numPartitions; i++) {
+            fixes.add(new Tuple2<>(0, new ArrayList<>()));
+        }
+        int i = 0;
+        while (i < numPartitions) {
+            final List<GATKRead> leadingReads = partitionEnds.get(i)._1();
+            final String lastName = partitionEnds.get(i)._2();
+            int j = i + 1;
+            // empty partitions (or partitions emptied by a previous partition) have no template to complete
+            if (!leadingReads.isEmpty()) {
+                while (j < numPartitions) {
+                    final List<GATKRead> nextLeadingReads = partitionEnds.get(j)._1();
+                    if (nextLeadingReads.isEmpty()) {
+                        j++;
+                        continue;
+                    }
+                    if (!Objects.equals(nextLeadingReads.get(0).getName(), lastName)) {
+                        break;
+                    }
+                    fixes.get(i)._2().addAll(nextLeadingReads);
+                    fixes.set(j, new Tuple2<>(nextLeadingReads.size(), fixes.get(j)._2()));
+                    if (!Objects.equals(partitionEnds.get(j)._2(), lastName)) {
+                        // the next partition holds other templates, so the template ends there
+                        break;
+                    }
+                    j++;
+                }
             }
-            return current;
+            i = j;
+        }
+
+        // Join the reads with their fixes, to drop the records moved to previous partitions and append those moved from the next ones
+        return reads.zipPartitions(ctx.parallelize(fixes, numPartitions),
+                (FlatMapFunction2<Iterator<GATKRead>, Iterator<Tuple2<Integer, List<GATKRead>>>, GATKRead>) (it1, it2) -> {
+            final Tuple2<Integer, List<GATKRead>> fix = it2.next();
+            Iterators.advance(it1, fix._1());
+            return Iterators.concat(it1, fix._2().iterator());
         });
     }
 
@@ -289,7 +333,6 @@ public final class ReadsSparkSource implements Serializable {
      * Tests if a given SAMRecord overlaps any interval in a collection. This is only used as a fallback option for
      * formats that don't support query-by-interval natively at the Hadoop-BAM layer.
      */
-    //TODO: use IntervalsSkipList, see https://github.com/broadinstitute/gatk/issues/1531
     private static boolean samRecordOverlaps(final SAMRecord record, final TraversalParameters traversalParameters ) {
         if (traversalParameters == null) {
             return true;
@@ -297,20 +340,16 @@ public final class ReadsSparkSource implements Serializable {
         if (traversalParameters.traverseUnmappedReads() && record.getReadUnmappedFlag() && record.getAlignmentStart() == SAMRecord.NO_ALIGNMENT_START) {
             return true; // include record if unmapped records should be traversed and record is unmapped
         }
-        List<SimpleInterval> intervals = traversalParameters.getIntervalsForTraversal();
-        if (intervals == null || intervals.isEmpty()) {
+        final CompactIntervalSet intervals = traversalParameters.getIntervalSet();
+        if (intervals.isEmpty()) {
             return false; // no intervals means 'no mapped reads'
         }
-        for (SimpleInterval interval : intervals) {
-            if (record.getReadUnmappedFlag() && record.getAlignmentStart() != SAMRecord.NO_ALIGNMENT_START) {
-                // This follows the behavior of htsjdk's SamReader which states that "an unmapped read will be returned
-                // by this call if it has a coordinate for the purpose of sorting that is in the query region".
-                int start = record.getAlignmentStart();
-                return interval.getStart() <= start && interval.getEnd() >= start;
-            } else  if (interval.overlaps(record)) {
-                return true;
-            }
+        if (record.getReadUnmappedFlag() && record.getAlignmentStart() != SAMRecord.NO_ALIGNMENT_START) {
+            // This follows the behavior of htsjdk's SamReader which states that "an unmapped read will be returned
+            // by this call if it has a coordinate for the purpose of sorting that is in the query region".
+            final int start = record.getAlignmentStart();
+            return intervals.overlaps(record.getContig(), start, start);
         }
-        return false;
+        return intervals.overlaps(record);
     }
 }
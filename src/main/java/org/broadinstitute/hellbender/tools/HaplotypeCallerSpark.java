@@ -23,10 +23,10 @@ import org.broadinstitute.hellbender.cmdline.programgroups.SparkProgramGroup;
 import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.datasources.ReferenceMultiSource;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.broadinstitute.hellbender.engine.spark.AssemblyRegionWalkerSpark;
 import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
 import org.broadinstitute.hellbender.engine.spark.SparkSharder;
 import org.broadinstitute.hellbender.engine.spark.datasources.VariantsSparkSink;
-import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCaller;
@@ -103,6 +103,14 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
         @Argument(fullName = "maxProbPropagationDistance", shortName = "maxProbPropagationDistance", doc="Upper limit on how many bases away probability mass can be moved around when calculating the boundaries between active and inactive assembly regions", optional = true)
         public int maxProbPropagationDistance = HaplotypeCaller.DEFAULT_MAX_PROB_PROPAGATION_DISTANCE;
 
+        @Advanced
+        @Argument(fullName = "balanceShardsByReadCount", shortName = "balanceShardsByReadCount", doc = "Whether to count the reads in each read shard first, split the shards with the most reads, and spread the shards over the partitions so that each partition has about the same number of reads. This takes an extra pass over the reads and a shuffle, but keeps a few shards over high-depth regions from holding up the whole stage.", optional = true)
+        public boolean balanceShardsByReadCount = false;
+
+        @Advanced
+        @Argument(fullName = "maxReadsPerShard", shortName = "maxReadsPerShard", doc = "When balancing shards by read count, read shards with more reads than this are split into smaller shards (of at least maxAssemblyRegionSize bases).", optional = true)
+        public int maxReadsPerShard = AssemblyRegionWalkerSpark.DEFAULT_MAX_READS_PER_SHARD;
+
     }
 
     @ArgumentCollection
@@ -122,7 +130,7 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
     @Override
     protected void runTool(final JavaSparkContext ctx) {
         final List<SimpleInterval> intervals = hasIntervals() ? getIntervals() : IntervalUtils.getAllIntervalsForReference(getHeaderForReads().getSequenceDictionary());
-        callVariantsWithHaplotypeCallerAndWriteOutput(getAuthHolder(), ctx, getReads(), getHeaderForReads(), getReference(), intervals, hcArgs, shardingArgs, numReducers, output);
+        callVariantsWithHaplotypeCallerAndWriteOutput(getAuthHolder(), ctx, getReads(), getHeaderForReads(), getReference(), getSharedWindowCacheSettings(), intervals, hcArgs, shardingArgs, numReducers, output);
     }
 
     @Override
@@ -140,6 +148,7 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
      * @param reads the reads variants should be called from
      * @param header the header that goes with the reads
      * @param reference the reference to use when calling
+     * @param sharedWindowCacheSettings the sizes of the {@link SharedWindowCache} to fetch reference bases through, or null to bypass it
      * @param intervals the intervals to restrict calling to
      * @param hcArgs haplotype caller arguments
      * @param shardingArgs arguments to control how the assembly regions are sharded
@@ -152,6 +161,7 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
             final JavaRDD<GATKRead> reads,
             final SAMFileHeader header,
             final ReferenceMultiSource reference,
+            final SharedWindowCache.Settings sharedWindowCacheSettings,
             final List<SimpleInterval> intervals,
             final HaplotypeCallerArgumentCollection hcArgs,
             final ShardingArgumentCollection shardingArgs,
@@ -163,7 +173,7 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
         final JavaRDD<GATKRead> coordinateSortedReads = SparkUtils.coordinateSortReads(reads, readsHeader, numReducers);
 
         final HaplotypeCallerEngine hcEngine = new HaplotypeCallerEngine(hcArgs, false, false, readsHeader, new ReferenceMultiSourceAdapter(reference, authHolder));
-        final JavaRDD<VariantContext> variants = callVariantsWithHaplotypeCaller(authHolder, ctx, coordinateSortedReads, readsHeader, reference, intervals, hcArgs, shardingArgs);
+        final JavaRDD<VariantContext> variants = callVariantsWithHaplotypeCaller(authHolder, ctx, coordinateSortedReads, readsHeader, reference, sharedWindowCacheSettings, intervals, hcArgs, shardingArgs);
         variants.cache(); // without caching, computations are run twice as a side effect of finding partition boundaries for sorting
         try {
             VariantsSparkSink.writeVariants(ctx, output, variants, hcEngine.makeVCFHeader(readsHeader.getSequenceDictionary(), new HashSet<>()),
@@ -183,6 +193,7 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
      * @param reads the reads variants should be called from
      * @param header the header that goes with the reads
      * @param reference the reference to use when calling
+     * @param sharedWindowCacheSettings the sizes of the {@link SharedWindowCache} to fetch reference bases through, or null to bypass it
      * @param intervals the intervals to restrict calling to
      * @param hcArgs haplotype caller arguments
      * @param shardingArgs arguments to control how the assembly regions are sharded
@@ -194,6 +205,7 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
             final JavaRDD<GATKRead> reads,
             final SAMFileHeader header,
             final ReferenceMultiSource reference,
+            final SharedWindowCache.Settings sharedWindowCacheSettings,
             final List<SimpleInterval> intervals,
             final HaplotypeCallerArgumentCollection hcArgs,
             final ShardingArgumentCollection shardingArgs) {
@@ -212,15 +224,20 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
 
         final List<ShardBoundary> shardBoundaries = getShardBoundaries(header, intervals, shardingArgs.readShardSize, shardingArgs.readShardPadding);
 
-        final int maxReadLength = reads.map(r -> r.getEnd() - r.getStart() + 1).reduce(Math::max);
-
-        final JavaRDD<Shard<GATKRead>> readShards = SparkSharder.shard(ctx, reads, GATKRead.class, header.getSequenceDictionary(), shardBoundaries, maxReadLength);
+        final JavaRDD<Shard<GATKRead>> readShards;
+        if (shardingArgs.balanceShardsByReadCount) {
+            readShards = SparkSharder.shardBalancedByCount(ctx, reads, header.getSequenceDictionary(), shardBoundaries,
+                    shardingArgs.readShardPadding, shardingArgs.maxReadsPerShard, shardingArgs.maxAssemblyRegionSize);
+        } else {
+            final int maxReadLength = reads.map(r -> r.getEnd() - r.getStart() + 1).reduce(Math::max);
+            readShards = SparkSharder.shard(ctx, reads, GATKRead.class, header.getSequenceDictionary(), shardBoundaries, maxReadLength);
+        }
 
         final JavaRDD<Tuple2<AssemblyRegion, SimpleInterval>> assemblyRegions = readShards
-                .mapPartitions(shardsToAssemblyRegions(authHolder, referenceBroadcast,
+                .mapPartitions(shardsToAssemblyRegions(authHolder, referenceBroadcast, sharedWindowCacheSettings,
                     hcArgsBroadcast, shardingArgs, header, annotatorEngineBroadcast));
 
-        return assemblyRegions.mapPartitions(callVariantsFromAssemblyRegions(authHolder, header, referenceBroadcast, hcArgsBroadcast, annotatorEngineBroadcast));
+        return assemblyRegions.mapPartitions(callVariantsFromAssemblyRegions(authHolder, header, referenceBroadcast, sharedWindowCacheSettings, hcArgsBroadcast, annotatorEngineBroadcast));
     }
 
     /**
@@ -232,12 +249,13 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
             final AuthHolder authHolder,
             final SAMFileHeader header,
             final Broadcast<ReferenceMultiSource> referenceBroadcast,
+            final SharedWindowCache.Settings sharedWindowCacheSettings,
             final Broadcast<HaplotypeCallerArgumentCollection> hcArgsBroadcast,
             final Broadcast<VariantAnnotatorEngine> annotatorEngineBroadcast) {
         return regionAndIntervals -> {
             //HaplotypeCallerEngine isn't serializable but is expensive to instantiate, so construct and reuse one for every partition
             final ReferenceMultiSource referenceMultiSource = referenceBroadcast.value();
-            final ReferenceMultiSourceAdapter referenceSource = new ReferenceMultiSourceAdapter(referenceMultiSource, authHolder);
+            final ReferenceMultiSourceAdapter referenceSource = new ReferenceMultiSourceAdapter(referenceMultiSource, authHolder, sharedWindowCacheSettings);
             final HaplotypeCallerEngine hcEngine = new HaplotypeCallerEngine(hcArgsBroadcast.value(), false, false, header, referenceSource, annotatorEngineBroadcast.getValue());
             return iteratorToStream(regionAndIntervals).flatMap(regionToVariants(hcEngine)).iterator();
         };
@@ -275,13 +293,14 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
     private static FlatMapFunction<Iterator<Shard<GATKRead>>, Tuple2<AssemblyRegion, SimpleInterval>> shardsToAssemblyRegions(
             final AuthHolder authHolder,
             final Broadcast<ReferenceMultiSource> reference,
+            final SharedWindowCache.Settings sharedWindowCacheSettings,
             final Broadcast<HaplotypeCallerArgumentCollection> hcArgsBroadcast,
             final ShardingArgumentCollection assemblyArgs,
             final SAMFileHeader header,
             final Broadcast<VariantAnnotatorEngine> annotatorEngineBroadcast) {
         return shards -> {
             final ReferenceMultiSource referenceMultiSource = reference.value();
-            final ReferenceMultiSourceAdapter referenceSource = new ReferenceMultiSourceAdapter(referenceMultiSource, authHolder);
+            final ReferenceMultiSourceAdapter referenceSource = new ReferenceMultiSourceAdapter(referenceMultiSource, authHolder, sharedWindowCacheSettings);
             final HaplotypeCallerEngine hcEngine = new HaplotypeCallerEngine(hcArgsBroadcast.value(), false, false, header, referenceSource, annotatorEngineBroadcast.getValue());
 
             final ReadsDownsampler readsDownsampler = assemblyArgs.maxReadsPerAlignmentStart > 0 ?
@@ -328,11 +347,20 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
 
         private final ReferenceMultiSource source;
         private final AuthHolder auth;
+        private final SharedWindowCache.Settings sharedWindowCacheSettings;
         private final SAMSequenceDictionary sequenceDictionary;
 
         public ReferenceMultiSourceAdapter(final ReferenceMultiSource source, final AuthHolder auth) {
+            this(source, auth, null);
+        }
+
+        /**
+         * @param sharedWindowCacheSettings the sizes of the {@link SharedWindowCache} to fetch reference bases through, or null to bypass it
+         */
+        public ReferenceMultiSourceAdapter(final ReferenceMultiSource source, final AuthHolder auth, final SharedWindowCache.Settings sharedWindowCacheSettings) {
             this.source = source;
             this.auth = auth;
+            this.sharedWindowCacheSettings = sharedWindowCacheSettings;
             sequenceDictionary = source.getReferenceSequenceDictionary(null);
         }
 
@@ -368,12 +396,11 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
 
         @Override
         public ReferenceSequence getSubsequenceAt(final String contig, final long start, final long stop) {
-            try {
-                final ReferenceBases bases = source.getReferenceBases(auth.asPipelineOptionsDeprecated(), new SimpleInterval(contig, (int) start, (int) stop));
-                return new ReferenceSequence(contig, sequenceDictionary.getSequenceIndex(contig), bases.getBases());
-            } catch (final IOException e) {
-                throw new GATKException(String.format("Failed to load reference bases for %s:%d-%d", contig, start, stop));
-            }
+            // the engine asks for overlapping windows around each assembly region, so serve them from the cache shared
+            // by all the tasks on this executor
+            final ReferenceBases bases = SharedWindowCache.fetchReferenceBases(sharedWindowCacheSettings, source, auth.asPipelineOptionsDeprecated(),
+                    new SimpleInterval(contig, (int) start, (int) stop), sequenceDictionary);
+            return new ReferenceSequence(contig, sequenceDictionary.getSequenceIndex(contig), bases.getBases());
         }
 
         @Override
@@ -14,11 +14,13 @@ import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.filters.MappingQualityReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
+import org.broadinstitute.hellbender.tools.copynumber.formats.CopyNumberStandardArgument;
 import org.broadinstitute.hellbender.tools.copynumber.datacollection.AllelicCountCollector;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleMetadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleNameUtils;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSampleMetadata;
 import org.broadinstitute.hellbender.utils.Nucleotide;
+import org.broadinstitute.hellbender.utils.locusiterator.LocusBaseCounts;
 
 import java.io.File;
 import java.util.List;
@@ -111,6 +113,15 @@ public final class CollectAllelicCounts extends LocusWalker {
     )
     private int minimumBaseQuality = 20;
 
+    @Argument(
+            doc = "If true, also write a binary columnar sidecar alongside the output allelic-counts file, " +
+                    "which downstream tools will read in preference to the TSV file.",
+            fullName = CopyNumberStandardArgument.WRITE_COLUMNAR_SIDECAR_LONG_NAME,
+            shortName = CopyNumberStandardArgument.WRITE_COLUMNAR_SIDECAR_SHORT_NAME,
+            optional = true
+    )
+    private boolean writeColumnarSidecar = false;
+
     private AllelicCountCollector allelicCountCollector;
 
     @Override
@@ -118,6 +129,19 @@ public final class CollectAllelicCounts extends LocusWalker {
         return true;
     }
 
+    @Override
+    protected boolean useBaseCounts() {
+        return true;
+    }
+
+    /**
+     * Bases are binned by whether their quality is below the minimum base quality.
+     */
+    @Override
+    protected int[] baseCountQualityBins() {
+        return minimumBaseQuality == 0 ? new int[]{0} : new int[]{0, minimumBaseQuality};
+    }
+
     @Override
     public boolean requiresReference() {
         return true;
@@ -148,7 +172,11 @@ public final class CollectAllelicCounts extends LocusWalker {
 
     @Override
     public Object onTraversalSuccess() {
-        allelicCountCollector.getAllelicCounts().write(outputAllelicCountsFile);
+        if (writeColumnarSidecar) {
+            allelicCountCollector.getAllelicCounts().writeWithColumnarSidecar(outputAllelicCountsFile);
+        } else {
+            allelicCountCollector.getAllelicCounts().write(outputAllelicCountsFile);
+        }
         logger.info("Allelic counts written to " + outputAllelicCountsFile);
         return("SUCCESS");
     }
@@ -158,4 +186,10 @@ public final class CollectAllelicCounts extends LocusWalker {
         final byte refAsByte = referenceContext.getBase();
         allelicCountCollector.collectAtLocus(Nucleotide.valueOf(refAsByte), alignmentContext.getBasePileup(), alignmentContext.getLocation(), minimumBaseQuality);
     }
+
+    @Override
+    public void apply(final LocusBaseCounts baseCounts, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        final byte refAsByte = referenceContext.getBase();
+        allelicCountCollector.collectAtLocus(Nucleotide.valueOf(refAsByte), baseCounts, baseCounts.getNumberOfQualityBins() - 1);
+    }
 }
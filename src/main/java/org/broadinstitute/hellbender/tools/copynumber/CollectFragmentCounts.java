@@ -20,6 +20,7 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.copynumber.formats.CopyNumberArgumentValidationUtils;
+import org.broadinstitute.hellbender.tools.copynumber.formats.CopyNumberStandardArgument;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleMetadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleNameUtils;
@@ -79,6 +80,15 @@ public final class CollectFragmentCounts extends ReadWalker {
     )
     private OutputFormat outputFormat = OutputFormat.HDF5;
 
+    @Argument(
+            doc = "If true and the output file format is TSV, also write a binary columnar sidecar alongside the output file, " +
+                    "which downstream tools will read in preference to the TSV file.",
+            fullName = CopyNumberStandardArgument.WRITE_COLUMNAR_SIDECAR_LONG_NAME,
+            shortName = CopyNumberStandardArgument.WRITE_COLUMNAR_SIDECAR_SHORT_NAME,
+            optional = true
+    )
+    private boolean writeColumnarSidecar = false;
+
     /**
      * Sample metadata contained in the BAM file.
      */
@@ -161,6 +171,8 @@ public final class CollectFragmentCounts extends ReadWalker {
 
         if (outputFormat == OutputFormat.HDF5) {
             fragmentCounts.writeHDF5(outputCountsFile);
+        } else if (writeColumnarSidecar) {
+            fragmentCounts.writeWithColumnarSidecar(outputCountsFile);
         } else {
             fragmentCounts.write(outputCountsFile);
         }
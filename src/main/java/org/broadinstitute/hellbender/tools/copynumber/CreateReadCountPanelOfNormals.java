@@ -16,6 +16,7 @@ import org.broadinstitute.hellbender.tools.copynumber.denoising.GCBiasCorrector;
 import org.broadinstitute.hellbender.tools.copynumber.denoising.HDF5SVDReadCountPanelOfNormals;
 import org.broadinstitute.hellbender.tools.copynumber.formats.CopyNumberStandardArgument;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
+import org.broadinstitute.hellbender.tools.copynumber.utils.FileBackedDoubleMatrix;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
@@ -60,6 +61,24 @@ import java.util.stream.Collectors;
  *   --output panel_of_normals.pon.hdf5
  * </pre>
  *
+ * <p>
+ *     For large panels (e.g., hundreds of WGS samples with small bins), the read counts for all samples may not fit in
+ *     heap.  If {@code intervalsPerBlock} is specified, read counts are instead held in a temporary file and
+ *     preprocessing, standardization, and SVD are performed in blocks of intervals using {@code blockedModeThreads}
+ *     threads, with memory bounded by the size of a block and a few vectors with length equal to the number of intervals.
+ *     The resulting panel of normals is identical in format to that produced in the default mode.
+ * </p>
+ *
+ * <pre>
+ * gatk-launch --javaOptions "-Xmx8g" CreateReadCountPanelOfNormals \
+ *   --input normal_1.readCounts.hdf5 \
+ *   --input normal_2.readCounts.hdf5 \
+ *   ... \
+ *   --intervalsPerBlock 100000 \
+ *   --blockedModeThreads 8 \
+ *   --output panel_of_normals.pon.hdf5
+ * </pre>
+ *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 @CommandLineProgramProperties(
@@ -78,6 +97,8 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     public static final String EXTREME_SAMPLE_MEDIAN_PERCENTILE_LONG_NAME = "extremeSampleMedianPercentile";
     public static final String IMPUTE_ZEROS_LONG_NAME = "doImputeZeros";
     public static final String EXTREME_OUTLIER_TRUNCATION_PERCENTILE_LONG_NAME = "extremeOutlierTruncationPercentile";
+    public static final String INTERVALS_PER_BLOCK_LONG_NAME = "intervalsPerBlock";
+    public static final String BLOCKED_MODE_THREADS_LONG_NAME = "blockedModeThreads";
 
     //default values for filtering
     private static final double DEFAULT_MINIMUM_INTERVAL_MEDIAN_PERCENTILE = 10.0;
@@ -89,6 +110,10 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
 
     private static final int DEFAULT_NUMBER_OF_EIGENSAMPLES = 20;
 
+    //default values for blocked mode
+    private static final int DEFAULT_INTERVALS_PER_BLOCK = 0;
+    private static final int DEFAULT_BLOCKED_MODE_THREADS = 1;
+
     @Argument(
             doc = "Input read-count files containing integer read counts in genomic intervals for all samples in the panel of normals.  " +
                     "Intervals must be identical and in the same order for all samples.",
@@ -187,6 +212,25 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     )
     private int numEigensamplesRequested = DEFAULT_NUMBER_OF_EIGENSAMPLES;
 
+    @Argument(
+            doc = "If positive, read counts are held in a temporary file rather than in memory and " +
+                    "preprocessing, standardization, and SVD are performed in blocks of this many intervals.  " +
+                    "Spark is not used in this mode.",
+            fullName = INTERVALS_PER_BLOCK_LONG_NAME,
+            minValue = 0,
+            optional = true
+    )
+    private int numIntervalsPerBlock = DEFAULT_INTERVALS_PER_BLOCK;
+
+    @Argument(
+            doc = "Number of threads used to process blocks concurrently.  " +
+                    "Only used if " + INTERVALS_PER_BLOCK_LONG_NAME + " is positive.",
+            fullName = BLOCKED_MODE_THREADS_LONG_NAME,
+            minValue = 1,
+            optional = true
+    )
+    private int numBlockedModeThreads = DEFAULT_BLOCKED_MODE_THREADS;
+
     @Override
     protected void runPipeline(final JavaSparkContext ctx) {
         if (!new HDF5Library().load(null)) {  //Note: passing null means using the default temp dir.
@@ -207,6 +251,20 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
         //get GC content (null if not provided)
         final double[] intervalGCContent = GCBiasCorrector.validateIntervalGCContent(intervals, annotatedIntervalsFile);
 
+        if (numIntervalsPerBlock > 0) {
+            //validate input read-count files and aggregate in a temporary file with dimensions numSamples x numIntervals
+            try (final FileBackedDoubleMatrix readCountMatrix = constructFileBackedReadCountMatrix(logger, inputReadCountFiles, intervals)) {
+                logger.info("Creating the panel of normals in blocked mode...");
+                HDF5SVDReadCountPanelOfNormals.createInBlocks(outputPanelOfNormalsFile, getCommandLine(),
+                        readCountMatrix, sampleFilenames, intervals, intervalGCContent,
+                        minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
+                        extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile, numEigensamplesRequested,
+                        numIntervalsPerBlock, numBlockedModeThreads);
+            }
+            logger.info("Panel of normals successfully created.");
+            return;
+        }
+
         //validate input read-count files (i.e., check intervals and that only integer counts are contained)
         //and aggregate as a RealMatrix with dimensions numIntervals x numSamples
         final RealMatrix readCountMatrix = constructReadCountMatrix(logger, inputReadCountFiles, intervals);
@@ -259,4 +317,29 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
         }
         return readCountMatrix;
     }
+
+    private static FileBackedDoubleMatrix constructFileBackedReadCountMatrix(final Logger logger,
+                                                                             final List<File> inputReadCountFiles,
+                                                                             final List<SimpleInterval> intervals) {
+        logger.info("Validating and aggregating input read-count files in a temporary file...");
+        final int numSamples = inputReadCountFiles.size();
+        final int numIntervals = intervals.size();
+        final FileBackedDoubleMatrix readCountMatrix = new FileBackedDoubleMatrix(numSamples, numIntervals);
+        try {
+            final ListIterator<File> inputReadCountFilesIterator = inputReadCountFiles.listIterator();
+            while (inputReadCountFilesIterator.hasNext()) {
+                final int sampleIndex = inputReadCountFilesIterator.nextIndex();
+                final File inputReadCountFile = inputReadCountFilesIterator.next();
+                logger.info(String.format("Aggregating read-count file %s (%d / %d)", inputReadCountFile, sampleIndex + 1, numSamples));
+                final SimpleCountCollection readCounts = SimpleCountCollection.read(inputReadCountFile);
+                Utils.validateArg(readCounts.getIntervals().equals(intervals),
+                        String.format("Intervals for read-count file %s do not match those in other read-count files.", inputReadCountFile));
+                readCountMatrix.setRow(sampleIndex, readCounts.getCounts());
+            }
+        } catch (final RuntimeException e) {
+            readCountMatrix.close();
+            throw e;
+        }
+        return readCountMatrix;
+    }
 }
@@ -27,9 +27,12 @@ import org.broadinstitute.hellbender.tools.copynumber.segmentation.Multidimensio
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.mcmc.IndependentBlockSampler;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -110,6 +113,12 @@ public final class ModelSegments extends CommandLineProgram {
     public static final String NUM_SMOOTHING_ITERATIONS_PER_FIT_LONG_NAME = "numSmoothingIterationsPerFit";
     public static final String NUM_SMOOTHING_ITERATIONS_PER_FIT_SHORT_NAME = "numSmoothIterPerFit";
 
+    public static final String NUM_SEGMENT_SAMPLING_THREADS_LONG_NAME = "numSegmentSamplingThreads";
+    public static final String NUM_SEGMENT_SAMPLING_THREADS_SHORT_NAME = "numSegSampThreads";
+
+    public static final String NUM_SEGMENTATION_THREADS_LONG_NAME = "numSegmentationThreads";
+    public static final String NUM_SEGMENTATION_THREADS_SHORT_NAME = "numSegThreads";
+
     @Argument(
             doc = "Input file containing denoised copy-ratio profile (output of DenoiseReadCounts).",
             fullName = CopyNumberStandardArgument.DENOISED_COPY_RATIOS_FILE_LONG_NAME,
@@ -338,6 +347,31 @@ public final class ModelSegments extends CommandLineProgram {
     )
     private int numSmoothingIterationsPerFit = 0;
 
+    @Argument(
+            doc = "Number of threads to use for sampling segment-level MCMC parameters (segment means, outlier indicators, " +
+                    "and minor-allele fractions), which are conditionally independent given the global parameters.  " +
+                    "If positive, segments are sampled concurrently, each using its own random-number stream; " +
+                    "results are then reproducible and independent of the number of threads, " +
+                    "but differ from those obtained by serial sampling.  " +
+                    "If zero, segments are sampled serially from a single random-number stream.",
+            fullName = NUM_SEGMENT_SAMPLING_THREADS_LONG_NAME,
+            shortName = NUM_SEGMENT_SAMPLING_THREADS_SHORT_NAME,
+            optional = true,
+            minValue = 0
+    )
+    private int numSegmentSamplingThreads = 0;
+
+    @Argument(
+            doc = "Number of threads to use for kernel segmentation.  " +
+                    "Chromosomes and, within each chromosome, local changepoint costs for each window size are processed concurrently; " +
+                    "the resulting segmentation is identical to that obtained with a single thread.",
+            fullName = NUM_SEGMENTATION_THREADS_LONG_NAME,
+            shortName = NUM_SEGMENTATION_THREADS_SHORT_NAME,
+            optional = true,
+            minValue = 1
+    )
+    private int numSegmentationThreads = 1;
+
     //initialize data variables, some of which may be optional
     private CopyRatioCollection denoisedCopyRatios = null;
     private AllelicCountCollection hetAllelicCounts = null;
@@ -370,28 +404,36 @@ public final class ModelSegments extends CommandLineProgram {
         } else {
             readDenoisedCopyRatios();
             readAndFilterAllelicCounts();
-            multidimensionalSegments = new MultidimensionalKernelSegmenter(denoisedCopyRatios, hetAllelicCounts)
-                    .findSegmentation(maxNumSegmentsPerChromosome,
-                            kernelVarianceCopyRatio, kernelVarianceAlleleFraction, kernelScalingAlleleFraction, kernelApproximationDimension,
-                            ImmutableSet.copyOf(windowSizes).asList(),
-                            numChangepointsPenaltyFactor, numChangepointsPenaltyFactor);
+            multidimensionalSegments = performMultidimensionalSegmentation();
         }
 
         logger.info("Modeling available denoised copy ratios and heterozygous allelic counts...");
         //initial MCMC model fitting performed by MultidimensionalModeller constructor
         final AlleleFractionPrior alleleFractionPrior = new AlleleFractionPrior(minorAlleleFractionPriorAlpha);
-        final MultidimensionalModeller modeller = new MultidimensionalModeller(
-                multidimensionalSegments, denoisedCopyRatios, hetAllelicCounts, alleleFractionPrior,
-                numSamplesCopyRatio, numBurnInCopyRatio,
-                numSamplesAlleleFraction, numBurnInAlleleFraction);
-
-        //write initial segments and parameters to file
-        writeModeledSegmentsAndParameterFiles(modeller, BEGIN_FIT_FILE_TAG);
-
-        //segmentation smoothing
-        modeller.smoothSegments(
-                maxNumSmoothingIterations, numSmoothingIterationsPerFit,
-                smoothingCredibleIntervalThresholdCopyRatio, smoothingCredibleIntervalThresholdAlleleFraction);
+        final ForkJoinPool segmentSamplingPool = numSegmentSamplingThreads > 0 ? new ForkJoinPool(numSegmentSamplingThreads) : null;
+        final MultidimensionalModeller modeller;
+        try {
+            final IndependentBlockSampler segmentSampler = segmentSamplingPool == null
+                    ? IndependentBlockSampler.serial()
+                    : IndependentBlockSampler.parallel(segmentSamplingPool);
+            modeller = new MultidimensionalModeller(
+                    multidimensionalSegments, denoisedCopyRatios, hetAllelicCounts, alleleFractionPrior,
+                    numSamplesCopyRatio, numBurnInCopyRatio,
+                    numSamplesAlleleFraction, numBurnInAlleleFraction,
+                    segmentSampler);
+
+            //write initial segments and parameters to file
+            writeModeledSegmentsAndParameterFiles(modeller, BEGIN_FIT_FILE_TAG);
+
+            //segmentation smoothing
+            modeller.smoothSegments(
+                    maxNumSmoothingIterations, numSmoothingIterationsPerFit,
+                    smoothingCredibleIntervalThresholdCopyRatio, smoothingCredibleIntervalThresholdAlleleFraction);
+        } finally {
+            if (segmentSamplingPool != null) {
+                segmentSamplingPool.shutdown();
+            }
+        }
 
         //write final segments and parameters to file
         writeModeledSegmentsAndParameterFiles(modeller, FINAL_FIT_FILE_TAG);
@@ -438,10 +480,31 @@ public final class ModelSegments extends CommandLineProgram {
     private CopyRatioSegmentCollection performCopyRatioSegmentation() {
         logger.info("Starting segmentation of denoised copy ratios...");
         final int maxNumChangepointsPerChromosome = maxNumSegmentsPerChromosome - 1;
-        return new CopyRatioKernelSegmenter(denoisedCopyRatios)
+        return performSegmentation(pool -> new CopyRatioKernelSegmenter(denoisedCopyRatios)
                 .findSegmentation(maxNumChangepointsPerChromosome, kernelVarianceCopyRatio, kernelApproximationDimension,
                         ImmutableSet.copyOf(windowSizes).asList(),
-                        numChangepointsPenaltyFactor, numChangepointsPenaltyFactor);
+                        numChangepointsPenaltyFactor, numChangepointsPenaltyFactor, pool));
+    }
+
+    private MultidimensionalSegmentCollection performMultidimensionalSegmentation() {
+        return performSegmentation(pool -> new MultidimensionalKernelSegmenter(denoisedCopyRatios, hetAllelicCounts)
+                .findSegmentation(maxNumSegmentsPerChromosome,
+                        kernelVarianceCopyRatio, kernelVarianceAlleleFraction, kernelScalingAlleleFraction, kernelApproximationDimension,
+                        ImmutableSet.copyOf(windowSizes).asList(),
+                        numChangepointsPenaltyFactor, numChangepointsPenaltyFactor, pool));
+    }
+
+    //runs the given segmentation on a pool with the requested number of threads, or serially if only a single thread is requested
+    private <T> T performSegmentation(final Function<ForkJoinPool, T> segmentation) {
+        if (numSegmentationThreads == 1) {
+            return segmentation.apply(null);
+        }
+        final ForkJoinPool segmentationPool = new ForkJoinPool(numSegmentationThreads);
+        try {
+            return segmentation.apply(segmentationPool);
+        } finally {
+            segmentationPool.shutdown();
+        }
     }
 
     private void readAndFilterAllelicCounts() {
@@ -549,10 +612,10 @@ public final class ModelSegments extends CommandLineProgram {
     private AlleleFractionSegmentCollection performAlleleFractionSegmentation() {
         logger.info("Starting segmentation of heterozygous allelic counts...");
         final int maxNumChangepointsPerChromosome = maxNumSegmentsPerChromosome - 1;
-        return new AlleleFractionKernelSegmenter(hetAllelicCounts)
+        return performSegmentation(pool -> new AlleleFractionKernelSegmenter(hetAllelicCounts)
                 .findSegmentation(maxNumChangepointsPerChromosome, kernelVarianceAlleleFraction, kernelApproximationDimension,
                         ImmutableSet.copyOf(windowSizes).asList(),
-                        numChangepointsPenaltyFactor, numChangepointsPenaltyFactor);
+                        numChangepointsPenaltyFactor, numChangepointsPenaltyFactor, pool));
     }
 
     private void writeModeledSegmentsAndParameterFiles(final MultidimensionalModeller modeller,
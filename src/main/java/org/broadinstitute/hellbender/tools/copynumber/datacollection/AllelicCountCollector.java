@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.records.AllelicCou
 import org.broadinstitute.hellbender.utils.Nucleotide;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.locusiterator.LocusBaseCounts;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 
@@ -51,9 +52,7 @@ public final class AllelicCountCollector {
         Utils.nonNull(locus);
         ParamUtils.isPositiveOrZero(minBaseQuality, "Minimum base quality must be zero or higher.");
 
-        if (!BASES.contains(refBase)) {
-            logger.warn(String.format("The reference position at %s has an unknown base call (value: %s). Skipping...",
-                    locus, refBase.toString()));
+        if (!isKnownBase(refBase, locus)) {
             return;
         }
 
@@ -64,10 +63,50 @@ public final class AllelicCountCollector {
                 .filter(r -> r.getQual() >= minBaseQuality)
                 .forEach(r -> nucleotideCounter.add(r.getBase()));
 
-        final int totalBaseCount = BASES.stream().mapToInt(b -> (int) nucleotideCounter.get(b)).sum();  //only include total ACGT counts (exclude N, etc.)
-        final int refReadCount = (int) nucleotideCounter.get(refBase);
-        final int altReadCount = totalBaseCount - refReadCount;                                         //we take alt = total - ref instead of the actual alt count
-        final Nucleotide altBase = altReadCount == 0 ? Nucleotide.N : inferAltFromPileupBaseCounts(nucleotideCounter, refBase);
+        addAllelicCount(refBase, BASES.stream().mapToInt(b -> (int) nucleotideCounter.get(b)).toArray(), locus);
+    }
+
+    /**
+     * Add counts to this class for a specific locus, from base counts rather than a pileup.
+     *
+     * @param refBase single nucleotide of the reference.  Not {@code null}
+     * @param baseCounts base counts at the locus.  Not {@code null}
+     * @param minQualityBin the first quality bin of {@code baseCounts} whose bases are counted
+     */
+    public void collectAtLocus(final Nucleotide refBase, final LocusBaseCounts baseCounts, final int minQualityBin) {
+        Utils.nonNull(refBase);
+        Utils.nonNull(baseCounts);
+        Utils.validIndex(minQualityBin, baseCounts.getNumberOfQualityBins());
+
+        if (!isKnownBase(refBase, baseCounts)) {
+            return;
+        }
+
+        final int[] counts = new int[BASES.size()];
+        for (int i = 0; i < counts.length; i++) {
+            //BASES are in the order of the base categories of LocusBaseCounts
+            counts[i] = baseCounts.getCount(i, minQualityBin);
+        }
+        addAllelicCount(refBase, counts, baseCounts);
+    }
+
+    private static boolean isKnownBase(final Nucleotide refBase, final Locatable locus) {
+        if (!BASES.contains(refBase)) {
+            logger.warn(String.format("The reference position at %s has an unknown base call (value: %s). Skipping...",
+                    locus, refBase.toString()));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param baseCounts counts of the {@link #BASES}, in order
+     */
+    private void addAllelicCount(final Nucleotide refBase, final int[] baseCounts, final Locatable locus) {
+        final int totalBaseCount = Arrays.stream(baseCounts).sum();                      //only include total ACGT counts (exclude N, etc.)
+        final int refReadCount = baseCounts[BASES.indexOf(refBase)];
+        final int altReadCount = totalBaseCount - refReadCount;                          //we take alt = total - ref instead of the actual alt count
+        final Nucleotide altBase = altReadCount == 0 ? Nucleotide.N : inferAltFromPileupBaseCounts(baseCounts, refBase);
 
         allelicCounts.add(new AllelicCount(
                 new SimpleInterval(locus.getContig(), locus.getStart(), locus.getEnd()),
@@ -87,11 +126,11 @@ public final class AllelicCountCollector {
      * Returns the non-ref base with highest count (if there is a tie, the first base in the order given in
      * {@link AllelicCountCollector#BASES} will be returned).
      */
-    private static Nucleotide inferAltFromPileupBaseCounts(final Nucleotide.Counter baseCounts,
+    private static Nucleotide inferAltFromPileupBaseCounts(final int[] baseCounts,
                                                            final Nucleotide refNucleotide) {
         return BASES.stream()
                 .filter(b -> b != refNucleotide)
-                .sorted((b1, b2) -> Long.compare(baseCounts.get(b2), baseCounts.get(b1)))
+                .sorted((b1, b2) -> Integer.compare(baseCounts[BASES.indexOf(b2)], baseCounts[BASES.indexOf(b1)]))
                 .findFirst().get();
     }
 }
@@ -0,0 +1,748 @@
+package org.broadinstitute.hellbender.tools.copynumber.denoising;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.stat.descriptive.rank.Median;
+import org.apache.commons.math3.stat.descriptive.rank.Percentile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.tools.copynumber.CreateReadCountPanelOfNormals;
+import org.broadinstitute.hellbender.tools.copynumber.utils.FileBackedDoubleMatrix;
+import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Blocked, bounded-memory counterparts of the panel-of-normals methods in {@link SVDDenoisingUtils}.
+ *
+ * <p>
+ *     The read counts for the panel are held in a {@link FileBackedDoubleMatrix} and are only ever brought into heap
+ *     a single sample (row) or a single block of intervals (columns) at a time.  Each preprocessing and standardization
+ *     step of {@link SVDDenoisingUtils#preprocessAndStandardizePanel} is expressed as a pass over rows or column blocks,
+ *     so that only vectors with length equal to the number of samples or the number of intervals are retained
+ *     between passes.  The results are identical to those of the in-memory methods; in particular, the percentiles
+ *     used for outlier truncation are computed exactly (using the same estimation as {@link Percentile})
+ *     by radix selection over the column blocks.
+ * </p>
+ *
+ * <p>
+ *     The truncated SVD is computed from the samples x samples Gramian of the standardized matrix, which is accumulated
+ *     over column blocks, followed by an eigendecomposition of the Gramian; the eigensample vectors are then recovered
+ *     blockwise.  This is the same approach taken by Spark's {@code RowMatrix.computeSVD} for matrices with a small
+ *     number of columns, which is always the case for a panel of normals (samples x intervals).
+ *     Column blocks are processed concurrently on the provided {@link ForkJoinPool}.
+ * </p>
+ */
+final class BlockedSVDDenoisingUtils {
+    private static final Logger logger = LogManager.getLogger(BlockedSVDDenoisingUtils.class);
+
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX - 1;
+    private static final int NUM_RADIX_LEVELS = Long.SIZE / RADIX_BITS;
+
+    private BlockedSVDDenoisingUtils() {}
+
+    /**
+     * Holds the filters and the per-sample and per-interval quantities that are needed to compute the
+     * preprocessed and standardized values of any block of panel intervals on demand from the
+     * (transformed) read counts in the backing {@link FileBackedDoubleMatrix}.
+     */
+    static final class BlockedPreprocessedStandardizedResult {
+        final double[] panelIntervalFractionalMedians;
+        final boolean[] filterSamples;
+        final boolean[] filterIntervals;
+
+        private final FileBackedDoubleMatrix fractionalCoverage;
+        private final int[] panelSampleIndices;
+        private final int[] panelIntervalIndices;
+        private final double[] intervalNonZeroMedians;      //null if imputation is not performed
+        private final double minimumOutlierTruncationThreshold;
+        private final double maximumOutlierTruncationThreshold;
+        private final double[] panelSampleMedians;
+        private final double medianOfSampleLog2Medians;
+
+        private BlockedPreprocessedStandardizedResult(final double[] panelIntervalFractionalMedians,
+                                                      final boolean[] filterSamples,
+                                                      final boolean[] filterIntervals,
+                                                      final FileBackedDoubleMatrix fractionalCoverage,
+                                                      final int[] panelSampleIndices,
+                                                      final int[] panelIntervalIndices,
+                                                      final double[] intervalNonZeroMedians,
+                                                      final double minimumOutlierTruncationThreshold,
+                                                      final double maximumOutlierTruncationThreshold,
+                                                      final double[] panelSampleMedians,
+                                                      final double medianOfSampleLog2Medians) {
+            this.panelIntervalFractionalMedians = panelIntervalFractionalMedians;
+            this.filterSamples = filterSamples;
+            this.filterIntervals = filterIntervals;
+            this.fractionalCoverage = fractionalCoverage;
+            this.panelSampleIndices = panelSampleIndices;
+            this.panelIntervalIndices = panelIntervalIndices;
+            this.intervalNonZeroMedians = intervalNonZeroMedians;
+            this.minimumOutlierTruncationThreshold = minimumOutlierTruncationThreshold;
+            this.maximumOutlierTruncationThreshold = maximumOutlierTruncationThreshold;
+            this.panelSampleMedians = panelSampleMedians;
+            this.medianOfSampleLog2Medians = medianOfSampleLog2Medians;
+        }
+
+        int getNumPanelSamples() {
+            return panelSampleIndices.length;
+        }
+
+        int getNumPanelIntervals() {
+            return panelIntervalIndices.length;
+        }
+
+        /**
+         * Returns the preprocessed and standardized values for panel intervals
+         * [{@code startPanelInterval}, {@code endPanelInterval}) with dimensions panel samples x block intervals.
+         * These are identical to the corresponding submatrix of
+         * {@link SVDDenoisingUtils.PreprocessedStandardizedResult#preprocessedStandardizedValues}.
+         */
+        double[][] getStandardizedBlock(final int startPanelInterval,
+                                        final int endPanelInterval) {
+            final double[][] block = getPreprocessedBlock(panelSampleIndices, startPanelInterval, endPanelInterval);
+            for (int panelSampleIndex = 0; panelSampleIndex < block.length; panelSampleIndex++) {
+                final double[] values = block[panelSampleIndex];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = SVDDenoisingUtils.safeLog2(values[i] / panelSampleMedians[panelSampleIndex]) - medianOfSampleLog2Medians;
+                }
+            }
+            return block;
+        }
+
+        /**
+         * Returns the preprocessed values (i.e., divided by interval medians, imputed, and truncated)
+         * for panel intervals [{@code startPanelInterval}, {@code endPanelInterval}) of the given original samples.
+         */
+        private double[][] getPreprocessedBlock(final int[] sampleIndices,
+                                                final int startPanelInterval,
+                                                final int endPanelInterval) {
+            final int startIntervalIndex = panelIntervalIndices[startPanelInterval];
+            final int endIntervalIndex = panelIntervalIndices[endPanelInterval - 1] + 1;
+            final double[][] originalBlock = fractionalCoverage.getBlock(sampleIndices, startIntervalIndex, endIntervalIndex);
+            final double[][] block = new double[sampleIndices.length][endPanelInterval - startPanelInterval];
+            for (int i = 0; i < sampleIndices.length; i++) {
+                for (int panelIntervalIndex = startPanelInterval; panelIntervalIndex < endPanelInterval; panelIntervalIndex++) {
+                    final int intervalIndex = panelIntervalIndices[panelIntervalIndex];
+                    block[i][panelIntervalIndex - startPanelInterval] = preprocess(
+                            originalBlock[i][intervalIndex - startIntervalIndex], panelIntervalIndex);
+                }
+            }
+            return block;
+        }
+
+        private double preprocess(final double fractionalCoverage,
+                                  final int panelIntervalIndex) {
+            double value = fractionalCoverage / panelIntervalFractionalMedians[panelIntervalIndex];
+            if (intervalNonZeroMedians != null && value == 0.) {
+                value = intervalNonZeroMedians[panelIntervalIndex];
+            }
+            if (value < minimumOutlierTruncationThreshold) {
+                return minimumOutlierTruncationThreshold;
+            }
+            if (value > maximumOutlierTruncationThreshold) {
+                return maximumOutlierTruncationThreshold;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Returned by {@link #computeTruncatedSVD}.  Eigensample vectors are stored transposed
+     * (i.e., with dimensions eigensamples x panel intervals).
+     */
+    static final class BlockedSVDResult {
+        final double[] singularValues;
+        final double[][] transposedEigensampleVectors;
+
+        private BlockedSVDResult(final double[] singularValues,
+                                 final double[][] transposedEigensampleVectors) {
+            this.singularValues = singularValues;
+            this.transposedEigensampleVectors = transposedEigensampleVectors;
+        }
+    }
+
+    /**
+     * Blocked equivalent of {@link SVDDenoisingUtils#preprocessAndStandardizePanel}.
+     * The dimensions of {@code readCounts} should be samples x intervals.
+     * To avoid a second temporary file, {@code readCounts} is transformed in place to (optionally GC-corrected)
+     * fractional coverage and is used as the backing store of the returned result,
+     * so it must not be closed or modified until the result is no longer needed.
+     * If {@code intervalGCContent} is null, GC-bias correction will not be performed.
+     */
+    static BlockedPreprocessedStandardizedResult preprocessAndStandardizePanel(final FileBackedDoubleMatrix readCounts,
+                                                                               final double[] intervalGCContent,
+                                                                               final double minimumIntervalMedianPercentile,
+                                                                               final double maximumZerosInSamplePercentage,
+                                                                               final double maximumZerosInIntervalPercentage,
+                                                                               final double extremeSampleMedianPercentile,
+                                                                               final boolean doImputeZeros,
+                                                                               final double extremeOutlierTruncationPercentile,
+                                                                               final int numIntervalsPerBlock,
+                                                                               final ForkJoinPool pool) {
+        Utils.nonNull(readCounts);
+        Utils.nonNull(pool);
+        ParamUtils.isPositive(numIntervalsPerBlock, "Number of intervals per block must be positive.");
+
+        final int numOriginalSamples = readCounts.getRowDimension();
+        final int numOriginalIntervals = readCounts.getColumnDimension();
+        final int numOriginalBlocks = calculateNumBlocks(numOriginalIntervals, numIntervalsPerBlock);
+        final int[] allSampleIndices = IntStream.range(0, numOriginalSamples).toArray();
+
+        logger.info("Preprocessing read counts in blocks...");
+        logger.info("Transforming read counts to fractional coverage...");
+        if (intervalGCContent != null) {
+            logger.info("Performing GC-bias correction...");
+        }
+        runInPool(pool, () -> {
+            IntStream.range(0, numOriginalSamples).parallel().forEach(sampleIndex -> {
+                final double[] values = readCounts.getRow(sampleIndex);
+                final double sampleSum = MathUtils.sum(values);
+                for (int intervalIndex = 0; intervalIndex < numOriginalIntervals; intervalIndex++) {
+                    values[intervalIndex] /= sampleSum;
+                }
+                if (intervalGCContent != null) {
+                    GCBiasCorrector.correctGCBias(new Array2DRowRealMatrix(new double[][]{values}, false), intervalGCContent);
+                }
+                readCounts.setRow(sampleIndex, values);
+            });
+            return null;
+        });
+
+        final boolean[] filterSamples = new boolean[numOriginalSamples];
+        final boolean[] filterIntervals = new boolean[numOriginalIntervals];
+
+        //calculate interval fractional medians
+        final double[] originalIntervalMedians = new double[numOriginalIntervals];
+        runInPool(pool, () -> {
+            IntStream.range(0, numOriginalBlocks).parallel().forEach(blockIndex -> {
+                final int startIntervalIndex = blockIndex * numIntervalsPerBlock;
+                final int endIntervalIndex = Math.min(startIntervalIndex + numIntervalsPerBlock, numOriginalIntervals);
+                final double[][] block = readCounts.getBlock(allSampleIndices, startIntervalIndex, endIntervalIndex);
+                final Median median = new Median();
+                for (int intervalIndex = startIntervalIndex; intervalIndex < endIntervalIndex; intervalIndex++) {
+                    originalIntervalMedians[intervalIndex] = median.evaluate(getColumn(block, intervalIndex - startIntervalIndex));
+                }
+            });
+            return null;
+        });
+
+        //filter intervals by fractional median
+        if (minimumIntervalMedianPercentile == 0.) {
+            logger.info(String.format("A value of 0 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                    CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME));
+        } else {
+            logger.info(String.format("Filtering intervals with median (across samples) below the %.2f percentile...", minimumIntervalMedianPercentile));
+            final double minimumIntervalMedianThreshold = new Percentile(minimumIntervalMedianPercentile).evaluate(originalIntervalMedians);
+            IntStream.range(0, numOriginalIntervals)
+                    .filter(intervalIndex -> originalIntervalMedians[intervalIndex] < minimumIntervalMedianThreshold)
+                    .forEach(intervalIndex -> filterIntervals[intervalIndex] = true);
+            logger.info(String.format("After filtering, %d out of %d intervals remain...",
+                    SVDDenoisingUtils.countNumberPassingFilter(filterIntervals), numOriginalIntervals));
+        }
+
+        //all values below are divided by the interval medians (the in-memory method does this in place at this point)
+        final IntFunction<double[]> getDividedRow = sampleIndex -> {
+            final double[] values = readCounts.getRow(sampleIndex);
+            for (int intervalIndex = 0; intervalIndex < numOriginalIntervals; intervalIndex++) {
+                if (!filterIntervals[intervalIndex]) {
+                    values[intervalIndex] /= originalIntervalMedians[intervalIndex];
+                }
+            }
+            return values;
+        };
+
+        //filter samples by percentage of zero-coverage intervals not already filtered
+        if (maximumZerosInSamplePercentage == 100.) {
+            logger.info(String.format("A value of 100 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                    CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE_LONG_NAME));
+        } else {
+            logger.info(String.format("Filtering samples with a fraction of zero-coverage intervals above %.2f percent...", maximumZerosInSamplePercentage));
+            final int maxZerosInSample = SVDDenoisingUtils.calculateMaximumZerosCount(
+                    SVDDenoisingUtils.countNumberPassingFilter(filterIntervals), maximumZerosInSamplePercentage);
+            runInPool(pool, () -> {
+                IntStream.range(0, numOriginalSamples).parallel().forEach(sampleIndex -> {
+                    final double[] values = getDividedRow.apply(sampleIndex);
+                    final int numZerosInSample = (int) IntStream.range(0, numOriginalIntervals)
+                            .filter(intervalIndex -> !filterIntervals[intervalIndex] && values[intervalIndex] == 0.)
+                            .count();
+                    if (numZerosInSample > maxZerosInSample) {
+                        filterSamples[sampleIndex] = true;
+                    }
+                });
+                return null;
+            });
+            logger.info(String.format("After filtering, %d out of %d samples remain...",
+                    SVDDenoisingUtils.countNumberPassingFilter(filterSamples), numOriginalSamples));
+        }
+
+        //filter intervals by percentage of zero-coverage samples not already filtered
+        if (maximumZerosInIntervalPercentage == 100.) {
+            logger.info(String.format("A value of 100 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                    CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE_LONG_NAME));
+        } else {
+            logger.info(String.format("Filtering intervals with a fraction of zero-coverage samples above %.2f percent...", maximumZerosInIntervalPercentage));
+            final int maxZerosInInterval = SVDDenoisingUtils.calculateMaximumZerosCount(
+                    SVDDenoisingUtils.countNumberPassingFilter(filterSamples), maximumZerosInIntervalPercentage);
+            final int[] unfilteredSampleIndices = IntStream.range(0, numOriginalSamples).filter(sampleIndex -> !filterSamples[sampleIndex]).toArray();
+            runInPool(pool, () -> {
+                IntStream.range(0, numOriginalBlocks).parallel().forEach(blockIndex -> {
+                    final int startIntervalIndex = blockIndex * numIntervalsPerBlock;
+                    final int endIntervalIndex = Math.min(startIntervalIndex + numIntervalsPerBlock, numOriginalIntervals);
+                    final double[][] block = readCounts.getBlock(unfilteredSampleIndices, startIntervalIndex, endIntervalIndex);
+                    for (int intervalIndex = startIntervalIndex; intervalIndex < endIntervalIndex; intervalIndex++) {
+                        if (filterIntervals[intervalIndex]) {
+                            continue;
+                        }
+                        int numZerosInInterval = 0;
+                        for (final double[] values : block) {
+                            if (values[intervalIndex - startIntervalIndex] / originalIntervalMedians[intervalIndex] == 0.) {
+                                numZerosInInterval++;
+                            }
+                        }
+                        if (numZerosInInterval > maxZerosInInterval) {
+                            filterIntervals[intervalIndex] = true;
+                        }
+                    }
+                });
+                return null;
+            });
+            logger.info(String.format("After filtering, %d out of %d intervals remain...",
+                    SVDDenoisingUtils.countNumberPassingFilter(filterIntervals), numOriginalIntervals));
+        }
+
+        //filter samples with extreme medians
+        if (extremeSampleMedianPercentile == 0.) {
+            logger.info(String.format("A value of 0 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                    CreateReadCountPanelOfNormals.EXTREME_SAMPLE_MEDIAN_PERCENTILE_LONG_NAME));
+        } else {
+            logger.info(String.format("Filtering samples with a median (across intervals) below the %.2f percentile or above the %.2f percentile...",
+                    extremeSampleMedianPercentile, 100. - extremeSampleMedianPercentile));
+            final double[] sampleMedians = new double[numOriginalSamples];
+            runInPool(pool, () -> {
+                IntStream.range(0, numOriginalSamples).parallel().forEach(sampleIndex -> {
+                    final double[] values = getDividedRow.apply(sampleIndex);
+                    sampleMedians[sampleIndex] = new Median().evaluate(IntStream.range(0, numOriginalIntervals)
+                            .filter(intervalIndex -> !filterIntervals[intervalIndex])
+                            .mapToDouble(intervalIndex -> values[intervalIndex])
+                            .toArray());
+                });
+                return null;
+            });
+            final double minimumSampleMedianThreshold = new Percentile(extremeSampleMedianPercentile).evaluate(sampleMedians);
+            final double maximumSampleMedianThreshold = new Percentile(100. - extremeSampleMedianPercentile).evaluate(sampleMedians);
+            IntStream.range(0, numOriginalSamples)
+                    .filter(sampleIndex -> sampleMedians[sampleIndex] < minimumSampleMedianThreshold || sampleMedians[sampleIndex] > maximumSampleMedianThreshold)
+                    .forEach(sampleIndex -> filterSamples[sampleIndex] = true);
+            logger.info(String.format("After filtering, %d out of %d samples remain...",
+                    SVDDenoisingUtils.countNumberPassingFilter(filterSamples), numOriginalSamples));
+        }
+
+        final int[] panelIntervalIndices = IntStream.range(0, numOriginalIntervals).filter(intervalIndex -> !filterIntervals[intervalIndex]).toArray();
+        final int[] panelSampleIndices = IntStream.range(0, numOriginalSamples).filter(sampleIndex -> !filterSamples[sampleIndex]).toArray();
+        final double[] panelIntervalFractionalMedians = Arrays.stream(panelIntervalIndices)
+                .mapToDouble(intervalIndex -> originalIntervalMedians[intervalIndex]).toArray();
+        final int numPanelSamples = panelSampleIndices.length;
+        final int numPanelIntervals = panelIntervalIndices.length;
+        final int numPanelBlocks = calculateNumBlocks(numPanelIntervals, numIntervalsPerBlock);
+
+        //impute zeros as median of non-zero values in interval
+        final double[] intervalNonZeroMedians;
+        if (!doImputeZeros) {
+            logger.info("Skipping imputation of zero-coverage values...");
+            intervalNonZeroMedians = null;
+        } else {
+            final double[] nonZeroMedians = new double[numPanelIntervals];
+            //this is only used to fill blocks of values divided by interval medians; imputation and truncation are not yet applied
+            final BlockedPreprocessedStandardizedResult dividedOnly = new BlockedPreprocessedStandardizedResult(
+                    panelIntervalFractionalMedians, filterSamples, filterIntervals, readCounts, panelSampleIndices, panelIntervalIndices,
+                    null, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, null, Double.NaN);
+            final long numImputed = runInPool(pool, () -> IntStream.range(0, numPanelBlocks).parallel().mapToLong(blockIndex -> {
+                final int startPanelIntervalIndex = blockIndex * numIntervalsPerBlock;
+                final int endPanelIntervalIndex = Math.min(startPanelIntervalIndex + numIntervalsPerBlock, numPanelIntervals);
+                final double[][] block = dividedOnly.getPreprocessedBlock(panelSampleIndices, startPanelIntervalIndex, endPanelIntervalIndex);
+                final Median median = new Median();
+                long numImputedInBlock = 0;
+                for (int panelIntervalIndex = startPanelIntervalIndex; panelIntervalIndex < endPanelIntervalIndex; panelIntervalIndex++) {
+                    final double[] column = getColumn(block, panelIntervalIndex - startPanelIntervalIndex);
+                    final double[] nonZeroValues = Arrays.stream(column).filter(value -> value > 0.).toArray();
+                    nonZeroMedians[panelIntervalIndex] = median.evaluate(nonZeroValues);
+                    numImputedInBlock += Arrays.stream(column).filter(value -> value == 0.).count();
+                }
+                return numImputedInBlock;
+            }).sum());
+            intervalNonZeroMedians = nonZeroMedians;
+            logger.info(String.format("%d zero-coverage values were imputed to the median of the non-zero values in the corresponding interval...",
+                    numImputed));
+        }
+
+        //truncate extreme values to the corresponding percentile
+        final double minimumOutlierTruncationThreshold;
+        final double maximumOutlierTruncationThreshold;
+        if (extremeOutlierTruncationPercentile == 0.) {
+            logger.info(String.format("A value of 0 was provided for argument %s, so the corresponding truncation step will be skipped...",
+                    CreateReadCountPanelOfNormals.EXTREME_OUTLIER_TRUNCATION_PERCENTILE_LONG_NAME));
+            minimumOutlierTruncationThreshold = Double.NEGATIVE_INFINITY;
+            maximumOutlierTruncationThreshold = Double.POSITIVE_INFINITY;
+        } else {
+            final BlockedPreprocessedStandardizedResult imputedOnly = new BlockedPreprocessedStandardizedResult(
+                    panelIntervalFractionalMedians, filterSamples, filterIntervals, readCounts, panelSampleIndices, panelIntervalIndices,
+                    intervalNonZeroMedians, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, null, Double.NaN);
+            final double[] thresholds = calculatePercentiles(pool, numPanelBlocks,
+                    blockIndex -> {
+                        final int startPanelIntervalIndex = blockIndex * numIntervalsPerBlock;
+                        final int endPanelIntervalIndex = Math.min(startPanelIntervalIndex + numIntervalsPerBlock, numPanelIntervals);
+                        return imputedOnly.getPreprocessedBlock(panelSampleIndices, startPanelIntervalIndex, endPanelIntervalIndex);
+                    },
+                    new double[]{extremeOutlierTruncationPercentile, 100. - extremeOutlierTruncationPercentile});
+            minimumOutlierTruncationThreshold = thresholds[0];
+            maximumOutlierTruncationThreshold = thresholds[1];
+            logger.info(String.format("Values below the %.2f percentile (%.6f) or above the %.2f percentile (%.6f) will be truncated to the corresponding value...",
+                    extremeOutlierTruncationPercentile, minimumOutlierTruncationThreshold,
+                    100. - extremeOutlierTruncationPercentile, maximumOutlierTruncationThreshold));
+        }
+        logger.info("Panel read counts preprocessed.");
+
+        //standardize
+        logger.info("Standardizing read counts...");
+        logger.info("Dividing by sample medians and transforming to log2 space...");
+        final BlockedPreprocessedStandardizedResult preprocessedOnly = new BlockedPreprocessedStandardizedResult(
+                panelIntervalFractionalMedians, filterSamples, filterIntervals, readCounts, panelSampleIndices, panelIntervalIndices,
+                intervalNonZeroMedians, minimumOutlierTruncationThreshold, maximumOutlierTruncationThreshold, null, Double.NaN);
+        final double[] panelSampleMedians = new double[numPanelSamples];
+        final double[] sampleLog2Medians = new double[numPanelSamples];
+        runInPool(pool, () -> {
+            IntStream.range(0, numPanelSamples).parallel().forEach(panelSampleIndex -> {
+                final double[] values = preprocessedOnly.getPreprocessedBlock(
+                        new int[]{panelSampleIndices[panelSampleIndex]}, 0, numPanelIntervals)[0];
+                final Median median = new Median();
+                panelSampleMedians[panelSampleIndex] = median.evaluate(values);
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = SVDDenoisingUtils.safeLog2(values[i] / panelSampleMedians[panelSampleIndex]);
+                }
+                sampleLog2Medians[panelSampleIndex] = median.evaluate(values);
+            });
+            return null;
+        });
+        logger.info("Subtracting median of sample medians...");
+        final double medianOfSampleLog2Medians = new Median().evaluate(sampleLog2Medians);
+        logger.info("Panel read counts standardized.");
+
+        return new BlockedPreprocessedStandardizedResult(
+                panelIntervalFractionalMedians, filterSamples, filterIntervals, readCounts, panelSampleIndices, panelIntervalIndices,
+                intervalNonZeroMedians, minimumOutlierTruncationThreshold, maximumOutlierTruncationThreshold,
+                panelSampleMedians, medianOfSampleLog2Medians);
+    }
+
+    /**
+     * Computes the SVD of the transposed standardized panel (panel intervals x panel samples), truncated at
+     * {@code numEigensamples}.  Singular values smaller than {@code relativeTolerance} times the largest singular value
+     * are discarded, matching the behavior of Spark's {@code RowMatrix.computeSVD}.
+     * Memory use is bounded by the panel samples x panel samples Gramian, a single block of standardized values per thread,
+     * and the returned eigensample vectors.
+     */
+    static BlockedSVDResult computeTruncatedSVD(final BlockedPreprocessedStandardizedResult standardizedResult,
+                                                final int numEigensamples,
+                                                final double relativeTolerance,
+                                                final int numIntervalsPerBlock,
+                                                final ForkJoinPool pool) {
+        Utils.nonNull(standardizedResult);
+        ParamUtils.isPositive(numEigensamples, "Number of eigensamples must be positive.");
+        ParamUtils.isPositive(numIntervalsPerBlock, "Number of intervals per block must be positive.");
+        Utils.nonNull(pool);
+
+        final int numPanelSamples = standardizedResult.getNumPanelSamples();
+        final int numPanelIntervals = standardizedResult.getNumPanelIntervals();
+        final int numPanelBlocks = calculateNumBlocks(numPanelIntervals, numIntervalsPerBlock);
+
+        logger.info(String.format("Accumulating Gramian of standardized counts (%d x %d) over %d blocks...",
+                numPanelSamples, numPanelSamples, numPanelBlocks));
+        final double[][] gramian = runInPool(pool, () -> IntStream.range(0, numPanelBlocks).parallel()
+                .mapToObj(blockIndex -> {
+                    final int startPanelIntervalIndex = blockIndex * numIntervalsPerBlock;
+                    final int endPanelIntervalIndex = Math.min(startPanelIntervalIndex + numIntervalsPerBlock, numPanelIntervals);
+                    return calculateLowerTriangularGramian(standardizedResult.getStandardizedBlock(startPanelIntervalIndex, endPanelIntervalIndex));
+                })
+                .reduce(BlockedSVDDenoisingUtils::addInPlace)
+                .orElseThrow(() -> new GATKException.ShouldNeverReachHereException("There must be at least one block.")));
+        for (int i = 0; i < numPanelSamples; i++) {
+            for (int j = 0; j < i; j++) {
+                gramian[j][i] = gramian[i][j];
+            }
+        }
+
+        logger.info("Performing eigendecomposition of Gramian...");
+        final EigenDecomposition eigendecomposition = new EigenDecomposition(new Array2DRowRealMatrix(gramian, false));
+        final double[] eigenvalues = eigendecomposition.getRealEigenvalues();
+        final int[] sortedIndices = IntStream.range(0, eigenvalues.length).boxed()
+                .sorted(Comparator.comparingDouble(i -> -eigenvalues[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        final double largestSingularValue = Math.sqrt(Math.max(eigenvalues[sortedIndices[0]], 0.));
+        final double[] singularValues = Arrays.stream(sortedIndices)
+                .limit(numEigensamples)
+                .mapToDouble(i -> Math.sqrt(Math.max(eigenvalues[i], 0.)))
+                .filter(singularValue -> singularValue > 0. && singularValue >= relativeTolerance * largestSingularValue)
+                .toArray();
+        final int numSingularValues = singularValues.length;
+        if (numSingularValues == 0) {
+            return new BlockedSVDResult(singularValues, new double[0][]);
+        }
+
+        //the right singular vectors of the standardized matrix (samples x intervals) are the eigenvectors of the Gramian;
+        //we scale them by the inverse singular values so that the left singular vectors of the transpose can be recovered blockwise
+        final RealMatrix scaledEigenvectors = new Array2DRowRealMatrix(numPanelSamples, numSingularValues);
+        for (int k = 0; k < numSingularValues; k++) {
+            final RealVector eigenvector = eigendecomposition.getEigenvector(sortedIndices[k]);
+            scaledEigenvectors.setColumnVector(k, eigenvector.mapDivide(singularValues[k]));
+        }
+        final double[][] scaledEigenvectorsData = scaledEigenvectors.getData();
+
+        logger.info(String.format("Calculating eigensample vectors (%d x %d) over %d blocks...",
+                numPanelIntervals, numSingularValues, numPanelBlocks));
+        final double[][] transposedEigensampleVectors = new double[numSingularValues][numPanelIntervals];
+        runInPool(pool, () -> {
+            IntStream.range(0, numPanelBlocks).parallel().forEach(blockIndex -> {
+                final int startPanelIntervalIndex = blockIndex * numIntervalsPerBlock;
+                final int endPanelIntervalIndex = Math.min(startPanelIntervalIndex + numIntervalsPerBlock, numPanelIntervals);
+                final double[][] block = standardizedResult.getStandardizedBlock(startPanelIntervalIndex, endPanelIntervalIndex);
+                for (int k = 0; k < numSingularValues; k++) {
+                    final double[] eigensampleVector = transposedEigensampleVectors[k];
+                    for (int panelSampleIndex = 0; panelSampleIndex < numPanelSamples; panelSampleIndex++) {
+                        final double weight = scaledEigenvectorsData[panelSampleIndex][k];
+                        final double[] values = block[panelSampleIndex];
+                        for (int i = 0; i < values.length; i++) {
+                            eigensampleVector[startPanelIntervalIndex + i] += weight * values[i];
+                        }
+                    }
+                }
+            });
+            return null;
+        });
+        return new BlockedSVDResult(singularValues, transposedEigensampleVectors);
+    }
+
+    /**
+     * Computes the given percentiles of all non-NaN values supplied by {@code getBlock} exactly as
+     * {@link Percentile} (with the default legacy estimation and NaNs removed) would if all values
+     * were concatenated into a single array.  Order statistics are found by selecting one 16-bit digit of an
+     * order-preserving 64-bit key per pass over the blocks, so only a fixed number of histograms are held in memory.
+     */
+    static double[] calculatePercentiles(final ForkJoinPool pool,
+                                         final int numBlocks,
+                                         final IntFunction<double[][]> getBlock,
+                                         final double[] percentiles) {
+        Utils.nonNull(pool);
+        Utils.nonNull(getBlock);
+        Utils.nonNull(percentiles);
+        Arrays.stream(percentiles).forEach(p -> ParamUtils.inRange(p, 0., 100., "Percentiles must be in [0, 100]."));
+
+        //the first pass is shared by all order statistics and also determines the number of non-NaN values
+        final long[] firstHistogram = runInPool(pool, () -> IntStream.range(0, numBlocks).parallel()
+                .mapToObj(blockIndex -> {
+                    final long[] histogram = new long[RADIX];
+                    for (final double[] values : getBlock.apply(blockIndex)) {
+                        for (final double value : values) {
+                            if (!Double.isNaN(value)) {
+                                histogram[digit(toSortableKey(value), 0)]++;
+                            }
+                        }
+                    }
+                    return histogram;
+                })
+                .reduce(BlockedSVDDenoisingUtils::addInPlace)
+                .orElseGet(() -> new long[RADIX]));
+        final long numValues = Arrays.stream(firstHistogram).sum();
+        if (numValues == 0) {
+            final double[] result = new double[percentiles.length];
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+
+        //determine the (at most two) order statistics needed for each percentile
+        final double[] positions = Arrays.stream(percentiles)
+                .map(p -> legacyPosition(p / 100., numValues))
+                .toArray();
+        final int numRanks = 2 * percentiles.length;
+        final long[] ranks = new long[numRanks];
+        for (int i = 0; i < percentiles.length; i++) {
+            final double position = positions[i];
+            if (position < 1) {
+                ranks[2 * i] = 0;
+                ranks[2 * i + 1] = 0;
+            } else if (position >= numValues) {
+                ranks[2 * i] = numValues - 1;
+                ranks[2 * i + 1] = numValues - 1;
+            } else {
+                ranks[2 * i] = (long) Math.floor(position) - 1;
+                ranks[2 * i + 1] = (long) Math.floor(position);
+            }
+        }
+
+        final long[] prefixes = new long[numRanks];
+        final long[] remainingRanks = ranks.clone();
+        for (int r = 0; r < numRanks; r++) {
+            prefixes[r] = selectDigit(firstHistogram, remainingRanks, r);
+        }
+        for (int level = 1; level < NUM_RADIX_LEVELS; level++) {
+            final int currentLevel = level;
+            final long[][] histograms = runInPool(pool, () -> IntStream.range(0, numBlocks).parallel()
+                    .mapToObj(blockIndex -> {
+                        final long[][] blockHistograms = new long[numRanks][RADIX];
+                        for (final double[] values : getBlock.apply(blockIndex)) {
+                            for (final double value : values) {
+                                if (Double.isNaN(value)) {
+                                    continue;
+                                }
+                                final long key = toSortableKey(value);
+                                final long keyPrefix = key >>> (Long.SIZE - RADIX_BITS * currentLevel);
+                                for (int r = 0; r < numRanks; r++) {
+                                    if (keyPrefix == prefixes[r]) {
+                                        blockHistograms[r][digit(key, currentLevel)]++;
+                                    }
+                                }
+                            }
+                        }
+                        return blockHistograms;
+                    })
+                    .reduce((h1, h2) -> {
+                        IntStream.range(0, numRanks).forEach(r -> addInPlace(h1[r], h2[r]));
+                        return h1;
+                    })
+                    .orElseThrow(() -> new GATKException.ShouldNeverReachHereException("There must be at least one block.")));
+            for (int r = 0; r < numRanks; r++) {
+                prefixes[r] = (prefixes[r] << RADIX_BITS) | selectDigit(histograms[r], remainingRanks, r);
+            }
+        }
+
+        final double[] result = new double[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            final double position = positions[i];
+            final double lower = fromSortableKey(prefixes[2 * i]);
+            final double upper = fromSortableKey(prefixes[2 * i + 1]);
+            if (position < 1 || position >= numValues) {
+                result[i] = lower;
+            } else {
+                result[i] = lower + (position - Math.floor(position)) * (upper - lower);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Position used by {@link Percentile.EstimationType#LEGACY}, where {@code p} is in [0, 1].
+     */
+    private static double legacyPosition(final double p,
+                                         final long numValues) {
+        return Double.compare(p, 0.) == 0 ? 0. : Double.compare(p, 1.) == 0 ? numValues + 1 : p * (numValues + 1);
+    }
+
+    /**
+     * Finds the digit of the bucket in {@code histogram} containing the order statistic with rank {@code remainingRanks[r]}
+     * (among values in this histogram) and updates the latter to be the rank within that bucket.
+     */
+    private static long selectDigit(final long[] histogram,
+                                    final long[] remainingRanks,
+                                    final int r) {
+        long numValuesBelow = 0;
+        for (int digit = 0; digit < RADIX; digit++) {
+            if (numValuesBelow + histogram[digit] > remainingRanks[r]) {
+                remainingRanks[r] -= numValuesBelow;
+                return digit;
+            }
+            numValuesBelow += histogram[digit];
+        }
+        throw new GATKException.ShouldNeverReachHereException("Rank exceeds number of values in histogram.");
+    }
+
+    /**
+     * Maps a double to a long such that unsigned comparison of the keys is equivalent to numerical comparison of the doubles.
+     */
+    private static long toSortableKey(final double value) {
+        final long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> (Long.SIZE - 1)) | Long.MIN_VALUE);
+    }
+
+    private static double fromSortableKey(final long key) {
+        return Double.longBitsToDouble(key < 0 ? key ^ Long.MIN_VALUE : ~key);
+    }
+
+    private static int digit(final long key,
+                             final int level) {
+        return (int) ((key >>> (Long.SIZE - RADIX_BITS * (level + 1))) & RADIX_MASK);
+    }
+
+    /**
+     * Returns the lower triangle (including the diagonal) of X X<sup>T</sup>.
+     */
+    private static double[][] calculateLowerTriangularGramian(final double[][] block) {
+        final int numRows = block.length;
+        final double[][] gramian = new double[numRows][numRows];
+        for (int i = 0; i < numRows; i++) {
+            final double[] rowI = block[i];
+            for (int j = 0; j <= i; j++) {
+                final double[] rowJ = block[j];
+                double sum = 0.;
+                for (int c = 0; c < rowI.length; c++) {
+                    sum += rowI[c] * rowJ[c];
+                }
+                gramian[i][j] = sum;
+            }
+        }
+        return gramian;
+    }
+
+    private static double[][] addInPlace(final double[][] m1,
+                                         final double[][] m2) {
+        for (int i = 0; i < m1.length; i++) {
+            for (int j = 0; j < m1[i].length; j++) {
+                m1[i][j] += m2[i][j];
+            }
+        }
+        return m1;
+    }
+
+    private static long[] addInPlace(final long[] h1,
+                                     final long[] h2) {
+        for (int i = 0; i < h1.length; i++) {
+            h1[i] += h2[i];
+        }
+        return h1;
+    }
+
+    private static double[] getColumn(final double[][] block,
+                                      final int columnIndex) {
+        final double[] column = new double[block.length];
+        for (int i = 0; i < block.length; i++) {
+            column[i] = block[i][columnIndex];
+        }
+        return column;
+    }
+
+    private static int calculateNumBlocks(final int numColumns,
+                                          final int numColumnsPerBlock) {
+        return (numColumns + numColumnsPerBlock - 1) / numColumnsPerBlock;
+    }
+
+    private static <T> T runInPool(final ForkJoinPool pool,
+                                   final Callable<T> task) {
+        try {
+            return pool.submit(task).get();
+        } catch (final InterruptedException | ExecutionException e) {
+            throw new GATKException("Exception encountered during blocked computation of panel of normals.", e);
+        }
+    }
+}
@@ -13,6 +13,7 @@ import org.broadinstitute.hdf5.HDF5File;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.copynumber.CreateReadCountPanelOfNormals;
+import org.broadinstitute.hellbender.tools.copynumber.utils.FileBackedDoubleMatrix;
 import org.broadinstitute.hellbender.tools.copynumber.utils.HDF5Utils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -21,6 +22,7 @@ import org.broadinstitute.hellbender.utils.spark.SparkConverter;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -262,6 +264,124 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
         logger.info(String.format("Read-count panel of normals written to %s.", outFile));
     }
 
+    /**
+     * Create the panel of normals and write it to an HDF5 file, holding the read counts in a {@link FileBackedDoubleMatrix}
+     * and performing preprocessing, standardization, and SVD in blocks of {@code numIntervalsPerBlock} intervals
+     * using {@code numThreads} threads.  See {@link BlockedSVDDenoisingUtils}.  All inputs are assumed to be valid.
+     * The dimensions of {@code originalReadCounts} should be samples x intervals.
+     * To avoid a second temporary file, {@code originalReadCounts} is modified in place.
+     * If {@code intervalGCContent} is null, GC-bias correction will not be performed.
+     * The output is identical in format to that of {@link #create}.
+     */
+    public static void createInBlocks(final File outFile,
+                                      final String commandLine,
+                                      final FileBackedDoubleMatrix originalReadCounts,
+                                      final List<String> originalSampleFilenames,
+                                      final List<SimpleInterval> originalIntervals,
+                                      final double[] intervalGCContent,
+                                      final double minimumIntervalMedianPercentile,
+                                      final double maximumZerosInSamplePercentage,
+                                      final double maximumZerosInIntervalPercentage,
+                                      final double extremeSampleMedianPercentile,
+                                      final boolean doImputeZeros,
+                                      final double extremeOutlierTruncationPercentile,
+                                      final int numEigensamplesRequested,
+                                      final int numIntervalsPerBlock,
+                                      final int numThreads) {
+        final ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try (final HDF5File file = new HDF5File(outFile, HDF5File.OpenMode.CREATE)) {
+            logger.info("Creating " + outFile.getAbsolutePath() + "...");
+            final HDF5SVDReadCountPanelOfNormals pon = new HDF5SVDReadCountPanelOfNormals(file);
+
+            logger.info(String.format("Writing version number (" + PON_VERSION_STRING_FORMAT + ")...", CURRENT_PON_VERSION));
+            pon.writeVersion(CURRENT_PON_VERSION);
+
+            logger.info("Writing command line...");
+            pon.writeCommandLine(commandLine);
+
+            logger.info(String.format("Writing original read counts (%d x %d)...",
+                    originalReadCounts.getColumnDimension(), originalReadCounts.getRowDimension()));
+            pon.writeOriginalReadCountsPath(originalReadCounts);
+
+            logger.info(String.format("Writing original sample filenames (%d)...", originalSampleFilenames.size()));
+            pon.writeOriginalSampleFilenames(originalSampleFilenames);
+
+            logger.info(String.format("Writing original intervals (%d)...", originalIntervals.size()));
+            pon.writeOriginalIntervals(originalIntervals);
+
+            if (intervalGCContent != null) {
+                logger.info(String.format("Writing GC-content annotations for original intervals (%d)...", intervalGCContent.length));
+                pon.writeOriginalIntervalGCContent(intervalGCContent);
+            }
+
+            //preprocess and standardize read counts and determine filters
+            //(originalReadCounts is modified in place and standardized values are computed blockwise on demand)
+            logger.info(String.format("Preprocessing and standardizing read counts in blocks of %d intervals using %d threads...",
+                    numIntervalsPerBlock, numThreads));
+            final BlockedSVDDenoisingUtils.BlockedPreprocessedStandardizedResult preprocessedStandardizedResult =
+                    BlockedSVDDenoisingUtils.preprocessAndStandardizePanel(originalReadCounts, intervalGCContent,
+                            minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
+                            extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile,
+                            numIntervalsPerBlock, pool);
+
+            //filter samples and intervals
+            final List<String> panelSampleFilenames = IntStream.range(0, originalSampleFilenames.size())
+                    .filter(sampleIndex -> !preprocessedStandardizedResult.filterSamples[sampleIndex])
+                    .mapToObj(originalSampleFilenames::get).collect(Collectors.toList());
+            final List<SimpleInterval> panelIntervals = IntStream.range(0, originalIntervals.size())
+                    .filter(intervalIndex -> !preprocessedStandardizedResult.filterIntervals[intervalIndex])
+                    .mapToObj(originalIntervals::get).collect(Collectors.toList());
+
+            logger.info(String.format("Writing panel sample filenames (%d)...", panelSampleFilenames.size()));
+            pon.writePanelSampleFilenames(panelSampleFilenames);
+
+            logger.info(String.format("Writing panel intervals (%d)...", panelIntervals.size()));
+            pon.writePanelIntervals(panelIntervals);
+
+            final double[] panelIntervalFractionalMedians = preprocessedStandardizedResult.panelIntervalFractionalMedians;
+
+            logger.info(String.format("Writing panel interval fractional medians (%d)...", panelIntervalFractionalMedians.length));
+            pon.writePanelIntervalFractionalMedians(panelIntervalFractionalMedians);
+
+            final int numPanelSamples = preprocessedStandardizedResult.getNumPanelSamples();
+            final int numPanelIntervals = preprocessedStandardizedResult.getNumPanelIntervals();
+
+            final int numEigensamples = Math.min(numEigensamplesRequested, numPanelSamples);
+            if (numEigensamples < numEigensamplesRequested) {
+                logger.warn(String.format("%d eigensamples were requested but only %d are available in the panel of normals...",
+                        numEigensamplesRequested, numEigensamples));
+            }
+            logger.info(String.format("Performing blocked SVD (truncated at %d eigensamples) of standardized counts (transposed to %d x %d)...",
+                    numEigensamples, numPanelIntervals, numPanelSamples));
+            final BlockedSVDDenoisingUtils.BlockedSVDResult svd = BlockedSVDDenoisingUtils.computeTruncatedSVD(
+                    preprocessedStandardizedResult, numEigensamples, EPSILON, numIntervalsPerBlock, pool);
+            final double[] singularValues = svd.singularValues;
+            if (singularValues.length == 0) {
+                throw new UserException("No non-zero singular values were found.  Stricter filtering criteria may be required.");
+            }
+            if (singularValues.length < numEigensamples) {
+                logger.warn(String.format("Attempted to truncate at %d eigensamples, but only %d non-zero singular values were found...",
+                        numEigensamples, singularValues.length));
+            }
+
+            logger.info(String.format("Writing singular values (%d)...", singularValues.length));
+            pon.writeSingularValues(singularValues);
+
+            logger.info(String.format("Writing eigensample vectors (transposed to %d x %d)...",
+                    svd.transposedEigensampleVectors.length, numPanelIntervals));
+            pon.writeTransposedEigensampleVectors(svd.transposedEigensampleVectors);
+        } catch (final RuntimeException e) {
+            //if any exceptions encountered, delete partial output and rethrow
+            logger.warn(String.format("Exception encountered during creation of panel of normals.  Attempting to delete partial output in %s...",
+                    outFile.getAbsolutePath()));
+            IOUtils.tryDelete(outFile);
+            throw new GATKException("Could not create panel of normals.  It may be necessary to use stricter parameters for filtering.",  e);
+        } finally {
+            pool.shutdown();
+        }
+        logger.info(String.format("Read-count panel of normals written to %s.", outFile));
+    }
+
     //PRIVATE WRITERS (write values to HDF5 file)
     //these are private to prevent fields from being written individually, which could leave the file in a bad state
 
@@ -281,6 +401,12 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
         file.makeStringArray(ORIGINAL_SAMPLE_FILENAMES_PATH, originalSampleFilenames.toArray(new String[originalSampleFilenames.size()]));
     }
 
+    private void writeOriginalReadCountsPath(final FileBackedDoubleMatrix originalReadCounts) {
+        HDF5Utils.writeChunkedDoubleMatrix(file, ORIGINAL_READ_COUNTS_PATH,
+                originalReadCounts.getRowDimension(), originalReadCounts.getColumnDimension(), originalReadCounts::getRow,
+                CHUNK_DIVISOR);
+    }
+
     private void writeOriginalIntervals(final List<SimpleInterval> originalIntervals) {
         HDF5Utils.writeIntervals(file, ORIGINAL_INTERVALS_PATH, originalIntervals);
     }
@@ -310,4 +436,8 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
                 new Array2DRowRealMatrix(eigensampleVectors, false).transpose().getData(),
                 CHUNK_DIVISOR);
     }
-}
\ No newline at end of file
+
+    private void writeTransposedEigensampleVectors(final double[][] transposedEigensampleVectors) {
+        HDF5Utils.writeChunkedDoubleMatrix(file, PANEL_EIGENSAMPLE_VECTORS_PATH, transposedEigensampleVectors, CHUNK_DIVISOR);
+    }
+}
@@ -440,7 +440,7 @@ public final class SVDDenoisingUtils {
         return standardizedValues.subtract(projection);
     }
 
-    private static int countNumberPassingFilter(final boolean[] filter) {
+    static int countNumberPassingFilter(final boolean[] filter) {
         final int numPassingFilter = (int) IntStream.range(0, filter.length).filter(i -> !filter[i]).count();
         if (numPassingFilter == 0) {
             throw new UserException.BadInput("Filtering removed all samples or intervals.  Select less strict filtering criteria.");
@@ -478,12 +478,12 @@ public final class SVDDenoisingUtils {
         });
     }
 
-    private static int calculateMaximumZerosCount(final int numTotalCounts,
-                                                  final double percentage) {
+    static int calculateMaximumZerosCount(final int numTotalCounts,
+                                          final double percentage) {
         return (int) Math.ceil(numTotalCounts * percentage / 100.0);
     }
 
-    private static double safeLog2(final double x) {
+    static double safeLog2(final double x) {
         return x < EPSILON ? LN2_EPSILON : Math.log(x) * INV_LN2;
     }
 }
\ No newline at end of file
@@ -27,4 +27,7 @@ public final class CopyNumberStandardArgument {
 
     public static final String OUTPUT_PREFIX_LONG_NAME = "outputPrefix";
     public static final String OUTPUT_PREFIX_SHORT_NAME = "pre";
+
+    public static final String WRITE_COLUMNAR_SIDECAR_LONG_NAME = "writeColumnarSidecar";
+    public static final String WRITE_COLUMNAR_SIDECAR_SHORT_NAME = "sidecar";
 }
\ No newline at end of file
@@ -4,13 +4,18 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleMet
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.AllelicCount;
 import org.broadinstitute.hellbender.utils.Nucleotide;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableReader;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableWriter;
 import org.broadinstitute.hellbender.utils.tsv.DataLine;
 import org.broadinstitute.hellbender.utils.tsv.TableColumnCollection;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Simple data structure to pass and read/write a List of {@link AllelicCount} objects.
@@ -50,12 +55,44 @@ public final class AllelicCountCollection extends SampleLocatableCollection<Alle
                     .append(allelicCount.getRefNucleotide().name())
                     .append(allelicCount.getAltNucleotide().name());
 
+    private static final ColumnarRecordCodec<AllelicCount> ALLELIC_COUNT_COLUMNAR_RECORD_CODEC = new ColumnarRecordCodec<AllelicCount>() {
+        @Override
+        public List<AllelicCount> decode(final ColumnarTableReader reader) throws IOException {
+            final String[] contigs = reader.getStringColumn(AllelicCountTableColumn.CONTIG.name());
+            final int[] positions = reader.getIntColumn(AllelicCountTableColumn.POSITION.name());
+            final int[] refReadCounts = reader.getIntColumn(AllelicCountTableColumn.REF_COUNT.name());
+            final int[] altReadCounts = reader.getIntColumn(AllelicCountTableColumn.ALT_COUNT.name());
+            final String[] refNucleotides = reader.getStringColumn(AllelicCountTableColumn.REF_NUCLEOTIDE.name());
+            final String[] altNucleotides = reader.getStringColumn(AllelicCountTableColumn.ALT_NUCLEOTIDE.name());
+            return IntStream.range(0, reader.numRows())
+                    .mapToObj(i -> new AllelicCount(
+                            new SimpleInterval(contigs[i], positions[i], positions[i]),
+                            refReadCounts[i],
+                            altReadCounts[i],
+                            Nucleotide.valueOf((byte) refNucleotides[i].charAt(0)),
+                            Nucleotide.valueOf((byte) altNucleotides[i].charAt(0))))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public void encode(final List<AllelicCount> allelicCounts, final ColumnarTableWriter writer) {
+            writer.addStringColumn(AllelicCountTableColumn.CONTIG.name(), allelicCounts.stream().map(AllelicCount::getContig).toArray(String[]::new))
+                    .addIntColumn(AllelicCountTableColumn.POSITION.name(), allelicCounts.stream().mapToInt(AllelicCount::getEnd).toArray())
+                    .addIntColumn(AllelicCountTableColumn.REF_COUNT.name(), allelicCounts.stream().mapToInt(AllelicCount::getRefReadCount).toArray())
+                    .addIntColumn(AllelicCountTableColumn.ALT_COUNT.name(), allelicCounts.stream().mapToInt(AllelicCount::getAltReadCount).toArray())
+                    .addStringColumn(AllelicCountTableColumn.REF_NUCLEOTIDE.name(), allelicCounts.stream().map(ac -> ac.getRefNucleotide().name()).toArray(String[]::new))
+                    .addStringColumn(AllelicCountTableColumn.ALT_NUCLEOTIDE.name(), allelicCounts.stream().map(ac -> ac.getAltNucleotide().name()).toArray(String[]::new));
+        }
+    };
+
     public AllelicCountCollection(final File inputFile) {
-        super(inputFile, AllelicCountCollection.AllelicCountTableColumn.COLUMNS, ALLELIC_COUNT_RECORD_FROM_DATA_LINE_DECODER, ALLELIC_COUNT_RECORD_TO_DATA_LINE_ENCODER);
+        super(inputFile, AllelicCountCollection.AllelicCountTableColumn.COLUMNS, ALLELIC_COUNT_RECORD_FROM_DATA_LINE_DECODER, ALLELIC_COUNT_RECORD_TO_DATA_LINE_ENCODER,
+                ALLELIC_COUNT_COLUMNAR_RECORD_CODEC);
     }
 
     public AllelicCountCollection(final SampleMetadata sampleMetadata,
                                   final List<AllelicCount> AllelicCounts) {
-        super(sampleMetadata, AllelicCounts, AllelicCountCollection.AllelicCountTableColumn.COLUMNS, ALLELIC_COUNT_RECORD_FROM_DATA_LINE_DECODER, ALLELIC_COUNT_RECORD_TO_DATA_LINE_ENCODER);
+        super(sampleMetadata, AllelicCounts, AllelicCountCollection.AllelicCountTableColumn.COLUMNS, ALLELIC_COUNT_RECORD_FROM_DATA_LINE_DECODER, ALLELIC_COUNT_RECORD_TO_DATA_LINE_ENCODER,
+                ALLELIC_COUNT_COLUMNAR_RECORD_CODEC);
     }
 }
@@ -4,14 +4,18 @@ import htsjdk.samtools.util.OverlapDetector;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleMetadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.CopyRatio;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableReader;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableWriter;
 import org.broadinstitute.hellbender.utils.tsv.DataLine;
 import org.broadinstitute.hellbender.utils.tsv.TableColumnCollection;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public final class CopyRatioCollection extends SampleLocatableCollection<CopyRatio> {
     enum CopyRatioTableColumn {
@@ -38,13 +42,36 @@ public final class CopyRatioCollection extends SampleLocatableCollection<CopyRat
                 .append(copyRatio.getInterval().getEnd())
                 .append(copyRatio.getLog2CopyRatioValue());
 
+    private static final ColumnarRecordCodec<CopyRatio> COPY_RATIO_COLUMNAR_RECORD_CODEC = new ColumnarRecordCodec<CopyRatio>() {
+        @Override
+        public List<CopyRatio> decode(final ColumnarTableReader reader) throws IOException {
+            final String[] contigs = reader.getStringColumn(CopyRatioTableColumn.CONTIG.name());
+            final int[] starts = reader.getIntColumn(CopyRatioTableColumn.START.name());
+            final int[] ends = reader.getIntColumn(CopyRatioTableColumn.END.name());
+            final double[] log2CopyRatios = reader.getDoubleColumn(CopyRatioTableColumn.LOG2_COPY_RATIO.name());
+            return IntStream.range(0, reader.numRows())
+                    .mapToObj(i -> new CopyRatio(new SimpleInterval(contigs[i], starts[i], ends[i]), log2CopyRatios[i]))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public void encode(final List<CopyRatio> copyRatios, final ColumnarTableWriter writer) {
+            writer.addStringColumn(CopyRatioTableColumn.CONTIG.name(), copyRatios.stream().map(CopyRatio::getContig).toArray(String[]::new))
+                    .addIntColumn(CopyRatioTableColumn.START.name(), copyRatios.stream().mapToInt(CopyRatio::getStart).toArray())
+                    .addIntColumn(CopyRatioTableColumn.END.name(), copyRatios.stream().mapToInt(CopyRatio::getEnd).toArray())
+                    .addDoubleColumn(CopyRatioTableColumn.LOG2_COPY_RATIO.name(), copyRatios.stream().mapToDouble(CopyRatio::getLog2CopyRatioValue).toArray());
+        }
+    };
+
     public CopyRatioCollection(final File inputFile) {
-        super(inputFile, CopyRatioTableColumn.COLUMNS, COPY_RATIO_RECORD_FROM_DATA_LINE_DECODER, COPY_RATIO_RECORD_TO_DATA_LINE_ENCODER);
+        super(inputFile, CopyRatioTableColumn.COLUMNS, COPY_RATIO_RECORD_FROM_DATA_LINE_DECODER, COPY_RATIO_RECORD_TO_DATA_LINE_ENCODER,
+                COPY_RATIO_COLUMNAR_RECORD_CODEC);
     }
 
     public CopyRatioCollection(final SampleMetadata sampleMetadata,
                                final List<CopyRatio> copyRatios) {
-        super(sampleMetadata, copyRatios, CopyRatioTableColumn.COLUMNS, COPY_RATIO_RECORD_FROM_DATA_LINE_DECODER, COPY_RATIO_RECORD_TO_DATA_LINE_ENCODER);
+        super(sampleMetadata, copyRatios, CopyRatioTableColumn.COLUMNS, COPY_RATIO_RECORD_FROM_DATA_LINE_DECODER, COPY_RATIO_RECORD_TO_DATA_LINE_ENCODER,
+                COPY_RATIO_COLUMNAR_RECORD_CODEC);
     }
 
     public List<Double> getLog2CopyRatioValues() {
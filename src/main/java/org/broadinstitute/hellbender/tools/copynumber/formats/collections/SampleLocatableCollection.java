@@ -40,12 +40,25 @@ public abstract class SampleLocatableCollection<RECORD extends Locatable> extend
                               final TableColumnCollection mandatoryColumns,
                               final Function<DataLine, RECORD> recordFromDataLineDecoder,
                               final BiConsumer<RECORD, DataLine> recordToDataLineEncoder) {
+        this(sampleMetadata, records, mandatoryColumns, recordFromDataLineDecoder, recordToDataLineEncoder, null);
+    }
+
+    /**
+     * Records are sorted using {@code LEXICOGRAPHICAL_ORDER_COMPARATOR}.
+     */
+    SampleLocatableCollection(final SampleMetadata sampleMetadata,
+                              final List<RECORD> records,
+                              final TableColumnCollection mandatoryColumns,
+                              final Function<DataLine, RECORD> recordFromDataLineDecoder,
+                              final BiConsumer<RECORD, DataLine> recordToDataLineEncoder,
+                              final ColumnarRecordCodec<RECORD> columnarRecordCodec) {
         super(
                 sampleMetadata,
                 Utils.nonNull(records).stream().sorted(LEXICOGRAPHICAL_ORDER_COMPARATOR).collect(Collectors.toList()),
                 mandatoryColumns,
                 recordFromDataLineDecoder,
-                recordToDataLineEncoder);
+                recordToDataLineEncoder,
+                columnarRecordCodec);
         validateIntervals(getSampleName(), getRecords());
     }
 
@@ -56,7 +69,18 @@ public abstract class SampleLocatableCollection<RECORD extends Locatable> extend
                               final TableColumnCollection mandatoryColumns,
                               final Function<DataLine, RECORD> recordFromDataLineDecoder,
                               final BiConsumer<RECORD, DataLine> recordToDataLineEncoder) {
-        super(inputFile, mandatoryColumns, recordFromDataLineDecoder, recordToDataLineEncoder);
+        this(inputFile, mandatoryColumns, recordFromDataLineDecoder, recordToDataLineEncoder, null);
+    }
+
+    /**
+     * @throws IllegalArgumentException if records are not sorted using {@code LEXICOGRAPHICAL_ORDER_COMPARATOR}
+     */
+    SampleLocatableCollection(final File inputFile,
+                              final TableColumnCollection mandatoryColumns,
+                              final Function<DataLine, RECORD> recordFromDataLineDecoder,
+                              final BiConsumer<RECORD, DataLine> recordToDataLineEncoder,
+                              final ColumnarRecordCodec<RECORD> columnarRecordCodec) {
+        super(inputFile, mandatoryColumns, recordFromDataLineDecoder, recordToDataLineEncoder, columnarRecordCodec);
         validateIntervals(getSampleName(), getRecords());
     }
 
@@ -12,6 +12,7 @@ import org.broadinstitute.hellbender.utils.tsv.*;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -20,16 +21,29 @@ import java.util.stream.Collectors;
 /**
  * Represents an immutable collection of records associated with a sample, a set of
  * mandatory column headers given by a {@link TableColumnCollection}, and lambdas for
- * reading and writing records.
+ * reading and writing records.  Subclasses may additionally provide a {@link ColumnarRecordCodec}, in which case
+ * records are read from a binary columnar sidecar (see {@link ColumnarTableReader}) when a current one is present
+ * alongside the TSV file, avoiding the cost of parsing each value from a string.
  *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 public abstract class SampleRecordCollection<RECORD> implements SampleMetadata {
+    /**
+     * Decodes and encodes all records in a collection from and to the typed columns of a binary columnar sidecar.
+     * Columns must be named and ordered as the mandatory columns of the collection.
+     */
+    interface ColumnarRecordCodec<RECORD> {
+        List<RECORD> decode(final ColumnarTableReader reader) throws IOException;
+
+        void encode(final List<RECORD> records, final ColumnarTableWriter writer);
+    }
+
     private final SampleMetadata sampleMetadata;
     private final ImmutableList<RECORD> records;
     private final TableColumnCollection mandatoryColumns;
     private final Function<DataLine, RECORD> recordFromDataLineDecoder;
     private final BiConsumer<RECORD, DataLine> recordToDataLineEncoder;
+    private final ColumnarRecordCodec<RECORD> columnarRecordCodec;
 
     /**
      * Constructor given the sample metadata, the list of records, the mandatory column headers,
@@ -46,11 +60,26 @@ public abstract class SampleRecordCollection<RECORD> implements SampleMetadata {
                            final TableColumnCollection mandatoryColumns,
                            final Function<DataLine, RECORD> recordFromDataLineDecoder,
                            final BiConsumer<RECORD, DataLine> recordToDataLineEncoder) {
+        this(sampleMetadata, records, mandatoryColumns, recordFromDataLineDecoder, recordToDataLineEncoder, null);
+    }
+
+    /**
+     * As above, but additionally given a codec for reading and writing records from and to a binary columnar sidecar.
+     *
+     * @param columnarRecordCodec           codec for the columnar sidecar; may be {@code null}, in which case sidecars are not supported
+     */
+    SampleRecordCollection(final SampleMetadata sampleMetadata,
+                           final List<RECORD> records,
+                           final TableColumnCollection mandatoryColumns,
+                           final Function<DataLine, RECORD> recordFromDataLineDecoder,
+                           final BiConsumer<RECORD, DataLine> recordToDataLineEncoder,
+                           final ColumnarRecordCodec<RECORD> columnarRecordCodec) {
         this.sampleMetadata = Utils.nonNull(sampleMetadata);
         this.records = ImmutableList.copyOf(Utils.nonNull(records));
         this.mandatoryColumns = Utils.nonNull(mandatoryColumns);
         this.recordFromDataLineDecoder = Utils.nonNull(recordFromDataLineDecoder);
         this.recordToDataLineEncoder = Utils.nonNull(recordToDataLineEncoder);
+        this.columnarRecordCodec = columnarRecordCodec;
         Utils.nonEmpty(mandatoryColumns.names());
     }
 
@@ -68,12 +97,39 @@ public abstract class SampleRecordCollection<RECORD> implements SampleMetadata {
                            final TableColumnCollection mandatoryColumns,
                            final Function<DataLine, RECORD> recordFromDataLineDecoder,
                            final BiConsumer<RECORD, DataLine> recordToDataLineEncoder) {
+        this(inputFile, mandatoryColumns, recordFromDataLineDecoder, recordToDataLineEncoder, null);
+    }
+
+    /**
+     * As above, but additionally given a codec for reading and writing records from and to a binary columnar sidecar.
+     * If the codec is non-null and a current sidecar is present alongside the input file, records are read from the sidecar;
+     * otherwise, they are read from the TSV file.
+     *
+     * @param columnarRecordCodec           codec for the columnar sidecar; may be {@code null}, in which case sidecars are not supported
+     */
+    SampleRecordCollection(final File inputFile,
+                           final TableColumnCollection mandatoryColumns,
+                           final Function<DataLine, RECORD> recordFromDataLineDecoder,
+                           final BiConsumer<RECORD, DataLine> recordToDataLineEncoder,
+                           final ColumnarRecordCodec<RECORD> columnarRecordCodec) {
         IOUtils.canReadFile(inputFile);
         this.mandatoryColumns = Utils.nonNull(mandatoryColumns);
         this.recordFromDataLineDecoder = Utils.nonNull(recordFromDataLineDecoder);
         this.recordToDataLineEncoder = Utils.nonNull(recordToDataLineEncoder);
+        this.columnarRecordCodec = columnarRecordCodec;
         Utils.nonEmpty(mandatoryColumns.names());
 
+        if (columnarRecordCodec != null && ColumnarTableReader.hasCurrentSidecar(inputFile)) {
+            try (final ColumnarTableReader reader = new ColumnarTableReader(inputFile)) {
+                TableUtils.checkMandatoryColumns(reader.columns(), mandatoryColumns, UserException.BadInput::new);
+                sampleMetadata = new SimpleSampleMetadata(SampleNameUtils.readSampleName(inputFile));
+                records = ImmutableList.copyOf(columnarRecordCodec.decode(reader));
+            } catch (final IOException e) {
+                throw new UserException.CouldNotReadInputFile(ColumnarTableReader.getSidecarFile(inputFile), e);
+            }
+            return;
+        }
+
         try (final SampleRecordCollectionReader reader = new SampleRecordCollectionReader(inputFile)) {
             TableUtils.checkMandatoryColumns(reader.columns(), mandatoryColumns, UserException.BadInput::new);
             sampleMetadata = reader.readSampleMetadata();
@@ -104,7 +160,7 @@ public abstract class SampleRecordCollection<RECORD> implements SampleMetadata {
     }
 
     /**
-     * Writes the sample metadata and the records to file.
+     * Writes the sample metadata and the records to file.  Any existing columnar sidecar for the file is deleted.
      */
     public void write(final File outputFile) {
         try (final SampleRecordCollectionWriter writer = new SampleRecordCollectionWriter(outputFile, sampleMetadata)) {
@@ -113,6 +169,36 @@ public abstract class SampleRecordCollection<RECORD> implements SampleMetadata {
         } catch (final IOException e) {
             throw new UserException.CouldNotCreateOutputFile(outputFile, e);
         }
+        try {
+            Files.deleteIfExists(ColumnarTableReader.getSidecarFile(outputFile).toPath());
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(ColumnarTableReader.getSidecarFile(outputFile), e);
+        }
+    }
+
+    /**
+     * @return  whether the records can be written to and read from a binary columnar sidecar
+     */
+    public final boolean supportsColumnarSidecar() {
+        return columnarRecordCodec != null;
+    }
+
+    /**
+     * Writes the sample metadata and the records to file, followed by a binary columnar sidecar
+     * containing the records, which is used in preference to the TSV file when the collection is read.
+     *
+     * @throws UnsupportedOperationException if {@link #supportsColumnarSidecar()} is false
+     */
+    public void writeWithColumnarSidecar(final File outputFile) {
+        if (!supportsColumnarSidecar()) {
+            throw new UnsupportedOperationException("Records in this collection cannot be written to a columnar sidecar.");
+        }
+        write(outputFile);
+        try (final ColumnarTableWriter writer = new ColumnarTableWriter(outputFile, records.size())) {
+            columnarRecordCodec.encode(records, writer);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(ColumnarTableReader.getSidecarFile(outputFile), e);
+        }
     }
 
     @Override
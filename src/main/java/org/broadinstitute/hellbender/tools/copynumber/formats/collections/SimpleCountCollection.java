@@ -7,10 +7,13 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCoun
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableReader;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableWriter;
 import org.broadinstitute.hellbender.utils.tsv.DataLine;
 import org.broadinstitute.hellbender.utils.tsv.TableColumnCollection;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -47,17 +50,47 @@ public final class SimpleCountCollection extends SampleLocatableCollection<Simpl
                     .append(simpleCount.getInterval().getEnd())
                     .append(simpleCount.getCount());
 
+    private static final ColumnarRecordCodec<SimpleCount> SIMPLE_COUNT_COLUMNAR_RECORD_CODEC = new ColumnarRecordCodec<SimpleCount>() {
+        @Override
+        public List<SimpleCount> decode(final ColumnarTableReader reader) throws IOException {
+            final String[] contigs = reader.getStringColumn(SimpleCountTableColumn.CONTIG.name());
+            final int[] starts = reader.getIntColumn(SimpleCountTableColumn.START.name());
+            final int[] ends = reader.getIntColumn(SimpleCountTableColumn.END.name());
+            final int[] counts = reader.getIntColumn(SimpleCountTableColumn.COUNT.name());
+            return IntStream.range(0, reader.numRows())
+                    .mapToObj(i -> new SimpleCount(new SimpleInterval(contigs[i], starts[i], ends[i]), counts[i]))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public void encode(final List<SimpleCount> simpleCounts, final ColumnarTableWriter writer) {
+            writer.addStringColumn(SimpleCountTableColumn.CONTIG.name(), simpleCounts.stream().map(SimpleCount::getContig).toArray(String[]::new))
+                    .addIntColumn(SimpleCountTableColumn.START.name(), simpleCounts.stream().mapToInt(SimpleCount::getStart).toArray())
+                    .addIntColumn(SimpleCountTableColumn.END.name(), simpleCounts.stream().mapToInt(SimpleCount::getEnd).toArray())
+                    .addIntColumn(SimpleCountTableColumn.COUNT.name(), simpleCounts.stream().mapToInt(SimpleCount::getCount).toArray());
+        }
+    };
+
     private SimpleCountCollection(final File inputFile) {
-        super(inputFile, SimpleCountCollection.SimpleCountTableColumn.COLUMNS, SIMPLE_COUNT_RECORD_FROM_DATA_LINE_DECODER, SIMPLE_COUNT_RECORD_TO_DATA_LINE_ENCODER);
+        super(inputFile, SimpleCountCollection.SimpleCountTableColumn.COLUMNS, SIMPLE_COUNT_RECORD_FROM_DATA_LINE_DECODER, SIMPLE_COUNT_RECORD_TO_DATA_LINE_ENCODER,
+                SIMPLE_COUNT_COLUMNAR_RECORD_CODEC);
     }
 
     public SimpleCountCollection(final SampleMetadata sampleMetadata,
                                  final List<SimpleCount> simpleCounts) {
-        super(sampleMetadata, simpleCounts, SimpleCountCollection.SimpleCountTableColumn.COLUMNS, SIMPLE_COUNT_RECORD_FROM_DATA_LINE_DECODER, SIMPLE_COUNT_RECORD_TO_DATA_LINE_ENCODER);
+        super(sampleMetadata, simpleCounts, SimpleCountCollection.SimpleCountTableColumn.COLUMNS, SIMPLE_COUNT_RECORD_FROM_DATA_LINE_DECODER, SIMPLE_COUNT_RECORD_TO_DATA_LINE_ENCODER,
+                SIMPLE_COUNT_COLUMNAR_RECORD_CODEC);
     }
 
+    /**
+     * Reads an HDF5 or TSV file; in the latter case, a current columnar sidecar is used if present
+     * (see {@link #writeWithColumnarSidecar(File)}).
+     */
     public static SimpleCountCollection read(final File file) {
         IOUtils.canReadFile(file);
+        if (ColumnarTableReader.hasCurrentSidecar(file)) {
+            return readTSV(file);
+        }
         try {
             return readHDF5(new HDF5File(file));
         } catch (final HDF5LibException e) {
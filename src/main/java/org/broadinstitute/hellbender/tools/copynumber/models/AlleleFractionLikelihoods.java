@@ -47,8 +47,9 @@ import static org.broadinstitute.hellbender.utils.MathUtils.log10ToLog;
 final class AlleleFractionLikelihoods {
     private static final double EPSILON = 1E-10;
 
-    private static final FunctionCache logGammaCache = new FunctionCache(Gamma::logGamma);
-    private static final FunctionCache logCache = new FunctionCache(FastMath::log);
+    //caches are not thread-safe, so each thread holds its own (segments may be sampled concurrently)
+    private static final ThreadLocal<FunctionCache> logGammaCache = ThreadLocal.withInitial(() -> new FunctionCache(Gamma::logGamma));
+    private static final ThreadLocal<FunctionCache> logCache = ThreadLocal.withInitial(() -> new FunctionCache(FastMath::log));
 
     private static final class FunctionCache extends LinkedHashMap<Double, Double> {
         private static final long serialVersionUID = 19841647L;
@@ -80,9 +81,10 @@ final class AlleleFractionLikelihoods {
         final double pi = parameters.getOutlierProbability();
 
         //we compute some quantities that will be reused
-        final double logPi = logCache.computeIfAbsent(pi);
-        final double logNotPi = logCache.computeIfAbsent((1 - pi) / 2);
-        final double logcCommon = alpha * logCache.computeIfAbsent(beta) - logGammaCache.computeIfAbsent(alpha);
+        final FunctionCache threadLogCache = logCache.get();
+        final double logPi = threadLogCache.computeIfAbsent(pi);
+        final double logNotPi = threadLogCache.computeIfAbsent((1 - pi) / 2);
+        final double logcCommon = alpha * threadLogCache.computeIfAbsent(beta) - logGammaCache.get().computeIfAbsent(alpha);
         final double majorFraction = 1 - minorFraction;
         final double logMinorFraction = log(minorFraction);
         final double logMajorFraction = log(majorFraction);
@@ -8,6 +8,7 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.mcmc.DecileCollection;
 import org.broadinstitute.hellbender.utils.mcmc.GibbsSampler;
+import org.broadinstitute.hellbender.utils.mcmc.IndependentBlockSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterizedModel;
 
@@ -67,13 +68,28 @@ public final class AlleleFractionModeller {
     /**
      * Constructs an allele-fraction model given allelic counts and segments.
      * {@link AlleleFractionInitializer} is used for initialization and slice-sampling widths are estimated.
+     * Minor-allele fractions of segments are sampled serially.
      */
     AlleleFractionModeller(final AllelicCountCollection allelicCounts,
                            final List<SimpleInterval> segments,
                            final AlleleFractionPrior prior) {
+        this(allelicCounts, segments, prior, IndependentBlockSampler.serial());
+    }
+
+    /**
+     * Constructs an allele-fraction model given allelic counts and segments.
+     * {@link AlleleFractionInitializer} is used for initialization and slice-sampling widths are estimated.
+     * @param segmentSampler    used to sample the minor-allele fractions of segments,
+     *                          which are conditionally independent given the global parameters
+     */
+    AlleleFractionModeller(final AllelicCountCollection allelicCounts,
+                           final List<SimpleInterval> segments,
+                           final AlleleFractionPrior prior,
+                           final IndependentBlockSampler segmentSampler) {
         Utils.nonNull(allelicCounts);
         Utils.nonEmpty(segments);
         Utils.nonNull(prior);
+        Utils.nonNull(segmentSampler);
 
         sampleMetadata = allelicCounts.getSampleMetadata();
         final AlleleFractionSegmentedData data = new AlleleFractionSegmentedData(allelicCounts, segments);
@@ -104,7 +120,7 @@ public final class AlleleFractionModeller {
         final ParameterSampler<Double, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> outlierProbabilitySampler =
                 new AlleleFractionSamplers.OutlierProbabilitySampler(MAX_REASONABLE_OUTLIER_PROBABILITY, outlierProbabilitySamplingWidths);
         final ParameterSampler<AlleleFractionState.MinorFractions, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> minorFractionsSampler =
-                new AlleleFractionSamplers.MinorFractionsSampler(prior, minorFractionsSliceSamplingWidths);
+                new AlleleFractionSamplers.MinorFractionsSampler(prior, minorFractionsSliceSamplingWidths, segmentSampler);
 
         model = new ParameterizedModel.GibbsBuilder<>(initialState, data)
                 .addParameterSampler(AlleleFractionParameter.MEAN_BIAS, meanBiasSampler, Double.class)
@@ -4,10 +4,10 @@ import org.apache.commons.math3.distribution.BetaDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.mcmc.IndependentBlockSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 import org.broadinstitute.hellbender.utils.mcmc.SliceSampler;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -106,7 +106,7 @@ final class AlleleFractionSamplers {
         }
     }
 
-    // sample minor fractions of all segments
+    // sample minor fractions of all segments, which are conditionally independent given the global parameters
     static final class MinorFractionsSampler implements ParameterSampler<AlleleFractionState.MinorFractions, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> {
         private static double MIN_MINOR_FRACTION = 0.;
         private static double MAX_MINOR_FRACTION = 0.5;
@@ -114,31 +114,32 @@ final class AlleleFractionSamplers {
 
         private final Function<Double, Double> logPrior;
         private final List<Double> sliceSamplingWidths;
+        private final IndependentBlockSampler segmentSampler;
 
         MinorFractionsSampler(final AlleleFractionPrior prior,
-                              final List<Double> sliceSamplingWidths) {
+                              final List<Double> sliceSamplingWidths,
+                              final IndependentBlockSampler segmentSampler) {
             logPrior = f -> new BetaDistribution(null, prior.getMinorAlleleFractionPriorAlpha(), PRIOR_BETA).logDensity(2 * f);
             this.sliceSamplingWidths = sliceSamplingWidths;
+            this.segmentSampler = segmentSampler;
         }
 
         @Override
         public AlleleFractionState.MinorFractions sample(final RandomGenerator rng, final AlleleFractionState state, final AlleleFractionSegmentedData data) {
-            final List<Double> minorFractions = new ArrayList<>(data.getNumSegments());
-            for (int segment = 0; segment < data.getNumSegments(); segment++) {
+            final List<Double> minorFractions = segmentSampler.sample(rng, data.getNumSegments(), (segmentRng, segment) -> {
                 logger.debug(String.format("Sampling minor fraction for segment %d...", segment));
                 final List<AlleleFractionSegmentedData.IndexedAllelicCount> allelicCountsInSegment =
                         data.getIndexedAllelicCountsInSegment(segment);
                 if (allelicCountsInSegment.isEmpty()){
-                    minorFractions.add(Double.NaN);
-                } else {
-                    final Function<Double, Double> segmentLogLikelihoodEstimate = segmentLogLikelihoodFromSubsample(
-                            rng, state.globalParameters(), allelicCountsInSegment, NUM_POINTS_SEGMENT_SUBSAMPLE_THRESHOLD);
-                    final SliceSampler sampler = new SliceSampler(rng,
-                            f -> logPrior.apply(f) + segmentLogLikelihoodEstimate.apply(f),
-                            MIN_MINOR_FRACTION, MAX_MINOR_FRACTION, sliceSamplingWidths.get(segment));
-                    minorFractions.add(sampler.sample(state.segmentMinorFraction(segment)));
+                    return Double.NaN;
                 }
-            }
+                final Function<Double, Double> segmentLogLikelihoodEstimate = segmentLogLikelihoodFromSubsample(
+                        segmentRng, state.globalParameters(), allelicCountsInSegment, NUM_POINTS_SEGMENT_SUBSAMPLE_THRESHOLD);
+                final SliceSampler sampler = new SliceSampler(segmentRng,
+                        f -> logPrior.apply(f) + segmentLogLikelihoodEstimate.apply(f),
+                        MIN_MINOR_FRACTION, MAX_MINOR_FRACTION, sliceSamplingWidths.get(segment));
+                return sampler.sample(state.segmentMinorFraction(segment));
+            });
             return new AlleleFractionState.MinorFractions(minorFractions);
         }
     }
@@ -8,6 +8,7 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.mcmc.DecileCollection;
 import org.broadinstitute.hellbender.utils.mcmc.GibbsSampler;
+import org.broadinstitute.hellbender.utils.mcmc.IndependentBlockSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterizedModel;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
@@ -49,11 +50,25 @@ final class CopyRatioModeller {
     /**
      * Constructs a copy-ratio model given copy ratios and segments.
      * Initial point estimates of parameters are set to empirical estimates where available.
+     * Segment-level parameters are sampled serially.
      */
     CopyRatioModeller(final CopyRatioCollection copyRatios,
                       final List<SimpleInterval> segments) {
+        this(copyRatios, segments, IndependentBlockSampler.serial());
+    }
+
+    /**
+     * Constructs a copy-ratio model given copy ratios and segments.
+     * Initial point estimates of parameters are set to empirical estimates where available.
+     * @param segmentSampler    used to sample the segment means and outlier indicators of segments,
+     *                          which are conditionally independent given the global parameters
+     */
+    CopyRatioModeller(final CopyRatioCollection copyRatios,
+                      final List<SimpleInterval> segments,
+                      final IndependentBlockSampler segmentSampler) {
         Utils.nonNull(copyRatios);
         Utils.nonEmpty(segments);
+        Utils.nonNull(segmentSampler);
 
         sampleMetadata = copyRatios.getSampleMetadata();
         final CopyRatioSegmentedData data = new CopyRatioSegmentedData(copyRatios, segments);
@@ -87,9 +102,9 @@ final class CopyRatioModeller {
         final ParameterSampler<Double, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> outlierProbabilitySampler =
                 new CopyRatioSamplers.OutlierProbabilitySampler(OUTLIER_PROBABILITY_PRIOR_ALPHA, OUTLIER_PROBABILITY_PRIOR_BETA);
         final ParameterSampler<CopyRatioState.SegmentMeans, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> segmentMeansSampler =
-                new CopyRatioSamplers.SegmentMeansSampler(LOG2_COPY_RATIO_MIN, LOG2_COPY_RATIO_MAX, meanSliceSamplingWidth);
+                new CopyRatioSamplers.SegmentMeansSampler(LOG2_COPY_RATIO_MIN, LOG2_COPY_RATIO_MAX, meanSliceSamplingWidth, segmentSampler);
         final ParameterSampler<CopyRatioState.OutlierIndicators, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> outlierIndicatorsSampler =
-                new CopyRatioSamplers.OutlierIndicatorsSampler(outlierUniformLogLikelihood);
+                new CopyRatioSamplers.OutlierIndicatorsSampler(outlierUniformLogLikelihood, segmentSampler);
 
         model = new ParameterizedModel.GibbsBuilder<>(initialState, data)
                 .addParameterSampler(CopyRatioParameter.VARIANCE, varianceSampler, Double.class)
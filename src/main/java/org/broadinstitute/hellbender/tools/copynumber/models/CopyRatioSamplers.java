@@ -6,6 +6,7 @@ import org.apache.commons.math3.util.FastMath;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.mcmc.IndependentBlockSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 import org.broadinstitute.hellbender.utils.mcmc.SliceSampler;
 
@@ -108,38 +109,39 @@ final class CopyRatioSamplers {
         private final double meanMin;
         private final double meanMax;
         private final double meanSliceSamplingWidth;
+        private final IndependentBlockSampler segmentSampler;
 
         SegmentMeansSampler(final double meanMin, 
                             final double meanMax, 
-                            final double meanSliceSamplingWidth) {
+                            final double meanSliceSamplingWidth,
+                            final IndependentBlockSampler segmentSampler) {
             this.meanMin = meanMin;
             this.meanMax = meanMax;
             this.meanSliceSamplingWidth = meanSliceSamplingWidth;
+            this.segmentSampler = segmentSampler;
         }
 
         @Override
         public CopyRatioState.SegmentMeans sample(final RandomGenerator rng,
                                                   final CopyRatioState state,
                                                   final CopyRatioSegmentedData data) {
-            final List<Double> means = new ArrayList<>(data.getNumSegments());
-            for (int segment = 0; segment < data.getNumSegments(); segment++) {
+            final List<Double> means = segmentSampler.sample(rng, data.getNumSegments(), (segmentRng, segment) -> {
                 final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegment = data.getIndexedCopyRatiosInSegment(segment);
                 if (indexedCopyRatiosInSegment.isEmpty()) {
-                    means.add(Double.NaN);
-                } else {
-                    logger.debug(String.format("Sampling mean for segment %d...", segment));
-                    final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegmentSubsample = subsample(
-                            rng, indexedCopyRatiosInSegment, NUM_POINTS_SEGMENT_SUBSAMPLE_THRESHOLD);
-                    final double scalingFactor = (double) indexedCopyRatiosInSegment.size() / indexedCopyRatiosInSegmentSubsample.size();
-                    final Function<Double, Double> logConditionalPDF = newMean ->
-                            scalingFactor * indexedCopyRatiosInSegmentSubsample.stream()
-                                    .filter(c -> !state.outlierIndicator(c.getIndex()))
-                                    .mapToDouble(c -> -normalTerm(c.getLog2CopyRatioValue(), newMean, state.variance()))
-                                    .sum();
-                    final SliceSampler sampler = new SliceSampler(rng, logConditionalPDF, meanMin, meanMax, meanSliceSamplingWidth);
-                    means.add(sampler.sample(state.segmentMean(segment)));
+                    return Double.NaN;
                 }
-            }
+                logger.debug(String.format("Sampling mean for segment %d...", segment));
+                final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegmentSubsample = subsample(
+                        segmentRng, indexedCopyRatiosInSegment, NUM_POINTS_SEGMENT_SUBSAMPLE_THRESHOLD);
+                final double scalingFactor = (double) indexedCopyRatiosInSegment.size() / indexedCopyRatiosInSegmentSubsample.size();
+                final Function<Double, Double> logConditionalPDF = newMean ->
+                        scalingFactor * indexedCopyRatiosInSegmentSubsample.stream()
+                                .filter(c -> !state.outlierIndicator(c.getIndex()))
+                                .mapToDouble(c -> -normalTerm(c.getLog2CopyRatioValue(), newMean, state.variance()))
+                                .sum();
+                final SliceSampler sampler = new SliceSampler(segmentRng, logConditionalPDF, meanMin, meanMax, meanSliceSamplingWidth);
+                return sampler.sample(state.segmentMean(segment));
+            });
             return new CopyRatioState.SegmentMeans(means);
         }
     }
@@ -154,9 +156,12 @@ final class CopyRatioSamplers {
     //(corresponding to the first line in the unnormalized expression above)
     static final class OutlierIndicatorsSampler implements ParameterSampler<CopyRatioState.OutlierIndicators, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> {
         private final double outlierUniformLogLikelihood;
+        private final IndependentBlockSampler segmentSampler;
 
-        OutlierIndicatorsSampler(final double outlierUniformLogLikelihood) {
+        OutlierIndicatorsSampler(final double outlierUniformLogLikelihood,
+                                 final IndependentBlockSampler segmentSampler) {
             this.outlierUniformLogLikelihood = outlierUniformLogLikelihood;
+            this.segmentSampler = segmentSampler;
         }
 
         @Override
@@ -168,9 +173,9 @@ final class CopyRatioSamplers {
                     Math.log(state.outlierProbability()) + outlierUniformLogLikelihood;
             final double notOutlierUnnormalizedLogProbabilityPrefactor =
                     Math.log(1. - state.outlierProbability()) - 0.5 * Math.log(2 * Math.PI * state.variance());
-            final List<Boolean> indicators = new ArrayList<>();
-            for (int segment = 0; segment < data.getNumSegments(); segment++) {
+            final List<List<Boolean>> indicatorsPerSegment = segmentSampler.sample(rng, data.getNumSegments(), (segmentRng, segment) -> {
                 final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegment = data.getIndexedCopyRatiosInSegment(segment);
+                final List<Boolean> indicatorsInSegment = new ArrayList<>(indexedCopyRatiosInSegment.size());
                 for (final CopyRatioSegmentedData.IndexedCopyRatio indexedCopyRatio : indexedCopyRatiosInSegment) {
                     final double notOutlierUnnormalizedLogProbability =
                             notOutlierUnnormalizedLogProbabilityPrefactor
@@ -180,9 +185,12 @@ final class CopyRatioSamplers {
                             MathUtils.normalizeFromLog10ToLinearSpace(new double[]{
                                     MathUtils.logToLog10(outlierUnnormalizedLogProbability),
                                     MathUtils.logToLog10(notOutlierUnnormalizedLogProbability)})[0];
-                    indicators.add(rng.nextDouble() < conditionalProbability);
+                    indicatorsInSegment.add(segmentRng.nextDouble() < conditionalProbability);
                 }
-            }
+                return indicatorsInSegment;
+            });
+            final List<Boolean> indicators = new ArrayList<>(data.getNumPoints());
+            indicatorsPerSegment.forEach(indicators::addAll);
             return new CopyRatioState.OutlierIndicators(indicators);
         }
     }
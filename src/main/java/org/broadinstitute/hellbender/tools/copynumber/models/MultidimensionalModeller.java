@@ -14,6 +14,7 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.records.CopyRatio;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.ModeledSegment;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.mcmc.IndependentBlockSampler;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.io.File;
@@ -52,10 +53,12 @@ public final class MultidimensionalModeller {
     private final int numBurnInCopyRatio;
     private final int numSamplesAlleleFraction;
     private final int numBurnInAlleleFraction;
+    private final IndependentBlockSampler segmentSampler;
 
     /**
      * Constructs a copy-ratio and allele-fraction modeller, specifying number of total samples
      * and number of burn-in samples for Markov-Chain Monte Carlo model fitting.
+     * Segment-level parameters are sampled serially.
      * An initial model fit is performed.
      */
     public MultidimensionalModeller(final MultidimensionalSegmentCollection multidimensionalSegments,
@@ -66,6 +69,26 @@ public final class MultidimensionalModeller {
                                     final int numBurnInCopyRatio,
                                     final int numSamplesAlleleFraction,
                                     final int numBurnInAlleleFraction) {
+        this(multidimensionalSegments, denoisedCopyRatios, allelicCounts, alleleFractionPrior,
+                numSamplesCopyRatio, numBurnInCopyRatio, numSamplesAlleleFraction, numBurnInAlleleFraction,
+                IndependentBlockSampler.serial());
+    }
+
+    /**
+     * Constructs a copy-ratio and allele-fraction modeller, specifying number of total samples
+     * and number of burn-in samples for Markov-Chain Monte Carlo model fitting.
+     * An initial model fit is performed.
+     * @param segmentSampler    used to sample segment-level parameters in all model fits
+     */
+    public MultidimensionalModeller(final MultidimensionalSegmentCollection multidimensionalSegments,
+                                    final CopyRatioCollection denoisedCopyRatios,
+                                    final AllelicCountCollection allelicCounts,
+                                    final AlleleFractionPrior alleleFractionPrior,
+                                    final int numSamplesCopyRatio,
+                                    final int numBurnInCopyRatio,
+                                    final int numSamplesAlleleFraction,
+                                    final int numBurnInAlleleFraction,
+                                    final IndependentBlockSampler segmentSampler) {
         Utils.validateArg(Stream.of(
                 Utils.nonNull(multidimensionalSegments).getSampleName(),
                 Utils.nonNull(denoisedCopyRatios).getSampleName(),
@@ -83,6 +106,7 @@ public final class MultidimensionalModeller {
         this.numBurnInCopyRatio = numBurnInCopyRatio;
         this.numSamplesAlleleFraction = numSamplesAlleleFraction;
         this.numBurnInAlleleFraction = numBurnInAlleleFraction;
+        this.segmentSampler = Utils.nonNull(segmentSampler);
         logger.info("Fitting initial model...");
         fitModel();
     }
@@ -98,10 +122,10 @@ public final class MultidimensionalModeller {
     private void fitModel() {
         //perform MCMC to generate posterior samples
         logger.info("Fitting copy-ratio model...");
-        copyRatioModeller = new CopyRatioModeller(denoisedCopyRatios, currentSegments);
+        copyRatioModeller = new CopyRatioModeller(denoisedCopyRatios, currentSegments, segmentSampler);
         copyRatioModeller.fitMCMC(numSamplesCopyRatio, numBurnInCopyRatio);
         logger.info("Fitting allele-fraction model...");
-        alleleFractionModeller = new AlleleFractionModeller(allelicCounts, currentSegments, alleleFractionPrior);
+        alleleFractionModeller = new AlleleFractionModeller(allelicCounts, currentSegments, alleleFractionPrior, segmentSampler);
         alleleFractionModeller.fitMCMC(numSamplesAlleleFraction, numBurnInAlleleFraction);
 
         //update list of ModeledSegment with new PosteriorSummaries
@@ -13,6 +13,7 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -56,6 +57,24 @@ public final class AlleleFractionKernelSegmenter {
                                                             final List<Integer> windowSizes,
                                                             final double numChangepointsPenaltyLinearFactor,
                                                             final double numChangepointsPenaltyLogLinearFactor) {
+        return findSegmentation(maxNumChangepointsPerChromosome, kernelVariance, kernelApproximationDimension, windowSizes,
+                numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, null);
+    }
+
+    /**
+     * As {@link #findSegmentation(int, double, int, List, double, double)}, but segments chromosomes
+     * (and calculates local changepoint costs for the different window sizes within each chromosome) concurrently on {@code pool}.
+     * Results are identical to those obtained serially.
+     * @param pool  pool on which to perform segmentation; if {@code null}, segmentation is performed serially.
+     *              The caller retains ownership of the pool.
+     */
+    public AlleleFractionSegmentCollection findSegmentation(final int maxNumChangepointsPerChromosome,
+                                                            final double kernelVariance,
+                                                            final int kernelApproximationDimension,
+                                                            final List<Integer> windowSizes,
+                                                            final double numChangepointsPenaltyLinearFactor,
+                                                            final double numChangepointsPenaltyLogLinearFactor,
+                                                            final ForkJoinPool pool) {
         ParamUtils.isPositiveOrZero(maxNumChangepointsPerChromosome, "Maximum number of changepoints must be non-negative.");
         ParamUtils.isPositiveOrZero(kernelVariance, "Variance of Gaussian kernel must be non-negative (if zero, a linear kernel will be used).");
         ParamUtils.isPositive(kernelApproximationDimension, "Dimension of kernel approximation must be positive.");
@@ -69,46 +88,63 @@ public final class AlleleFractionKernelSegmenter {
         logger.info(String.format("Finding changepoints in %d data points and %d chromosomes...",
                 allelicCounts.getRecords().size(), allelicCountsPerChromosome.size()));
 
-        //loop over chromosomes, find changepoints, and create allele-fraction segments
-        final List<AlleleFractionSegment> segments = new ArrayList<>();
-        for (final String chromosome : allelicCountsPerChromosome.keySet()) {
-            final List<AllelicCount> allelicCountsInChromosome = allelicCountsPerChromosome.get(chromosome);
-            final int numAllelicCountsInChromosome = allelicCountsInChromosome.size();
-            logger.info(String.format("Finding changepoints in %d data points in chromosome %s...",
-                    numAllelicCountsInChromosome, chromosome));
+        //find changepoints and create allele-fraction segments in each chromosome, retaining the order of chromosomes
+        final Function<String, List<AlleleFractionSegment>> findSegmentsInChromosome = chromosome -> findSegmentsInChromosome(
+                chromosome, maxNumChangepointsPerChromosome, kernelVariance, kernelApproximationDimension, windowSizes,
+                numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, pool);
+        final List<String> chromosomes = new ArrayList<>(allelicCountsPerChromosome.keySet());
+        final List<AlleleFractionSegment> segments = (pool == null
+                ? chromosomes.stream().map(findSegmentsInChromosome).collect(Collectors.toList())
+                : pool.submit(() -> chromosomes.parallelStream().map(findSegmentsInChromosome).collect(Collectors.toList())).join())
+                .stream().flatMap(List::stream).collect(Collectors.toList());
+        logger.info(String.format("Found %d segments in %d chromosomes.", segments.size(), allelicCountsPerChromosome.keySet().size()));
+        return new AlleleFractionSegmentCollection(allelicCounts.getSampleMetadata(), segments);
+    }
+
+    private List<AlleleFractionSegment> findSegmentsInChromosome(final String chromosome,
+                                                                 final int maxNumChangepointsPerChromosome,
+                                                                 final double kernelVariance,
+                                                                 final int kernelApproximationDimension,
+                                                                 final List<Integer> windowSizes,
+                                                                 final double numChangepointsPenaltyLinearFactor,
+                                                                 final double numChangepointsPenaltyLogLinearFactor,
+                                                                 final ForkJoinPool pool) {
+        final List<AllelicCount> allelicCountsInChromosome = allelicCountsPerChromosome.get(chromosome);
+        final int numAllelicCountsInChromosome = allelicCountsInChromosome.size();
+        logger.info(String.format("Finding changepoints in %d data points in chromosome %s...",
+                numAllelicCountsInChromosome, chromosome));
 
-            if (numAllelicCountsInChromosome < MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME) {
-                logger.warn(String.format("Number of points in chromosome %s (%d) is less than that required (%d), skipping segmentation...",
-                        chromosome, numAllelicCountsInChromosome, MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME));
-                final int start = allelicCountsInChromosome.get(0).getStart();
-                final int end = allelicCountsInChromosome.get(numAllelicCountsInChromosome - 1).getEnd();
-                segments.add(new AlleleFractionSegment(
-                        new SimpleInterval(chromosome, start, end), numAllelicCountsInChromosome));
-                continue;
-            }
+        if (numAllelicCountsInChromosome < MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME) {
+            logger.warn(String.format("Number of points in chromosome %s (%d) is less than that required (%d), skipping segmentation...",
+                    chromosome, numAllelicCountsInChromosome, MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME));
+            final int start = allelicCountsInChromosome.get(0).getStart();
+            final int end = allelicCountsInChromosome.get(numAllelicCountsInChromosome - 1).getEnd();
+            return Collections.singletonList(new AlleleFractionSegment(
+                    new SimpleInterval(chromosome, start, end), numAllelicCountsInChromosome));
+        }
 
-            final List<Double> alternateAlleleFractionsInChromosome = allelicCountsPerChromosome.get(chromosome).stream()
-                    .map(AllelicCount::getAlternateAlleleFraction)
-                    .collect(Collectors.toList());
-            final List<Integer> changepoints = new ArrayList<>(new KernelSegmenter<>(alternateAlleleFractionsInChromosome)
-                .findChangepoints(maxNumChangepointsPerChromosome, KERNEL.apply(kernelVariance), kernelApproximationDimension,
-                        windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX));
+        final List<Double> alternateAlleleFractionsInChromosome = allelicCountsPerChromosome.get(chromosome).stream()
+                .map(AllelicCount::getAlternateAlleleFraction)
+                .collect(Collectors.toList());
+        final List<Integer> changepoints = new ArrayList<>(new KernelSegmenter<>(alternateAlleleFractionsInChromosome)
+            .findChangepoints(maxNumChangepointsPerChromosome, KERNEL.apply(kernelVariance), kernelApproximationDimension,
+                    windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX,
+                    pool));
 
-            if (!changepoints.contains(numAllelicCountsInChromosome)) {
-                changepoints.add(numAllelicCountsInChromosome - 1);
-            }
-            int previousChangepoint = -1;
-            for (final int changepoint : changepoints) {
-                final int start = allelicCountsPerChromosome.get(chromosome).get(previousChangepoint + 1).getStart();
-                final int end = allelicCountsPerChromosome.get(chromosome).get(changepoint).getEnd();
-                final List<AllelicCount> allelicCountsInSegment = allelicCountsInChromosome.subList(
-                        previousChangepoint + 1, changepoint + 1);
-                segments.add(new AlleleFractionSegment(
-                        new SimpleInterval(chromosome, start, end), allelicCountsInSegment));
-                previousChangepoint = changepoint;
-            }
+        if (!changepoints.contains(numAllelicCountsInChromosome)) {
+            changepoints.add(numAllelicCountsInChromosome - 1);
         }
-        logger.info(String.format("Found %d segments in %d chromosomes.", segments.size(), allelicCountsPerChromosome.keySet().size()));
-        return new AlleleFractionSegmentCollection(allelicCounts.getSampleMetadata(), segments);
+        final List<AlleleFractionSegment> segments = new ArrayList<>(changepoints.size());
+        int previousChangepoint = -1;
+        for (final int changepoint : changepoints) {
+            final int start = allelicCountsPerChromosome.get(chromosome).get(previousChangepoint + 1).getStart();
+            final int end = allelicCountsPerChromosome.get(chromosome).get(changepoint).getEnd();
+            final List<AllelicCount> allelicCountsInSegment = allelicCountsInChromosome.subList(
+                    previousChangepoint + 1, changepoint + 1);
+            segments.add(new AlleleFractionSegment(
+                    new SimpleInterval(chromosome, start, end), allelicCountsInSegment));
+            previousChangepoint = changepoint;
+        }
+        return segments;
     }
 }
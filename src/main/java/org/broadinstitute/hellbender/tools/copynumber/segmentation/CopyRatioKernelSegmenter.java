@@ -13,6 +13,7 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -59,6 +60,24 @@ public final class CopyRatioKernelSegmenter {
                                                        final List<Integer> windowSizes,
                                                        final double numChangepointsPenaltyLinearFactor,
                                                        final double numChangepointsPenaltyLogLinearFactor) {
+        return findSegmentation(maxNumChangepointsPerChromosome, kernelVariance, kernelApproximationDimension, windowSizes,
+                numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, null);
+    }
+
+    /**
+     * As {@link #findSegmentation(int, double, int, List, double, double)}, but segments chromosomes
+     * (and calculates local changepoint costs for the different window sizes within each chromosome) concurrently on {@code pool}.
+     * Results are identical to those obtained serially.
+     * @param pool  pool on which to perform segmentation; if {@code null}, segmentation is performed serially.
+     *              The caller retains ownership of the pool.
+     */
+    public CopyRatioSegmentCollection findSegmentation(final int maxNumChangepointsPerChromosome,
+                                                       final double kernelVariance,
+                                                       final int kernelApproximationDimension,
+                                                       final List<Integer> windowSizes,
+                                                       final double numChangepointsPenaltyLinearFactor,
+                                                       final double numChangepointsPenaltyLogLinearFactor,
+                                                       final ForkJoinPool pool) {
         ParamUtils.isPositiveOrZero(maxNumChangepointsPerChromosome, "Maximum number of changepoints must be non-negative.");
         ParamUtils.isPositiveOrZero(kernelVariance, "Variance of Gaussian kernel must be non-negative (if zero, a linear kernel will be used).");
         ParamUtils.isPositive(kernelApproximationDimension, "Dimension of kernel approximation must be positive.");
@@ -72,47 +91,64 @@ public final class CopyRatioKernelSegmenter {
         logger.info(String.format("Finding changepoints in %d data points and %d chromosomes...",
                 denoisedCopyRatios.getRecords().size(), denoisedCopyRatiosPerChromosome.size()));
 
-        //loop over chromosomes, find changepoints, and create copy-ratio segments
-        final List<CopyRatioSegment> segments = new ArrayList<>();
-        for (final String chromosome : denoisedCopyRatiosPerChromosome.keySet()) {
-            final List<CopyRatio> denoisedCopyRatiosInChromosome = denoisedCopyRatiosPerChromosome.get(chromosome);
-            final int numDenoisedCopyRatiosInChromosome = denoisedCopyRatiosInChromosome.size();
-            logger.info(String.format("Finding changepoints in %d data points in chromosome %s...",
-                    numDenoisedCopyRatiosInChromosome, chromosome));
+        //find changepoints and create copy-ratio segments in each chromosome, retaining the order of chromosomes
+        final Function<String, List<CopyRatioSegment>> findSegmentsInChromosome = chromosome -> findSegmentsInChromosome(
+                chromosome, maxNumChangepointsPerChromosome, kernelVariance, kernelApproximationDimension, windowSizes,
+                numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, pool);
+        final List<String> chromosomes = new ArrayList<>(denoisedCopyRatiosPerChromosome.keySet());
+        final List<CopyRatioSegment> segments = (pool == null
+                ? chromosomes.stream().map(findSegmentsInChromosome).collect(Collectors.toList())
+                : pool.submit(() -> chromosomes.parallelStream().map(findSegmentsInChromosome).collect(Collectors.toList())).join())
+                .stream().flatMap(List::stream).collect(Collectors.toList());
+        logger.info(String.format("Found %d segments in %d chromosomes.", segments.size(), denoisedCopyRatiosPerChromosome.keySet().size()));
+        return new CopyRatioSegmentCollection(denoisedCopyRatios.getSampleMetadata(), segments);
+    }
+
+    private List<CopyRatioSegment> findSegmentsInChromosome(final String chromosome,
+                                                            final int maxNumChangepointsPerChromosome,
+                                                            final double kernelVariance,
+                                                            final int kernelApproximationDimension,
+                                                            final List<Integer> windowSizes,
+                                                            final double numChangepointsPenaltyLinearFactor,
+                                                            final double numChangepointsPenaltyLogLinearFactor,
+                                                            final ForkJoinPool pool) {
+        final List<CopyRatio> denoisedCopyRatiosInChromosome = denoisedCopyRatiosPerChromosome.get(chromosome);
+        final int numDenoisedCopyRatiosInChromosome = denoisedCopyRatiosInChromosome.size();
+        logger.info(String.format("Finding changepoints in %d data points in chromosome %s...",
+                numDenoisedCopyRatiosInChromosome, chromosome));
 
-            if (numDenoisedCopyRatiosInChromosome < MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME) {
-                logger.warn(String.format("Number of points in chromosome %s (%d) is less than that required (%d), skipping segmentation...",
-                        chromosome, numDenoisedCopyRatiosInChromosome, MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME));
-                final int start = denoisedCopyRatiosPerChromosome.get(chromosome).get(0).getStart();
-                final int end = denoisedCopyRatiosPerChromosome.get(chromosome).get(numDenoisedCopyRatiosInChromosome - 1).getEnd();
-                segments.add(new CopyRatioSegment(
-                        new SimpleInterval(chromosome, start, end), denoisedCopyRatiosInChromosome));
-                continue;
-            }
+        if (numDenoisedCopyRatiosInChromosome < MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME) {
+            logger.warn(String.format("Number of points in chromosome %s (%d) is less than that required (%d), skipping segmentation...",
+                    chromosome, numDenoisedCopyRatiosInChromosome, MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME));
+            final int start = denoisedCopyRatiosPerChromosome.get(chromosome).get(0).getStart();
+            final int end = denoisedCopyRatiosPerChromosome.get(chromosome).get(numDenoisedCopyRatiosInChromosome - 1).getEnd();
+            return Collections.singletonList(new CopyRatioSegment(
+                    new SimpleInterval(chromosome, start, end), denoisedCopyRatiosInChromosome));
+        }
 
-            final List<Double> denoisedLog2CopyRatioValuesInChromosome = denoisedCopyRatiosInChromosome.stream()
-                    .map(CopyRatio::getLog2CopyRatioValue)
-                    .collect(Collectors.toList());
-            final List<Integer> changepoints = new ArrayList<>(new KernelSegmenter<>(denoisedLog2CopyRatioValuesInChromosome)
-                .findChangepoints(maxNumChangepointsPerChromosome, KERNEL.apply(kernelVariance), kernelApproximationDimension,
-                        windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX));
+        final List<Double> denoisedLog2CopyRatioValuesInChromosome = denoisedCopyRatiosInChromosome.stream()
+                .map(CopyRatio::getLog2CopyRatioValue)
+                .collect(Collectors.toList());
+        final List<Integer> changepoints = new ArrayList<>(new KernelSegmenter<>(denoisedLog2CopyRatioValuesInChromosome)
+            .findChangepoints(maxNumChangepointsPerChromosome, KERNEL.apply(kernelVariance), kernelApproximationDimension,
+                    windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX,
+                    pool));
 
-            if (!changepoints.contains(numDenoisedCopyRatiosInChromosome)) {
-                changepoints.add(numDenoisedCopyRatiosInChromosome - 1);
-            }
-            int previousChangepoint = -1;
-            for (final int changepoint : changepoints) {
-                final int start = denoisedCopyRatiosPerChromosome.get(chromosome).get(previousChangepoint + 1).getStart();
-                final int end = denoisedCopyRatiosPerChromosome.get(chromosome).get(changepoint).getEnd();
-                final List<CopyRatio> denoisedCopyRatiosInSegment = denoisedCopyRatiosInChromosome.subList(
-                        previousChangepoint + 1, changepoint + 1);
-                segments.add(new CopyRatioSegment(
-                        new SimpleInterval(chromosome, start, end),
-                        denoisedCopyRatiosInSegment));
-                previousChangepoint = changepoint;
-            }
+        if (!changepoints.contains(numDenoisedCopyRatiosInChromosome)) {
+            changepoints.add(numDenoisedCopyRatiosInChromosome - 1);
         }
-        logger.info(String.format("Found %d segments in %d chromosomes.", segments.size(), denoisedCopyRatiosPerChromosome.keySet().size()));
-        return new CopyRatioSegmentCollection(denoisedCopyRatios.getSampleMetadata(), segments);
+        final List<CopyRatioSegment> segments = new ArrayList<>(changepoints.size());
+        int previousChangepoint = -1;
+        for (final int changepoint : changepoints) {
+            final int start = denoisedCopyRatiosPerChromosome.get(chromosome).get(previousChangepoint + 1).getStart();
+            final int end = denoisedCopyRatiosPerChromosome.get(chromosome).get(changepoint).getEnd();
+            final List<CopyRatio> denoisedCopyRatiosInSegment = denoisedCopyRatiosInChromosome.subList(
+                    previousChangepoint + 1, changepoint + 1);
+            segments.add(new CopyRatioSegment(
+                    new SimpleInterval(chromosome, start, end),
+                    denoisedCopyRatiosInSegment));
+            previousChangepoint = changepoint;
+        }
+        return segments;
     }
 }
@@ -18,6 +18,7 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -126,6 +127,27 @@ public final class MultidimensionalKernelSegmenter {
                                                               final List<Integer> windowSizes,
                                                               final double numChangepointsPenaltyLinearFactor,
                                                               final double numChangepointsPenaltyLogLinearFactor) {
+        return findSegmentation(maxNumChangepointsPerChromosome,
+                kernelVarianceCopyRatio, kernelVarianceAlleleFraction, kernelScalingAlleleFraction, kernelApproximationDimension,
+                windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, null);
+    }
+
+    /**
+     * As {@link #findSegmentation(int, double, double, double, int, List, double, double)}, but segments chromosomes
+     * (and calculates local changepoint costs for the different window sizes within each chromosome) concurrently on {@code pool}.
+     * Results are identical to those obtained serially.
+     * @param pool  pool on which to perform segmentation; if {@code null}, segmentation is performed serially.
+     *              The caller retains ownership of the pool.
+     */
+    public MultidimensionalSegmentCollection findSegmentation(final int maxNumChangepointsPerChromosome,
+                                                              final double kernelVarianceCopyRatio,
+                                                              final double kernelVarianceAlleleFraction,
+                                                              final double kernelScalingAlleleFraction,
+                                                              final int kernelApproximationDimension,
+                                                              final List<Integer> windowSizes,
+                                                              final double numChangepointsPenaltyLinearFactor,
+                                                              final double numChangepointsPenaltyLogLinearFactor,
+                                                              final ForkJoinPool pool) {
         ParamUtils.isPositiveOrZero(maxNumChangepointsPerChromosome, "Maximum number of changepoints must be non-negative.");
         ParamUtils.isPositiveOrZero(kernelVarianceCopyRatio, "Variance of copy-ratio Gaussian kernel must be non-negative (if zero, a linear kernel will be used).");
         ParamUtils.isPositiveOrZero(kernelVarianceAlleleFraction, "Variance of allele-fraction Gaussian kernel must be non-negative (if zero, a linear kernel will be used).");
@@ -144,48 +166,65 @@ public final class MultidimensionalKernelSegmenter {
         logger.info(String.format("Finding changepoints in (%d, %d) data points and %d chromosomes...",
                 denoisedCopyRatios.getRecords().size(), allelicCounts.size(), multidimensionalPointsPerChromosome.size()));
 
-        //loop over chromosomes, find changepoints, and create allele-fraction segments
-        final List<MultidimensionalSegment> segments = new ArrayList<>();
-        for (final String chromosome : multidimensionalPointsPerChromosome.keySet()) {
-            final List<MultidimensionalPoint> multidimensionalPointsInChromosome = multidimensionalPointsPerChromosome.get(chromosome);
-            final int numMultidimensionalPointsInChromosome = multidimensionalPointsInChromosome.size();
-            logger.info(String.format("Finding changepoints in %d data points in chromosome %s...",
-                    numMultidimensionalPointsInChromosome, chromosome));
-
-            if (numMultidimensionalPointsInChromosome < MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME) {
-                logger.warn(String.format("Number of points in chromosome %s (%d) is less than that required (%d), skipping segmentation...",
-                        chromosome, numMultidimensionalPointsInChromosome, MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME));
-                final int start = multidimensionalPointsInChromosome.get(0).getStart();
-                final int end = multidimensionalPointsInChromosome.get(numMultidimensionalPointsInChromosome - 1).getEnd();
-                segments.add(new MultidimensionalSegment(
-                        new SimpleInterval(chromosome, start, end),
-                        copyRatioMidpointOverlapDetector,
-                        allelicCountOverlapDetector));
-                continue;
-            }
-
-            final List<Integer> changepoints = new ArrayList<>(new KernelSegmenter<>(multidimensionalPointsInChromosome)
-                .findChangepoints(maxNumChangepointsPerChromosome, kernel, kernelApproximationDimension,
-                        windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX));
-
-            if (!changepoints.contains(numMultidimensionalPointsInChromosome)) {
-                changepoints.add(numMultidimensionalPointsInChromosome - 1);
-            }
-            int previousChangepoint = -1;
-            for (final int changepoint : changepoints) {
-                final int start = multidimensionalPointsPerChromosome.get(chromosome).get(previousChangepoint + 1).getStart();
-                final int end = multidimensionalPointsPerChromosome.get(chromosome).get(changepoint).getEnd();
-                segments.add(new MultidimensionalSegment(
-                        new SimpleInterval(chromosome, start, end),
-                        copyRatioMidpointOverlapDetector,
-                        allelicCountOverlapDetector));
-                previousChangepoint = changepoint;
-            }
-        }
+        //find changepoints and create multidimensional segments in each chromosome, retaining the order of chromosomes
+        final Function<String, List<MultidimensionalSegment>> findSegmentsInChromosome = chromosome -> findSegmentsInChromosome(
+                chromosome, maxNumChangepointsPerChromosome, kernel, kernelApproximationDimension, windowSizes,
+                numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, pool);
+        final List<String> chromosomes = new ArrayList<>(multidimensionalPointsPerChromosome.keySet());
+        final List<MultidimensionalSegment> segments = (pool == null
+                ? chromosomes.stream().map(findSegmentsInChromosome).collect(Collectors.toList())
+                : pool.submit(() -> chromosomes.parallelStream().map(findSegmentsInChromosome).collect(Collectors.toList())).join())
+                .stream().flatMap(List::stream).collect(Collectors.toList());
         logger.info(String.format("Found %d segments in %d chromosomes.", segments.size(), multidimensionalPointsPerChromosome.keySet().size()));
         return new MultidimensionalSegmentCollection(allelicCounts.getSampleMetadata(), segments);
     }
 
+    private List<MultidimensionalSegment> findSegmentsInChromosome(final String chromosome,
+                                                                   final int maxNumChangepointsPerChromosome,
+                                                                   final BiFunction<MultidimensionalPoint, MultidimensionalPoint, Double> kernel,
+                                                                   final int kernelApproximationDimension,
+                                                                   final List<Integer> windowSizes,
+                                                                   final double numChangepointsPenaltyLinearFactor,
+                                                                   final double numChangepointsPenaltyLogLinearFactor,
+                                                                   final ForkJoinPool pool) {
+        final List<MultidimensionalPoint> multidimensionalPointsInChromosome = multidimensionalPointsPerChromosome.get(chromosome);
+        final int numMultidimensionalPointsInChromosome = multidimensionalPointsInChromosome.size();
+        logger.info(String.format("Finding changepoints in %d data points in chromosome %s...",
+                numMultidimensionalPointsInChromosome, chromosome));
+
+        if (numMultidimensionalPointsInChromosome < MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME) {
+            logger.warn(String.format("Number of points in chromosome %s (%d) is less than that required (%d), skipping segmentation...",
+                    chromosome, numMultidimensionalPointsInChromosome, MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME));
+            final int start = multidimensionalPointsInChromosome.get(0).getStart();
+            final int end = multidimensionalPointsInChromosome.get(numMultidimensionalPointsInChromosome - 1).getEnd();
+            return Collections.singletonList(new MultidimensionalSegment(
+                    new SimpleInterval(chromosome, start, end),
+                    copyRatioMidpointOverlapDetector,
+                    allelicCountOverlapDetector));
+        }
+
+        final List<Integer> changepoints = new ArrayList<>(new KernelSegmenter<>(multidimensionalPointsInChromosome)
+            .findChangepoints(maxNumChangepointsPerChromosome, kernel, kernelApproximationDimension,
+                    windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX,
+                    pool));
+
+        if (!changepoints.contains(numMultidimensionalPointsInChromosome)) {
+            changepoints.add(numMultidimensionalPointsInChromosome - 1);
+        }
+        final List<MultidimensionalSegment> segments = new ArrayList<>(changepoints.size());
+        int previousChangepoint = -1;
+        for (final int changepoint : changepoints) {
+            final int start = multidimensionalPointsPerChromosome.get(chromosome).get(previousChangepoint + 1).getStart();
+            final int end = multidimensionalPointsPerChromosome.get(chromosome).get(changepoint).getEnd();
+            segments.add(new MultidimensionalSegment(
+                    new SimpleInterval(chromosome, start, end),
+                    copyRatioMidpointOverlapDetector,
+                    allelicCountOverlapDetector));
+            previousChangepoint = changepoint;
+        }
+        return segments;
+    }
+
     private BiFunction<MultidimensionalPoint, MultidimensionalPoint, Double> constructKernel(final double kernelVarianceCopyRatio,
                                                                                              final double kernelVarianceAlleleFraction,
                                                                                              final double kernelScalingAlleleFraction) {
@@ -0,0 +1,149 @@
+package org.broadinstitute.hellbender.tools.copynumber.utils;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Dense row-major matrix of doubles that is stored in a temporary file rather than in heap.
+ * Rows can be written and read as a whole, and blocks of contiguous columns can be read for any subset of rows,
+ * so that large matrices (e.g., samples x intervals read counts for a WGS panel of normals) can be processed
+ * with memory bounded by the size of a single row or column block.
+ *
+ * Reads and writes use positional channel operations and may be performed concurrently from multiple threads,
+ * as long as concurrent writes are made to different rows.
+ */
+public final class FileBackedDoubleMatrix implements AutoCloseable {
+    private final int numRows;
+    private final int numColumns;
+    private final File file;
+    private final FileChannel channel;
+
+    /**
+     * Creates a matrix with all values initialized to zero in a temporary file that is deleted on {@link #close()}.
+     */
+    public FileBackedDoubleMatrix(final int numRows,
+                                  final int numColumns) {
+        ParamUtils.isPositive(numRows, "Number of rows must be positive.");
+        ParamUtils.isPositive(numColumns, "Number of columns must be positive.");
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        file = IOUtils.createTempFile("file-backed-matrix", ".bin");
+        try {
+            channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (final IOException e) {
+            throw new GATKException("Could not open temporary matrix file " + file.getAbsolutePath(), e);
+        }
+    }
+
+    public int getRowDimension() {
+        return numRows;
+    }
+
+    public int getColumnDimension() {
+        return numColumns;
+    }
+
+    public void setRow(final int rowIndex,
+                       final double[] values) {
+        validateRowIndex(rowIndex);
+        Utils.nonNull(values);
+        Utils.validateArg(values.length == numColumns, "Number of values does not match number of columns.");
+        final ByteBuffer buffer = ByteBuffer.allocate(numColumns * Double.BYTES);
+        buffer.asDoubleBuffer().put(values);
+        write(buffer, offset(rowIndex, 0));
+    }
+
+    public double[] getRow(final int rowIndex) {
+        return getRow(rowIndex, 0, numColumns);
+    }
+
+    /**
+     * Returns the values in columns [{@code startColumn}, {@code endColumn}) of a single row.
+     */
+    public double[] getRow(final int rowIndex,
+                           final int startColumn,
+                           final int endColumn) {
+        validateRowIndex(rowIndex);
+        Utils.validateArg(0 <= startColumn && startColumn < endColumn && endColumn <= numColumns,
+                String.format("Invalid column range [%d, %d).", startColumn, endColumn));
+        final int numValues = endColumn - startColumn;
+        final ByteBuffer buffer = ByteBuffer.allocate(numValues * Double.BYTES);
+        read(buffer, offset(rowIndex, startColumn));
+        final double[] values = new double[numValues];
+        buffer.asDoubleBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Returns the submatrix with dimensions {@code rowIndices.length} x ({@code endColumn} - {@code startColumn}).
+     */
+    public double[][] getBlock(final int[] rowIndices,
+                               final int startColumn,
+                               final int endColumn) {
+        Utils.nonNull(rowIndices);
+        final double[][] block = new double[rowIndices.length][];
+        for (int i = 0; i < rowIndices.length; i++) {
+            block[i] = getRow(rowIndices[i], startColumn, endColumn);
+        }
+        return block;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            throw new GATKException("Could not close temporary matrix file " + file.getAbsolutePath(), e);
+        } finally {
+            IOUtils.tryDelete(file);
+        }
+    }
+
+    private long offset(final int rowIndex,
+                        final int columnIndex) {
+        return ((long) rowIndex * numColumns + columnIndex) * Double.BYTES;
+    }
+
+    private void validateRowIndex(final int rowIndex) {
+        Utils.validIndex(rowIndex, numRows);
+    }
+
+    private void write(final ByteBuffer buffer,
+                       final long position) {
+        try {
+            long currentPosition = position;
+            while (buffer.hasRemaining()) {
+                currentPosition += channel.write(buffer, currentPosition);
+            }
+        } catch (final IOException e) {
+            throw new GATKException("Could not write to temporary matrix file " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private void read(final ByteBuffer buffer,
+                      final long position) {
+        try {
+            long currentPosition = position;
+            while (buffer.hasRemaining()) {
+                final int numBytesRead = channel.read(buffer, currentPosition);
+                if (numBytesRead < 0) {
+                    //rows that were never written are implicitly zero
+                    break;
+                }
+                currentPosition += numBytesRead;
+            }
+            buffer.rewind();
+        } catch (final IOException e) {
+            throw new GATKException("Could not read from temporary matrix file " + file.getAbsolutePath(), e);
+        }
+    }
+}
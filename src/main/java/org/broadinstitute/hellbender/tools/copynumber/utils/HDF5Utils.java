@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.utils.io.IOUtils;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -149,22 +150,36 @@ public final class HDF5Utils {
                                                 final String path,
                                                 final double[][] matrix,
                                                 final int chunkDivisor) {
+        Utils.nonNull(matrix);
+        Utils.validateArg(matrix.length > 0, "Matrix must contain at least one row.");
+        writeChunkedDoubleMatrix(file, path, matrix.length, matrix[0].length, rowIndex -> matrix[rowIndex], chunkDivisor);
+    }
+
+    /**
+     * Writes a large matrix, represented by a function that returns each row, using the same chunking scheme
+     * as {@link #writeChunkedDoubleMatrix(HDF5File, String, double[][], int)}.  Rows are requested in order and
+     * only the rows of a single chunk are held at any one time, so the full matrix need not be materialized.
+     */
+    public static void writeChunkedDoubleMatrix(final HDF5File file,
+                                                final String path,
+                                                final int numRows,
+                                                final int numColumns,
+                                                final IntFunction<double[]> rowSupplier,
+                                                final int chunkDivisor) {
         Utils.nonNull(file);
         IOUtils.canReadFile(file.getFile());
         Utils.nonNull(path);
-        Utils.nonNull(matrix);
+        Utils.nonNull(rowSupplier);
         Utils.validateArg(chunkDivisor > 0, "Chunk divisor must be positive.");
         final int maxNumValuesPerChunk = MAX_NUMBER_OF_VALUES_PER_HDF5_MATRIX / chunkDivisor;
-        final long numRows = matrix.length;
         Utils.validateArg(numRows > 0, "Matrix must contain at least one row.");
-        final long numColumns = matrix[0].length;
         Utils.validateArg(numColumns > 0, "Matrix must contain at least one column.");
         Utils.validateArg(numColumns <= maxNumValuesPerChunk,
                 String.format("Number of columns (%d) exceeds the maximum number of values allowed per chunk (%d).",
                         numColumns, maxNumValuesPerChunk));
 
-        final int numRowsPerFilledChunk = (int) (maxNumValuesPerChunk / numColumns);
-        final int numFilledChunks = numRowsPerFilledChunk == 0 ? 0 : (int) numRows / numRowsPerFilledChunk;
+        final int numRowsPerFilledChunk = maxNumValuesPerChunk / numColumns;
+        final int numFilledChunks = numRowsPerFilledChunk == 0 ? 0 : numRows / numRowsPerFilledChunk;
         final boolean needPartialChunk = numFilledChunks == 0 || numRows % numRowsPerFilledChunk != 0;
 
         logger.debug("Number of values in matrix / maximum number allowed for HDF5 matrix: " + (double) numRows * numColumns / MAX_NUMBER_OF_VALUES_PER_HDF5_MATRIX);
@@ -180,20 +195,31 @@ public final class HDF5Utils {
         file.makeDouble(numColumnsPath, numColumns);
         file.makeDouble(numChunksPath, needPartialChunk ? numFilledChunks + 1 : numFilledChunks);
 
-        //TODO we could add makeDoubleMatrix(path, matrix, startRow, endRow, startCol, endCol) method to avoid copying
         int numRowsWritten = 0;
         for (int chunkIndex = 0; chunkIndex < numFilledChunks; chunkIndex++) {
-            final double[][] matrixChunk = new double[numRowsPerFilledChunk][(int) numColumns];
-            System.arraycopy(matrix, numRowsWritten, matrixChunk, 0, numRowsPerFilledChunk);
+            final double[][] matrixChunk = collectRows(rowSupplier, numRowsWritten, numRowsPerFilledChunk, numColumns);
             file.makeDoubleMatrix(path + CHUNK_INDEX_PATH_SUFFIX + chunkIndex, matrixChunk);    //write filled chunks
             numRowsWritten += numRowsPerFilledChunk;
         }
         if (needPartialChunk) {
-            final int numRowsPartialChunk = (int) numRows - numRowsWritten;
+            final int numRowsPartialChunk = numRows - numRowsWritten;
             logger.debug("Number of rows in partial chunk: " + numRowsPartialChunk);
-            final double[][] matrixChunk = new double[numRowsPartialChunk][(int) numColumns];
-            System.arraycopy(matrix, numRowsWritten, matrixChunk, 0, numRowsPartialChunk);
+            final double[][] matrixChunk = collectRows(rowSupplier, numRowsWritten, numRowsPartialChunk, numColumns);
             file.makeDoubleMatrix(path + CHUNK_INDEX_PATH_SUFFIX + numFilledChunks, matrixChunk);    //write final partially filled chunk
         }
     }
+
+    private static double[][] collectRows(final IntFunction<double[]> rowSupplier,
+                                          final int startRow,
+                                          final int numRowsInChunk,
+                                          final int numColumns) {
+        final double[][] matrixChunk = new double[numRowsInChunk][];
+        for (int i = 0; i < numRowsInChunk; i++) {
+            final double[] row = rowSupplier.apply(startRow + i);
+            Utils.validateArg(row != null && row.length == numColumns,
+                    String.format("Row %d does not contain the expected number of columns (%d).", startRow + i, numColumns));
+            matrixChunk[i] = row;
+        }
+        return matrixChunk;
+    }
 }
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.copynumber.utils.segmentation;
 
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.DefaultRealMatrixChangingVisitor;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.SingularValueDecomposition;
@@ -15,7 +16,9 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -77,6 +80,11 @@ import java.util.stream.IntStream;
  * Note that we break with camelCase naming convention in places to match some notation in the paper
  * </p>
  *
+ * <p>
+ * Local costs for the different window sizes in step 4 are independent and may optionally be calculated concurrently
+ * on a {@link ForkJoinPool}; the resulting changepoints are identical to those found serially.
+ * </p>
+ *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 public final class KernelSegmenter<DATA> {
@@ -114,6 +122,25 @@ public final class KernelSegmenter<DATA> {
                                           final double numChangepointsPenaltyLinearFactor,
                                           final double numChangepointsPenaltyLogLinearFactor,
                                           final ChangepointSortOrder changepointSortOrder) {
+        return findChangepoints(maxNumChangepoints, kernel, kernelApproximationDimension, windowSizes,
+                numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, changepointSortOrder, null);
+    }
+
+    /**
+     * As {@link #findChangepoints(int, BiFunction, int, List, double, double, ChangepointSortOrder)}, but calculates
+     * the local changepoint costs for the different window sizes concurrently on {@code pool}.
+     * Results are identical to those obtained serially.
+     * @param pool  pool on which to calculate local changepoint costs; if {@code null}, these are calculated serially.
+     *              The caller retains ownership of the pool.
+     */
+    public List<Integer> findChangepoints(final int maxNumChangepoints,
+                                          final BiFunction<DATA, DATA, Double> kernel,
+                                          final int kernelApproximationDimension,
+                                          final List<Integer> windowSizes,
+                                          final double numChangepointsPenaltyLinearFactor,
+                                          final double numChangepointsPenaltyLogLinearFactor,
+                                          final ChangepointSortOrder changepointSortOrder,
+                                          final ForkJoinPool pool) {
         ParamUtils.isPositiveOrZero(maxNumChangepoints, "Maximum number of changepoints must be non-negative.");
         ParamUtils.isPositive(kernelApproximationDimension, "Dimension of kernel approximation must be positive.");
         Utils.validateArg(!windowSizes.isEmpty(), "At least one window size must be provided.");
@@ -137,12 +164,12 @@ public final class KernelSegmenter<DATA> {
         final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
 
         logger.debug("Calculating low-rank approximation to kernel matrix...");
-        final RealMatrix reducedObservationMatrix = calculateReducedObservationMatrix(rng, data, kernel, kernelApproximationDimension);
+        final double[][] reducedObservationMatrix = calculateReducedObservationMatrix(rng, data, kernel, kernelApproximationDimension);
         final double[] kernelApproximationDiagonal = calculateKernelApproximationDiagonal(reducedObservationMatrix);
 
         logger.debug(String.format("Finding changepoint candidates for all window sizes %s...", windowSizes.toString()));
         final List<Integer> changepointCandidates = findChangepointCandidates(
-                data, reducedObservationMatrix, kernelApproximationDiagonal, maxNumChangepoints, windowSizes);
+                data, reducedObservationMatrix, kernelApproximationDiagonal, maxNumChangepoints, windowSizes, pool);
 
         logger.debug("Performing backward model selection on changepoint candidates...");
         return selectChangepoints(
@@ -167,9 +194,10 @@ public final class KernelSegmenter<DATA> {
 
         private Segment(final int start,
                         final int end,
-                        final RealMatrix reducedObservationMatrix,
+                        final double[][] reducedObservationMatrix,
                         final double[] kernelApproximationDiagonal) {
-            this(start, end, calculateSegmentCost(start, end, reducedObservationMatrix, kernelApproximationDiagonal).C);
+            this(start, end, calculateSegmentCost(start, end, reducedObservationMatrix, kernelApproximationDiagonal,
+                    new double[reducedObservationMatrix[0].length]).C);
         }
     }
 
@@ -191,8 +219,26 @@ public final class KernelSegmenter<DATA> {
         }
     }
 
-    //calculates the N x p reduced observation matrix, defined as Z in equation preceding Eq. 14 in https://hal.inria.fr/hal-01413230/document
-    private static <DATA> RealMatrix calculateReducedObservationMatrix(final RandomGenerator rng,
+    //primitive buffers used to calculate local changepoint costs for a single window size at a time;
+    //these are reused across window sizes calculated on the same thread
+    private static final class WindowCostBuffers {
+        private final double[] windowCosts;
+        private final double[] leftW;
+        private final double[] rightW;
+        private final double[] totalW;
+
+        private WindowCostBuffers(final int N,
+                                  final int p) {
+            windowCosts = new double[N];
+            leftW = new double[p];
+            rightW = new double[p];
+            totalW = new double[p];
+        }
+    }
+
+    //calculates the N x p reduced observation matrix, defined as Z in equation preceding Eq. 14 in https://hal.inria.fr/hal-01413230/document,
+    //and returns it as a row-major array
+    private static <DATA> double[][] calculateReducedObservationMatrix(final RandomGenerator rng,
                                                                        final List<DATA> data,
                                                                        final BiFunction<DATA, DATA, Double> kernel,
                                                                        final int kernelApproximationDimension) {
@@ -241,43 +287,53 @@ public final class KernelSegmenter<DATA> {
                 return kernel.apply(data.get(i), dataSubsample.get(j));
             }
         });
-        return reducedKernelMatrix.multiply(subKernelUMatrix);
+        return reducedKernelMatrix.multiply(subKernelUMatrix).getData();
     }
 
     //for N x p matrix Z_ij, returns the N-dimensional vector sum(Z_ij * Z_ij, j = 0,..., p - 1),
     //which are the diagonal elements K_ii of the approximate kernel matrix
-    private static double[] calculateKernelApproximationDiagonal(final RealMatrix reducedObservationMatrix) {
-        return new IndexRange(0, reducedObservationMatrix.getRowDimension())
-                .mapToDouble(i -> MathUtils.square(reducedObservationMatrix.getRowVector(i).getNorm()));
+    private static double[] calculateKernelApproximationDiagonal(final double[][] reducedObservationMatrix) {
+        return new IndexRange(0, reducedObservationMatrix.length)
+                .mapToDouble(i -> MathUtils.square(new ArrayRealVector(reducedObservationMatrix[i], false).getNorm()));
     }
 
-    //finds indices of changepoint candidates from all window sizes
+    //finds indices of changepoint candidates from all window sizes, either serially or concurrently on the given pool;
+    //candidates are returned in order of window size in either case
     private static <DATA> List<Integer> findChangepointCandidates(final List<DATA> data,
-                                                                  final RealMatrix reducedObservationMatrix,
+                                                                  final double[][] reducedObservationMatrix,
                                                                   final double[] kernelApproximationDiagonal,
                                                                   final int maxNumChangepoints,
-                                                                  final List<Integer> windowSizes) {
-        final List<Integer> changepointCandidates = new ArrayList<>(windowSizes.size() * maxNumChangepoints);
+                                                                  final List<Integer> windowSizes,
+                                                                  final ForkJoinPool pool) {
+        final int N = reducedObservationMatrix.length;
+        final int p = reducedObservationMatrix[0].length;
+        final ThreadLocal<WindowCostBuffers> buffers = ThreadLocal.withInitial(() -> new WindowCostBuffers(N, p));
 
         //for each window size, calculate local changepoint costs at each point and add maxNumChangepoints candidates
         //(this is overkill, but we cannot guarantee that the most significant maxNumChangepoints changepoints
         //do not all appear at only a single window size)
-        for (final int windowSize : windowSizes) {
+        final Function<Integer, List<Integer>> findWindowChangepointCandidates = windowSize -> {
             logger.debug(String.format("Calculating local changepoints costs for window size %d...", windowSize));
             if (windowSize > data.size()) {
                 logger.warn(String.format("Number of points needed to calculate local changepoint costs (2 * window size = %d) " +
                         "exceeds number of data points (%d).  Local changepoint costs will not be calculated for this window size.",
                         2 * windowSize, data.size()));
-                continue;
+                return Collections.emptyList();
             }
-            final double[] windowCosts = calculateWindowCosts(reducedObservationMatrix, kernelApproximationDiagonal, windowSize);
+            final double[] windowCosts = calculateWindowCosts(reducedObservationMatrix, kernelApproximationDiagonal, windowSize, buffers.get());
 
             logger.debug(String.format("Finding local minima of local changepoint costs for window size %d...", windowSize));
-            final List<Integer> windowCostLocalMinima = new ArrayList<>(new PersistenceOptimizer(windowCosts).getMinimaIndices());
+            final List<Integer> windowCostLocalMinima = new ArrayList<>(new PersistenceOptimizer(windowCosts).getMinimaIndices());  //copies windowCosts
             windowCostLocalMinima.remove(Integer.valueOf(0));                //remove first data point if present
             windowCostLocalMinima.remove(Integer.valueOf(data.size() - 1));  //remove last data point if present
-            changepointCandidates.addAll(windowCostLocalMinima.subList(0, Math.min(maxNumChangepoints, windowCostLocalMinima.size())));
-        }
+            return windowCostLocalMinima.subList(0, Math.min(maxNumChangepoints, windowCostLocalMinima.size()));
+        };
+        final List<List<Integer>> changepointCandidatesPerWindowSize = pool == null
+                ? windowSizes.stream().map(findWindowChangepointCandidates).collect(Collectors.toList())
+                : pool.submit(() -> windowSizes.parallelStream().map(findWindowChangepointCandidates).collect(Collectors.toList())).join();
+
+        final List<Integer> changepointCandidates = new ArrayList<>(windowSizes.size() * maxNumChangepoints);
+        changepointCandidatesPerWindowSize.forEach(changepointCandidates::addAll);
 
         if (changepointCandidates.isEmpty()) {
             logger.warn("No changepoint candidates were found.  The specified window sizes may be inappropriate, or there may be insufficient data points");
@@ -292,12 +348,12 @@ public final class KernelSegmenter<DATA> {
                                                     final int maxNumChangepoints,
                                                     final double numChangepointsPenaltyLinearFactor,
                                                     final double numChangepointsPenaltyLogLinearFactor,
-                                                    final RealMatrix reducedObservationMatrix,
+                                                    final double[][] reducedObservationMatrix,
                                                     final double[] kernelApproximationDiagonal) {
         final List<Integer> changepoints = new ArrayList<>(changepointCandidates.size());
 
         //calculate penalties as a function of the number of changepoints
-        final int numData = reducedObservationMatrix.getRowDimension();
+        final int numData = reducedObservationMatrix.length;
         final List<Double> changepointPenalties = IntStream.range(0, maxNumChangepoints + 1)
                 .mapToObj(numChangepoints -> calculateChangepointPenalty(
                         numChangepoints, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, numData))
@@ -388,39 +444,54 @@ public final class KernelSegmenter<DATA> {
      *                                      and p is the dimension of the low-rank approximation of the kernel matrix;
      *                                      this is the Z matrix described in the text preceding Eq. 14, ibid
      * @param kernelApproximationDiagonal   N diagonal terms of the low-rank approximation to the kernel matrix
+     * @param W                             p-dimensional buffer in which to accumulate the intermediate quantity W,
+     *                                      which is referenced by the returned {@link Cost}
      */
     private static Cost calculateSegmentCost(final int start,
                                              final int end,
-                                             final RealMatrix reducedObservationMatrix,
-                                             final double[] kernelApproximationDiagonal) {
-        final int N = reducedObservationMatrix.getRowDimension();
-        final int p = reducedObservationMatrix.getColumnDimension();
+                                             final double[][] reducedObservationMatrix,
+                                             final double[] kernelApproximationDiagonal,
+                                             final double[] W) {
+        final int N = reducedObservationMatrix.length;
+        final int p = reducedObservationMatrix[0].length;
 
         //initialize quantities for recurrence
         double D = kernelApproximationDiagonal[start];
-        final double[] W = Arrays.copyOf(reducedObservationMatrix.getRow(start), p);
+        System.arraycopy(reducedObservationMatrix[start], 0, W, 0, p);
         double V = Arrays.stream(W).map(w -> w * w).sum();
 
-        //generate indices for iteration; we need to wrap around to beginning of data if start > end
-        final List<Integer> indices = start <= end 
-                ? IntStream.range(start + 1, end + 1).boxed().collect(Collectors.toList()) 
-                : IntStream.concat(IntStream.range(start + 1, N), IntStream.range(0, end + 1)).boxed().collect(Collectors.toList());
-
-        //use recurrence relations to iteratively calculate cost
-        for (final int tauPrime : indices) {
+        //use recurrence relations to iteratively calculate cost;
+        //we need to wrap around to beginning of data if start > end
+        int numPoints = 1;
+        for (int tauPrime = start + 1; tauPrime < (start <= end ? end + 1 : N); tauPrime++) {
+            V += updateSegmentCostTerms(reducedObservationMatrix[tauPrime], kernelApproximationDiagonal[tauPrime], W);
             D += kernelApproximationDiagonal[tauPrime];
-            double ZdotW = 0.;
-            for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(tauPrime, j) * W[j];
-                W[j] += reducedObservationMatrix.getEntry(tauPrime, j);
+            numPoints++;
+        }
+        if (start > end) {
+            for (int tauPrime = 0; tauPrime < end + 1; tauPrime++) {
+                V += updateSegmentCostTerms(reducedObservationMatrix[tauPrime], kernelApproximationDiagonal[tauPrime], W);
+                D += kernelApproximationDiagonal[tauPrime];
+                numPoints++;
             }
-            V += 2. * ZdotW + kernelApproximationDiagonal[tauPrime];
         }
-        final double C = D - V / (indices.size() + 1);
+        final double C = D - V / numPoints;
 
         return new Cost(D, W, V, C);
     }
 
+    //adds the row Z_tau' of the reduced observation matrix to W and returns the corresponding change in V
+    private static double updateSegmentCostTerms(final double[] Z,
+                                                 final double K,
+                                                 final double[] W) {
+        double ZdotW = 0.;
+        for (int j = 0; j < W.length; j++) {
+            ZdotW += Z[j] * W[j];
+            W[j] += Z[j];
+        }
+        return 2. * ZdotW + K;
+    }
+
     /**
      * Calculates the local costs at each point for a given window size <i>w</i>.  Using Eq. 11 of
      * <a href="https://hal.inria.fr/hal-01413230/document">https://hal.inria.fr/hal-01413230/document</a>
@@ -434,40 +505,41 @@ public final class KernelSegmenter<DATA> {
      *                                      this is the Z matrix described in the text preceding Eq. 14, ibid
      * @param kernelApproximationDiagonal   N diagonal terms of the low-rank approximation to the kernel matrix
      * @param windowSize                    number of points to include in either flanking segment when calculating cost
+     * @param buffers                       buffers for the quantities used in the recurrence relations and for the returned costs
+     * @return                              N local costs, held in {@code buffers} and hence only valid until they are next used
      */
-    private static double[] calculateWindowCosts(final RealMatrix reducedObservationMatrix,
+    private static double[] calculateWindowCosts(final double[][] reducedObservationMatrix,
                                                  final double[] kernelApproximationDiagonal,
-                                                 final int windowSize) {
-        final int N = reducedObservationMatrix.getRowDimension();
-        final int p = reducedObservationMatrix.getColumnDimension();
+                                                 final int windowSize,
+                                                 final WindowCostBuffers buffers) {
+        final int N = reducedObservationMatrix.length;
+        final int p = reducedObservationMatrix[0].length;
 
         //initialize indices of the boundaries of the two flanking segments, wrapping around to beginning of data if necessary
         int center = 0;
         int start = (center - windowSize + 1 + N) % N;
         int end = (center + windowSize) % N;
 
-        //initialize costs of flanking segments and total segment
-        final Cost leftCost = calculateSegmentCost(start, center, reducedObservationMatrix, kernelApproximationDiagonal);
-        final Cost rightCost = calculateSegmentCost(center + 1, end, reducedObservationMatrix, kernelApproximationDiagonal);
-        final Cost totalCost = calculateSegmentCost(start, end, reducedObservationMatrix, kernelApproximationDiagonal);
-
-        //initialize quantities for recurrence
+        //initialize costs of flanking segments and total segment, along with quantities for recurrence
+        final double[] leftW = buffers.leftW;
+        final Cost leftCost = calculateSegmentCost(start, center, reducedObservationMatrix, kernelApproximationDiagonal, leftW);
         double leftD = leftCost.D;
-        final double[] leftW = Arrays.copyOf(leftCost.W, p);
         double leftV = leftCost.V;
         double leftC = leftCost.C;
 
+        final double[] rightW = buffers.rightW;
+        final Cost rightCost = calculateSegmentCost(center + 1, end, reducedObservationMatrix, kernelApproximationDiagonal, rightW);
         double rightD = rightCost.D;
-        final double[] rightW = Arrays.copyOf(rightCost.W, p);
         double rightV = rightCost.V;
         double rightC = rightCost.C;
 
+        final double[] totalW = buffers.totalW;
+        final Cost totalCost = calculateSegmentCost(start, end, reducedObservationMatrix, kernelApproximationDiagonal, totalW);
         double totalD = totalCost.D;
-        final double[] totalW = Arrays.copyOf(totalCost.W, p);
         double totalV = totalCost.V;
         double totalC = totalCost.C;
 
-        final double[] windowCosts = new double[N];
+        final double[] windowCosts = buffers.windowCosts;
         windowCosts[center] = leftC + rightC - totalC;
 
         double ZdotW;
@@ -477,21 +549,24 @@ public final class KernelSegmenter<DATA> {
         for (center = 0; center < N; center++) {
             final int centerNext = (center + 1) % N;
             final int endNext = (end + 1) % N;
+            final double[] ZStart = reducedObservationMatrix[start];
+            final double[] ZCenterNext = reducedObservationMatrix[centerNext];
+            final double[] ZEndNext = reducedObservationMatrix[endNext];
 
             //update quantities in left segment
             leftD -= kernelApproximationDiagonal[start];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(start, j) * leftW[j];
-                leftW[j] -= reducedObservationMatrix.getEntry(start, j);
+                ZdotW += ZStart[j] * leftW[j];
+                leftW[j] -= ZStart[j];
             }
             leftV += -2. * ZdotW + kernelApproximationDiagonal[start];
 
             leftD += kernelApproximationDiagonal[centerNext];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(centerNext, j) * leftW[j];
-                leftW[j] += reducedObservationMatrix.getEntry(centerNext, j);
+                ZdotW += ZCenterNext[j] * leftW[j];
+                leftW[j] += ZCenterNext[j];
             }
             leftV += 2. * ZdotW + kernelApproximationDiagonal[centerNext];
 
@@ -501,16 +576,16 @@ public final class KernelSegmenter<DATA> {
             rightD -= kernelApproximationDiagonal[centerNext];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(centerNext, j) * rightW[j];
-                rightW[j] -= reducedObservationMatrix.getEntry(centerNext, j);
+                ZdotW += ZCenterNext[j] * rightW[j];
+                rightW[j] -= ZCenterNext[j];
             }
             rightV += -2. * ZdotW + kernelApproximationDiagonal[centerNext];
 
             rightD += kernelApproximationDiagonal[endNext];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(endNext, j) * rightW[j];
-                rightW[j] += reducedObservationMatrix.getEntry(endNext, j);
+                ZdotW += ZEndNext[j] * rightW[j];
+                rightW[j] += ZEndNext[j];
             }
             rightV += 2. * ZdotW + kernelApproximationDiagonal[endNext];
 
@@ -520,16 +595,16 @@ public final class KernelSegmenter<DATA> {
             totalD -= kernelApproximationDiagonal[start];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(start, j) * totalW[j];
-                totalW[j] -= reducedObservationMatrix.getEntry(start, j);
+                ZdotW += ZStart[j] * totalW[j];
+                totalW[j] -= ZStart[j];
             }
             totalV += -2. * ZdotW + kernelApproximationDiagonal[start];
 
             totalD += kernelApproximationDiagonal[endNext];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(endNext, j) * totalW[j];
-                totalW[j] += reducedObservationMatrix.getEntry(endNext, j);
+                ZdotW += ZEndNext[j] * totalW[j];
+                totalW[j] += ZEndNext[j];
             }
             totalV += 2. * ZdotW + kernelApproximationDiagonal[endNext];
 
@@ -544,4 +619,4 @@ public final class KernelSegmenter<DATA> {
         }
         return windowCosts;
     }
-}
\ No newline at end of file
+}
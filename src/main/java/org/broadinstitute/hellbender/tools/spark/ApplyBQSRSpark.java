@@ -50,6 +50,7 @@ public final class ApplyBQSRSpark extends GATKSparkTool {
         final GCSOptions gcsOptions = getAuthenticatedGCSOptions(); // null if we have no api key
         Broadcast<RecalibrationReport> recalibrationReportBroadCast = ctx.broadcast(new RecalibrationReport(BucketUtils.openFile(bqsrRecalFile)));
         final JavaRDD<GATKRead> recalibratedReads = ApplyBQSRSparkFn.apply(initialReads, recalibrationReportBroadCast, getHeaderForReads(), applyBQSRArgs);
-        writeReads(ctx, output, recalibratedReads);
+        // recalibration leaves the order and positions of the reads unchanged, so reads from a sorted input are not sorted again
+        writeReads(ctx, output, recalibratedReads, !hasCoordinateSortedReadsInput());
     }
 }
@@ -0,0 +1,293 @@
+package org.broadinstitute.hellbender.tools.spark;
+
+import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFUtils;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.broadcast.Broadcast;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.help.DocumentedFeature;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.argumentcollections.VariantAnnotationArgumentCollection;
+import org.broadinstitute.hellbender.cmdline.programgroups.SparkProgramGroup;
+import org.broadinstitute.hellbender.engine.*;
+import org.broadinstitute.hellbender.engine.datasources.ReferenceMultiSource;
+import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
+import org.broadinstitute.hellbender.engine.spark.SparkSharder;
+import org.broadinstitute.hellbender.engine.spark.datasources.VariantsSparkSink;
+import org.broadinstitute.hellbender.engine.spark.datasources.VariantsSparkSource;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.walkers.GenotypeGVCFs;
+import org.broadinstitute.hellbender.tools.walkers.GenotypeGVCFsEngine;
+import org.broadinstitute.hellbender.tools.walkers.annotator.StandardAnnotation;
+import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeCalculationArgumentCollection;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.SampleList;
+import scala.Tuple2;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Perform joint genotyping on many single-sample GVCFs using Spark
+ *
+ * <p>
+ * This is a Spark version of {@link GenotypeGVCFs} that takes the GVCFs of the samples directly, rather than a
+ * single GVCF that was combined beforehand with CombineGVCFs or GenomicsDBImport. The records of all the GVCFs are
+ * partitioned by genomic position into shards of {@code --variantShardSize} bases. Within each shard, at every site
+ * where a record of some sample has an alternate allele, the records of all the samples that overlap the site are
+ * merged, and the merged record is genotyped in the same way as by {@link GenotypeGVCFs}.
+ * </p>
+ *
+ * <p>
+ * It does not yet support all the options that the non-spark version does. Specifically it does not support the
+ * --dbsnp and --onlyOutputCallsStartingInIntervals options, or emitting the non-variant sites.
+ * </p>
+ *
+ * <h3>Input</h3>
+ * <p>
+ * One or more GVCFs produced by HaplotypeCaller with the `-ERC GVCF` or `-ERC BP_RESOLUTION` settings, each containing
+ * different samples, and a 2bit reference.
+ * </p>
+ *
+ * <h3>Output</h3>
+ * <p>
+ * A final VCF in which all samples have been jointly genotyped.
+ * </p>
+ *
+ * <h3>Usage example</h3>
+ * <pre>
+ * gatk-launch GenotypeGVCFsSpark \
+ *   -R reference.2bit \
+ *   -V input1.g.vcf \
+ *   -V input2.g.vcf \
+ *   -V input3.g.vcf \
+ *   -O output.vcf \
+ *   -- \
+ *   --sparkRunner LOCAL
+ * </pre>
+ */
+@CommandLineProgramProperties(summary = "Perform joint genotyping on many single-sample GVCFs using Spark",
+        oneLineSummary = "GenotypeGVCFs on Spark",
+        programGroup = SparkProgramGroup.class)
+@DocumentedFeature
+@BetaFeature
+public final class GenotypeGVCFsSpark extends GATKSparkTool {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_VARIANT_SHARD_SIZE = 10000;
+
+    /**
+     * The number of bases of reference context around each site, as in {@link GenotypeGVCFs}.
+     */
+    private static final int REFERENCE_WINDOW = 10;
+
+    @Argument(fullName = StandardArgumentDefinitions.VARIANT_LONG_NAME, shortName = StandardArgumentDefinitions.VARIANT_SHORT_NAME,
+            doc = "One or more GVCFs to genotype jointly", optional = false)
+    public List<String> gvcfs;
+
+    @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
+            doc = "File to which variants should be written", optional = false)
+    public String output;
+
+    @Argument(fullName = "variantShardSize", shortName = "variantShardSize",
+            doc = "Maximum size of each shard of GVCF records, in bases", optional = true)
+    public int variantShardSize = DEFAULT_VARIANT_SHARD_SIZE;
+
+    @ArgumentCollection
+    public GenotypeCalculationArgumentCollection genotypeArgs = new GenotypeCalculationArgumentCollection();
+
+    @ArgumentCollection
+    public final VariantAnnotationArgumentCollection variantAnnotationArgumentCollection = new VariantAnnotationArgumentCollection(
+            Arrays.asList(StandardAnnotation.class.getSimpleName()),
+            Collections.emptyList(),
+            Collections.emptyList());
+
+    /**
+     * GATKSparkTool returns the GATKReadFilterPluginDescriptor, but we don't want that for variant tools.
+     */
+    @Override
+    public List<? extends CommandLinePluginDescriptor<?>> getPluginDescriptors() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public boolean requiresReference() {
+        return true;
+    }
+
+    @Override
+    protected void runTool(final JavaSparkContext ctx) {
+        final ReferenceMultiSource reference = getReference();
+        if ( !reference.isCompatibleWithSparkBroadcast() ) {
+            throw new UserException.Require2BitReferenceForBroadcast();
+        }
+
+        final List<VCFHeader> headers = gvcfs.stream().map(VariantsSparkSource::getHeader).collect(Collectors.toList());
+        final List<String> samples = getSamples(gvcfs, headers);
+        final VCFHeader inputHeader = new VCFHeader(VCFUtils.smartMergeHeaders(headers, true), samples);
+
+        final SAMSequenceDictionary sequenceDictionary = getReferenceSequenceDictionary();
+        final List<SimpleInterval> intervals = hasIntervals() ? getIntervals() : IntervalUtils.getAllIntervalsForReference(sequenceDictionary);
+        final List<ShardBoundary> shardBoundaries = intervals.stream()
+                .flatMap(interval -> Shard.divideIntervalIntoShards(interval, variantShardSize, 0, sequenceDictionary).stream())
+                .collect(Collectors.toList());
+
+        final VariantsSparkSource variantsSource = new VariantsSparkSource(ctx);
+        final JavaRDD<VariantContext> records = gvcfs.stream()
+                .map(gvcf -> variantsSource.getParallelVariantContexts(gvcf, hasIntervals() ? getIntervals() : null))
+                .reduce(ctx.emptyRDD(), JavaRDD::union)
+                // the genotypes are decoded lazily from the text of the records, which cannot be shuffled, so decode them here
+                .map(vc -> new VariantContextBuilder(vc).genotypes(GenotypesContext.copy(vc.getGenotypes())).make());
+
+        // the records of the different GVCFs are not in coordinate order with respect to each other, so a shuffle is needed
+        // to bring the records of all the samples that overlap a shard together
+        final JavaRDD<Shard<VariantContext>> shards = SparkSharder.shard(ctx, records, VariantContext.class, sequenceDictionary,
+                shardBoundaries, variantShardSize, true);
+
+        final VariantAnnotatorEngine annotationEngine = VariantAnnotatorEngine.ofSelectedMinusExcluded(variantAnnotationArgumentCollection, null, Collections.emptyList());
+        final JavaRDD<VariantContext> variants = shards.mapPartitions(genotypeShards(ctx.broadcast(reference), getSharedWindowCacheSettings(),
+                ctx.broadcast(annotationEngine), genotypeArgs, samples, sequenceDictionary));
+
+        final SampleList sampleList = new IndexedSampleList(samples);
+        final GenotypeGVCFsEngine gvcfEngine = new GenotypeGVCFsEngine(annotationEngine, genotypeArgs, sampleList, false);
+        final VCFHeader header = gvcfEngine.makeOutputVCFHeader(inputHeader, Collections.emptySet(), false, sampleList);
+        try {
+            VariantsSparkSink.writeVariants(ctx, output, variants, header, false, null, 0, numReducers);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(output, "writing failed", e);
+        }
+    }
+
+    /**
+     * @return the samples of all the GVCFs
+     * @throws UserException.BadInput if a sample appears in more than one GVCF
+     */
+    private static List<String> getSamples(final List<String> gvcfs, final List<VCFHeader> headers) {
+        final Map<String, String> gvcfBySample = new LinkedHashMap<>();
+        for ( int i = 0; i < gvcfs.size(); i++ ) {
+            for ( final String sample : headers.get(i).getGenotypeSamples() ) {
+                final String previous = gvcfBySample.put(sample, gvcfs.get(i));
+                if ( previous != null ) {
+                    throw new UserException.BadInput("Sample " + sample + " appears in both " + previous + " and " + gvcfs.get(i));
+                }
+            }
+        }
+        return new ArrayList<>(gvcfBySample.keySet());
+    }
+
+    private static FlatMapFunction<Iterator<Shard<VariantContext>>, VariantContext> genotypeShards(
+            final Broadcast<ReferenceMultiSource> referenceBroadcast,
+            final SharedWindowCache.Settings windowCacheSettings,
+            final Broadcast<VariantAnnotatorEngine> annotatorEngineBroadcast,
+            final GenotypeCalculationArgumentCollection genotypeArgs,
+            final List<String> samples,
+            final SAMSequenceDictionary sequenceDictionary) {
+        return shards -> {
+            // GenotypeGVCFsEngine isn't serializable, so construct and reuse one for every partition
+            final SampleList sampleList = new IndexedSampleList(samples);
+            final GenotypeGVCFsEngine gvcfEngine = new GenotypeGVCFsEngine(annotatorEngineBroadcast.getValue(), genotypeArgs,
+                    sampleList, false);
+            final List<VariantContext> variants = new ArrayList<>();
+            while ( shards.hasNext() ) {
+                final Shard<VariantContext> shard = shards.next();
+                final List<Tuple2<SimpleInterval, List<VariantContext>>> sites = getOverlappingRecordsAtSites(shard, shard.getInterval(), sampleList);
+                if ( sites.isEmpty() ) {
+                    continue;
+                }
+                // get the reference bases for all the sites in this shard, with context on either side
+                final SimpleInterval referenceInterval = new SimpleInterval(shard.getContig(),
+                        sites.get(0)._1().getStart(),
+                        sites.stream().mapToInt(site -> site._1().getEnd()).max().getAsInt())
+                        .expandWithinContig(REFERENCE_WINDOW, sequenceDictionary);
+                final ReferenceDataSource reference = new ReferenceMemorySource(
+                        SharedWindowCache.fetchReferenceBases(windowCacheSettings, referenceBroadcast.getValue(), null, referenceInterval, sequenceDictionary),
+                        sequenceDictionary);
+                for ( final Tuple2<SimpleInterval, List<VariantContext>> site : sites ) {
+                    final ReferenceContext ref = new ReferenceContext(reference, site._1(), REFERENCE_WINDOW, REFERENCE_WINDOW);
+                    final VariantContext vc = gvcfEngine.callVariant(site._2(), site._1(), ref, new FeatureContext());
+                    if ( vc != null ) {
+                        variants.add(vc);
+                    }
+                }
+            }
+            return variants.iterator();
+        };
+    }
+
+    /**
+     * Finds the candidate variant sites in an interval, which are the positions in the interval where a GVCF record
+     * with an alternate allele (other than {@code <NON_REF>}) starts, together with all the GVCF records that overlap
+     * each such site. Sites where no sample has an alternate allele are skipped, since {@link GenotypeGVCFs} would find
+     * them to be monomorphic.
+     *
+     * The records at each site are in the order in which CombineGVCFs would merge them (the records that start last
+     * first, and records with the same start in the reverse order of the samples), so that the alleles of the merged
+     * records are in the same order.
+     *
+     * @param records the GVCF records, of all samples, that overlap the interval, in any order
+     * @param interval the interval to find the sites in
+     * @param samples the samples of the GVCFs, in order
+     * @return for each site, in coordinate order, the interval spanned by the records that start at the site and the
+     * records that overlap the site
+     */
+    @VisibleForTesting
+    static List<Tuple2<SimpleInterval, List<VariantContext>>> getOverlappingRecordsAtSites(final Iterable<VariantContext> records,
+                                                                                            final SimpleInterval interval,
+                                                                                            final SampleList samples) {
+        final Comparator<VariantContext> mergeOrder = Comparator.comparingInt(VariantContext::getStart)
+                .thenComparingInt(record -> record.getNSamples() == 0 ? -1 : samples.indexOfSample(record.getGenotype(0).getSampleName()))
+                .reversed();
+        final List<VariantContext> sortedRecords = new ArrayList<>();
+        records.forEach(sortedRecords::add);
+        sortedRecords.sort(Comparator.comparingInt(VariantContext::getStart));
+
+        final List<Tuple2<SimpleInterval, List<VariantContext>>> sites = new ArrayList<>();
+        final List<VariantContext> overlapping = new ArrayList<>();
+        int i = 0;
+        while ( i < sortedRecords.size() ) {
+            final int start = sortedRecords.get(i).getStart();
+            if ( start > interval.getEnd() ) {
+                break;
+            }
+            final List<VariantContext> startingRecords = new ArrayList<>();
+            for ( ; i < sortedRecords.size() && sortedRecords.get(i).getStart() == start; i++ ) {
+                startingRecords.add(sortedRecords.get(i));
+            }
+            // as in CombineGVCFs, a record that starts here ends the earlier records of the same samples, even if they
+            // overlap it (for example, a deletion followed by a SNP in a GVCF in base pair resolution)
+            final Set<String> startingSamples = startingRecords.stream()
+                    .flatMap(record -> record.getSampleNames().stream()).collect(Collectors.toSet());
+            overlapping.removeIf(record -> record.getEnd() < start || !Collections.disjoint(record.getSampleNames(), startingSamples));
+            overlapping.addAll(startingRecords);
+
+            // records that start before the interval are only kept for the sites in it that they overlap
+            if ( start >= interval.getStart() && startingRecords.stream().anyMatch(GenotypeGVCFsSpark::hasAlternateAllele) ) {
+                final int end = startingRecords.stream().mapToInt(VariantContext::getEnd).max().getAsInt();
+                final List<VariantContext> siteRecords = new ArrayList<>(overlapping);
+                siteRecords.sort(mergeOrder);
+                sites.add(new Tuple2<>(new SimpleInterval(interval.getContig(), start, end), siteRecords));
+            }
+        }
+        return sites;
+    }
+
+    private static boolean hasAlternateAllele(final VariantContext record) {
+        return record.getAlternateAlleles().stream().anyMatch(allele -> !allele.equals(Allele.NON_REF_ALLELE));
+    }
+}
@@ -1,9 +1,10 @@
 package org.broadinstitute.hellbender.tools.spark;
 
+import com.google.common.collect.Iterators;
 import htsjdk.tribble.Feature;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
-import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.FlatMapFunction;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.BetaFeature;
 import org.broadinstitute.barclay.argparser.Hidden;
@@ -25,6 +26,7 @@ import org.broadinstitute.hellbender.engine.spark.LocusWalkerSpark;
 import scala.Tuple3;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -83,32 +85,44 @@ public final class PileupSpark extends LocusWalkerSpark {
         return filterList;
     }
 
+    @Override
+    protected void runTool(JavaSparkContext ctx) {
+        // stream the loci rather than materializing a context per locus, since we only keep a line of each one
+        final List<FeatureInput<Feature>> metadata = this.metadata;
+        final boolean outputInsertLength = this.outputInsertLength;
+        final boolean showVerbose = this.showVerbose;
+        mapLociByPartition(ctx, (FlatMapFunction<Iterator<LocusWalkerContext>, String>) loci ->
+                Iterators.transform(loci, context -> pileup(context, metadata, outputInsertLength, showVerbose)))
+                .saveAsTextFile(outputFile);
+    }
+
     @Override
     protected void processAlignments(JavaRDD<LocusWalkerContext> rdd, JavaSparkContext ctx) {
-        rdd.map(pileupFunction(metadata, outputInsertLength, showVerbose)).saveAsTextFile(outputFile);
+        final List<FeatureInput<Feature>> metadata = this.metadata;
+        final boolean outputInsertLength = this.outputInsertLength;
+        final boolean showVerbose = this.showVerbose;
+        rdd.map(context -> pileup(context, metadata, outputInsertLength, showVerbose)).saveAsTextFile(outputFile);
     }
 
-    private static Function<LocusWalkerContext, String> pileupFunction(List<FeatureInput<Feature>> metadata,
-                                                                       boolean outputInsertLength, boolean showVerbose) {
-        return (Function<LocusWalkerContext, String>) context -> {
-            AlignmentContext alignmentContext = context.getAlignmentContext();
-            ReferenceContext referenceContext = context.getReferenceContext();
-            FeatureContext featureContext = context.getFeatureContext();
-            final String features = getFeaturesString(featureContext, metadata);
-            final ReadPileup basePileup = alignmentContext.getBasePileup();
-            final StringBuilder s = new StringBuilder();
-            s.append(String.format("%s %s",
-                    basePileup.getPileupString((referenceContext.hasBackingDataSource()) ? (char) referenceContext.getBase() : 'N'),
-                    features));
-            if (outputInsertLength) {
-                s.append(" ").append(insertLengthOutput(basePileup));
-            }
-            if (showVerbose) {
-                s.append(" ").append(createVerboseOutput(basePileup));
-            }
-            s.append("\n");
-            return s.toString();
-        };
+    private static String pileup(final LocusWalkerContext context, final List<FeatureInput<Feature>> metadata,
+                                 final boolean outputInsertLength, final boolean showVerbose) {
+        AlignmentContext alignmentContext = context.getAlignmentContext();
+        ReferenceContext referenceContext = context.getReferenceContext();
+        FeatureContext featureContext = context.getFeatureContext();
+        final String features = getFeaturesString(featureContext, metadata);
+        final ReadPileup basePileup = alignmentContext.getBasePileup();
+        final StringBuilder s = new StringBuilder();
+        s.append(String.format("%s %s",
+                basePileup.getPileupString((referenceContext.hasBackingDataSource()) ? (char) referenceContext.getBase() : 'N'),
+                features));
+        if (outputInsertLength) {
+            s.append(" ").append(insertLengthOutput(basePileup));
+        }
+        if (showVerbose) {
+            s.append(" ").append(createVerboseOutput(basePileup));
+        }
+        s.append("\n");
+        return s.toString();
     }
 
     private static String getFeaturesString(final FeatureContext featureContext, List<FeatureInput<Feature>> metadata) {
@@ -7,6 +7,7 @@ import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.storage.StorageLevel;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
@@ -28,6 +29,7 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
+import org.broadinstitute.hellbender.utils.spark.SparkUtils;
 import org.broadinstitute.hellbender.utils.variant.GATKVariant;
 
 import java.util.List;
@@ -68,6 +70,10 @@ public final class BQSRPipelineSpark extends GATKSparkTool {
     @ArgumentCollection(doc = "all the command line arguments for BQSR and its covariates")
     private final RecalibrationArgumentCollection bqsrArgs = new RecalibrationArgumentCollection();
 
+    @Argument(doc = "the Spark storage level of the input reads, which are read once and used both to make the recalibration table and to apply it (NONE to read them again instead); with a serialized (_SER) level the reads are kept in their compact serialized form",
+            shortName = "readsStorageLevel", fullName = "readsStorageLevel", optional = true)
+    public String readsStorageLevel = "MEMORY_AND_DISK_SER";
+
     @Argument(fullName="readShardSize", shortName="readShardSize", doc = "Maximum size of each read shard, in bases. Only applies when using the OVERLAPS_PARTITIONER join strategy.", optional = true)
     public int readShardSize = 10000;
 
@@ -93,7 +99,13 @@ public final class BQSRPipelineSpark extends GATKSparkTool {
         //Should this get the getUnfilteredReads? getReads will merge default and command line filters.
         //but the code below uses other filters for other parts of the pipeline that do not honor
         //the commandline.
+        final StorageLevel readsStorage = SparkUtils.getStorageLevel("readsStorageLevel", readsStorageLevel);
         final JavaRDD<GATKRead> initialReads = getReads();
+        // The reads are cached by the job that makes the recalibration table, as they are read, and ApplyBQSR reads them
+        // from the cache rather than from the input.
+        if (!readsStorage.equals(StorageLevel.NONE())) {
+            initialReads.persist(readsStorage);
+        }
 
         // The initial reads have already had the WellformedReadFilter applied to them, which
         // is all the filtering that ApplyBQSR wants. BQSR itself wants additional filtering
@@ -113,5 +125,6 @@ public final class BQSRPipelineSpark extends GATKSparkTool {
         final JavaRDD<GATKRead> finalReads = ApplyBQSRSparkFn.apply(initialReads, reportBroadcast, getHeaderForReads(), applyBqsrArgs.toApplyBQSRArgumentCollection(bqsrArgs.PRESERVE_QSCORES_LESS_THAN));
 
         writeReads(ctx, output, finalReads);
+        initialReads.unpersist();
     }
 }
@@ -14,6 +14,7 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.spark.bwa.BwaSparkEngine;
 import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkDuplicatesSpark;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.ReadsWriteFormat;
 import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
 import org.broadinstitute.hellbender.utils.read.markduplicates.OpticalDuplicateFinder;
@@ -22,6 +23,10 @@ import java.io.IOException;
 
 /**
  * Runs BWA and MarkDuplicates on Spark. It's an example of how to compose those two tools.
+ *
+ * If the input is queryname sorted or query grouped, the reads of each template are put in the same partition when
+ * they are loaded, and BWA keeps them together (and in order) within the partition, so MarkDuplicates groups the
+ * aligned reads by name without a shuffle. Otherwise MarkDuplicates has to shuffle the reads to group them.
  */
 @CommandLineProgramProperties(
         summary = "Takes name-sorted file and runs BWA and MarkDuplicates.",
@@ -55,7 +60,12 @@ public final class BwaAndMarkDuplicatesPipelineSpark extends GATKSparkTool {
 
     @Override
     protected void runTool(final JavaSparkContext ctx) {
+        if (!ReadUtils.isQueryGrouped(getHeaderForReads())) {
+            logger.warn("The input is not queryname sorted or query grouped, so the aligned reads will be shuffled to group them by name for MarkDuplicates.");
+        }
         try (final BwaSparkEngine engine = new BwaSparkEngine(ctx, referenceArguments.getReferenceFileName(), indexImageFile, getHeaderForReads(), getReferenceSequenceDictionary())) {
+            // the header of the aligned reads keeps the sort and group order of the input, so query grouped reads stay
+            // query grouped, and each partition holds whole templates
             final JavaRDD<GATKRead> alignedReads = engine.alignPaired(getReads());
             final JavaRDD<GATKRead> markedReadsWithOD = MarkDuplicatesSpark.mark(alignedReads, engine.getHeader(), duplicatesScoringStrategy, new OpticalDuplicateFinder(), getRecommendedNumReducers());
             final JavaRDD<GATKRead> markedReads = MarkDuplicatesSpark.cleanupTemporaryAttributes(markedReadsWithOD);
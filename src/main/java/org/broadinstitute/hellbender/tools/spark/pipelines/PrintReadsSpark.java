@@ -36,6 +36,7 @@ public final class PrintReadsSpark extends GATKSparkTool {
         }
 
         final JavaRDD<GATKRead> reads = getReads();
-        writeReads(ctx, output, reads);
+        // the reads are in the order of the coordinate-sorted input, so they are not sorted again
+        writeReads(ctx, output, reads, !hasCoordinateSortedReadsInput());
     }
 }
@@ -84,6 +84,10 @@ public class ReadsPipelineSpark extends GATKSparkTool {
     @Argument(shortName = "DS", fullName ="duplicates_scoring_strategy", doc = "The scoring strategy for choosing the non-duplicate among candidates.")
     public MarkDuplicatesScoringStrategy duplicatesScoringStrategy = MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES;
 
+    @Argument(doc = "the Spark storage level of the duplicate-marked reads, which are computed once and used both to make the recalibration table and to apply it (NONE to recompute them instead); with a serialized (_SER) level the reads are kept in their compact serialized form",
+            shortName = "markedReadsStorageLevel", fullName = "markedReadsStorageLevel", optional = true)
+    public String markedReadsStorageLevel = "MEMORY_AND_DISK_SER";
+
     /**
      * all the command line arguments for BQSR and its covariates
      */
@@ -113,11 +117,18 @@ public class ReadsPipelineSpark extends GATKSparkTool {
             throw new UserException.Require2BitReferenceForBroadcast();
         }
 
+        final StorageLevel markedReadsStorage = SparkUtils.getStorageLevel("markedReadsStorageLevel", markedReadsStorageLevel);
+
         //TOOO: should this use getUnfilteredReads? getReads will apply default and command line filters
         final JavaRDD<GATKRead> initialReads = getReads();
 
         final JavaRDD<GATKRead> markedReadsWithOD = MarkDuplicatesSpark.mark(initialReads, getHeaderForReads(), duplicatesScoringStrategy, new OpticalDuplicateFinder(), getRecommendedNumReducers());
         final JavaRDD<GATKRead> markedReads = MarkDuplicatesSpark.cleanupTemporaryAttributes(markedReadsWithOD);
+        // The marked reads are cached by the job that makes the recalibration table, as they are computed, and
+        // ApplyBQSR reads them from the cache rather than marking duplicates (and reading the input) again.
+        if (!markedReadsStorage.equals(StorageLevel.NONE())) {
+            markedReads.persist(markedReadsStorage);
+        }
 
         // The markedReads have already had the WellformedReadFilter applied to them, which
         // is all the filtering that MarkDupes and ApplyBQSR want. BQSR itself wants additional
@@ -152,6 +163,7 @@ public class ReadsPipelineSpark extends GATKSparkTool {
         final JavaRDD<GATKRead> filteredReadsForHC = finalReads.filter(read -> hcReadFilter.test(read));
         filteredReadsForHC.persist(StorageLevel.DISK_ONLY()); // without caching, computations are run twice as a side effect of finding partition boundaries for sorting
         final List<SimpleInterval> intervals = hasIntervals() ? getIntervals() : IntervalUtils.getAllIntervalsForReference(getHeaderForReads().getSequenceDictionary());
-        HaplotypeCallerSpark.callVariantsWithHaplotypeCallerAndWriteOutput(getAuthHolder(), ctx, filteredReadsForHC, getHeaderForReads(), getReference(), intervals, hcArgs, shardingArgs, numReducers, output);
+        HaplotypeCallerSpark.callVariantsWithHaplotypeCallerAndWriteOutput(getAuthHolder(), ctx, filteredReadsForHC, getHeaderForReads(), getReference(), getSharedWindowCacheSettings(), intervals, hcArgs, shardingArgs, numReducers, output);
+        markedReads.unpersist();
     }
 }
@@ -14,12 +14,17 @@ import java.util.stream.StreamSupport;
 
 public class ApplyBQSRSparkFn {
 
+    /**
+     * Applies BQSR to the reads. The reads are copied before they are recalibrated, as the transformer modifies the
+     * reads it is given, and the input RDD may be cached with a deserialized storage level (and traversed more than
+     * once), in which case recalibrating the cached reads in place would recalibrate them again on each traversal.
+     */
     public static JavaRDD<GATKRead> apply(JavaRDD<GATKRead> reads, final Broadcast<RecalibrationReport> reportBroadcast, final SAMFileHeader readsHeader, ApplyBQSRArgumentCollection args) {
         return reads.mapPartitions(readsIterator -> {
             final RecalibrationReport report = reportBroadcast.getValue();
             final BQSRReadTransformer transformer = new BQSRReadTransformer(readsHeader, report, args);//reuse this for all reads in the partition
             final Iterable<GATKRead> readsIterable = () -> readsIterator;
-            return Utils.stream(readsIterable).map(read -> transformer.apply(read)).collect(Collectors.toList()).iterator();
+            return Utils.stream(readsIterable).map(read -> transformer.apply(read.copy())).collect(Collectors.toList()).iterator();
         });
     }
 }
@@ -0,0 +1,213 @@
+package org.broadinstitute.hellbender.tools.walkers;
+
+import htsjdk.samtools.util.Locatable;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.*;
+import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.*;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.afcalc.GeneralPloidyFailOverAFCalculatorProvider;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.SampleList;
+import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
+import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
+import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+
+import java.util.*;
+
+/**
+ * The core engine of {@link GenotypeGVCFs}, which merges the records of one or more GVCFs at a site and
+ * re-genotypes (and re-annotates) the merged record.
+ *
+ * It is shared by {@link GenotypeGVCFs}, which sees records that have already been combined into a single
+ * multi-sample GVCF, and the Spark tools that merge the records of many single-sample GVCFs themselves.
+ */
+public final class GenotypeGVCFsEngine {
+
+    private static final String GVCF_BLOCK = "GVCFBlock";
+
+    // the genotyping engine
+    private final GenotypingEngine<?> genotypingEngine;
+    // the annotation engine
+    private final VariantAnnotatorEngine annotationEngine;
+
+    private final ReferenceConfidenceVariantContextMerger merger;
+
+    private final boolean includeNonVariants;
+
+    private final SampleList samples;
+
+    private final int samplePloidy;
+
+    /**
+     * @param annotationEngine the annotation engine to (re-)annotate the merged records with
+     * @param genotypeArgs the genotyping arguments
+     * @param samples the samples of the merged records
+     * @param includeNonVariants whether to emit the sites that are found to be non-variant after genotyping
+     */
+    public GenotypeGVCFsEngine(final VariantAnnotatorEngine annotationEngine, final GenotypeCalculationArgumentCollection genotypeArgs,
+                               final SampleList samples, final boolean includeNonVariants) {
+        this.annotationEngine = Utils.nonNull(annotationEngine);
+        this.includeNonVariants = includeNonVariants;
+        this.samples = Utils.nonNull(samples);
+        samplePloidy = genotypeArgs.samplePloidy;
+        // We only want the engine to generate the AS_QUAL key if we are using AlleleSpecific annotations.
+        genotypingEngine = new MinimalGenotypingEngine(createUAC(genotypeArgs), samples, new GeneralPloidyFailOverAFCalculatorProvider(genotypeArgs), annotationEngine.isRequestedReducibleRawKey(GATKVCFConstants.AS_QUAL_KEY));
+        merger = new ReferenceConfidenceVariantContextMerger(annotationEngine);
+    }
+
+    /**
+     * Creates the header of the output VCF from the header of the (combined) input GVCFs.
+     *
+     * @param inputVCFHeader the header of the input GVCFs
+     * @param toolHeaderLines additional header lines describing the tool, such as the command line
+     * @param includeDbsnp whether the output is annotated with dbSNP
+     * @param samples the samples in the output
+     * @return the header of the output VCF
+     */
+    public VCFHeader makeOutputVCFHeader(final VCFHeader inputVCFHeader, final Set<VCFHeaderLine> toolHeaderLines,
+                                         final boolean includeDbsnp, final SampleList samples) {
+        final Set<VCFHeaderLine> headerLines = new LinkedHashSet<>(inputVCFHeader.getMetaDataInInputOrder());
+        headerLines.addAll(toolHeaderLines);
+
+        // Remove GCVFBlocks
+        headerLines.removeIf(vcfHeaderLine -> vcfHeaderLine.getKey().startsWith(GVCF_BLOCK));
+
+        headerLines.addAll(annotationEngine.getVCFAnnotationDescriptions(false));
+        headerLines.addAll(genotypingEngine.getAppropriateVCFInfoHeaders());
+
+        // add headers for annotations added by this tool
+        headerLines.add(GATKVCFHeaderLines.getInfoLine(GATKVCFConstants.MLE_ALLELE_COUNT_KEY));
+        headerLines.add(GATKVCFHeaderLines.getInfoLine(GATKVCFConstants.MLE_ALLELE_FREQUENCY_KEY));
+        headerLines.add(GATKVCFHeaderLines.getFormatLine(GATKVCFConstants.REFERENCE_GENOTYPE_QUALITY));
+        headerLines.add(VCFStandardHeaderLines.getInfoLine(VCFConstants.DEPTH_KEY));   // needed for gVCFs without DP tags
+        if ( includeDbsnp ) {
+            VCFStandardHeaderLines.addStandardInfoLines(headerLines, true, VCFConstants.DBSNP_KEY);
+        }
+
+        return new VCFHeader(headerLines, new TreeSet<>(samples.asSetOfSamples()));
+    }
+
+    /**
+     * Merges the GVCF records that overlap a site, and re-genotypes the merged record.
+     *
+     * @param vcs the non-empty list of GVCF records that overlap the site
+     * @param loc the site
+     * @param ref the reference context of the site
+     * @param features the features overlapping the site
+     * @return the genotyped record, or null if the site turned out to be monomorphic and we don't want such sites
+     */
+    public VariantContext callVariant(final List<VariantContext> vcs, final Locatable loc, final ReferenceContext ref, final FeatureContext features) {
+        final VariantContext mergedVC = merger.merge(vcs, loc, includeNonVariants ? ref.getBase() : null, true, false);
+        return mergedVC == null ? null : regenotypeVC(addMissingSamples(mergedVC), ref, features);
+    }
+
+    /**
+     * Adds no-call genotypes for the samples that have no record overlapping the site, as they would have if the GVCFs
+     * had been combined into a single GVCF beforehand.
+     */
+    private VariantContext addMissingSamples(final VariantContext mergedVC) {
+        if ( mergedVC.getNSamples() == samples.numberOfSamples() ) {
+            return mergedVC;
+        }
+        final GenotypesContext genotypes = GenotypesContext.copy(mergedVC.getGenotypes());
+        for ( final String sample : samples.asListOfSamples() ) {
+            if ( !genotypes.containsSample(sample) ) {
+                genotypes.add(GenotypeBuilder.create(sample, GATKVariantContextUtils.noCallAlleles(samplePloidy)));
+            }
+        }
+        return new VariantContextBuilder(mergedVC).genotypes(genotypes).make();
+    }
+
+    /**
+     * Re-genotype (and re-annotate) a combined genomic VC
+     * @return a new VariantContext or null if the site turned monomorphic and we don't want such sites
+     */
+    private VariantContext regenotypeVC(final VariantContext originalVC, final ReferenceContext ref, final FeatureContext features) {
+        Utils.nonNull(originalVC);
+
+        final VariantContext result;
+        if ( originalVC.isVariant()  && originalVC.getAttributeAsInt(VCFConstants.DEPTH_KEY,0) > 0 ) {
+            // only re-genotype polymorphic sites
+            final VariantContext regenotypedVC = calculateGenotypes(originalVC);
+            if (GenotypeGVCFs.isProperlyPolymorphic(regenotypedVC)) {
+                // Note that reversetrimAlleles must be performed after the annotations are finalized because the reducible annotation data maps
+                // were generated and keyed on the un reverseTrimmed alleles from the starting VariantContexts. Thus reversing the order will make
+                // it difficult to recover the data mapping due to the keyed alleles no longer being present in the variant context.
+                final VariantContext withGenotypingAnnotations = addGenotypingAnnotations(originalVC.getAttributes(), regenotypedVC);
+                final VariantContext withAnnotations = annotationEngine.finalizeAnnotations(withGenotypingAnnotations, originalVC);
+                result = GATKVariantContextUtils.reverseTrimAlleles(withAnnotations);
+            } else if (includeNonVariants) {
+                result = originalVC;
+            } else {
+                return null;
+            }
+        } else {
+            result = originalVC;
+        }
+
+
+        // if it turned monomorphic then we either need to ignore or fix such sites
+        // Note that the order of these actions matters and is different for polymorphic and monomorphic sites.
+        // For polymorphic sites we need to make sure e.g. the SB tag is sent to the annotation engine and then removed later.
+        // For monomorphic sites we need to make sure e.g. the hom ref genotypes are created and only then are passed to the annotation engine.
+        // We could theoretically make 2 passes to re-create the genotypes, but that gets extremely expensive with large sample sizes.
+        if (result.isPolymorphicInSamples()) {
+            // For polymorphic sites we need to make sure e.g. the SB tag is sent to the annotation engine and then removed later.
+            final VariantContext reannotated = annotationEngine.annotateContext(result, features, ref, null, a -> true);
+            return new VariantContextBuilder(reannotated).genotypes(GenotypeGVCFs.cleanupGenotypeAnnotations(reannotated, false)).make();
+        } else if (includeNonVariants) {
+            // For monomorphic sites we need to make sure e.g. the hom ref genotypes are created and only then are passed to the annotation engine.
+            final VariantContext reannotated = new VariantContextBuilder(result).genotypes(GenotypeGVCFs.cleanupGenotypeAnnotations(result, true)).make();
+            return annotationEngine.annotateContext(reannotated, features, ref, null, GenotypeGVCFs::annotationShouldBeSkippedForHomRefSites);
+        } else {
+            return null;
+        }
+    }
+
+    private VariantContext calculateGenotypes(VariantContext vc){
+        /*
+         * Query the VariantContext for the appropriate model.  If type == MIXED, one would want to use model = BOTH.
+         * However GenotypingEngine.getAlleleFrequencyPriors throws an exception if you give it anything but a SNP or INDEL model.
+         */
+        final GenotypeLikelihoodsCalculationModel model = vc.getType() == VariantContext.Type.INDEL
+                ? GenotypeLikelihoodsCalculationModel.INDEL
+                : GenotypeLikelihoodsCalculationModel.SNP;
+        return genotypingEngine.calculateGenotypes(vc, model, null);
+    }
+
+    /**
+     * Add genotyping-based annotations to the new VC
+     *
+     * @param originalAttributes the non-null annotations from the original VC
+     * @param newVC the new non-null VC
+     * @return a non-null VC
+     */
+    private static VariantContext addGenotypingAnnotations(final Map<String, Object> originalAttributes, final VariantContext newVC) {
+        // we want to carry forward the attributes from the original VC but make sure to add the MLE-based annotations and any other annotations generated by the genotyper.
+        final Map<String, Object> attrs = new LinkedHashMap<>(originalAttributes);
+        attrs.put(GATKVCFConstants.MLE_ALLELE_COUNT_KEY, newVC.getAttribute(GATKVCFConstants.MLE_ALLELE_COUNT_KEY));
+        attrs.put(GATKVCFConstants.MLE_ALLELE_FREQUENCY_KEY, newVC.getAttribute(GATKVCFConstants.MLE_ALLELE_FREQUENCY_KEY));
+        if (newVC.hasAttribute(GATKVCFConstants.NUMBER_OF_DISCOVERED_ALLELES_KEY)) {
+            attrs.put(GATKVCFConstants.NUMBER_OF_DISCOVERED_ALLELES_KEY, newVC.getAttribute(GATKVCFConstants.NUMBER_OF_DISCOVERED_ALLELES_KEY));
+        }
+        if (newVC.hasAttribute(GATKVCFConstants.AS_QUAL_KEY)) {
+            attrs.put(GATKVCFConstants.AS_QUAL_KEY, newVC.getAttribute(GATKVCFConstants.AS_QUAL_KEY));
+        }
+        return new VariantContextBuilder(newVC).attributes(attrs).make();
+    }
+
+    /**
+     * Creates a UnifiedArgumentCollection with appropriate values filled in from the genotyping arguments
+     * @return a complete UnifiedArgumentCollection
+     */
+    private static UnifiedArgumentCollection createUAC(final GenotypeCalculationArgumentCollection genotypeArgs) {
+        final UnifiedArgumentCollection uac = new UnifiedArgumentCollection();
+        uac.genotypeArgs = new GenotypeCalculationArgumentCollection(genotypeArgs);
+        return uac;
+    }
+}
@@ -1,6 +1,5 @@
 package org.broadinstitute.hellbender.tools.walkers.annotator;
 
-import com.google.common.primitives.Doubles;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -20,6 +19,10 @@ import java.util.*;
  */
 public abstract class RankSumTest extends InfoFieldAnnotation {
     protected static double INVALID_ELEMENT_FROM_READ = Double.NEGATIVE_INFINITY;
+
+    // annotateAll is called for every site, so each thread keeps its buffers and test between calls
+    private static final ThreadLocal<BatchBuffers> batchBuffers = ThreadLocal.withInitial(BatchBuffers::new);
+
     private boolean useDithering = true;
 
     public RankSumTest(final boolean useDithering){
@@ -34,51 +37,136 @@ public abstract class RankSumTest extends InfoFieldAnnotation {
     public Map<String, Object> annotate(final ReferenceContext ref,
                                         final VariantContext vc,
                                         final ReadLikelihoods<Allele> likelihoods) {
+        return annotateAll(Collections.singletonList(this), vc, likelihoods).get(0);
+    }
+
+    /**
+     * Computes several rank sum annotations in a single pass over the reads, with the same results as calling
+     * {@link #annotate(ReferenceContext, VariantContext, ReadLikelihoods)} on each of them.
+     *
+     * The best allele of each read is computed once for all the tests (rather than once per test), and each test
+     * collects its ref and alt values into primitive buffers for {@link MannWhitneyU}. The buffers and the
+     * {@link MannWhitneyU} are kept per thread and reused across sites, growing as needed.
+     *
+     * @param tests the annotations to compute
+     * @param vc the variant to annotate
+     * @param likelihoods the read likelihoods of the variant, may be null
+     * @return the annotations of each test (possibly empty), in the order of the tests
+     */
+    public static List<Map<String, Object>> annotateAll(final List<? extends RankSumTest> tests,
+                                                     final VariantContext vc,
+                                                     final ReadLikelihoods<Allele> likelihoods) {
+        Utils.nonNull(tests, "tests is null");
         Utils.nonNull(vc, "vc is null");
 
+        final int numberOfTests = tests.size();
         final GenotypesContext genotypes = vc.getGenotypes();
         if (genotypes == null || genotypes.isEmpty()) {
-            return Collections.emptyMap();
+            return Collections.nCopies(numberOfTests, Collections.emptyMap());
         }
 
-        final List<Double> refQuals = new ArrayList<>();
-        final List<Double> altQuals = new ArrayList<>();
+        final BatchBuffers buffers = batchBuffers.get();
+        final Collection<ReadLikelihoods<Allele>.BestAllele> bestAlleles = likelihoods != null ? likelihoods.bestAlleles() : Collections.emptyList();
+        buffers.reset(numberOfTests, bestAlleles.size());
+        final double[][] refValues = buffers.refValues;
+        final double[][] altValues = buffers.altValues;
+        final int[] refCounts = buffers.refCounts;
+        final int[] altCounts = buffers.altCounts;
 
         final int refLoc = vc.getStart();
 
-        if( likelihoods != null) {
-            for (final ReadLikelihoods<Allele>.BestAllele bestAllele : likelihoods.bestAlleles()) {
-                final GATKRead read = bestAllele.read;
+        if (likelihoods != null) {
+            for (final ReadLikelihoods<Allele>.BestAllele bestAllele : bestAlleles) {
+                if (!bestAllele.isInformative()) {
+                    continue;
+                }
                 final Allele allele = bestAllele.allele;
-                if (bestAllele.isInformative() && isUsableRead(read, refLoc)) {
-                    final OptionalDouble value = getElementForRead(read, refLoc, bestAllele);
-                    // Bypass read if the clipping goal is not reached or the refloc is inside a spanning deletion
-                    if (value.isPresent() && value.getAsDouble() != INVALID_ELEMENT_FROM_READ) {
-                        if (allele.isReference()) {
-                            refQuals.add(value.getAsDouble());
-                        } else if (vc.hasAllele(allele)) {
-                            altQuals.add(value.getAsDouble());
+                final boolean isRef = allele.isReference();
+                if (!isRef && !vc.hasAllele(allele)) {
+                    continue;
+                }
+                final GATKRead read = bestAllele.read;
+                for (int t = 0; t < numberOfTests; t++) {
+                    final RankSumTest test = tests.get(t);
+                    if (test.isUsableRead(read, refLoc)) {
+                        final OptionalDouble value = test.getElementForRead(read, refLoc, bestAllele);
+                        // Bypass read if the clipping goal is not reached or the refloc is inside a spanning deletion
+                        if (value.isPresent() && value.getAsDouble() != INVALID_ELEMENT_FROM_READ) {
+                            if (isRef) {
+                                refValues[t][refCounts[t]++] = value.getAsDouble();
+                            } else {
+                                altValues[t][altCounts[t]++] = value.getAsDouble();
+                            }
                         }
                     }
                 }
             }
         }
 
+        final MannWhitneyU mannWhitneyU = buffers.mannWhitneyU;
+        final List<Map<String, Object>> annotations = new ArrayList<>(numberOfTests);
+        for (int t = 0; t < numberOfTests; t++) {
+            if (refCounts[t] == 0 && altCounts[t] == 0) {
+                annotations.add(Collections.emptyMap());
+                continue;
+            }
 
-        if ( refQuals.isEmpty() && altQuals.isEmpty() ) {
-            return Collections.emptyMap();
-        }
+            // we are testing that set1 (the alt bases) have lower quality scores than set2 (the ref bases)
+            final MannWhitneyU.Result result = mannWhitneyU.test(altValues[t], altCounts[t], refValues[t], refCounts[t], MannWhitneyU.TestType.FIRST_DOMINATES);
+            final double zScore = result.getZ();
 
-        final MannWhitneyU mannWhitneyU = new MannWhitneyU();
+            if (Double.isNaN(zScore)) {
+                annotations.add(Collections.emptyMap());
+            } else {
+                annotations.add(Collections.singletonMap(tests.get(t).getKeyNames().get(0), String.format("%.3f", zScore)));
+            }
+        }
+        return annotations;
+    }
 
-        // we are testing that set1 (the alt bases) have lower quality scores than set2 (the ref bases)
-        final MannWhitneyU.Result result = mannWhitneyU.test(Doubles.toArray(altQuals), Doubles.toArray(refQuals), MannWhitneyU.TestType.FIRST_DOMINATES);
-        final double zScore = result.getZ();
+    /**
+     * Per-thread state of {@link #annotateAll(List, VariantContext, ReadLikelihoods)}. Only the first
+     * {@code refCounts[t]} and {@code altCounts[t]} values of the buffers of test {@code t} are valid.
+     */
+    private static final class BatchBuffers {
+        private final MannWhitneyU mannWhitneyU = new MannWhitneyU();
+        private double[][] refValues = new double[0][0];
+        private double[][] altValues = new double[0][0];
+        private int[] refCounts = new int[0];
+        private int[] altCounts = new int[0];
+
+        // makes room for the values of numberOfReads reads for each of numberOfTests tests, and clears the counts
+        void reset(final int numberOfTests, final int numberOfReads) {
+            if (refValues.length < numberOfTests) {
+                refValues = Arrays.copyOf(refValues, numberOfTests);
+                altValues = Arrays.copyOf(altValues, numberOfTests);
+                refCounts = new int[numberOfTests];
+                altCounts = new int[numberOfTests];
+            }
+            for (int t = 0; t < numberOfTests; t++) {
+                if (refValues[t] == null || refValues[t].length < numberOfReads) {
+                    refValues[t] = new double[numberOfReads];
+                    altValues[t] = new double[numberOfReads];
+                }
+            }
+            Arrays.fill(refCounts, 0);
+            Arrays.fill(altCounts, 0);
+        }
+    }
 
-        if (Double.isNaN(zScore)) {
-            return Collections.emptyMap();
-        } else {
-            return Collections.singletonMap(getKeyNames().get(0), String.format("%.3f", zScore));
+    /**
+     * Can this annotation be computed by {@link #annotateAll(List, VariantContext, ReadLikelihoods)}? That is the case
+     * for the rank sum tests that do not override {@link #annotate(ReferenceContext, VariantContext, ReadLikelihoods)}.
+     */
+    static boolean canBeAnnotatedInBatch(final InfoFieldAnnotation annotation) {
+        if (!(annotation instanceof RankSumTest)) {
+            return false;
+        }
+        try {
+            return annotation.getClass().getMethod("annotate", ReferenceContext.class, VariantContext.class, ReadLikelihoods.class)
+                    .getDeclaringClass() == RankSumTest.class;
+        } catch (final NoSuchMethodException e) {
+            return false;
         }
     }
 
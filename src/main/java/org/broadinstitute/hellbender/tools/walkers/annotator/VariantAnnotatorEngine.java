@@ -30,6 +30,8 @@ public final class VariantAnnotatorEngine {
     private final List<InfoFieldAnnotation> infoAnnotations;
     private final List<GenotypeAnnotation> genotypeAnnotations;
     private Set<String> reducibleKeys;
+    // the info annotations that are computed together, in a single pass over the reads
+    private final Set<InfoFieldAnnotation> batchedRankSumTests;
 
     private final VariantOverlapAnnotator variantOverlapAnnotator;
 
@@ -45,6 +47,8 @@ public final class VariantAnnotatorEngine {
                 reducibleKeys.add(((ReducibleAnnotation) annot).getRawKeyName());
             }
         }
+        batchedRankSumTests = infoAnnotations.stream().filter(RankSumTest::canBeAnnotatedInBatch)
+                .collect(Collectors.toCollection(() -> Collections.newSetFromMap(new IdentityHashMap<>())));
     }
 
     /**
@@ -260,10 +264,26 @@ public final class VariantAnnotatorEngine {
         builder.genotypes(annotateGenotypes(ref, vc, likelihoods, addAnnot));
         final VariantContext newGenotypeAnnotatedVC = builder.make();
 
+        // the rank sum tests share a single pass over the reads
+        final List<RankSumTest> rankSumTests = new ArrayList<>();
+        for ( final InfoFieldAnnotation annotationType : this.infoAnnotations) {
+            if (batchedRankSumTests.contains(annotationType) && addAnnot.test(annotationType)) {
+                rankSumTests.add((RankSumTest) annotationType);
+            }
+        }
+        final Map<InfoFieldAnnotation, Map<String, Object>> rankSumAnnotations = new IdentityHashMap<>();
+        if (rankSumTests.size() > 1) {
+            final List<Map<String, Object>> annotations = RankSumTest.annotateAll(rankSumTests, newGenotypeAnnotatedVC, likelihoods);
+            for (int i = 0; i < rankSumTests.size(); i++) {
+                rankSumAnnotations.put(rankSumTests.get(i), annotations.get(i));
+            }
+        }
+
         final Map<String, Object> infoAnnotMap = new LinkedHashMap<>(newGenotypeAnnotatedVC.getAttributes());
         for ( final InfoFieldAnnotation annotationType : this.infoAnnotations) {
             if (addAnnot.test(annotationType)){
-                final Map<String, Object> annotationsFromCurrentType = annotationType.annotate(ref, newGenotypeAnnotatedVC, likelihoods);
+                final Map<String, Object> annotationsFromCurrentType = rankSumAnnotations.containsKey(annotationType) ?
+                        rankSumAnnotations.get(annotationType) : annotationType.annotate(ref, newGenotypeAnnotatedVC, likelihoods);
                 if ( annotationsFromCurrentType != null ) {
                     infoAnnotMap.putAll(annotationsFromCurrentType);
                 }
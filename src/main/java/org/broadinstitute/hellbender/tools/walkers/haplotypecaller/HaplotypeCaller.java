@@ -16,6 +16,7 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.variant.writers.GVCFRecordSink;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -158,6 +159,9 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
 
     private VariantContextWriter vcfWriter;
 
+    // the vcfWriter, through which a GVCF writer receives the reference confidence of each position as primitive values
+    private GVCFRecordSink vcfSink;
+
     private HaplotypeCallerEngine hcEngine;
 
     @Override
@@ -206,6 +210,7 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
         final SAMSequenceDictionary sequenceDictionary = getHeaderForReads().getSequenceDictionary();
         vcfWriter = hcEngine.makeVCFWriter(outputVCF, sequenceDictionary, createOutputVariantIndex, createOutputVariantMD5);
         hcEngine.writeHeader(vcfWriter, sequenceDictionary, getDefaultToolVCFHeaderLines());
+        vcfSink = vcfWriter instanceof GVCFRecordSink ? (GVCFRecordSink) vcfWriter : vcfWriter::add;
     }
 
     private static CachingIndexedFastaSequenceFile getReferenceReader(ReferenceInputArgumentCollection referenceArguments) {
@@ -221,7 +226,7 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
 
     @Override
     public void apply(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext ) {
-        hcEngine.callRegion(region, featureContext).forEach(vcfWriter::add);
+        hcEngine.callRegion(region, featureContext, vcfSink);
     }
 
     @Override
@@ -77,6 +77,17 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
     @Argument(fullName = "indelSizeToEliminateInRefModel", shortName = "ERCIS", doc = "The size of an indel to check for in the reference model", optional = true)
     public int indelSizeToEliminateInRefModel = 10;
 
+    /**
+     * When determining active regions, HC first counts the reads at each locus that show evidence of variation
+     * (mismatching bases above the minimum base quality, deletions, or bases adjacent to an indel or soft-clip).
+     * Loci with fewer such reads than this are considered inactive without evaluating the genotyping model, which
+     * avoids most of the cost of active region determination at reference-matching loci. With the default of 1, only
+     * loci with no evidence at all are skipped, which does not change the result; 0 evaluates the model at every locus.
+     */
+    @Advanced
+    @Argument(fullName = "minEvidenceForActivityModel", shortName = "minActivityEvidence", doc = "Minimum number of reads showing evidence of variation at a locus for the active region model to be evaluated there", optional = true, minValue = 0)
+    public int minEvidenceForActivityModel = 1;
+
 
     @Advanced
     @Argument(fullName = "useAllelesTrigger", shortName = "allelesTrigger", doc = "Use additional trigger on variants found in an external alleles file", optional = true)
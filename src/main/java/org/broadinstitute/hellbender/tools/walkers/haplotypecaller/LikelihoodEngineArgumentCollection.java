@@ -37,6 +37,25 @@ public final class LikelihoodEngineArgumentCollection implements Serializable {
     @Argument(fullName = "pair_hmm_implementation", shortName = "pairHMM", doc = "The PairHMM implementation to use for genotype likelihood calculations", optional = true)
     public PairHMM.Implementation pairHMM = PairHMM.Implementation.FASTEST_AVAILABLE;
 
+    /**
+     * Compute the likelihoods of each read against the haplotypes in the order of their prefix tree, so that the part of
+     * the PairHMM computation for the bases a haplotype shares with the previous one is reused rather than repeated.
+     * The likelihoods are unchanged. Only the Java implementations (LOGLESS_CACHING, ORIGINAL and EXACT) support this.
+     */
+    @Advanced
+    @Argument(fullName = "pair_hmm_reuse_haplotype_prefixes", shortName = "pairHMMReusePrefixes", doc = "Reuse the PairHMM computations for the prefixes shared by haplotypes (Java PairHMM implementations only)", optional = true)
+    public boolean reuseHaplotypePrefixes = false;
+
+    /**
+     * Run the PairHMM only once for the reads of a sample in an active region that have identical bases, base qualities,
+     * insertion and deletion qualities (after the PCR error model and quality capping are applied), and give them all
+     * the same likelihoods. This greatly speeds up the likelihood calculation for duplicate-heavy data, such as amplicon
+     * panels sequenced to very high depth. The likelihoods are unchanged.
+     */
+    @Advanced
+    @Argument(fullName = "pair_hmm_deduplicate_reads", shortName = "pairHMMDeduplicateReads", doc = "Compute the PairHMM likelihoods only once for reads with identical bases and qualities", optional = true)
+    public boolean deduplicateReads = false;
+
     /**
      * When calculating the likelihood of variants, we can try to correct for PCR errors that cause indel artifacts.
      * The correction is based on the reference context, and acts specifically around repetitive sequences that tend
@@ -74,6 +74,12 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
     
     private final byte baseQualityScoreThreshold;
 
+    private final boolean deduplicateReads;
+
+    // statistics of read deduplication: the number of reads, and the number of them whose likelihoods were computed
+    private long readsSeenForDeduplication = 0;
+    private long readsComputedAfterDeduplication = 0;
+
     /**
      * The expected rate of random sequencing errors for a read originating from its true haplotype.
      *
@@ -127,6 +133,39 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
                                               final double log10globalReadMismappingRate,
                                               final PCRErrorModel pcrErrorModel,
                                               final byte baseQualityScoreThreshold) {
+        this( constantGCP, arguments, hmmType, log10globalReadMismappingRate, pcrErrorModel, baseQualityScoreThreshold, false, false );
+    }
+
+    /**
+     * Create a new PairHMMLikelihoodCalculationEngine using provided parameters and hmm to do its calculations
+     *
+     * @param constantGCP the gap continuation penalty to use with the PairHMM
+     * @param hmmType the type of the HMM to use
+     * @param log10globalReadMismappingRate the global mismapping probability, in log10(prob) units.  A value of
+     *                                      -3 means that the chance that a read doesn't actually belong at this
+     *                                      location in the genome is 1 in 1000.  The effect of this parameter is
+     *                                      to cap the maximum likelihood difference between the reference haplotype
+     *                                      and the best alternative haplotype by -3 log units.  So if the best
+     *                                      haplotype is at -10 and this parameter has a value of -3 then even if the
+     *                                      reference haplotype gets a score of -100 from the pairhmm it will be
+     *                                      assigned a likelihood of -13.
+     * @param pcrErrorModel model to correct for PCR indel artifacts
+     * @param baseQualityScoreThreshold Base qualities below this threshold will be reduced to the minimum usable base
+     *                                  quality.
+     * @param reuseHaplotypePrefixes whether the PairHMM should reuse the computations for the prefixes that haplotypes
+     *                               share (see {@link PairHMM#setReuseHaplotypePrefixes}).
+     * @param deduplicateReads whether to run the PairHMM once for all the reads of a sample that have the same PairHMM
+     *                         inputs (bases, base, insertion and deletion qualities and gap continuation penalties),
+     *                         and give them all the same likelihoods.
+     */
+    public PairHMMLikelihoodCalculationEngine(final byte constantGCP,
+                                              final PairHMMNativeArguments arguments,
+                                              final PairHMM.Implementation hmmType,
+                                              final double log10globalReadMismappingRate,
+                                              final PCRErrorModel pcrErrorModel,
+                                              final byte baseQualityScoreThreshold,
+                                              final boolean reuseHaplotypePrefixes,
+                                              final boolean deduplicateReads) {
         Utils.nonNull(hmmType, "hmmType is null");
         Utils.nonNull(pcrErrorModel, "pcrErrorModel is null");
         if (constantGCP < 0){
@@ -139,6 +178,8 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         this.log10globalReadMismappingRate = log10globalReadMismappingRate;
         this.pcrErrorModel = pcrErrorModel;
         this.pairHMM = hmmType.makeNewHMM(arguments);
+        this.pairHMM.setReuseHaplotypePrefixes(reuseHaplotypePrefixes);
+        this.deduplicateReads = deduplicateReads;
 
         initializePCRErrorModel();
 
@@ -163,6 +204,11 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         if ( likelihoodsStream != null ) {
             likelihoodsStream.close();
         }
+        if ( deduplicateReads && readsSeenForDeduplication > 0 ) {
+            logger.info(String.format("PairHMM read deduplication: computed likelihoods for %d of %d reads (%.2f%% reused)",
+                    readsComputedAfterDeduplication, readsSeenForDeduplication,
+                    100.0 * (readsSeenForDeduplication - readsComputedAfterDeduplication) / readsSeenForDeduplication));
+        }
         pairHMM.close();
     }
 
@@ -250,11 +296,172 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         final Map<GATKRead, byte[]> gapContinuationPenalties = buildGapContinuationPenalties(processedReads, constantGCP);
 
         // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype
-        pairHMM.computeLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
+        if (deduplicateReads) {
+            computeDeduplicatedLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
+        } else {
+            pairHMM.computeLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
+        }
 
         writeDebugLikelihoods(likelihoods);
     }
 
+    /**
+     * Runs the PairHMM only for the first of the reads that have the same PairHMM inputs, and copies its likelihoods
+     * to the others.
+     */
+    private void computeDeduplicatedLog10Likelihoods(final LikelihoodMatrix<Haplotype> likelihoods,
+                                                     final List<GATKRead> processedReads,
+                                                     final Map<GATKRead, byte[]> gapContinuationPenalties) {
+        final int readCount = processedReads.size();
+        // representative[r] is the index of the first read with the same inputs as read r
+        final int[] representative = new int[readCount];
+        final Map<PairHMMInputs, Integer> firstReadByInputs = new HashMap<>(readCount);
+        final List<GATKRead> uniqueReads = new ArrayList<>();
+        final List<Integer> uniqueReadIndices = new ArrayList<>();
+        for (int r = 0; r < readCount; r++) {
+            final GATKRead read = processedReads.get(r);
+            final Integer first = firstReadByInputs.putIfAbsent(new PairHMMInputs(read, gapContinuationPenalties.get(read)), r);
+            representative[r] = first == null ? r : first;
+            if (first == null) {
+                uniqueReads.add(read);
+                uniqueReadIndices.add(r);
+            }
+        }
+        readsSeenForDeduplication += readCount;
+        readsComputedAfterDeduplication += uniqueReads.size();
+
+        if (uniqueReads.size() == readCount) {
+            pairHMM.computeLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
+            return;
+        }
+        pairHMM.computeLog10Likelihoods(new SubsetReadsLikelihoodMatrix(likelihoods, uniqueReads, uniqueReadIndices), uniqueReads, gapContinuationPenalties);
+        final int alleleCount = likelihoods.numberOfAlleles();
+        for (int r = 0; r < readCount; r++) {
+            if (representative[r] != r) {
+                for (int a = 0; a < alleleCount; a++) {
+                    likelihoods.set(a, r, likelihoods.get(a, representative[r]));
+                }
+            }
+        }
+    }
+
+    /**
+     * The inputs of the PairHMM for a (processed) read, as a hash key.
+     */
+    private static final class PairHMMInputs {
+        private final byte[] bases;
+        private final byte[] quals;
+        private final byte[] insertionQuals;
+        private final byte[] deletionQuals;
+        private final byte[] gapContinuationPenalties;
+        private final int hashCode;
+
+        PairHMMInputs(final GATKRead read, final byte[] gapContinuationPenalties) {
+            this.bases = read.getBases();
+            this.quals = read.getBaseQualities();
+            this.insertionQuals = ReadUtils.getBaseInsertionQualities(read);
+            this.deletionQuals = ReadUtils.getBaseDeletionQualities(read);
+            this.gapContinuationPenalties = gapContinuationPenalties;
+            int hash = Arrays.hashCode(bases);
+            hash = 31 * hash + Arrays.hashCode(quals);
+            hash = 31 * hash + Arrays.hashCode(insertionQuals);
+            hash = 31 * hash + Arrays.hashCode(deletionQuals);
+            this.hashCode = 31 * hash + Arrays.hashCode(gapContinuationPenalties);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PairHMMInputs)) {
+                return false;
+            }
+            final PairHMMInputs other = (PairHMMInputs) o;
+            return hashCode == other.hashCode && Arrays.equals(bases, other.bases) && Arrays.equals(quals, other.quals)
+                    && Arrays.equals(insertionQuals, other.insertionQuals) && Arrays.equals(deletionQuals, other.deletionQuals)
+                    && Arrays.equals(gapContinuationPenalties, other.gapContinuationPenalties);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * A view of the likelihoods of a subset of the reads of a likelihood matrix, where read i of the view is read
+     * readIndices.get(i) of the matrix.
+     */
+    private static final class SubsetReadsLikelihoodMatrix implements LikelihoodMatrix<Haplotype> {
+        private final LikelihoodMatrix<Haplotype> matrix;
+        private final List<GATKRead> reads;
+        private final List<Integer> readIndices;
+
+        SubsetReadsLikelihoodMatrix(final LikelihoodMatrix<Haplotype> matrix, final List<GATKRead> reads, final List<Integer> readIndices) {
+            this.matrix = matrix;
+            this.reads = Collections.unmodifiableList(reads);
+            this.readIndices = readIndices;
+        }
+
+        @Override
+        public List<GATKRead> reads() {
+            return reads;
+        }
+
+        @Override
+        public List<Haplotype> alleles() {
+            return matrix.alleles();
+        }
+
+        @Override
+        public void set(final int alleleIndex, final int readIndex, final double value) {
+            matrix.set(alleleIndex, readIndices.get(readIndex), value);
+        }
+
+        @Override
+        public double get(final int alleleIndex, final int readIndex) {
+            return matrix.get(alleleIndex, readIndices.get(readIndex));
+        }
+
+        @Override
+        public int indexOfAllele(final Haplotype allele) {
+            return matrix.indexOfAllele(allele);
+        }
+
+        @Override
+        public int indexOfRead(final GATKRead read) {
+            return reads.indexOf(read);
+        }
+
+        @Override
+        public int numberOfAlleles() {
+            return matrix.numberOfAlleles();
+        }
+
+        @Override
+        public int numberOfReads() {
+            return reads.size();
+        }
+
+        @Override
+        public Haplotype getAllele(final int alleleIndex) {
+            return matrix.getAllele(alleleIndex);
+        }
+
+        @Override
+        public GATKRead getRead(final int readIndex) {
+            return reads.get(readIndex);
+        }
+
+        @Override
+        public void copyAlleleLikelihoods(final int alleleIndex, final double[] dest, final int offset) {
+            for (int i = 0; i < readIndices.size(); i++) {
+                dest[offset + i] = matrix.get(alleleIndex, readIndices.get(i));
+            }
+        }
+    }
+
     /**
      * Pre-processing of the reads to be evaluated at the current location from the current sample.
      * We apply the PCR Error Model, and cap the minimum base, insertion, and deletion qualities of each read.
@@ -20,12 +20,14 @@ import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
 import org.broadinstitute.hellbender.utils.genotyper.SampleList;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
+import org.broadinstitute.hellbender.utils.pileup.ColumnarPileup;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.broadinstitute.hellbender.utils.variant.writers.GVCFRecordSink;
 
 import java.util.*;
 
@@ -147,6 +149,25 @@ public final class ReferenceConfidenceModel {
                                                        final ReadLikelihoods<Haplotype> readLikelihoods,
                                                        final PloidyModel ploidyModel,
                                                        final List<VariantContext> variantCalls) {
+        final List<VariantContext> results = new ArrayList<>();
+        calculateRefConfidence(refHaplotype, calledHaplotypes, paddedReferenceLoc, activeRegion, readLikelihoods, ploidyModel, variantCalls, results::add);
+        return results;
+    }
+
+    /**
+     * As {@link #calculateRefConfidence(Haplotype, Collection, SimpleInterval, AssemblyRegion, ReadLikelihoods, PloidyModel, List)},
+     * but passes the results to a sink in order rather than returning them, with the reference confidence of each
+     * position given as primitive values through {@link GVCFRecordSink#addHomRefSite}.
+     */
+    public void calculateRefConfidence(final Haplotype refHaplotype,
+                                       final Collection<Haplotype> calledHaplotypes,
+                                       final SimpleInterval paddedReferenceLoc,
+                                       final AssemblyRegion activeRegion,
+                                       final ReadLikelihoods<Haplotype> readLikelihoods,
+                                       final PloidyModel ploidyModel,
+                                       final List<VariantContext> variantCalls,
+                                       final GVCFRecordSink sink) {
+        Utils.nonNull(sink, "sink cannot be null");
         Utils.nonNull(refHaplotype, "refHaplotype cannot be null");
         Utils.nonNull(calledHaplotypes, "calledHaplotypes cannot be null");
         Utils.validateArg(calledHaplotypes.contains(refHaplotype), "calledHaplotypes must contain the refHaplotype");
@@ -161,7 +182,6 @@ public final class ReferenceConfidenceModel {
         final SimpleInterval refSpan = activeRegion.getSpan();
         final List<ReadPileup> refPileups = getPileupsOverReference(refHaplotype, calledHaplotypes, paddedReferenceLoc, activeRegion, refSpan, readLikelihoods);
         final byte[] ref = refHaplotype.getBases();
-        final List<VariantContext> results = new ArrayList<>(refSpan.size());
         final String sampleName = readLikelihoods.getSample(0);
 
         final int globalRefOffset = refSpan.getStart() - activeRegion.getExtendedSpan().getStart();
@@ -171,34 +191,28 @@ public final class ReferenceConfidenceModel {
 
             final VariantContext overlappingSite = getOverlappingVariantContext(curPos, variantCalls);
             if ( overlappingSite != null && overlappingSite.getStart() == curPos.getStart() ) {
-                results.add(overlappingSite);
+                sink.add(overlappingSite);
             } else {
-                // otherwise emit a reference confidence variant context
-                results.add(makeReferenceConfidenceVariantContext(ploidy, ref, sampleName, globalRefOffset, pileup, curPos, offset));
+                // otherwise emit a reference confidence record
+                addReferenceConfidence(ploidy, ref, sampleName, globalRefOffset, pileup, curPos, offset, sink);
             }
         }
-
-        return results;
     }
 
-    private VariantContext makeReferenceConfidenceVariantContext(final int ploidy,
-                                                                 final byte[] ref,
-                                                                 final String sampleName,
-                                                                 final int globalRefOffset,
-                                                                 final ReadPileup pileup,
-                                                                 final Locatable curPos,
-                                                                 final int offset) {
+    private void addReferenceConfidence(final int ploidy,
+                                        final byte[] ref,
+                                        final String sampleName,
+                                        final int globalRefOffset,
+                                        final ReadPileup pileup,
+                                        final Locatable curPos,
+                                        final int offset,
+                                        final GVCFRecordSink sink) {
         // Assume infinite population on a single sample.
         final int refOffset = offset + globalRefOffset;
         final byte refBase = ref[refOffset];
         final RefVsAnyResult homRefCalc = calcGenotypeLikelihoodsOfRefVsAny(ploidy, pileup, refBase, BASE_QUAL_THRESHOLD, null);
 
         final Allele refAllele = Allele.create(refBase, true);
-        final List<Allele> refSiteAlleles = Arrays.asList(refAllele, Allele.NON_REF_ALLELE);
-        final VariantContextBuilder vcb = new VariantContextBuilder("HC", curPos.getContig(), curPos.getStart(), curPos.getStart(), refSiteAlleles);
-        final GenotypeBuilder gb = new GenotypeBuilder(sampleName, GATKVariantContextUtils.homozygousAlleleList(refAllele, ploidy));
-        gb.AD(homRefCalc.getAD());
-        gb.DP(homRefCalc.getDP());
 
         // genotype likelihood calculation
         final GenotypeLikelihoods snpGLs = GenotypeLikelihoods.fromLog10Likelihoods(homRefCalc.getGenotypeLikelihoodsCappedByHomRefLikelihood());
@@ -214,11 +228,8 @@ public final class ReferenceConfidenceModel {
         final GenotypeLikelihoods leastConfidenceGLs = getGLwithWorstGQ(indelGLs, snpGLs);
 
         final int[] leastConfidenceGLsAsPLs = leastConfidenceGLs.getAsPLs();
-        gb.GQ(GATKVariantContextUtils.calculateGQFromPLs(leastConfidenceGLsAsPLs));
-        gb.PL(leastConfidenceGLsAsPLs);
-
-        vcb.genotypes(gb.make());
-        return vcb.make();
+        sink.addHomRefSite(sampleName, curPos.getContig(), curPos.getStart(), refAllele, ploidy, homRefCalc.getAD(), homRefCalc.getDP(),
+                GATKVariantContextUtils.calculateGQFromPLs(leastConfidenceGLsAsPLs), leastConfidenceGLsAsPLs);
     }
 
     /**
@@ -321,9 +332,65 @@ public final class ReferenceConfidenceModel {
         return result;
     }
 
-    private void applyPileupElementRefVsNonRefLikelihoodAndCount(final byte refBase, final int likelihoodCount, final double log10Ploidy, final RefVsAnyResult result, final PileupElement element, final byte qual, final MathUtils.RunningAverage hqSoftClips) {
-        final boolean isAlt = element.getBase() != refBase || element.isDeletion() || element.isBeforeDeletionStart()
+    /**
+     * Counts the elements of a pileup that {@link #calcGenotypeLikelihoodsOfRefVsAny} would count as evidence for a
+     * non-reference allele: deletions, and bases above {@code minBaseQual} that mismatch the reference or are adjacent
+     * to an indel or soft-clip.  Counting stops once {@code maxCount} elements have been found.
+     *
+     * If there is no such evidence, every genotype likelihood computed by {@link #calcGenotypeLikelihoodsOfRefVsAny}
+     * favors the reference, so callers can use this as a cheap, allocation-free screen before computing likelihoods.
+     *
+     * @param pileup the pileup to screen
+     * @param refBase the reference base at the pileup position
+     * @param minBaseQual bases with quality less than or equal to this are ignored
+     * @param maxCount the number of evidence elements after which counting stops
+     * @return the number of evidence elements, at most {@code maxCount}
+     */
+    public static int countNonRefEvidence(final ReadPileup pileup, final byte refBase, final byte minBaseQual, final int maxCount) {
+        Utils.nonNull(pileup);
+        int count = 0;
+        for (final PileupElement p : pileup) {
+            if (count >= maxCount) {
+                break;
+            }
+            if (p.isDeletion() || (p.getQual() > minBaseQual && isNonRefEvidence(refBase, p))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // the columnar flags of the pileup elements that are non-reference evidence regardless of their base
+    private static final int NON_REF_EVIDENCE_FLAGS = ColumnarPileup.DELETION | ColumnarPileup.BEFORE_DELETION_START |
+            ColumnarPileup.AFTER_DELETION_END | ColumnarPileup.BEFORE_INSERTION | ColumnarPileup.AFTER_INSERTION |
+            ColumnarPileup.BEFORE_SOFT_CLIP | ColumnarPileup.AFTER_SOFT_CLIP;
+
+    /**
+     * Columnar version of {@link #countNonRefEvidence(ReadPileup, byte, byte, int)}, which reads only the primitive
+     * columns of the pileup.
+     */
+    public static int countNonRefEvidence(final ColumnarPileup pileup, final byte refBase, final byte minBaseQual, final int maxCount) {
+        Utils.nonNull(pileup);
+        final byte[] bases = pileup.getBases();
+        final byte[] quals = pileup.getQuals();
+        final byte[] flags = pileup.getFlags();
+        int count = 0;
+        for (int i = 0; i < pileup.size() && count < maxCount; i++) {
+            if ((flags[i] & ColumnarPileup.DELETION) != 0 ||
+                    (quals[i] > minBaseQual && (bases[i] != refBase || (flags[i] & NON_REF_EVIDENCE_FLAGS) != 0))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isNonRefEvidence(final byte refBase, final PileupElement element) {
+        return element.getBase() != refBase || element.isDeletion() || element.isBeforeDeletionStart()
                 || element.isAfterDeletionEnd() || element.isBeforeInsertion() || element.isAfterInsertion() || element.isNextToSoftClip();
+    }
+
+    private void applyPileupElementRefVsNonRefLikelihoodAndCount(final byte refBase, final int likelihoodCount, final double log10Ploidy, final RefVsAnyResult result, final PileupElement element, final byte qual, final MathUtils.RunningAverage hqSoftClips) {
+        final boolean isAlt = isNonRefEvidence(refBase, element);
         final double referenceLikelihood;
         final double nonRefLikelihood;
         if (isAlt) {
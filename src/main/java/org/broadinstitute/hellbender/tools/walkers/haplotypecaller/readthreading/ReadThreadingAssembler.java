@@ -387,9 +387,13 @@ public final class ReadThreadingAssembler {
     List<AssemblyResult> assemble(final List<GATKRead> reads, final Haplotype refHaplotype, final List<Haplotype> givenHaplotypes, final SAMFileHeader header, final SmithWatermanAligner aligner) {
         final List<AssemblyResult> results = new LinkedList<>();
 
+        // split the reads into the sequences to thread once, rather than for each kmer size
+        final Map<String, List<ReadThreadingGraph.SequenceForKmers>> readSequences =
+                ReadThreadingGraph.splitReadsIntoSequences(reads, header, MIN_BASE_QUALITY_TO_USE_IN_ASSEMBLY);
+
         // first, try using the requested kmer sizes
         for ( final int kmerSize : kmerSizes ) {
-            addResult(results, createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner));
+            addResult(results, createGraph(readSequences, refHaplotype, kmerSize, givenHaplotypes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, aligner));
         }
 
         // if none of those worked, iterate over larger sizes if allowed to do so
@@ -399,7 +403,7 @@ public final class ReadThreadingAssembler {
             while ( results.isEmpty() && numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT ) {
                 // on the last attempt we will allow low complexity graphs
                 final boolean lastAttempt = numIterations == MAX_KMER_ITERATIONS_TO_ATTEMPT;
-                addResult(results, createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, lastAttempt, lastAttempt, header, aligner));
+                addResult(results, createGraph(readSequences, refHaplotype, kmerSize, givenHaplotypes, lastAttempt, lastAttempt, aligner));
                 kmerSize += KMER_SIZE_ITERATION_INCREASE;
                 numIterations++;
             }
@@ -416,7 +420,7 @@ public final class ReadThreadingAssembler {
      * Creates the sequence graph for the given kmerSize
      *
      * @param aligner
-     * @param reads            reads to use
+     * @param readSequences    the sequences of the reads to use, by sample (see {@link ReadThreadingGraph#splitReadsIntoSequences})
      * @param refHaplotype     reference haplotype
      * @param kmerSize         kmer size
      * @param activeAlleleHaplotypes the GGA haplotypes to inject into the graph
@@ -424,13 +428,12 @@ public final class ReadThreadingAssembler {
      * @param allowNonUniqueKmersInRef if true, do not fail if the reference has non-unique kmers
      * @return sequence graph or null if one could not be created (e.g. because it contains cycles or too many paths or is low complexity)
      */
-    private AssemblyResult createGraph(final Iterable<GATKRead> reads,
+    private AssemblyResult createGraph(final Map<String, List<ReadThreadingGraph.SequenceForKmers>> readSequences,
                                        final Haplotype refHaplotype,
                                        final int kmerSize,
                                        final Iterable<Haplotype> activeAlleleHaplotypes,
                                        final boolean allowLowComplexityGraphs,
                                        final boolean allowNonUniqueKmersInRef,
-                                       final SAMFileHeader header,
                                        final SmithWatermanAligner aligner) {
         if ( refHaplotype.length() < kmerSize ) {
             // happens in cases where the assembled region is just too small
@@ -458,9 +461,7 @@ public final class ReadThreadingAssembler {
         }
 
         // Next pull kmers out of every read and throw them on the graph
-        for( final GATKRead read : reads ) {
-            rtgraph.addRead(read, header);
-        }
+        rtgraph.addSequences(readSequences);
 
         // actually build the read threading graph
         rtgraph.buildGraphIfNecessary();
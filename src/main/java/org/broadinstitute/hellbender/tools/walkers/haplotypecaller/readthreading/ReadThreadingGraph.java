@@ -201,6 +201,10 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      */
     private void addSequence(final String seqName, final String sampleName, final byte[] sequence, final int start, final int stop, final int count, final boolean isRef) {
         // note that argument testing is taken care of in SequenceForKmers
+        addSequence(sampleName, new SequenceForKmers(seqName, sequence, start, stop, count, isRef));
+    }
+
+    private void addSequence(final String sampleName, final SequenceForKmers sequenceForKmers) {
         if ( alreadyBuilt ) {
             throw new IllegalStateException("Graph already built");
         }
@@ -213,7 +217,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         // add the new sequence to the list of sequences for sample
-        sampleSequences.add(new SequenceForKmers(seqName, sequence, start, stop, count, isRef));
+        sampleSequences.add(sequenceForKmers);
     }
 
     /**
@@ -439,8 +443,14 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
 
     /**
      * Keeps track of the information needed to add a sequence to the read threading assembly graph
+     *
+     * A SequenceForKmers may be added to the graphs for several kmer sizes (see {@link #splitReadsIntoSequences}), so it
+     * also caches the hashes of its prefixes and the smallest kmer size for which its kmers are known to be unique.
      */
     static final class SequenceForKmers {
+        // multiplier of the polynomial rolling hash of the kmers
+        private static final long HASH_BASE = 0x9E3779B97F4A7C15L;
+
         final String name;
         final byte[] sequence;
         final int start;
@@ -448,6 +458,11 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         final int count;
         final boolean isRef;
 
+        // prefixHashes[i] is the hash of sequence[0, i), computed on first use
+        private long[] prefixHashes;
+        // if a sequence has no repeated kmers of some size, it has none of any larger size either
+        private int smallestKmerSizeWithUniqueKmers = Integer.MAX_VALUE;
+
         /**
          * Create a new sequence for creating kmers
          */
@@ -464,6 +479,46 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
             this.count = count;
             isRef = ref;
         }
+
+        /**
+         * @return true if the kmers of the given size of sequence[0, stop) are known to be distinct, false if they may not be
+         */
+        private boolean hasUniqueKmers(final int kmerSize) {
+            if ( kmerSize >= smallestKmerSizeWithUniqueKmers ) {
+                return true;
+            }
+            final int numberOfKmers = stop - kmerSize + 1;
+            if ( numberOfKmers <= 1 ) {
+                return numberOfKmers == 1 && recordUniqueKmers(kmerSize);
+            }
+            if ( prefixHashes == null ) {
+                prefixHashes = new long[stop + 1];
+                for ( int i = 0; i < stop; i++ ) {
+                    prefixHashes[i + 1] = prefixHashes[i] * HASH_BASE + sequence[i];
+                }
+            }
+            long power = 1;
+            for ( int i = 0; i < kmerSize; i++ ) {
+                power *= HASH_BASE;
+            }
+            final long[] kmerHashes = new long[numberOfKmers];
+            for ( int i = 0; i < numberOfKmers; i++ ) {
+                kmerHashes[i] = prefixHashes[i + kmerSize] - prefixHashes[i] * power;
+            }
+            // distinct hashes imply distinct kmers; equal hashes may be a collision, so the caller has to check the kmers
+            Arrays.sort(kmerHashes);
+            for ( int i = 1; i < numberOfKmers; i++ ) {
+                if ( kmerHashes[i] == kmerHashes[i - 1] ) {
+                    return false;
+                }
+            }
+            return recordUniqueKmers(kmerSize);
+        }
+
+        private boolean recordUniqueKmers(final int kmerSize) {
+            smallestKmerSizeWithUniqueKmers = Math.min(smallestKmerSizeWithUniqueKmers, kmerSize);
+            return true;
+        }
     }
 
     /**
@@ -1016,6 +1071,10 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @return a non-null collection of non-unique kmers in sequence
      */
     static Collection<Kmer> determineNonUniqueKmers(final SequenceForKmers seqForKmers, final int kmerSize) {
+        if ( seqForKmers.hasUniqueKmers(kmerSize) ) {
+            return Collections.emptyList();
+        }
+
         // count up occurrences of kmers within each read
         final Set<Kmer> allKmers = new LinkedHashSet<>();
         final List<Kmer> nonUniqueKmers = new ArrayList<>();
@@ -1154,21 +1213,66 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      */
     @VisibleForTesting
     void addRead(final GATKRead read, final SAMFileHeader header) {
+        final String sampleName = ReadUtils.getSampleName(read, header);
+        for ( final SequenceForKmers sequenceForKmers : splitReadIntoSequences(read, minBaseQualityToUseInAssembly, kmerSize) ) {
+            addSequence(sampleName, sequenceForKmers);
+        }
+    }
+
+    /**
+     * Splits reads into the sequences that {@link #addRead} adds to a graph: the maximal runs of bases with sufficient
+     * quality, grouped by the samples of the reads. This can be done once for all the graphs of an assembly, which then
+     * take the sequences that are at least as long as their kmer size with {@link #addSequences}.
+     *
+     * @param reads the reads
+     * @param header the header of the reads, used to find their samples
+     * @param minBaseQualityToUseInAssembly the minimum quality of a base usable for assembly
+     * @return a non-null map from sample name to sequences, in the order of the reads
+     */
+    static Map<String, List<SequenceForKmers>> splitReadsIntoSequences(final Iterable<GATKRead> reads, final SAMFileHeader header, final byte minBaseQualityToUseInAssembly) {
+        final Map<String, List<SequenceForKmers>> result = new LinkedHashMap<>();
+        for ( final GATKRead read : reads ) {
+            final List<SequenceForKmers> sequences = splitReadIntoSequences(read, minBaseQualityToUseInAssembly, 1);
+            if ( ! sequences.isEmpty() ) {
+                result.computeIfAbsent(ReadUtils.getSampleName(read, header), sample -> new ArrayList<>()).addAll(sequences);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Add the sequences from {@link #splitReadsIntoSequences} that are at least as long as the kmer size of this graph
+     *
+     * @param sequencesBySample a non-null map from sample name to sequences
+     */
+    void addSequences(final Map<String, List<SequenceForKmers>> sequencesBySample) {
+        Utils.nonNull(sequencesBySample);
+        for ( final Map.Entry<String, List<SequenceForKmers>> entry : sequencesBySample.entrySet() ) {
+            for ( final SequenceForKmers sequenceForKmers : entry.getValue() ) {
+                if ( sequenceForKmers.stop - sequenceForKmers.start >= kmerSize ) {
+                    addSequence(entry.getKey(), sequenceForKmers);
+                }
+            }
+        }
+    }
+
+    private static List<SequenceForKmers> splitReadIntoSequences(final GATKRead read, final byte minBaseQualityToUseInAssembly, final int minLength) {
         final byte[] sequence = read.getBases();
         final byte[] qualities = read.getBaseQualities();
+        final List<SequenceForKmers> result = new ArrayList<>(1);
 
         int lastGood = -1;
         for( int end = 0; end <= sequence.length; end++ ) {
-            if ( end == sequence.length || ! baseIsUsableForAssembly(sequence[end], qualities[end]) ) {
+            if ( end == sequence.length || ! baseIsUsableForAssembly(sequence[end], qualities[end], minBaseQualityToUseInAssembly) ) {
                 // the first good base is at lastGood, can be -1 if last base was bad
                 final int start = lastGood;
                 // the stop base is end - 1 (if we're not at the end of the sequence)
                 final int len = end - start;
 
-                if ( start != -1 && len >= kmerSize ) {
+                if ( start != -1 && len >= minLength ) {
                     // if the sequence is long enough to get some value out of, add it to the graph
                     final String name = read.getName() + '_' + start + '_' + end;
-                    addSequence(name, ReadUtils.getSampleName(read, header), read.getBases(), start, end, 1, false);
+                    result.add(new SequenceForKmers(name, sequence, start, end, 1, false));
                 }
 
                 lastGood = -1; // reset the last good base
@@ -1176,6 +1280,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
                 lastGood = end; // we're at a good base, the last good one is us
             }
         }
+        return result;
     }
 
     /**
@@ -1184,9 +1289,10 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      *
      * @param base  the base under consideration
      * @param qual  the quality of that base
+     * @param minBaseQualityToUseInAssembly the minimum usable quality
      * @return true if the base can be used for assembly, false otherwise
      */
-    private boolean baseIsUsableForAssembly(final byte base, final byte qual) {
+    private static boolean baseIsUsableForAssembly(final byte base, final byte qual, final byte minBaseQualityToUseInAssembly) {
         return base != BaseUtils.Base.N.base && qual >= minBaseQualityToUseInAssembly;
     }
 
@@ -50,6 +50,15 @@ public class M2ArgumentCollection extends AssemblyBasedCallerArgumentCollection
     @Argument(fullName="germline-resource", doc="Population vcf of germline sequencing containing allele fractions.", optional = true)
     public FeatureInput<VariantContext> germlineResource;
 
+    /**
+     * Load the sites of the panel of normals and germline resource within the intervals (or all of them, if no
+     * intervals are given) into memory once, at the start, rather than decoding the records of those VCFs for
+     * every locus considered. This is much faster for large resources such as gnomAD, particularly on exomes, but
+     * needs memory in proportion to the number of sites in the intervals.
+     */
+    @Argument(fullName="index-resources-in-memory", doc="Load the panel of normals and germline resource sites into memory.", optional = true)
+    public boolean indexResourcesInMemory = false;
+
     /**
      * Population allele fraction assigned to alleles not found in germline resource.
      */
@@ -13,8 +13,11 @@ import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.VariantProgramGroup;
 import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.broadinstitute.hellbender.utils.GenomeLocParser;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.broadinstitute.hellbender.utils.variant.VariantSiteIndex;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -234,10 +237,31 @@ public final class Mutect2 extends AssemblyRegionWalker {
     public void onTraversalStart() {
         m2Engine = new Mutect2Engine(MTAC, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), referenceArguments.getReferenceFileName());
         final SAMSequenceDictionary sequenceDictionary = getHeaderForReads().getSequenceDictionary();
+        if (MTAC.indexResourcesInMemory) {
+            m2Engine.setResourceIndices(indexResource(MTAC.pon, sequenceDictionary), indexResource(MTAC.germlineResource, sequenceDictionary));
+        }
         vcfWriter = createVCFWriter(outputVCF);
         m2Engine.writeHeader(vcfWriter, sequenceDictionary, getDefaultToolVCFHeaderLines());
     }
 
+    // the sites of a resource within the traversal intervals, padded as the assembly regions are
+    private VariantSiteIndex indexResource(final FeatureInput<VariantContext> resource, final SAMSequenceDictionary sequenceDictionary) {
+        if (resource == null) {
+            return null;
+        }
+        final List<SimpleInterval> intervals;
+        if (intervalArgumentCollection.intervalsSpecified()) {
+            final GenomeLocParser parser = new GenomeLocParser(sequenceDictionary);
+            intervals = IntervalUtils.convertGenomeLocsToSimpleIntervals(IntervalUtils.getIntervalsWithFlanks(parser,
+                    IntervalUtils.genomeLocsFromLocatables(parser, intervalArgumentCollection.getIntervals(sequenceDictionary)), assemblyRegionPadding));
+        } else {
+            intervals = null;
+        }
+        final VariantSiteIndex index = VariantSiteIndex.fromFeatureInput(resource, intervals);
+        logger.info(String.format("Loaded %d sites of %s into memory", index.size(), resource.getName()));
+        return index;
+    }
+
     @Override
     public Object onTraversalSuccess() {
         return "SUCCESS";
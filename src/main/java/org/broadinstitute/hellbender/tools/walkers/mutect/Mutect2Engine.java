@@ -34,6 +34,7 @@ import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
+import org.broadinstitute.hellbender.utils.variant.VariantSiteIndex;
 
 import java.util.*;
 
@@ -74,6 +75,10 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator {
 
     private AssemblyRegionTrimmer trimmer = new AssemblyRegionTrimmer();
 
+    // in-memory indices of the panel of normals and germline resource, used instead of the FeatureContext if not null
+    private VariantSiteIndex ponIndex;
+    private VariantSiteIndex germlineResourceIndex;
+
     private static ReadFilter GOOD_READ_LENGTH_FILTER = new ReadFilter() {
         private static final long serialVersionUID = 985763L;
         @Override
@@ -130,6 +135,19 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator {
         }
     }
 
+    /**
+     * Look up the panel of normals and germline resource in these in-memory indices, rather than in the FeatureContexts
+     * given to {@link #isActive} and {@link #callRegion}. The indices must cover all the loci traversed.
+     *
+     * @param ponIndex index of the panel of normals, or null to use the FeatureContext
+     * @param germlineResourceIndex index of the germline resource, or null to use the FeatureContext
+     */
+    public void setResourceIndices(final VariantSiteIndex ponIndex, final VariantSiteIndex germlineResourceIndex) {
+        this.ponIndex = ponIndex;
+        this.germlineResourceIndex = germlineResourceIndex;
+        genotypingEngine.setResourceIndices(ponIndex, germlineResourceIndex);
+    }
+
     /**
      * @return the default set of read filters for use with Mutect2
      */
@@ -310,19 +328,26 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator {
                 return new ActivityProfileState(refInterval, 0.0);
             }
         } else {
-            final List<VariantContext> germline = featureContext.getValues(MTAC.germlineResource, refInterval);
+            final List<VariantContext> germline = germlineResourceIndex != null ?
+                    germlineResourceIndex.getSitesOverlapping(refInterval.getContig(), refInterval.getStart()) : featureContext.getValues(MTAC.germlineResource, refInterval);
             if (!germline.isEmpty() && germline.get(0).getAttributeAsDoubleList(VCFConstants.ALLELE_FREQUENCY_KEY, 0.0).get(0) > MTAC.maxPopulationAlleleFrequency) {
                 return new ActivityProfileState(refInterval, 0.0);
             }
         }
 
-        if (!MTAC.genotypePonSites && !featureContext.getValues(MTAC.pon, new SimpleInterval(context.getContig(), (int) context.getPosition(), (int) context.getPosition())).isEmpty()) {
+        if (!MTAC.genotypePonSites && isPonSite(context, featureContext)) {
             return new ActivityProfileState(refInterval, 0.0);
         }
 
         return new ActivityProfileState( refInterval, 1.0, ActivityProfileState.Type.NONE, null);
     }
 
+    private boolean isPonSite(final AlignmentContext context, final FeatureContext featureContext) {
+        final int position = (int) context.getPosition();
+        return ponIndex != null ? ponIndex.overlaps(context.getContig(), position)
+                : !featureContext.getValues(MTAC.pon, new SimpleInterval(context.getContig(), position, position)).isEmpty();
+    }
+
     private static int getCurrentOrFollowingIndelLength(final PileupElement pe) {
         return pe.isDeletion() ? pe.getCurrentCigarElement().getLength() : pe.getLengthOfImmediatelyFollowingIndel();
     }
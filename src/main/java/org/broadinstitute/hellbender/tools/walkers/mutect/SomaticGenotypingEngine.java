@@ -25,6 +25,7 @@ import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
+import org.broadinstitute.hellbender.utils.variant.VariantSiteIndex;
 
 import java.util.*;
 import java.util.function.Supplier;
@@ -55,6 +56,10 @@ public class SomaticGenotypingEngine extends AssemblyBasedCallerGenotypingEngine
 
     private static final Logger logger = Logger.getLogger(SomaticGenotypingEngine.class);
 
+    // in-memory indices of the panel of normals and germline resource, used instead of the FeatureContext if not null
+    private VariantSiteIndex ponIndex;
+    private VariantSiteIndex germlineResourceIndex;
+
     @Override
     protected String callSourceString() {
         return "M2_call";
@@ -71,6 +76,17 @@ public class SomaticGenotypingEngine extends AssemblyBasedCallerGenotypingEngine
         hasNormal = matchedNormalSampleName != null;
     }
 
+    /**
+     * Look up the panel of normals and germline resource in these indices, rather than in the FeatureContext.
+     *
+     * @param ponIndex index of the panel of normals, or null to use the FeatureContext
+     * @param germlineResourceIndex index of the germline resource, or null to use the FeatureContext
+     */
+    public void setResourceIndices(final VariantSiteIndex ponIndex, final VariantSiteIndex germlineResourceIndex) {
+        this.ponIndex = ponIndex;
+        this.germlineResourceIndex = germlineResourceIndex;
+    }
+
     /**
      * Main entry point of class - given a particular set of haplotypes, samples and reference context, compute
      * genotype likelihoods and assemble into a list of variant contexts and genomic events ready for calling
@@ -138,7 +154,9 @@ public class SomaticGenotypingEngine extends AssemblyBasedCallerGenotypingEngine
             final Optional<LikelihoodMatrix<Allele>> subsettedLog10NormalMatrix =
                     getForNormal(() -> new SubsettedLikelihoodMatrix<>(log10NormalMatrix.get(), allSomaticAlleles));
 
-            final Map<String, Object> germlineAnnotations = GermlineProbabilityCalculator.calculateAnnotations(featureContext.getValues(MTAC.germlineResource, loc), somaticAltAlleles,
+            final List<VariantContext> germlineResourceVariants = germlineResourceIndex != null ?
+                    germlineResourceIndex.getSitesStartingAt(mergedVC.getContig(), loc) : featureContext.getValues(MTAC.germlineResource, loc);
+            final Map<String, Object> germlineAnnotations = GermlineProbabilityCalculator.calculateAnnotations(germlineResourceVariants, somaticAltAlleles,
                     tumorLog10Odds.asDoubleArray(somaticAltAlleles), normalLog10Odds.isPresent() ? Optional.of(normalLog10Odds.get().asDoubleArray(somaticAltAlleles)) : Optional.empty(), MTAC.afOfAllelesNotInGermlineResource, MTAC.log10PriorProbOfSomaticEvent);
 
             final VariantContextBuilder callVcb = new VariantContextBuilder(mergedVC)
@@ -149,7 +167,9 @@ public class SomaticGenotypingEngine extends AssemblyBasedCallerGenotypingEngine
             normalLog10Odds.ifPresent(values -> callVcb.attribute(GATKVCFConstants.NORMAL_LOD_KEY, values.asDoubleArray(somaticAltAlleles)));
             normalArtifactLog10Odds.ifPresent(values -> callVcb.attribute(GATKVCFConstants.NORMAL_ARTIFACT_LOD_ATTRIBUTE, values.asDoubleArray(somaticAltAlleles)));
 
-            if (!featureContext.getValues(MTAC.pon, mergedVC.getStart()).isEmpty()) {
+            final boolean inPon = ponIndex != null ? ponIndex.hasSiteStartingAt(mergedVC.getContig(), mergedVC.getStart())
+                    : !featureContext.getValues(MTAC.pon, mergedVC.getStart()).isEmpty();
+            if (inPon) {
                 callVcb.attribute(GATKVCFConstants.IN_PON_VCF_ATTRIBUTE, true);
             }
 
@@ -12,8 +12,9 @@ import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.exceptions.UserException;
-import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.pileup.ColumnarPileup;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -117,6 +118,14 @@ public final class Pileup extends LocusWalker {
         return false;
     }
 
+    /**
+     * The pileup lines are written straight from the columns of the pileup, so no pileup elements are created.
+     */
+    @Override
+    protected boolean useColumnarPileups() {
+        return true;
+    }
+
     @Override
     public List<ReadFilter> getDefaultReadFilters() {
         final List<ReadFilter> defaultFilters = super.getDefaultReadFilters();
@@ -137,11 +146,15 @@ public final class Pileup extends LocusWalker {
 
     @Override
     public void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext) {
+        apply(toColumnarPileup(alignmentContext.getBasePileup()), referenceContext, featureContext);
+    }
+
+    @Override
+    public void apply(ColumnarPileup basePileup, ReferenceContext referenceContext, FeatureContext featureContext) {
         final String features = getFeaturesString(featureContext);
-        final ReadPileup basePileup = alignmentContext.getBasePileup();
         final StringBuilder s = new StringBuilder();
         s.append(String.format("%s %s",
-                basePileup.getPileupString((hasReference()) ? (char) referenceContext.getBase() : 'N'),
+                getPileupString(basePileup, (hasReference()) ? (char) referenceContext.getBase() : 'N'),
                 features));
         if (outputInsertLength) {
             s.append(" ").append(insertLengthOutput(basePileup));
@@ -169,6 +182,25 @@ public final class Pileup extends LocusWalker {
         return featuresString;
     }
 
+    /**
+     * Format a pileup in a samtools-like string, as {@link ReadPileup#getPileupString(char)} does
+     * @param pileup the pileup to format
+     * @param ref the reference base
+     * @return pileup line
+     */
+    private static String getPileupString(final ColumnarPileup pileup, final char ref) {
+        final int size = pileup.size();
+        final byte[] quals = new byte[size];
+        for (int i = 0; i < size; i++) {
+            quals[i] = (byte) (33 + pileup.getQual(i));  //as per SAM spec
+        }
+        return String.format("%s %s %c %s %s",
+                pileup.getContig(), pileup.getStart(),
+                ref,
+                new String(pileup.getBases(), 0, size),
+                new String(quals));
+    }
+
     /**
      * Format the insert length for a pileup
      * @param pileup the pileup to format
@@ -176,9 +208,18 @@ public final class Pileup extends LocusWalker {
      */
     @VisibleForTesting
     static String insertLengthOutput(final ReadPileup pileup) {
-        return pileup.getReads().stream()
-                .map(r -> String.valueOf(r.getFragmentLength()))
-                .collect(Collectors.joining(","));
+        return insertLengthOutput(toColumnarPileup(pileup));
+    }
+
+    private static String insertLengthOutput(final ColumnarPileup pileup) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < pileup.size(); i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append(pileup.getRead(i).getFragmentLength());
+        }
+        return sb.toString();
     }
 
     /**
@@ -188,27 +229,42 @@ public final class Pileup extends LocusWalker {
      */
     @VisibleForTesting
     static String createVerboseOutput(final ReadPileup pileup) {
+        return createVerboseOutput(toColumnarPileup(pileup));
+    }
+
+    private static String createVerboseOutput(final ColumnarPileup pileup) {
         final StringBuilder sb = new StringBuilder();
-        boolean isFirst = true;
-        sb.append(pileup.getNumberOfElements(PileupElement::isDeletion));
+        int deletions = 0;
+        for (int i = 0; i < pileup.size(); i++) {
+            if (pileup.isDeletion(i)) {
+                deletions++;
+            }
+        }
+        sb.append(deletions);
         sb.append(" ");
-        for (final PileupElement p : pileup) {
-            if (isFirst) {
-                isFirst = false;
-            } else {
+        for (int i = 0; i < pileup.size(); i++) {
+            if (i > 0) {
                 sb.append(",");
             }
-            sb.append(p.getRead().getName());
+            final GATKRead read = pileup.getRead(i);
+            sb.append(read.getName());
             sb.append(VERBOSE_DELIMITER);
-            sb.append(p.getOffset());
+            sb.append(pileup.getOffset(i));
             sb.append(VERBOSE_DELIMITER);
-            sb.append(p.getRead().getLength());
+            sb.append(read.getLength());
             sb.append(VERBOSE_DELIMITER);
-            sb.append(p.getRead().getMappingQuality());
+            sb.append(read.getMappingQuality());
         }
         return sb.toString();
     }
 
+    private static ColumnarPileup toColumnarPileup(final ReadPileup readPileup) {
+        final ColumnarPileup pileup = new ColumnarPileup();
+        pileup.reset(readPileup.getLocation().getContig(), readPileup.getLocation().getStart());
+        readPileup.forEach(pileup::add);
+        return pileup;
+    }
+
     @Override
     public void closeTool() {
         if (out!=null) {
@@ -0,0 +1,189 @@
+package org.broadinstitute.hellbender.utils;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.argparser.ClassFinder;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A static index of the classes that are otherwise discovered at startup by scanning the classpath with
+ * {@link ClassFinder} (command line programs, codecs, annotations).
+ * <p>
+ * The index is generated at build time by running {@link #main(String[])} over the compiled classes (see the
+ * {@code generateClassIndex} task in build.gradle), and is packaged in the jar as {@link #INDEX_RESOURCE}. It records
+ * the result of {@link ClassFinder#find(String, Class)} for a fixed set of (package, base class) pairs, so that
+ * {@link #find(String, Class)} only has to load the classes it returns, rather than every class in the package.
+ * </p>
+ * <p>
+ * Lookups for pairs that are not in the index fall back to scanning, as do all lookups if the index is missing,
+ * stale, disabled with the {@link #DISABLE_INDEX_PROPERTY} system property, or was not loaded from a jar. The last case
+ * covers development classpaths, where classes (including test classes) can change without the index being regenerated.
+ * </p>
+ */
+public final class ClassIndex {
+    private static final Logger logger = LogManager.getLogger(ClassIndex.class);
+
+    /**
+     * Classpath location of the index generated at build time.
+     */
+    public static final String INDEX_RESOURCE = "org/broadinstitute/hellbender/utils/class-index.txt";
+
+    /**
+     * Set this system property to true to always scan the classpath.
+     */
+    public static final String DISABLE_INDEX_PROPERTY = "gatk.disableClassIndex";
+
+    // a line starting with this prefix introduces the classes found for a "base class, package" pair
+    private static final String ENTRY_PREFIX = "@";
+    private static final String COMMENT_PREFIX = "#";
+
+    // the class names found for each key (see key()), in the order in which they were indexed
+    private final Map<String, List<String>> classNamesByKey;
+
+    private static final class BuildTimeIndex {
+        private static final ClassIndex INSTANCE = loadBuildTimeIndex();
+    }
+
+    @VisibleForTesting
+    ClassIndex(final Map<String, List<String>> classNamesByKey) {
+        this.classNamesByKey = Utils.nonNull(classNamesByKey);
+    }
+
+    /**
+     * Finds the classes in a package (and its subpackages) that are assignable to a base class, as
+     * {@link ClassFinder#find(String, Class)} does, using the build-time index when it covers the lookup.
+     *
+     * @param packageName the package in which to look for classes
+     * @param baseClass the class to which the classes found must be assignable (which may be found itself)
+     * @return a new, modifiable set of the classes found
+     */
+    public static Set<Class<?>> find(final String packageName, final Class<?> baseClass) {
+        return BuildTimeIndex.INSTANCE.findClasses(packageName, baseClass);
+    }
+
+    @VisibleForTesting
+    Set<Class<?>> findClasses(final String packageName, final Class<?> baseClass) {
+        Utils.nonNull(packageName, "package name");
+        Utils.nonNull(baseClass, "base class");
+        final List<String> classNames = classNamesByKey.get(key(packageName, baseClass.getName()));
+        if (classNames != null) {
+            final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            final Set<Class<?>> classes = new LinkedHashSet<>(classNames.size());
+            try {
+                for (final String className : classNames) {
+                    // as in ClassFinder, the classes are not initialized
+                    final Class<?> clazz = Class.forName(className, false, loader);
+                    if (!baseClass.isAssignableFrom(clazz)) {
+                        throw new ClassCastException(className + " is not a " + baseClass.getName());
+                    }
+                    classes.add(clazz);
+                }
+                return classes;
+            } catch (final ClassNotFoundException | LinkageError | ClassCastException e) {
+                logger.warn(String.format("The class index is out of date (%s), so the package %s will be scanned instead", e.getMessage(), packageName));
+            }
+        }
+        return scan(packageName, baseClass);
+    }
+
+    private static Set<Class<?>> scan(final String packageName, final Class<?> baseClass) {
+        final ClassFinder finder = new ClassFinder();
+        finder.find(packageName, baseClass);
+        return new LinkedHashSet<>(finder.getClasses());
+    }
+
+    private static String key(final String packageName, final String baseClassName) {
+        return baseClassName + " " + packageName;
+    }
+
+    private static ClassIndex loadBuildTimeIndex() {
+        final URL url = ClassIndex.class.getClassLoader().getResource(INDEX_RESOURCE);
+        if (Boolean.getBoolean(DISABLE_INDEX_PROPERTY) || url == null || !"jar".equals(url.getProtocol())) {
+            return new ClassIndex(Collections.emptyMap());
+        }
+        try (final Reader reader = new InputStreamReader(url.openStream(), StandardCharsets.UTF_8)) {
+            return read(reader);
+        } catch (final IOException | IllegalArgumentException e) {
+            logger.warn("Unable to read the class index, so the classpath will be scanned instead: " + e.getMessage());
+            return new ClassIndex(Collections.emptyMap());
+        }
+    }
+
+    /**
+     * Reads an index in the format written by {@link #write(Writer, List)}.
+     */
+    @VisibleForTesting
+    static ClassIndex read(final Reader reader) throws IOException {
+        final Map<String, List<String>> classNamesByKey = new HashMap<>();
+        final BufferedReader lines = new BufferedReader(reader);
+        List<String> current = null;
+        for (String rawLine = lines.readLine(); rawLine != null; rawLine = lines.readLine()) {
+            final String line = rawLine.trim();
+            if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
+            if (line.startsWith(ENTRY_PREFIX)) {
+                final String[] fields = line.substring(ENTRY_PREFIX.length()).trim().split("\\s+");
+                Utils.validateArg(fields.length == 2, () -> "Malformed class index entry: " + line);
+                current = new ArrayList<>();
+                classNamesByKey.put(key(fields[1], fields[0]), current);
+            } else {
+                Utils.validateArg(current != null, () -> "Class name outside of a class index entry: " + line);
+                current.add(line);
+            }
+        }
+        return new ClassIndex(classNamesByKey);
+    }
+
+    /**
+     * Scans the classpath for the classes of each package and base class, and writes the results as an index.
+     *
+     * @param writer where to write the index
+     * @param specs pairs of base class name and package name to index, each given as {@code baseClassName=packageName}
+     */
+    @VisibleForTesting
+    static void write(final Writer writer, final List<String> specs) throws IOException {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        writer.write(COMMENT_PREFIX + " Generated by " + ClassIndex.class.getName() + "; do not edit\n");
+        for (final String spec : specs) {
+            final String[] fields = spec.split("=");
+            Utils.validateArg(fields.length == 2, () -> "Expected baseClassName=packageName but found " + spec);
+            final Class<?> baseClass;
+            try {
+                baseClass = Class.forName(fields[0], false, loader);
+            } catch (final ClassNotFoundException e) {
+                throw new GATKException("Base class to index not found: " + fields[0], e);
+            }
+            writer.write(ENTRY_PREFIX + baseClass.getName() + " " + fields[1] + "\n");
+            // sorted, so that the index is reproducible
+            final List<String> classNames = new ArrayList<>();
+            scan(fields[1], baseClass).forEach(c -> classNames.add(c.getName()));
+            Collections.sort(classNames);
+            for (final String className : classNames) {
+                writer.write(className + "\n");
+            }
+        }
+    }
+
+    /**
+     * Generates the index; run by the build.
+     *
+     * @param args the output file, followed by the {@code baseClassName=packageName} pairs to index
+     */
+    public static void main(final String[] args) throws IOException {
+        Utils.validateArg(args.length > 0, "Usage: ClassIndex outputFile baseClassName=packageName...");
+        final File output = new File(args[0]);
+        if (output.getParentFile() != null && !output.getParentFile().isDirectory() && !output.getParentFile().mkdirs()) {
+            throw new GATKException("Unable to create the directory of " + output);
+        }
+        try (final Writer writer = new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)) {
+            write(writer, Arrays.asList(args).subList(1, args.length));
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package org.broadinstitute.hellbender.utils;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.Locatable;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * An immutable set of genomic intervals stored as sorted, non-overlapping primitive start and end arrays per contig.
+ * <p>
+ * Compared with {@link GenomeLocSortedSet} and lists of {@link SimpleInterval}, this representation avoids allocating
+ * an object per interval, merges, intersects and subtracts sets in a single linear pass over each contig, and
+ * answers overlap queries by binary search.  It is intended for large interval lists (e.g., whole-genome bins or
+ * exome targets) that are loaded once and then combined or queried many times.
+ * </p>
+ * <p>
+ * Positions are 1-based and closed, as in {@link SimpleInterval}.  Intervals are merged according to an
+ * {@link IntervalMergingRule} when the set is created; the results of {@link #intersect} and {@link #subtract} preserve
+ * the boundaries of abutting intervals in their inputs.  Contigs are kept in the order in which they were first
+ * encountered, which for input sorted by a sequence dictionary is dictionary order.  Unmapped locations
+ * ({@link GenomeLoc#UNMAPPED}) cannot be represented and must be handled by the caller.
+ * </p>
+ */
+public final class CompactIntervalSet implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final CompactIntervalSet EMPTY = new CompactIntervalSet(new String[0], new int[0][], new int[0][]);
+
+    private final String[] contigs;
+    private final int[][] starts;
+    private final int[][] ends;
+    private final Map<String, Integer> contigIndices;
+
+    private CompactIntervalSet(final String[] contigs, final int[][] starts, final int[][] ends) {
+        this.contigs = contigs;
+        this.starts = starts;
+        this.ends = ends;
+        contigIndices = new HashMap<>(contigs.length * 2);
+        for (int i = 0; i < contigs.length; i++) {
+            contigIndices.put(contigs[i], i);
+        }
+    }
+
+    /**
+     * @return an empty set.
+     */
+    public static CompactIntervalSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a set from intervals in any order, sorting them and merging them according to {@code mergingRule}.
+     *
+     * @param intervals   the intervals; none may be {@code null} or unmapped.
+     * @param mergingRule whether abutting intervals are merged ({@link IntervalMergingRule#ALL}) or kept separate.
+     *                    Overlapping intervals are always merged.
+     */
+    public static CompactIntervalSet fromLocatables(final Collection<? extends Locatable> intervals, final IntervalMergingRule mergingRule) {
+        Utils.nonNull(intervals, "The intervals cannot be null.");
+        Utils.nonNull(mergingRule, "The merging rule cannot be null.");
+        //intervals are packed into longs (start in the high word, end in the low word) so that they can be sorted as primitives
+        final Map<String, LongArrayList> packedByContig = new LinkedHashMap<>();
+        for (final Locatable interval : intervals) {
+            Utils.nonNull(interval, "The intervals cannot contain null.");
+            Utils.validateArg(interval.getContig() != null, () -> "The intervals cannot contain unmapped locations: " + interval);
+            Utils.validateArg(interval.getStart() >= 1 && interval.getEnd() >= interval.getStart(), () -> "Invalid interval: " + interval);
+            packedByContig.computeIfAbsent(interval.getContig(), c -> new LongArrayList())
+                    .add(((long) interval.getStart() << Integer.SIZE) | interval.getEnd());
+        }
+        final Builder builder = new Builder(packedByContig.size());
+        for (final Map.Entry<String, LongArrayList> entry : packedByContig.entrySet()) {
+            final long[] packed = entry.getValue().toLongArray();
+            Arrays.sort(packed);
+            builder.startContig(entry.getKey(), packed.length);
+            for (final long interval : packed) {
+                builder.addMerging((int) (interval >>> Integer.SIZE), (int) interval, mergingRule);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a set containing each contig in {@code dictionary} in its entirety.
+     */
+    public static CompactIntervalSet fromSequenceDictionary(final SAMSequenceDictionary dictionary) {
+        Utils.nonNull(dictionary, "The sequence dictionary cannot be null.");
+        final Builder builder = new Builder(dictionary.size());
+        for (final SAMSequenceRecord sequence : dictionary.getSequences()) {
+            builder.startContig(sequence.getSequenceName(), 1);
+            builder.add(1, sequence.getSequenceLength());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the contigs with at least one interval, in set order.
+     */
+    public List<String> getContigs() {
+        return Collections.unmodifiableList(Arrays.asList(contigs));
+    }
+
+    public boolean isEmpty() {
+        return contigs.length == 0;
+    }
+
+    /**
+     * @return the number of intervals in the set.
+     */
+    public int size() {
+        int size = 0;
+        for (final int[] contigStarts : starts) {
+            size += contigStarts.length;
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of bases covered by the set.
+     */
+    public long coveredSize() {
+        long coveredSize = 0;
+        for (int c = 0; c < contigs.length; c++) {
+            for (int i = 0; i < starts[c].length; i++) {
+                coveredSize += ends[c][i] - starts[c][i] + 1;
+            }
+        }
+        return coveredSize;
+    }
+
+    /**
+     * @return whether any interval in the set overlaps the closed range {@code [start, end]} on {@code contig}.
+     */
+    public boolean overlaps(final String contig, final int start, final int end) {
+        final Integer c = contigIndices.get(contig);
+        if (c == null) {
+            return false;
+        }
+        final int index = firstIndexEndingAtOrAfter(ends[c], start);
+        return index < starts[c].length && starts[c][index] <= end;
+    }
+
+    /**
+     * @return whether any interval in the set overlaps {@code location}.
+     */
+    public boolean overlaps(final Locatable location) {
+        Utils.nonNull(location, "The location cannot be null.");
+        return overlaps(location.getContig(), location.getStart(), location.getEnd());
+    }
+
+    /**
+     * Returns the intervals that overlap {@code location}, in order.
+     */
+    public List<SimpleInterval> getOverlapping(final Locatable location) {
+        Utils.nonNull(location, "The location cannot be null.");
+        final Integer c = contigIndices.get(location.getContig());
+        if (c == null) {
+            return Collections.emptyList();
+        }
+        final List<SimpleInterval> overlapping = new ArrayList<>();
+        for (int i = firstIndexEndingAtOrAfter(ends[c], location.getStart()); i < starts[c].length && starts[c][i] <= location.getEnd(); i++) {
+            overlapping.add(new SimpleInterval(contigs[c], starts[c][i], ends[c][i]));
+        }
+        return overlapping;
+    }
+
+    /**
+     * Returns the union of this set and {@code other}, merged according to {@code mergingRule}.
+     * Contigs of this set come first, followed by those only in {@code other}.
+     */
+    public CompactIntervalSet union(final CompactIntervalSet other, final IntervalMergingRule mergingRule) {
+        Utils.nonNull(other, "The other set cannot be null.");
+        Utils.nonNull(mergingRule, "The merging rule cannot be null.");
+        final Builder builder = new Builder(contigs.length + other.contigs.length);
+        for (int c = 0; c < contigs.length; c++) {
+            final Integer o = other.contigIndices.get(contigs[c]);
+            final int[] otherStarts = o == null ? new int[0] : other.starts[o];
+            final int[] otherEnds = o == null ? new int[0] : other.ends[o];
+            builder.startContig(contigs[c], starts[c].length + otherStarts.length);
+            int i = 0;
+            int j = 0;
+            while (i < starts[c].length || j < otherStarts.length) {
+                if (j == otherStarts.length || (i < starts[c].length && starts[c][i] <= otherStarts[j])) {
+                    builder.addMerging(starts[c][i], ends[c][i++], mergingRule);
+                } else {
+                    builder.addMerging(otherStarts[j], otherEnds[j++], mergingRule);
+                }
+            }
+        }
+        for (int o = 0; o < other.contigs.length; o++) {
+            if (!contigIndices.containsKey(other.contigs[o])) {
+                builder.startContig(other.contigs[o], other.starts[o].length);
+                for (int j = 0; j < other.starts[o].length; j++) {
+                    builder.addMerging(other.starts[o][j], other.ends[o][j], mergingRule);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the bases covered by both this set and {@code other}, in the contig order of this set.
+     */
+    public CompactIntervalSet intersect(final CompactIntervalSet other) {
+        Utils.nonNull(other, "The other set cannot be null.");
+        final Builder builder = new Builder(contigs.length);
+        for (int c = 0; c < contigs.length; c++) {
+            final Integer o = other.contigIndices.get(contigs[c]);
+            if (o == null) {
+                continue;
+            }
+            final int[] otherStarts = other.starts[o];
+            final int[] otherEnds = other.ends[o];
+            builder.startContig(contigs[c], starts[c].length + otherStarts.length);
+            int i = 0;
+            int j = 0;
+            while (i < starts[c].length && j < otherStarts.length) {
+                final int start = Math.max(starts[c][i], otherStarts[j]);
+                final int end = Math.min(ends[c][i], otherEnds[j]);
+                if (start <= end) {
+                    builder.add(start, end);
+                }
+                //advance past whichever interval ends first; the other may still overlap the next interval
+                if (ends[c][i] < otherEnds[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the bases covered by this set but not by {@code other}, in the contig order of this set.
+     */
+    public CompactIntervalSet subtract(final CompactIntervalSet other) {
+        Utils.nonNull(other, "The other set cannot be null.");
+        final Builder builder = new Builder(contigs.length);
+        for (int c = 0; c < contigs.length; c++) {
+            final Integer o = other.contigIndices.get(contigs[c]);
+            final int[] otherStarts = o == null ? new int[0] : other.starts[o];
+            final int[] otherEnds = o == null ? new int[0] : other.ends[o];
+            builder.startContig(contigs[c], starts[c].length + otherStarts.length);
+            int j = 0;
+            for (int i = 0; i < starts[c].length; i++) {
+                int remainingStart = starts[c][i];
+                final int end = ends[c][i];
+                while (j < otherStarts.length && otherEnds[j] < remainingStart) {
+                    j++;
+                }
+                while (j < otherStarts.length && otherStarts[j] <= end) {
+                    if (otherStarts[j] > remainingStart) {
+                        builder.add(remainingStart, otherStarts[j] - 1);
+                    }
+                    remainingStart = Math.max(remainingStart, otherEnds[j] + 1);
+                    if (otherEnds[j] > end) {
+                        break;  //this interval may also remove part of the next one
+                    }
+                    j++;
+                }
+                if (remainingStart <= end) {
+                    builder.add(remainingStart, end);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a set in which each interval is extended by {@code padding} bases on both sides, clipped to the contig
+     * bounds given by {@code dictionary}, with overlapping and abutting intervals merged.
+     * This matches {@link IntervalUtils#getIntervalsWithFlanks}.
+     */
+    public CompactIntervalSet pad(final int padding, final SAMSequenceDictionary dictionary) {
+        ParamUtils.isPositiveOrZero(padding, "The padding cannot be negative.");
+        Utils.nonNull(dictionary, "The sequence dictionary cannot be null.");
+        if (padding == 0) {
+            return this;
+        }
+        final Builder builder = new Builder(contigs.length);
+        for (int c = 0; c < contigs.length; c++) {
+            final String contig = contigs[c];
+            final SAMSequenceRecord sequence = dictionary.getSequence(contig);
+            Utils.validateArg(sequence != null, () -> "Contig " + contig + " is not in the sequence dictionary.");
+            final int contigLength = sequence.getSequenceLength();
+            builder.startContig(contig, starts[c].length);
+            for (int i = 0; i < starts[c].length; i++) {
+                //padded starts remain sorted, so intervals can be merged as they are added
+                builder.addMerging(Math.max(1, starts[c][i] - padding), (int) Math.min(contigLength, (long) ends[c][i] + padding), IntervalMergingRule.ALL);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the intervals in set order.
+     */
+    public List<SimpleInterval> toSimpleIntervals() {
+        final List<SimpleInterval> intervals = new ArrayList<>(size());
+        for (int c = 0; c < contigs.length; c++) {
+            for (int i = 0; i < starts[c].length; i++) {
+                intervals.add(new SimpleInterval(contigs[c], starts[c][i], ends[c][i]));
+            }
+        }
+        return intervals;
+    }
+
+    /**
+     * @return the intervals as {@link GenomeLoc}s, sorted in the contig order of the sequence dictionary of {@code parser}.
+     */
+    public List<GenomeLoc> toGenomeLocs(final GenomeLocParser parser) {
+        Utils.nonNull(parser, "The parser cannot be null.");
+        final int[] contigIndicesInDictionary = Arrays.stream(contigs).mapToInt(parser::getContigIndex).toArray();
+        final Integer[] order = new Integer[contigs.length];
+        for (int c = 0; c < contigs.length; c++) {
+            order[c] = c;
+        }
+        Arrays.sort(order, Comparator.comparingInt(c -> contigIndicesInDictionary[c]));
+        final List<GenomeLoc> locs = new ArrayList<>(size());
+        for (final int c : order) {
+            for (int i = 0; i < starts[c].length; i++) {
+                locs.add(parser.createGenomeLoc(contigs[c], contigIndicesInDictionary[c], starts[c][i], ends[c][i]));
+            }
+        }
+        return locs;
+    }
+
+    @Override
+    public String toString() {
+        return toSimpleIntervals().toString();
+    }
+
+    //returns the index of the first interval ending at or after position, or the number of intervals if there is none;
+    //since intervals are sorted and non-overlapping, ends are sorted as well
+    private static int firstIndexEndingAtOrAfter(final int[] ends, final int position) {
+        int low = 0;
+        int high = ends.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (ends[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Accumulates intervals contig by contig; within a contig, intervals must be added in order of start.
+     * Contigs that end up with no intervals are dropped.
+     */
+    private static final class Builder {
+        private final List<String> contigs;
+        private final List<int[]> starts;
+        private final List<int[]> ends;
+        private int[] currentStarts;
+        private int[] currentEnds;
+        private int currentSize;
+
+        private Builder(final int numContigs) {
+            contigs = new ArrayList<>(numContigs);
+            starts = new ArrayList<>(numContigs);
+            ends = new ArrayList<>(numContigs);
+        }
+
+        private void startContig(final String contig, final int capacity) {
+            finishContig();
+            contigs.add(contig);
+            currentStarts = new int[capacity];
+            currentEnds = new int[capacity];
+            currentSize = 0;
+        }
+
+        //adds an interval known not to overlap the previous one
+        private void add(final int start, final int end) {
+            if (currentSize == currentStarts.length) {
+                currentStarts = Arrays.copyOf(currentStarts, Math.max(1, 2 * currentSize));
+                currentEnds = Arrays.copyOf(currentEnds, Math.max(1, 2 * currentSize));
+            }
+            currentStarts[currentSize] = start;
+            currentEnds[currentSize] = end;
+            currentSize++;
+        }
+
+        private void addMerging(final int start, final int end, final IntervalMergingRule mergingRule) {
+            if (currentSize > 0) {
+                final int previousEnd = currentEnds[currentSize - 1];
+                if (start <= previousEnd || (mergingRule == IntervalMergingRule.ALL && start == previousEnd + 1)) {
+                    currentEnds[currentSize - 1] = Math.max(previousEnd, end);
+                    return;
+                }
+            }
+            add(start, end);
+        }
+
+        private void finishContig() {
+            if (currentStarts == null) {
+                return;
+            }
+            if (currentSize == 0) {
+                contigs.remove(contigs.size() - 1);
+            } else {
+                starts.add(Arrays.copyOf(currentStarts, currentSize));
+                ends.add(Arrays.copyOf(currentEnds, currentSize));
+            }
+            currentStarts = null;
+            currentEnds = null;
+        }
+
+        private CompactIntervalSet build() {
+            finishContig();
+            return contigs.isEmpty() ? EMPTY
+                    : new CompactIntervalSet(contigs.toArray(new String[0]), starts.toArray(new int[0][]), ends.toArray(new int[0][]));
+        }
+    }
+}
@@ -2,9 +2,6 @@ package org.broadinstitute.hellbender.utils;
 
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.broadinstitute.hellbender.exceptions.GATKException;
 
 import java.util.*;
 
@@ -21,7 +18,6 @@ import java.util.*;
  *
  */
 public final class GenomeLocSortedSet extends AbstractSet<GenomeLoc> {
-    private static final Logger logger = LogManager.getLogger(GenomeLocSortedSet.class);
 
     private final GenomeLocParser genomeLocParser;
 
@@ -331,48 +327,33 @@ public final class GenomeLocSortedSet extends AbstractSet<GenomeLoc> {
         return false;
     }
 
+    /**
+     * Returns the regions of this set that are not covered by {@code toRemoveSet}.  The subtraction is performed in a
+     * single linear pass per contig over {@link CompactIntervalSet}s.  An unmapped location in this set is kept
+     * unless {@code toRemoveSet} also contains it.
+     *
+     * @param toRemoveSet the regions to remove
+     * @return a new set with the remaining regions
+     */
     public GenomeLocSortedSet subtractRegions(GenomeLocSortedSet toRemoveSet) {
-        LinkedList<GenomeLoc> good = new LinkedList<>();
-        Stack<GenomeLoc> toProcess = new Stack<>();
-        Stack<GenomeLoc> toExclude = new Stack<>();
-
-        // initialize the stacks
-        toProcess.addAll(mArray);
-        Collections.reverse(toProcess);
-        toExclude.addAll(toRemoveSet.mArray);
-        Collections.reverse(toExclude);
-
-        int i = 0;
-        while ( ! toProcess.empty() ) {    // while there's still stuff to process
-            if ( toExclude.empty() ) {
-                good.addAll(toProcess);         // no more excludes, all the processing stuff is good
-                break;
-            }
+        final List<GenomeLoc> good = toCompactIntervalSet().subtract(toRemoveSet.toCompactIntervalSet()).toGenomeLocs(genomeLocParser);
+        if ( contains(GenomeLoc.UNMAPPED) && ! toRemoveSet.contains(GenomeLoc.UNMAPPED) ) {
+            good.add(GenomeLoc.UNMAPPED);
+        }
+        return createSetFromList(genomeLocParser,good);
+    }
 
-            GenomeLoc p = toProcess.peek();
-            GenomeLoc e = toExclude.peek();
-
-            if ( p.overlapsP(e) ) {
-                toProcess.pop();
-                for ( GenomeLoc newP : p.subtract(e) )
-                    toProcess.push(newP);
-            } else if ( p.compareContigs(e) < 0 ) {
-                good.add(toProcess.pop());         // p is now good
-            } else if ( p.compareContigs(e) > 0 ) {
-                toExclude.pop();                 // e can't effect anything
-            } else if ( p.getStop() < e.getStart() ) {
-                good.add(toProcess.pop());         // p stops before e starts, p is good
-            } else if ( e.getStop() < p.getStart() ) {
-                toExclude.pop();                 // p starts after e stops, e is done
-            } else {
-                throw new GATKException("BUG: unexpected condition: p=" + p + ", e=" + e);
+    /**
+     * @return the mapped regions of this set as a {@link CompactIntervalSet}, keeping the boundaries of abutting regions
+     */
+    public CompactIntervalSet toCompactIntervalSet() {
+        final List<GenomeLoc> mapped = new ArrayList<>(mArray.size());
+        for ( final GenomeLoc loc : mArray ) {
+            if ( ! GenomeLoc.isUnmapped(loc) ) {
+                mapped.add(loc);
             }
-
-            if ( i++ % 10000 == 0 )
-                logger.debug("removeRegions operation: i = " + i);
         }
-
-        return createSetFromList(genomeLocParser,good);
+        return CompactIntervalSet.fromLocatables(mapped, IntervalMergingRule.OVERLAPPING_ONLY);
     }
 
 
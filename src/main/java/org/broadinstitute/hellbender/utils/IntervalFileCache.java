@@ -0,0 +1,150 @@
+package org.broadinstitute.hellbender.utils;
+
+import htsjdk.samtools.SAMSequenceRecord;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.UserException;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A directory of binary caches of parsed interval files, so that large interval lists need not be parsed again
+ * in repeated runs.
+ * <p>
+ * Each cache entry is keyed by the MD5 checksum of the contents of the interval file together with the sequence
+ * dictionary against which it was parsed, and stores the parsed intervals as contig indices and positions.
+ * Entries are therefore never stale: editing the interval file or using a different reference results in a new entry.
+ * Unreadable entries are ignored and problems writing entries are logged, so that the cache never causes a run to fail.
+ * </p>
+ */
+public final class IntervalFileCache {
+    private static final Logger logger = LogManager.getLogger(IntervalFileCache.class);
+
+    public static final String CACHE_FILE_EXTENSION = ".intervals.bin";
+
+    private static final int MAGIC = 0x47494E54;    //"GINT"
+    private static final int VERSION = 1;
+    private static final int UNMAPPED_CONTIG_INDEX = -1;
+
+    private final File cacheDirectory;
+
+    /**
+     * @param cacheDirectory directory in which to store cache entries; it is created if it does not exist.
+     */
+    public IntervalFileCache(final File cacheDirectory) {
+        this.cacheDirectory = Utils.nonNull(cacheDirectory, "The cache directory cannot be null.");
+        if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+            throw new UserException.CouldNotCreateOutputFile(cacheDirectory, "Unable to create interval cache directory.");
+        }
+    }
+
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Returns the cached intervals for {@code intervalFile} if a cache entry exists; otherwise, parses the file
+     * with {@code parseFile} and stores the result.
+     *
+     * @param intervalFile the interval file.
+     * @param parser       the parser whose sequence dictionary is used to create the intervals.
+     * @param parseFile    parses the interval file if there is no cache entry.
+     * @return the intervals in file order, as would be returned by {@code parseFile}.
+     */
+    public List<GenomeLoc> getOrParse(final File intervalFile, final GenomeLocParser parser, final Supplier<List<GenomeLoc>> parseFile) {
+        Utils.nonNull(intervalFile, "The interval file cannot be null.");
+        Utils.nonNull(parser, "The parser cannot be null.");
+        Utils.nonNull(parseFile, "The file parser cannot be null.");
+        final File cacheFile;
+        try {
+            cacheFile = getCacheFile(intervalFile, parser);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(intervalFile, e);
+        }
+
+        if (cacheFile.isFile()) {
+            try {
+                final List<GenomeLoc> intervals = read(cacheFile, parser);
+                logger.info(String.format("Loaded %d intervals for %s from cache %s", intervals.size(), intervalFile, cacheFile));
+                return intervals;
+            } catch (final IOException | RuntimeException e) {
+                logger.warn(String.format("Ignoring unreadable interval cache %s: %s", cacheFile, e.getMessage()));
+            }
+        }
+
+        final List<GenomeLoc> intervals = parseFile.get();
+        try {
+            write(cacheFile, intervals);
+        } catch (final IOException e) {
+            logger.warn(String.format("Unable to write interval cache %s: %s", cacheFile, e.getMessage()));
+        }
+        return intervals;
+    }
+
+    File getCacheFile(final File intervalFile, final GenomeLocParser parser) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 digest algorithm not present", e);
+        }
+        try (final InputStream in = new DigestInputStream(new BufferedInputStream(new FileInputStream(intervalFile)), digest)) {
+            final byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) != -1) {
+                //the digest is updated as the file is read
+            }
+        }
+        for (final SAMSequenceRecord sequence : parser.getSequenceDictionary().getSequences()) {
+            digest.update((sequence.getSequenceName() + '\t' + sequence.getSequenceLength() + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        return new File(cacheDirectory, String.format("%032x", new BigInteger(1, digest.digest())) + CACHE_FILE_EXTENSION);
+    }
+
+    private static List<GenomeLoc> read(final File cacheFile, final GenomeLocParser parser) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            Utils.validate(in.readInt() == MAGIC && in.readInt() == VERSION, "not an interval cache of the current version");
+            final int numIntervals = in.readInt();
+            final List<GenomeLoc> intervals = new ArrayList<>(numIntervals);
+            for (int i = 0; i < numIntervals; i++) {
+                final int contigIndex = in.readInt();
+                final int start = in.readInt();
+                final int stop = in.readInt();
+                intervals.add(contigIndex == UNMAPPED_CONTIG_INDEX
+                        ? GenomeLoc.UNMAPPED
+                        : parser.createGenomeLoc(parser.getSequenceDictionary().getSequence(contigIndex).getSequenceName(), contigIndex, start, stop));
+            }
+            return intervals;
+        }
+    }
+
+    //entries are written to a temporary file and moved into place so that concurrent runs never see a partial entry
+    private void write(final File cacheFile, final List<GenomeLoc> intervals) throws IOException {
+        final File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheDirectory);
+        try {
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(intervals.size());
+                for (final GenomeLoc interval : intervals) {
+                    final boolean isUnmapped = GenomeLoc.isUnmapped(interval);
+                    out.writeInt(isUnmapped ? UNMAPPED_CONTIG_INDEX : interval.getContigIndex());
+                    out.writeInt(isUnmapped ? 0 : interval.getStart());
+                    out.writeInt(isUnmapped ? 0 : interval.getStop());
+                }
+            }
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+}
@@ -215,20 +215,72 @@ public final class IntervalUtils {
             final IntervalMergingRule intervalMergingRule,
             final int padding,
             final GenomeLocParser genomeLocParser) {
+        return loadIntervals(intervalStrings, intervalSetRule, intervalMergingRule, padding, genomeLocParser, null);
+    }
+
+    /**
+     * Parses, pads and combines interval arguments into a sorted, merged set of intervals.
+     *
+     * The intervals given by each argument are combined with those of the previous arguments using
+     * {@code intervalSetRule}; combination is performed on {@link CompactIntervalSet}s, so that large interval lists
+     * are merged and intersected in linear time without allocating intermediate {@link GenomeLoc}s.
+     *
+     * @param intervalFileCache if not {@code null}, used to avoid parsing interval files that were parsed in previous runs
+     * @throws UserException.EmptyIntersection if {@code intervalSetRule} is {@link IntervalSetRule#INTERSECTION}
+     *                                         and the intersection is empty
+     */
+    public static GenomeLocSortedSet loadIntervals(
+            final List<String> intervalStrings,
+            final IntervalSetRule intervalSetRule,
+            final IntervalMergingRule intervalMergingRule,
+            final int padding,
+            final GenomeLocParser genomeLocParser,
+            final IntervalFileCache intervalFileCache) {
         Utils.nonNull(intervalStrings);
-        List<GenomeLoc> allIntervals = new ArrayList<>();
+        CompactIntervalSet allIntervals = null;
+        boolean allIncludeUnmapped = false;
         for ( final String intervalString : intervalStrings) {
             Utils.nonNull(intervalString);
-            List<GenomeLoc> intervals = parseIntervalArguments(genomeLocParser, intervalString);
+            final List<GenomeLoc> intervals = parseIntervalArguments(genomeLocParser, intervalString, intervalFileCache);
+            // as in mergeListsBySetOperator, an empty set of intervals is skipped rather than emptying the intersection
+            if ( intervals.isEmpty() ) {
+                continue;
+            }
 
+            // unmapped locations cannot be represented in a CompactIntervalSet, so are tracked separately
+            final boolean includesUnmapped = intervals.stream().anyMatch(loc -> GenomeLoc.isUnmapped(loc));
+            CompactIntervalSet intervalSet = CompactIntervalSet.fromLocatables(
+                    includesUnmapped ? intervals.stream().filter(loc -> !GenomeLoc.isUnmapped(loc)).collect(Collectors.toList()) : intervals,
+                    intervalMergingRule);
             if ( padding > 0 ) {
-                intervals = getIntervalsWithFlanks(genomeLocParser, intervals, padding);
+                intervalSet = intervalSet.pad(padding, genomeLocParser.getSequenceDictionary());
             }
 
-            allIntervals = mergeListsBySetOperator(intervals, allIntervals, intervalSetRule);
+            if ( allIntervals == null ) {
+                allIntervals = intervalSet;
+                allIncludeUnmapped = includesUnmapped;
+            } else if ( intervalSetRule == null || intervalSetRule == IntervalSetRule.UNION ) {
+                allIntervals = allIntervals.union(intervalSet, intervalMergingRule);
+                allIncludeUnmapped |= includesUnmapped;
+            } else {
+                allIntervals = allIntervals.intersect(intervalSet);
+                allIncludeUnmapped &= includesUnmapped;
+                //if we have an empty intersection, throw an exception.  If they specified intersection and there are no items, this is bad.
+                if ( allIntervals.isEmpty() && !allIncludeUnmapped ) {
+                    throw new UserException.EmptyIntersection("There was an empty intersection");
+                }
+            }
+        }
+        if ( allIntervals == null ) {
+            return new GenomeLocSortedSet(genomeLocParser);
         }
 
-        return sortAndMergeIntervals(genomeLocParser, allIntervals, intervalMergingRule);
+        // intersections keep the boundaries of their inputs, so merge once more according to the merging rule
+        final List<GenomeLoc> locs = allIntervals.union(CompactIntervalSet.empty(), intervalMergingRule).toGenomeLocs(genomeLocParser);
+        if ( allIncludeUnmapped ) {
+            locs.add(GenomeLoc.UNMAPPED);
+        }
+        return GenomeLocSortedSet.createSetFromList(genomeLocParser, locs);
     }
 
 
@@ -256,6 +308,14 @@ public final class IntervalUtils {
     }
 
     public static List<GenomeLoc> parseIntervalArguments(final GenomeLocParser parser, final String arg) {
+        return parseIntervalArguments(parser, arg, null);
+    }
+
+    /**
+     * As {@link #parseIntervalArguments(GenomeLocParser, String)}, but interval files are loaded from
+     * {@code intervalFileCache} (if not {@code null}) when they were parsed in a previous run.
+     */
+    public static List<GenomeLoc> parseIntervalArguments(final GenomeLocParser parser, final String arg, final IntervalFileCache intervalFileCache) {
         Utils.nonNull(parser, "parser is null");
         Utils.nonNull(arg, "arg is null");
         final List<GenomeLoc> rawIntervals = new ArrayList<>();    // running list of raw GenomeLocs
@@ -272,7 +332,9 @@ public final class IntervalUtils {
         // If it's an interval file, add its contents to the raw interval list
         else if ( isIntervalFile(arg) ) {
             try {
-                rawIntervals.addAll(intervalFileToList(parser, arg));
+                rawIntervals.addAll(intervalFileCache == null
+                        ? intervalFileToList(parser, arg)
+                        : intervalFileCache.getOrParse(new File(arg), parser, () -> intervalFileToList(parser, arg)));
             }
             catch ( final UserException.MalformedGenomeLoc e ) {
                 throw e;
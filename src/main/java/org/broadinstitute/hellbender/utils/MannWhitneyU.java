@@ -252,27 +252,62 @@ public class MannWhitneyU {
      * Rank both groups together and return a TestStatistic object that includes U1, U2 and number of ties for sigma
      */
     public TestStatistic calculateU1andU2(final double[] series1, final double[] series2) {
-        RankedData ranked = calculateRank(series1, series2);
-        Rank[] ranks = ranked.getRank();
-        ArrayList<Integer> numOfTies = ranked.getNumOfTies();
-        int lengthOfRanks = ranks.length;
+        return calculateU1andU2(series1, series1.length, series2, series2.length);
+    }
 
-        double numOfTiesForSigma = transformTies(lengthOfRanks, numOfTies);
+    /**
+     * As {@link #calculateU1andU2(double[], double[])}, for the first {@code n1} and {@code n2} values of the series,
+     * which are sorted in place.
+     *
+     * The rank sums are accumulated by walking the two sorted series together, without materializing the ranks
+     * (as {@link #calculateRank} does), but with the same arithmetic, so the results are identical.
+     */
+    private static TestStatistic calculateU1andU2(final double[] series1, final int n1, final double[] series2, final int n2) {
+        Arrays.sort(series1, 0, n1);
+        Arrays.sort(series2, 0, n2);
 
-        // Calculate R1 and R2 and U.
+        final int numOfRanks = n1 + n2;
+        double numOfTiesForSigma = 0.0;
         float r1 = 0, r2 = 0;
-        for (Rank rank : ranks) {
-            if (rank.series == 1) r1 += rank.rank;
-            else r2 += rank.rank;
-        }
+        int i = 0, j = 0, ranked = 0;
+        while (ranked < numOfRanks) {
+            // a band of tied values, in the merged order of calculateRank (series1 first)
+            final double value = j >= n2 || (i < n1 && series1[i] <= series2[j]) ? series1[i] : series2[j];
+            int count1 = 0, count2 = 0;
+            do {
+                if (j >= n2 || (i < n1 && series1[i] <= series2[j])) {
+                    i++;
+                    count1++;
+                } else {
+                    j++;
+                    count2++;
+                }
+            } while ((i < n1 || j < n2) && (j >= n2 || (i < n1 && series1[i] <= series2[j]) ? series1[i] : series2[j]) == value);
 
-        double n1 = series1.length;
-        double n2 = series2.length;
-        double u1 = r1 - ((n1 * (n1 + 1)) / 2);
-        double u2 = r2 - ((n2 * (n2 + 1)) / 2);
+            final int count = count1 + count2;
+            float rank = ranked + 1;
+            for (int k = 2; k <= count; k++) {
+                rank += ranked + k;
+            }
+            if (count > 1) {
+                rank /= count;
+                // see transformTies
+                if (count != numOfRanks) {
+                    numOfTiesForSigma += Math.pow(count, 3) - count;
+                }
+            }
+            for (int k = 0; k < count1; k++) {
+                r1 += rank;
+            }
+            for (int k = 0; k < count2; k++) {
+                r2 += rank;
+            }
+            ranked += count;
+        }
 
-        TestStatistic result = new TestStatistic(u1, u2, numOfTiesForSigma);
-        return result;
+        final double u1 = r1 - (((double) n1 * (n1 + 1)) / 2);
+        final double u2 = r2 - (((double) n2 * (n2 + 1)) / 2);
+        return new TestStatistic(u1, u2, numOfTiesForSigma);
     }
 
     public double transformTies(int numOfRanks, ArrayList<Integer> numOfTies) {
@@ -301,7 +336,11 @@ public class MannWhitneyU {
      * ties for sigma.
      */
     public TestStatistic calculateOneSidedU(final double[] series1, final double[] series2, final TestType whichSeriesDominates) {
-        TestStatistic stat = calculateU1andU2(series1, series2);
+        return calculateOneSidedU(series1, series1.length, series2, series2.length, whichSeriesDominates);
+    }
+
+    private static TestStatistic calculateOneSidedU(final double[] series1, final int n1, final double[] series2, final int n2, final TestType whichSeriesDominates) {
+        TestStatistic stat = calculateU1andU2(series1, n1, series2, n2);
         TestStatistic result;
         if (whichSeriesDominates == TestType.FIRST_DOMINATES) {
             result = new TestStatistic(stat.getU1(), stat.getTies());
@@ -316,7 +355,11 @@ public class MannWhitneyU {
      * Returns a test statistic object with trueU and number of ties for sigma.
      */
     public TestStatistic calculateTwoSidedU(final double[] series1, final double[] series2) {
-        TestStatistic u1AndU2 = calculateU1andU2(series1, series2);
+        return calculateTwoSidedU(series1, series1.length, series2, series2.length);
+    }
+
+    private static TestStatistic calculateTwoSidedU(final double[] series1, final int n1, final double[] series2, final int n2) {
+        TestStatistic u1AndU2 = calculateU1andU2(series1, n1, series2, n2);
         double u = Math.min(u1AndU2.getU1(), u1AndU2.getU2());
         TestStatistic result = new TestStatistic(u, u1AndU2.getTies());
         return result;
@@ -352,9 +395,12 @@ public class MannWhitneyU {
      * Finds or calculates the median value of a sorted array of double.
      */
     public double median(final double[] data) {
-        final int len = data.length;
+        return median(data, data.length);
+    }
+
+    private static double median(final double[] data, final int len) {
         final int mid = len / 2;
-        if (data.length % 2 == 0) {
+        if (len % 2 == 0) {
             return (data[mid] + data[mid - 1]) / 2d;
         } else {
             return data[mid];
@@ -371,8 +417,27 @@ public class MannWhitneyU {
      * @return Result including U statistic, Z score, p-value, and difference in medians.
      */
     public Result test(final double[] series1, final double[] series2, final TestType whichSide) {
-        final int n1 = series1.length;
-        final int n2 = series2.length;
+        return test(series1, series1.length, series2, series2.length, whichSide);
+    }
+
+    /**
+     * As {@link #test(double[], double[], TestType)}, for the first {@code n1} values of {@code series1} and the
+     * first {@code n2} values of {@code series2}, so that callers can reuse buffers that are longer than the data.
+     * Those values are sorted in place. Unless the exact (permutation) test is needed for short series, no memory
+     * is allocated beyond the result.
+     *
+     * @param series1   group 1 data
+     * @param n1        the number of values of group 1
+     * @param series2   group 2 data
+     * @param n2        the number of values of group 2
+     * @param whichSide indicator of two sided test, 0 for two sided, 1 for series1 as dominator, 2 for series2 as dominator
+     * @return Result including U statistic, Z score, p-value, and difference in medians.
+     */
+    public Result test(final double[] series1, final int n1, final double[] series2, final int n2, final TestType whichSide) {
+        Utils.nonNull(series1);
+        Utils.nonNull(series2);
+        Utils.validateArg(n1 >= 0 && n1 <= series1.length, "n1 is out of range");
+        Utils.validateArg(n2 >= 0 && n2 <= series2.length, "n2 is out of range");
 
         //If one of the groups is empty we return NaN
         if (n1 == 0 || n2 == 0) {
@@ -383,11 +448,11 @@ public class MannWhitneyU {
         double nties;
 
         if (whichSide == TestType.TWO_SIDED) {
-            TestStatistic result = calculateTwoSidedU(series1, series2);
+            TestStatistic result = calculateTwoSidedU(series1, n1, series2, n2);
             u = result.getTrueU();
             nties = result.getTies();
         } else {
-            TestStatistic result = calculateOneSidedU(series1, series2, whichSide);
+            TestStatistic result = calculateOneSidedU(series1, n1, series2, n2, whichSide);
             u = result.getTrueU();
             nties = result.getTies();
         }
@@ -406,11 +471,11 @@ public class MannWhitneyU {
             if (whichSide != TestType.FIRST_DOMINATES) {
                 logger.warn("An exact two-sided MannWhitneyU test was called. Only the one-sided exact test is implemented, use the approximation instead by setting minimumNormalN to 0.");
             }
-            p = permutationTest(series1, series2, u);
+            p = permutationTest(Arrays.copyOf(series1, n1), Arrays.copyOf(series2, n2), u);
             z = NORMAL.inverseCumulativeProbability(p);
         }
 
-        return new Result(u, z, p, Math.abs(median(series1) - median(series2)));
+        return new Result(u, z, p, Math.abs(median(series1, n1) - median(series2, n2)));
     }
 
     private void swap(Integer[] arr, int i, int j) {
@@ -0,0 +1,280 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.SAMSequenceDictionary;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A counts-only alternative to {@link LocusIteratorByState} for tools that only need the number of each base
+ * (and of deletions) at each locus, rather than a pileup of reads.
+ * <p>
+ * Reads are added in coordinate order with {@link #add(GATKRead)}, and their alignments are swept directly into
+ * primitive counts (by base, strand and base-quality bin) held in a ring buffer over the loci that may still be
+ * covered by later reads. Once no later read can cover a locus, its counts are passed to the consumer as a
+ * {@link LocusBaseCounts}, in coordinate order; {@link #finish()} flushes the remaining loci.
+ * </p>
+ * <p>
+ * The loci visited match those of {@link LocusIteratorByState} without downsampling: bases inside adaptors are not
+ * counted, and loci spanned by N operators are not covered. Deletions are always counted, in their own category.
+ * If intervals are given, only loci within them are passed on, and if empty loci are emitted, every locus in the
+ * intervals is passed on, covered or not.
+ * </p>
+ */
+public final class LocusBaseCounter {
+    private static final int INITIAL_WINDOW_SIZE = 1024;
+
+    private final SAMSequenceDictionary dictionary;
+    private final List<SimpleInterval> intervals;
+    private final int[] intervalContigIndices;
+    private final boolean emitEmptyLoci;
+    private final Consumer<LocusBaseCounts> consumer;
+
+    private final int numberOfQualityBins;
+    private final int countsPerLocus;
+    private final byte[] qualityBins = new byte[256];
+    private final int deletionQualityBin;
+    private final int[] emptyCounts;
+    private final LocusBaseCounts locusCounts;
+
+    // counts of the loci from windowStart to lastCountedPosition on the current contig, indexed by position modulo the window size
+    private int[] counts;
+    private int windowSize;
+
+    private int contigIndex = -1;
+    private String contig;
+    private int windowStart;
+    private int lastCountedPosition;
+    private int lastReadStart;
+    private int intervalIndex;
+    private boolean finished;
+
+    /**
+     * @param dictionary sequence dictionary of the reads
+     * @param intervals intervals to which to restrict the output, sorted and merged in dictionary order;
+     *                  if {@code null}, all covered loci are passed on
+     * @param emitEmptyLoci whether to pass on the loci within the intervals that are not covered by any read;
+     *                      requires intervals
+     * @param qualityBinLowerBounds increasing lower bounds of the base-quality bins, the first of which must be 0
+     * @param consumer consumer of the counts at each locus
+     */
+    public LocusBaseCounter(final SAMSequenceDictionary dictionary,
+                            final List<SimpleInterval> intervals,
+                            final boolean emitEmptyLoci,
+                            final int[] qualityBinLowerBounds,
+                            final Consumer<LocusBaseCounts> consumer) {
+        this.dictionary = Utils.nonNull(dictionary, "The sequence dictionary cannot be null.");
+        Utils.nonNull(qualityBinLowerBounds, "The quality bins cannot be null.");
+        Utils.validateArg(!emitEmptyLoci || intervals != null, "Intervals are required to emit empty loci.");
+        Utils.validateArg(qualityBinLowerBounds.length > 0 && qualityBinLowerBounds[0] == 0,
+                "The lower bound of the first quality bin must be 0.");
+        for (int i = 1; i < qualityBinLowerBounds.length; i++) {
+            Utils.validateArg(qualityBinLowerBounds[i] > qualityBinLowerBounds[i - 1], "The quality bins must be increasing.");
+        }
+        this.intervals = intervals;
+        this.intervalContigIndices = intervals == null ? null
+                : intervals.stream().mapToInt(interval -> dictionary.getSequenceIndex(interval.getContig())).toArray();
+        this.emitEmptyLoci = emitEmptyLoci;
+        this.consumer = Utils.nonNull(consumer, "The consumer cannot be null.");
+
+        numberOfQualityBins = qualityBinLowerBounds.length;
+        countsPerLocus = LocusBaseCounts.countsPerLocus(numberOfQualityBins);
+        for (int quality = 0; quality < qualityBins.length; quality++) {
+            int bin = 0;
+            while (bin + 1 < numberOfQualityBins && qualityBinLowerBounds[bin + 1] <= quality) {
+                bin++;
+            }
+            qualityBins[quality] = (byte) bin;
+        }
+        deletionQualityBin = qualityBins[PileupElement.DELETION_QUAL];
+        emptyCounts = new int[countsPerLocus];
+        locusCounts = new LocusBaseCounts(numberOfQualityBins);
+        windowSize = INITIAL_WINDOW_SIZE;
+        counts = new int[windowSize * countsPerLocus];
+    }
+
+    /**
+     * Counts the bases of a read, first passing on the counts at all loci before its start.
+     *
+     * @param read a read, which must not start before any previously added read; unmapped reads are ignored
+     */
+    public void add(final GATKRead read) {
+        Utils.nonNull(read);
+        Utils.validate(!finished, "Reads cannot be added after finish().");
+        if (read.isUnmapped()) {
+            return;
+        }
+        final int readContigIndex = dictionary.getSequenceIndex(read.getContig());
+        Utils.validateArg(readContigIndex >= 0, () -> "Contig not in the sequence dictionary: " + read.getContig());
+        Utils.validateArg(readContigIndex > contigIndex || (readContigIndex == contigIndex && read.getStart() >= lastReadStart),
+                () -> "Reads must be coordinate sorted, but found " + read + " after a read starting at " + contig + ":" + lastReadStart);
+        if (readContigIndex != contigIndex) {
+            startContig(readContigIndex);
+        }
+        lastReadStart = read.getStart();
+        flushUpTo(read.getStart() - 1);
+        ensureWindowCovers(read.getEnd());
+        countRead(read);
+    }
+
+    /**
+     * Passes on the counts of all remaining loci. No more reads can be added afterwards.
+     */
+    public void finish() {
+        if (!finished) {
+            startContig(dictionary.size());
+            finished = true;
+        }
+    }
+
+    private void startContig(final int newContigIndex) {
+        if (contigIndex >= 0) {
+            flushUpTo(Math.max(dictionary.getSequence(contigIndex).getSequenceLength(), lastCountedPosition));
+        }
+        // the intervals on the contigs before the new one (which had no reads) are empty
+        while (intervals != null && intervalIndex < intervals.size() && intervalContigIndices[intervalIndex] < newContigIndex) {
+            if (emitEmptyLoci) {
+                final SimpleInterval interval = intervals.get(intervalIndex);
+                for (int position = interval.getStart(); position <= interval.getEnd(); position++) {
+                    emit(interval.getContig(), position, emptyCounts, 0);
+                }
+            }
+            intervalIndex++;
+        }
+        contigIndex = newContigIndex;
+        contig = newContigIndex < dictionary.size() ? dictionary.getSequence(newContigIndex).getSequenceName() : null;
+        windowStart = 1;
+        lastCountedPosition = 0;
+        lastReadStart = 0;
+    }
+
+    // passes on the loci of the current contig up to (and including) end, and frees their space in the window
+    private void flushUpTo(final int end) {
+        final int countedEnd = Math.min(end, lastCountedPosition);
+        for (int position = windowStart; position <= countedEnd; position++) {
+            final int offset = (position & (windowSize - 1)) * countsPerLocus;
+            if (isWithinIntervals(position) && (emitEmptyLoci || hasCounts(offset))) {
+                emit(contig, position, counts, offset);
+            }
+            Arrays.fill(counts, offset, offset + countsPerLocus, 0);
+        }
+        if (emitEmptyLoci) {
+            emitEmptyIntervalLoci(Math.max(windowStart, countedEnd + 1), end);
+        }
+        windowStart = Math.max(windowStart, end + 1);
+    }
+
+    private boolean isWithinIntervals(final int position) {
+        if (intervals == null) {
+            return true;
+        }
+        while (intervalIndex < intervals.size() && intervalContigIndices[intervalIndex] == contigIndex && intervals.get(intervalIndex).getEnd() < position) {
+            intervalIndex++;
+        }
+        return intervalIndex < intervals.size() && intervalContigIndices[intervalIndex] == contigIndex && intervals.get(intervalIndex).getStart() <= position;
+    }
+
+    private void emitEmptyIntervalLoci(final int start, final int end) {
+        while (intervalIndex < intervals.size() && intervalContigIndices[intervalIndex] == contigIndex && intervals.get(intervalIndex).getStart() <= end) {
+            final SimpleInterval interval = intervals.get(intervalIndex);
+            for (int position = Math.max(start, interval.getStart()); position <= Math.min(end, interval.getEnd()); position++) {
+                emit(contig, position, emptyCounts, 0);
+            }
+            if (interval.getEnd() > end) {
+                return;
+            }
+            intervalIndex++;
+        }
+    }
+
+    private boolean hasCounts(final int offset) {
+        for (int i = offset; i < offset + countsPerLocus; i++) {
+            if (counts[i] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void emit(final String locusContig, final int position, final int[] locusCountsArray, final int offset) {
+        locusCounts.set(locusContig, position, locusCountsArray, offset);
+        consumer.accept(locusCounts);
+    }
+
+    // grows the window (a power of two) so that it can hold the counts from windowStart to end
+    private void ensureWindowCovers(final int end) {
+        final long needed = (long) end - windowStart + 1;
+        if (needed <= windowSize) {
+            return;
+        }
+        int newWindowSize = windowSize;
+        while (newWindowSize < needed) {
+            newWindowSize *= 2;
+        }
+        final int[] newCounts = new int[newWindowSize * countsPerLocus];
+        for (int position = windowStart; position <= lastCountedPosition; position++) {
+            System.arraycopy(counts, (position & (windowSize - 1)) * countsPerLocus,
+                    newCounts, (position & (newWindowSize - 1)) * countsPerLocus, countsPerLocus);
+        }
+        counts = newCounts;
+        windowSize = newWindowSize;
+    }
+
+    private void countRead(final GATKRead read) {
+        final boolean isReverseStrand = read.isReverseStrand();
+        // bases inside the adaptor are excluded, as in LocusIteratorByState; the adaptor lies beyond a boundary position
+        final int adaptorBoundary = ReadUtils.getAdaptorBoundary(read);
+        final boolean hasAdaptor = adaptorBoundary != ReadUtils.CANNOT_COMPUTE_ADAPTOR_BOUNDARY && ReadUtils.isBaseInsideAdaptor(read, adaptorBoundary);
+        final int firstCountable = hasAdaptor && isReverseStrand ? adaptorBoundary + 1 : Integer.MIN_VALUE;
+        final int lastCountable = hasAdaptor && !isReverseStrand ? adaptorBoundary - 1 : Integer.MAX_VALUE;
+
+        final int strandOffset = LocusBaseCounts.index(0, isReverseStrand, 0, numberOfQualityBins);
+        final int deletionIndex = LocusBaseCounts.index(LocusBaseCounts.DELETION, isReverseStrand, deletionQualityBin, numberOfQualityBins);
+        final int windowMask = windowSize - 1;
+        int position = read.getStart();
+        int readOffset = 0;
+        for (final CigarElement element : read.getCigarElements()) {
+            final int length = element.getLength();
+            switch (element.getOperator()) {
+                case M:
+                case EQ:
+                case X:
+                    for (int i = 0; i < length; i++, position++, readOffset++) {
+                        if (position >= firstCountable && position <= lastCountable) {
+                            final int qualityBin = qualityBins[read.getBaseQuality(readOffset) & 0xFF];
+                            counts[(position & windowMask) * countsPerLocus + strandOffset
+                                    + qualityBin * LocusBaseCounts.NUMBER_OF_BASE_CATEGORIES
+                                    + LocusBaseCounts.baseCategory(read.getBase(readOffset))]++;
+                            lastCountedPosition = Math.max(lastCountedPosition, position);
+                        }
+                    }
+                    break;
+                case D:
+                    for (int i = 0; i < length; i++, position++) {
+                        if (position >= firstCountable && position <= lastCountable) {
+                            counts[(position & windowMask) * countsPerLocus + deletionIndex]++;
+                            lastCountedPosition = Math.max(lastCountedPosition, position);
+                        }
+                    }
+                    break;
+                case N:
+                    position += length;
+                    break;
+                case I:
+                case S:
+                    readOffset += length;
+                    break;
+                default:
+                    // hard clips and padding consume neither read nor reference bases
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.utils.Nucleotide;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+/**
+ * The base counts at a single locus, as produced by a {@link LocusBaseCounter}.
+ * <p>
+ * Counts are kept by base ({@link #A}, {@link #C}, {@link #G}, {@link #T}, {@link #N} for any other base call,
+ * and {@link #DELETION}), by strand and by base-quality bin. Deletions are binned by
+ * {@link org.broadinstitute.hellbender.utils.pileup.PileupElement#DELETION_QUAL}, as they are in pileups.
+ * </p>
+ * <p>
+ * Instances are views into the buffers of the counter and are only valid during the callback to which they are passed.
+ * </p>
+ */
+public final class LocusBaseCounts implements Locatable {
+    public static final int A = 0;
+    public static final int C = 1;
+    public static final int G = 2;
+    public static final int T = 3;
+    public static final int N = 4;
+    public static final int DELETION = 5;
+    public static final int NUMBER_OF_BASE_CATEGORIES = 6;
+
+    private final int numberOfQualityBins;
+    private String contig;
+    private int position;
+    private int[] counts;
+    private int offset;
+
+    LocusBaseCounts(final int numberOfQualityBins) {
+        this.numberOfQualityBins = numberOfQualityBins;
+    }
+
+    /**
+     * Points this view at the counts for a locus, stored from {@code offset} in {@code counts} with the layout
+     * given by {@link #index(int, boolean, int, int)}.
+     */
+    void set(final String contig, final int position, final int[] counts, final int offset) {
+        this.contig = contig;
+        this.position = position;
+        this.counts = counts;
+        this.offset = offset;
+    }
+
+    static int index(final int baseCategory, final boolean isReverseStrand, final int qualityBin, final int numberOfQualityBins) {
+        return ((isReverseStrand ? numberOfQualityBins : 0) + qualityBin) * NUMBER_OF_BASE_CATEGORIES + baseCategory;
+    }
+
+    static int countsPerLocus(final int numberOfQualityBins) {
+        return 2 * numberOfQualityBins * NUMBER_OF_BASE_CATEGORIES;
+    }
+
+    /**
+     * @return the base category ({@link #A}, {@link #C}, {@link #G}, {@link #T} or {@link #N}) of a base call
+     */
+    public static int baseCategory(final byte base) {
+        final Nucleotide nucleotide = base < 0 ? Nucleotide.INVALID : Nucleotide.valueOf(base);
+        return nucleotide.isConcrete() ? nucleotide.ordinal() : N;
+    }
+
+    @Override
+    public String getContig() {
+        return contig;
+    }
+
+    @Override
+    public int getStart() {
+        return position;
+    }
+
+    @Override
+    public int getEnd() {
+        return position;
+    }
+
+    public SimpleInterval getLocation() {
+        return new SimpleInterval(contig, position, position);
+    }
+
+    public int getNumberOfQualityBins() {
+        return numberOfQualityBins;
+    }
+
+    /**
+     * @return the count of a base category on one strand, in one quality bin
+     */
+    public int getCount(final int baseCategory, final boolean isReverseStrand, final int qualityBin) {
+        Utils.validIndex(baseCategory, NUMBER_OF_BASE_CATEGORIES);
+        Utils.validIndex(qualityBin, numberOfQualityBins);
+        return counts[offset + index(baseCategory, isReverseStrand, qualityBin, numberOfQualityBins)];
+    }
+
+    /**
+     * @return the count of a base category on both strands, in the quality bins from {@code minQualityBin} up
+     */
+    public int getCount(final int baseCategory, final int minQualityBin) {
+        Utils.validIndex(minQualityBin, numberOfQualityBins);
+        int count = 0;
+        for (int bin = minQualityBin; bin < numberOfQualityBins; bin++) {
+            count += getCount(baseCategory, false, bin) + getCount(baseCategory, true, bin);
+        }
+        return count;
+    }
+
+    /**
+     * @return the count of a base category on both strands, in all quality bins
+     */
+    public int getCount(final int baseCategory) {
+        return getCount(baseCategory, 0);
+    }
+
+    /**
+     * @return the number of reads covering this locus with a base or a deletion
+     */
+    public int getDepth() {
+        int depth = 0;
+        for (int i = 0; i < countsPerLocus(numberOfQualityBins); i++) {
+            depth += counts[offset + i];
+        }
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:%d A=%d C=%d G=%d T=%d N=%d D=%d", contig, position,
+                getCount(A), getCount(C), getCount(G), getCount(T), getCount(N), getCount(DELETION));
+    }
+}
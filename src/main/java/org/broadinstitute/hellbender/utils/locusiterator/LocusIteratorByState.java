@@ -10,6 +10,7 @@ import org.broadinstitute.hellbender.engine.AlignmentContext;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
+import org.broadinstitute.hellbender.utils.pileup.ColumnarPileup;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -325,18 +326,7 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
                 while (iterator.hasNext()) {
                     // state object with the read/offset information
                     final AlignmentStateMachine state = iterator.next();
-                    final GATKRead read = state.getRead();
-                    final CigarOperator op = state.getCigarOperator();
-
-                    if (!includeReadsWithNsAtLoci && op == CigarOperator.N) {
-                        continue;
-                    }
-
-                    if (!dontIncludeReadInPileup(read, location.getStart())) {
-                        if (!includeReadsWithDeletionAtLoci && op == CigarOperator.D) {
-                            continue;
-                        }
-
+                    if (includeInPileup(state, location.getStart())) {
                         pile.add(state.makePileupElement());
                     }
                 }
@@ -353,6 +343,68 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
         }
     }
 
+    /**
+     * Fills {@code pileup} in place with the next pileup available from the reads, as an allocation-free alternative
+     * to {@link #next()} for traversals over deep coverage.
+     *
+     * The pileup holds the same elements, in the same order, as the {@link AlignmentContext} that {@link #next()}
+     * would have returned, and the two methods may be interleaved.
+     *
+     * @param pileup the pileup to fill, whose previous contents are discarded
+     * @return true if the pileup was filled with the next genomic position covered by at least one read,
+     * false if there are no more pileups (in which case the pileup is left empty or untouched)
+     */
+    public boolean nextColumnarPileup(final ColumnarPileup pileup) {
+        Utils.nonNull(pileup, "pileup is null");
+        if (nextAlignmentContext != null) {
+            // an alignment context has already been loaded by hasNext(), so we must hand that one out first
+            pileup.reset(nextAlignmentContext.getContig(), nextAlignmentContext.getStart());
+            nextAlignmentContext.getBasePileup().forEach(pileup::add);
+            nextAlignmentContext = null;
+            return true;
+        }
+
+        while (readStates.hasNext()) {
+            readStates.collectPendingReads();
+
+            final AlignmentStateMachine first = readStates.getFirst();
+            boolean filled = false;
+            if (first != null) {
+                final int position = first.getGenomePosition();
+                pileup.reset(first.getContig(), position);
+                for (final Map.Entry<String, PerSampleReadStateManager> sampleStatePair : readStates) {
+                    for (final AlignmentStateMachine state : sampleStatePair.getValue()) {
+                        if (includeInPileup(state, position)) {
+                            pileup.add(state.getRead(), state.getReadOffset(), state.getCurrentCigarElement(),
+                                    state.getCurrentCigarElementOffset(), state.getOffsetIntoCurrentCigarElement());
+                        }
+                    }
+                }
+                filled = !pileup.isEmpty();
+            }
+
+            readStates.updateReadStates(); // critical - must be called after we get the current state offsets and location
+            if (filled) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Should the current alignment state of a read be included in the pileup at the given position?
+     */
+    private boolean includeInPileup(final AlignmentStateMachine state, final int position) {
+        final CigarOperator op = state.getCigarOperator();
+        if (!includeReadsWithNsAtLoci && op == CigarOperator.N) {
+            return false;
+        }
+        if (!includeReadsWithDeletionAtLoci && op == CigarOperator.D) {
+            return false;
+        }
+        return !dontIncludeReadInPileup(state.getRead(), position);
+    }
+
     /**
      * Should this read be excluded from the pileup?
      *
@@ -21,8 +21,6 @@ import java.util.stream.Collectors;
  */
 public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends ParameterizedState<V>, T extends DataCollection> {
     private static final int RANDOM_SEED = 42;
-    private static final RandomGenerator rng =
-            RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
 
     private static final Logger logger = LogManager.getLogger(GibbsSampler.class);
     private static final int NUMBER_OF_SAMPLES_PER_LOG_ENTRY = 25;
@@ -32,6 +30,9 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
 
     private final ParameterizedModel<V, S, T> model;
 
+    //each sampler holds its own generator (reseeded at the start of each run), so that independent chains may be run concurrently
+    private final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+
     private final List<S> samples;
 
     private boolean isMCMCRunComplete = false;
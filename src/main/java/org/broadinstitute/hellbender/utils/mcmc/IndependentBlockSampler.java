@@ -0,0 +1,112 @@
+package org.broadinstitute.hellbender.utils.mcmc;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.RandomGeneratorFactory;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Samples a list of blocks of parameters that are conditionally independent given the rest of the
+ * {@link ParameterizedState} (e.g., segment-level parameters given global parameters), for use within
+ * {@link ParameterSampler}s.
+ *
+ * <p>
+ *     A serial sampler draws all blocks in order from the {@link RandomGenerator} passed by the {@link GibbsSampler}.
+ *     A parallel sampler instead draws a single seed from that generator and samples each block on a {@link ForkJoinPool}
+ *     using its own generator, seeded deterministically from that seed and the block index; results for a given
+ *     seed are therefore reproducible and do not depend on the number of threads.
+ * </p>
+ */
+public final class IndependentBlockSampler {
+    private static final IndependentBlockSampler SERIAL = new IndependentBlockSampler(null);
+
+    /**
+     * Returns a random sample of the parameter block with index {@code blockIndex}.
+     * @param <U>   type of the parameter block
+     */
+    @FunctionalInterface
+    public interface BlockSampler<U> {
+        U sample(final RandomGenerator rng, final int blockIndex);
+    }
+
+    private final ForkJoinPool pool;
+
+    private IndependentBlockSampler(final ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Returns a sampler that samples blocks in order using the {@link RandomGenerator} passed to {@link #sample}.
+     */
+    public static IndependentBlockSampler serial() {
+        return SERIAL;
+    }
+
+    /**
+     * Returns a sampler that samples blocks concurrently on {@code pool} using per-block random-number streams.
+     * The caller retains ownership of the pool.
+     */
+    public static IndependentBlockSampler parallel(final ForkJoinPool pool) {
+        return new IndependentBlockSampler(Utils.nonNull(pool));
+    }
+
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    /**
+     * @param rng           {@link RandomGenerator} passed to the calling {@link ParameterSampler}
+     * @param numBlocks     number of blocks to sample
+     * @param blockSampler  samples a single block; must not modify any state shared between blocks
+     * @param <U>           type of the parameter block
+     * @return              list of samples ordered by block index
+     */
+    public <U> List<U> sample(final RandomGenerator rng,
+                              final int numBlocks,
+                              final BlockSampler<U> blockSampler) {
+        Utils.nonNull(rng);
+        ParamUtils.isPositiveOrZero(numBlocks, "Number of blocks must be non-negative.");
+        Utils.nonNull(blockSampler);
+        if (!isParallel()) {
+            final List<U> samples = new ArrayList<>(numBlocks);
+            for (int blockIndex = 0; blockIndex < numBlocks; blockIndex++) {
+                samples.add(blockSampler.sample(rng, blockIndex));
+            }
+            return samples;
+        }
+        final long seed = rng.nextLong();
+        try {
+            //parallel streams started from within a ForkJoinPool task are executed on that pool
+            return pool.submit(() -> IntStream.range(0, numBlocks).parallel()
+                    .mapToObj(blockIndex -> blockSampler.sample(createBlockRandomGenerator(seed, blockIndex), blockIndex))
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while sampling parameter blocks.", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Exception encountered while sampling parameter blocks.", e.getCause());
+        }
+    }
+
+    //mixes the seed and block index (using the SplitMix64 finalizer) so that streams for adjacent blocks are uncorrelated
+    private static RandomGenerator createBlockRandomGenerator(final long seed,
+                                                              final int blockIndex) {
+        long z = seed + (blockIndex + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return RandomGeneratorFactory.createRandomGenerator(new Random(z ^ (z >>> 31)));
+    }
+}
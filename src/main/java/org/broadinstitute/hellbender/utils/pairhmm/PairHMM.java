@@ -32,6 +32,9 @@ public abstract class PairHMM implements Closeable{
     protected byte[] previousHaplotypeBases;
     protected int hapStartIndex;
 
+    // if true, computeLog10Likelihoods visits the haplotypes of each read in prefix-tree order (see setReuseHaplotypePrefixes)
+    private boolean reuseHaplotypePrefixes = false;
+
     public enum Implementation {
         /* Very slow implementation which uses very accurate log10 sum functions. Only meant to be used as a reference test implementation */
         EXACT(args -> {
@@ -229,6 +232,7 @@ public abstract class PairHMM implements Closeable{
         final List<Haplotype> alleles = logLikelihoods.alleles();
         final int alleleCount = alleles.size();
         mLogLikelihoodArray = new double[readCount * alleleCount];
+        final HaplotypePrefixOrder prefixOrder = reuseHaplotypePrefixes ? new HaplotypePrefixOrder(alleles) : null;
         int idx = 0;
         int readIndex = 0;
         for(final GATKRead read : processedReads){
@@ -238,6 +242,13 @@ public abstract class PairHMM implements Closeable{
             final byte[] readDelQuals = ReadUtils.getBaseDeletionQualities(read);
             final byte[] overallGCP = gcp.get(read);
 
+            if (prefixOrder != null) {
+                computeLog10LikelihoodsInPrefixOrder(logLikelihoods, prefixOrder, readIndex, readBases, readQuals, readInsQuals, readDelQuals, overallGCP);
+                idx += alleleCount;
+                readIndex++;
+                continue;
+            }
+
             // peek at the next haplotype in the list (necessary to get nextHaplotypeBases, which is required for caching in the array implementation)
             final boolean isFirstHaplotype = true;
             for (int a = 0; a < alleleCount; a++) {
@@ -259,6 +270,95 @@ public abstract class PairHMM implements Closeable{
         }
     }
 
+    /**
+     * Sets whether {@link #computeLog10Likelihoods} should compute the likelihoods of each read against the haplotypes
+     * in the order of a depth-first walk of their prefix tree (trie), so that the dynamic-programming columns of the
+     * prefix that a haplotype shares with the previously computed one are reused instead of recomputed. The likelihoods
+     * are the same as those computed in the order of the haplotypes.
+     *
+     * Has no effect on implementations that override {@link #computeLog10Likelihoods} (such as {@link VectorLoglessPairHMM}).
+     */
+    public void setReuseHaplotypePrefixes(final boolean reuseHaplotypePrefixes) {
+        this.reuseHaplotypePrefixes = reuseHaplotypePrefixes;
+    }
+
+    /**
+     * The order of a depth-first walk of the prefix tree of some haplotypes, and the length of the prefix shared by each
+     * haplotype and the one before it in that order.
+     *
+     * The columns of the matrices of the pair HMM for a haplotype position depend on the length of the haplotype as well
+     * as on its bases up to that position, so haplotypes of different lengths share no columns and the walk is done
+     * separately for each length; within a length, the depth-first order of the tree is the lexicographic order of the
+     * haplotypes, and the prefix shared with the previous haplotype is the one shared with its branching node.
+     */
+    @VisibleForTesting
+    static final class HaplotypePrefixOrder {
+        // haplotype indices in walk order
+        final int[] order;
+        // sharedPrefixLength[i] is the length of the prefix shared by haplotypes order[i - 1] and order[i], and 0 when
+        // order[i] starts a new walk (i == 0 or a different length)
+        final int[] sharedPrefixLength;
+
+        HaplotypePrefixOrder(final List<? extends Allele> haplotypes) {
+            final int count = haplotypes.size();
+            final byte[][] bases = new byte[count][];
+            final Integer[] sorted = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                bases[i] = haplotypes.get(i).getBases();
+                sorted[i] = i;
+            }
+            Arrays.sort(sorted, (i, j) -> {
+                final int byLength = Integer.compare(bases[i].length, bases[j].length);
+                return byLength != 0 ? byLength : compareBases(bases[i], bases[j]);
+            });
+            order = new int[count];
+            sharedPrefixLength = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = sorted[i];
+                if (i > 0 && bases[order[i - 1]].length == bases[order[i]].length && bases[order[i]].length > 0) {
+                    sharedPrefixLength[i] = findFirstPositionWhereHaplotypesDiffer(bases[order[i - 1]], bases[order[i]]);
+                }
+            }
+        }
+
+        private static int compareBases(final byte[] bases1, final byte[] bases2) {
+            for (int i = 0; i < bases1.length && i < bases2.length; i++) {
+                if (bases1[i] != bases2[i]) {
+                    return Byte.compare(bases1[i], bases2[i]);
+                }
+            }
+            return Integer.compare(bases1.length, bases2.length);
+        }
+    }
+
+    /**
+     * Computes the likelihoods of a read against all haplotypes in prefix-tree order, recaching the read values for the
+     * first haplotype of the walk and then starting each haplotype at the end of the prefix it shares with the previous one.
+     */
+    private void computeLog10LikelihoodsInPrefixOrder(final LikelihoodMatrix<Haplotype> logLikelihoods,
+                                                      final HaplotypePrefixOrder prefixOrder,
+                                                      final int readIndex,
+                                                      final byte[] readBases,
+                                                      final byte[] readQuals,
+                                                      final byte[] readInsQuals,
+                                                      final byte[] readDelQuals,
+                                                      final byte[] overallGCP) {
+        final List<Haplotype> alleles = logLikelihoods.alleles();
+        final int alleleCount = alleles.size();
+        for (int i = 0; i < alleleCount; i++) {
+            final int a = prefixOrder.order[i];
+            final byte[] alleleBases = alleles.get(a).getBases();
+            final int nextHapStartIndex = i == alleleCount - 1 ? 0 : prefixOrder.sharedPrefixLength[i + 1];
+            validateInputs(alleleBases, readBases, readQuals, readInsQuals, readDelQuals, overallGCP);
+            final double lk = computeValidatedReadLikelihoodGivenHaplotypeLog10(alleleBases, readBases, readQuals, readInsQuals,
+                    readDelQuals, overallGCP, prefixOrder.sharedPrefixLength[i], i == 0, nextHapStartIndex);
+            logLikelihoods.set(a, readIndex, lk);
+            mLogLikelihoodArray[readIndex * alleleCount + a] = lk;
+        }
+        // the walk does not track hapStartIndex, so a later call to computeReadLikelihoodGivenHaplotypeLog10 must start from scratch
+        hapStartIndex = 0;
+    }
+
     /**
      * Compute the total probability of read arising from haplotypeBases given base substitution, insertion, and deletion
      * probabilities.
@@ -293,6 +393,29 @@ public abstract class PairHMM implements Closeable{
                                                                   final boolean recacheReadValues,
                                                                   final byte[] nextHaplotypeBases) throws IllegalStateException, IllegalArgumentException {
 
+        validateInputs(haplotypeBases, readBases, readQuals, insertionGOP, deletionGOP, overallGCP);
+
+        hapStartIndex =  (recacheReadValues) ? 0 : hapStartIndex;
+
+        // Pre-compute the difference between the current haplotype and the next one to be run
+        // Looking ahead is necessary for the ArrayLoglessPairHMM implementation
+        final int nextHapStartIndex =  (nextHaplotypeBases == null || haplotypeBases.length != nextHaplotypeBases.length) ? 0 : findFirstPositionWhereHaplotypesDiffer(haplotypeBases, nextHaplotypeBases);
+
+        final double result = computeValidatedReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals, insertionGOP, deletionGOP, overallGCP, hapStartIndex, recacheReadValues, nextHapStartIndex);
+
+        // For the next iteration, the hapStartIndex for the next haploytpe becomes the index for the current haplotype
+        // The array implementation has to look ahead to the next haplotype to store caching info. It cannot do this if nextHapStart is before hapStart
+        hapStartIndex = (nextHapStartIndex < hapStartIndex) ? 0: nextHapStartIndex;
+
+        return result;
+    }
+
+    private void validateInputs(final byte[] haplotypeBases,
+                                final byte[] readBases,
+                                final byte[] readQuals,
+                                final byte[] insertionGOP,
+                                final byte[] deletionGOP,
+                                final byte[] overallGCP) {
         Utils.validate(initialized, "Must call initialize before calling computeReadLikelihoodGivenHaplotypeLog10");
         Utils.nonNull(haplotypeBases, "haplotypeBases may not be null");
         Utils.validateArg( haplotypeBases.length <= maxHaplotypeLength, () -> "Haplotype bases is too long, got " + haplotypeBases.length + " but max is " + maxHaplotypeLength);
@@ -302,17 +425,25 @@ public abstract class PairHMM implements Closeable{
         Utils.validateArg( insertionGOP.length == readBases.length, () -> "Read bases and read insertion quals aren't the same size: " + readBases.length + " vs " + insertionGOP.length);
         Utils.validateArg( deletionGOP.length == readBases.length, () -> "Read bases and read deletion quals aren't the same size: " + readBases.length + " vs " + deletionGOP.length);
         Utils.validateArg( overallGCP.length == readBases.length, () -> "Read bases and overall GCP aren't the same size: " + readBases.length + " vs " + overallGCP.length);
+    }
 
+    /**
+     * Runs {@link #subComputeReadLikelihoodGivenHaplotypeLog10} on validated inputs, starting at haplotype position
+     * startIndex (the columns before it must hold the results for the same read and the same bases), and checks the result.
+     */
+    private double computeValidatedReadLikelihoodGivenHaplotypeLog10(final byte[] haplotypeBases,
+                                                                     final byte[] readBases,
+                                                                     final byte[] readQuals,
+                                                                     final byte[] insertionGOP,
+                                                                     final byte[] deletionGOP,
+                                                                     final byte[] overallGCP,
+                                                                     final int startIndex,
+                                                                     final boolean recacheReadValues,
+                                                                     final int nextHapStartIndex) {
         paddedReadLength = readBases.length + 1;
         paddedHaplotypeLength = haplotypeBases.length + 1;
 
-        hapStartIndex =  (recacheReadValues) ? 0 : hapStartIndex;
-
-        // Pre-compute the difference between the current haplotype and the next one to be run
-        // Looking ahead is necessary for the ArrayLoglessPairHMM implementation
-        final int nextHapStartIndex =  (nextHaplotypeBases == null || haplotypeBases.length != nextHaplotypeBases.length) ? 0 : findFirstPositionWhereHaplotypesDiffer(haplotypeBases, nextHaplotypeBases);
-
-        final double result = subComputeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals, insertionGOP, deletionGOP, overallGCP, hapStartIndex, recacheReadValues, nextHapStartIndex);
+        final double result = subComputeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals, insertionGOP, deletionGOP, overallGCP, startIndex, recacheReadValues, nextHapStartIndex);
 
         Utils.validate(result <= 0.0, () -> "PairHMM Log Probability cannot be greater than 0: " + String.format("haplotype: %s, read: %s, result: %f, PairHMM: %s", new String(haplotypeBases), new String(readBases), result, this.getClass().getSimpleName()));
         Utils.validate(MathUtils.goodLog10Probability(result), () -> "Invalid Log Probability: " + result);
@@ -320,10 +451,6 @@ public abstract class PairHMM implements Closeable{
         // Warning: This assumes no downstream modification of the haplotype bases (saves us from copying the array). It is okay for the haplotype caller.
         previousHaplotypeBases = haplotypeBases;
 
-        // For the next iteration, the hapStartIndex for the next haploytpe becomes the index for the current haplotype
-        // The array implementation has to look ahead to the next haplotype to store caching info. It cannot do this if nextHapStart is before hapStart
-        hapStartIndex = (nextHapStartIndex < hapStartIndex) ? 0: nextHapStartIndex;
-
         return result;
     }
 
@@ -0,0 +1,315 @@
+package org.broadinstitute.hellbender.utils.pileup;
+
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reusable, column-oriented view of the pileup at a single locus.
+ * <p>
+ * Rather than holding one {@link PileupElement} per read, this class stores the state of each pileup element in
+ * parallel primitive arrays (bases, qualities, mapping qualities, read offsets and indel/clipping flags), which are
+ * filled in place by {@link org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState#nextColumnarPileup(ColumnarPileup)}
+ * and reused from one locus to the next. Traversals over deep coverage therefore allocate nothing per element;
+ * clients that still need objects can materialize them lazily with {@link #getPileupElement(int)},
+ * {@link #toReadPileup()} or {@link #toAlignmentContext()}.
+ * </p>
+ * <p>
+ * Because the same instance is refilled at every locus, clients must not retain it (or the arrays returned by its
+ * getters) beyond the processing of a single locus; materialized objects may be retained. The arrays returned by the
+ * getters may be longer than the pileup, and only the first {@link #size()} entries are valid.
+ * </p>
+ */
+public final class ColumnarPileup implements Locatable {
+
+    /** The element is a deletion w.r.t. the reference genome; see {@link PileupElement#isDeletion()}. */
+    public static final int DELETION = 1;
+    /** See {@link PileupElement#isBeforeDeletionStart()}. */
+    public static final int BEFORE_DELETION_START = 1 << 1;
+    /** See {@link PileupElement#isAfterDeletionEnd()}. */
+    public static final int AFTER_DELETION_END = 1 << 2;
+    /** See {@link PileupElement#isBeforeInsertion()}. */
+    public static final int BEFORE_INSERTION = 1 << 3;
+    /** See {@link PileupElement#isAfterInsertion()}. */
+    public static final int AFTER_INSERTION = 1 << 4;
+    /** See {@link PileupElement#isBeforeSoftClip()}. */
+    public static final int BEFORE_SOFT_CLIP = 1 << 5;
+    /** See {@link PileupElement#isAfterSoftClip()}. */
+    public static final int AFTER_SOFT_CLIP = 1 << 6;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String contig;
+    private int position;
+    private SimpleInterval location;
+
+    private int size;
+    private byte[] bases;
+    private byte[] quals;
+    private int[] mappingQuals;
+    private int[] offsets;
+    private byte[] flags;
+    private GATKRead[] reads;
+    private CigarElement[] cigarElements;
+    private int[] cigarOffsets;
+    private int[] offsetsInCurrentCigar;
+
+    /**
+     * Creates an empty pileup, which must be positioned with {@link #reset(String, int)} before elements are added.
+     */
+    public ColumnarPileup() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(final int capacity) {
+        bases = new byte[capacity];
+        quals = new byte[capacity];
+        mappingQuals = new int[capacity];
+        offsets = new int[capacity];
+        flags = new byte[capacity];
+        reads = new GATKRead[capacity];
+        cigarElements = new CigarElement[capacity];
+        cigarOffsets = new int[capacity];
+        offsetsInCurrentCigar = new int[capacity];
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > bases.length) {
+            final int newCapacity = Math.max(capacity, 2 * bases.length);
+            bases = Arrays.copyOf(bases, newCapacity);
+            quals = Arrays.copyOf(quals, newCapacity);
+            mappingQuals = Arrays.copyOf(mappingQuals, newCapacity);
+            offsets = Arrays.copyOf(offsets, newCapacity);
+            flags = Arrays.copyOf(flags, newCapacity);
+            reads = Arrays.copyOf(reads, newCapacity);
+            cigarElements = Arrays.copyOf(cigarElements, newCapacity);
+            cigarOffsets = Arrays.copyOf(cigarOffsets, newCapacity);
+            offsetsInCurrentCigar = Arrays.copyOf(offsetsInCurrentCigar, newCapacity);
+        }
+    }
+
+    /**
+     * Empties this pileup and moves it to a new locus.
+     *
+     * @param contig the contig of the locus
+     * @param position the 1-based position of the locus
+     */
+    public void reset(final String contig, final int position) {
+        Utils.nonNull(contig, "contig is null");
+        this.contig = contig;
+        this.position = position;
+        this.location = null;
+        // release the references to the previous reads, so that they can be garbage collected as soon as they leave the traversal
+        Arrays.fill(reads, 0, size, null);
+        Arrays.fill(cigarElements, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Adds an element to this pileup. The arguments have the same meaning as those of
+     * {@link PileupElement#PileupElement(GATKRead, int, CigarElement, int, int)}, but for performance they are not validated.
+     */
+    public void add(final GATKRead read,
+                    final int baseOffset,
+                    final CigarElement currentElement,
+                    final int currentCigarOffset,
+                    final int offsetInCurrentCigar) {
+        ensureCapacity(size + 1);
+        final boolean isDeletion = currentElement.getOperator() == CigarOperator.D;
+        reads[size] = read;
+        offsets[size] = baseOffset;
+        cigarElements[size] = currentElement;
+        cigarOffsets[size] = currentCigarOffset;
+        offsetsInCurrentCigar[size] = offsetInCurrentCigar;
+        bases[size] = isDeletion ? PileupElement.DELETION_BASE : read.getBase(baseOffset);
+        quals[size] = isDeletion ? PileupElement.DELETION_QUAL : read.getBaseQuality(baseOffset);
+        mappingQuals[size] = read.getMappingQuality();
+        flags[size] = (byte) computeFlags(read, currentElement, currentCigarOffset, offsetInCurrentCigar, isDeletion);
+        size++;
+    }
+
+    /**
+     * Adds a copy of the state of an existing pileup element to this pileup.
+     */
+    public void add(final PileupElement element) {
+        Utils.nonNull(element, "element is null");
+        add(element.getRead(), element.getOffset(), element.getCurrentCigarElement(), element.getCurrentCigarOffset(), element.getOffsetInCurrentCigar());
+    }
+
+    // the cigar only needs to be examined at the first and last positions of an element, which is where all flags are set
+    private static int computeFlags(final GATKRead read, final CigarElement currentElement, final int currentCigarOffset,
+                                    final int offsetInCurrentCigar, final boolean isDeletion) {
+        int result = isDeletion ? DELETION : 0;
+        if (offsetInCurrentCigar == currentElement.getLength() - 1 && currentCigarOffset + 1 < read.numCigarElements()) {
+            final CigarOperator next = read.getCigarElement(currentCigarOffset + 1).getOperator();
+            result |= next == CigarOperator.I ? BEFORE_INSERTION : next == CigarOperator.S ? BEFORE_SOFT_CLIP : 0;
+            if (!isDeletion && nearestOnGenomeOperator(read, currentCigarOffset, 1) == CigarOperator.D) {
+                result |= BEFORE_DELETION_START;
+            }
+        }
+        if (offsetInCurrentCigar == 0 && currentCigarOffset > 0) {
+            final CigarOperator previous = read.getCigarElement(currentCigarOffset - 1).getOperator();
+            result |= previous == CigarOperator.I ? AFTER_INSERTION : previous == CigarOperator.S ? AFTER_SOFT_CLIP : 0;
+            if (!isDeletion && nearestOnGenomeOperator(read, currentCigarOffset, -1) == CigarOperator.D) {
+                result |= AFTER_DELETION_END;
+            }
+        }
+        return result;
+    }
+
+    private static CigarOperator nearestOnGenomeOperator(final GATKRead read, final int currentCigarOffset, final int increment) {
+        final int nCigarElements = read.numCigarElements();
+        for (int i = currentCigarOffset + increment; i >= 0 && i < nCigarElements; i += increment) {
+            final CigarOperator op = read.getCigarElement(i).getOperator();
+            if (op == CigarOperator.M || op == CigarOperator.EQ || op == CigarOperator.X || op == CigarOperator.D) {
+                return op;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getContig() {
+        return contig;
+    }
+
+    @Override
+    public int getStart() {
+        return position;
+    }
+
+    @Override
+    public int getEnd() {
+        return position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the locus of this pileup; the interval is created on the first call at each locus
+     */
+    public SimpleInterval getLocation() {
+        if (location == null) {
+            location = new SimpleInterval(contig, position, position);
+        }
+        return location;
+    }
+
+    /**
+     * @return the number of elements in this pileup
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the bases of the elements, with {@link PileupElement#DELETION_BASE} for deletions
+     */
+    public byte[] getBases() {
+        return bases;
+    }
+
+    /**
+     * @return the base qualities of the elements, with {@link PileupElement#DELETION_QUAL} for deletions
+     */
+    public byte[] getQuals() {
+        return quals;
+    }
+
+    public int[] getMappingQuals() {
+        return mappingQuals;
+    }
+
+    /**
+     * @return the offsets into the reads; see {@link PileupElement#getOffset()}
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * @return the flags of the elements, as a bitwise combination of {@link #DELETION}, {@link #BEFORE_DELETION_START},
+     * {@link #AFTER_DELETION_END}, {@link #BEFORE_INSERTION}, {@link #AFTER_INSERTION}, {@link #BEFORE_SOFT_CLIP}
+     * and {@link #AFTER_SOFT_CLIP}
+     */
+    public byte[] getFlags() {
+        return flags;
+    }
+
+    public byte getBase(final int i) {
+        return bases[Utils.validIndex(i, size)];
+    }
+
+    public byte getQual(final int i) {
+        return quals[Utils.validIndex(i, size)];
+    }
+
+    public int getMappingQual(final int i) {
+        return mappingQuals[Utils.validIndex(i, size)];
+    }
+
+    public int getOffset(final int i) {
+        return offsets[Utils.validIndex(i, size)];
+    }
+
+    public GATKRead getRead(final int i) {
+        return reads[Utils.validIndex(i, size)];
+    }
+
+    /**
+     * @return true if the element {@code i} has any of the given flags
+     */
+    public boolean hasAnyFlag(final int i, final int flagMask) {
+        return (flags[Utils.validIndex(i, size)] & flagMask) != 0;
+    }
+
+    public boolean isDeletion(final int i) {
+        return hasAnyFlag(i, DELETION);
+    }
+
+    /**
+     * Creates the {@link PileupElement} for element {@code i}.
+     */
+    public PileupElement getPileupElement(final int i) {
+        Utils.validIndex(i, size);
+        return new PileupElement(reads[i], offsets[i], cigarElements[i], cigarOffsets[i], offsetsInCurrentCigar[i]);
+    }
+
+    /**
+     * Creates a {@link ReadPileup} with the elements of this pileup, in the same order.
+     */
+    public ReadPileup toReadPileup() {
+        final List<PileupElement> elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            elements.add(getPileupElement(i));
+        }
+        return new ReadPileup(getLocation(), elements);
+    }
+
+    /**
+     * Creates the {@link AlignmentContext} that {@link org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState}
+     * would have returned for this locus (or an empty one if this pileup is empty).
+     */
+    public AlignmentContext toAlignmentContext() {
+        return new AlignmentContext(getLocation(), toReadPileup());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:%d with %d elements", contig, position, size);
+    }
+}
@@ -64,7 +64,7 @@ public final class HeaderlessSAMRecordCoordinateComparator implements Comparator
      *
      * @return negative if samRecord1 < samRecord2,  0 if equal, else positive
      */
-    private int compareCoordinates( final SAMRecord samRecord1, final SAMRecord samRecord2 ) {
+    public int compareCoordinates( final SAMRecord samRecord1, final SAMRecord samRecord2 ) {
         final int refIndex1 = header.getSequenceIndex(samRecord1.getReferenceName());
         final int refIndex2 = header.getSequenceIndex(samRecord2.getReferenceName());
 
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.utils.read;
 
+import htsjdk.samtools.BAMIndex;
 import htsjdk.samtools.Cigar;
 import htsjdk.samtools.CigarElement;
 import htsjdk.samtools.CigarOperator;
@@ -13,11 +14,16 @@ import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.SAMTag;
 import htsjdk.samtools.SAMUtils;
 import htsjdk.samtools.SamStreams;
+import htsjdk.samtools.SplittingIndexingBAMFileWriter;
 import htsjdk.samtools.cram.build.CramIO;
+import htsjdk.samtools.util.Md5CalculatingOutputStream;
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.util.Arrays;
@@ -36,7 +42,9 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.BaseUtils;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.recalibration.EventType;
+import org.seqdoop.hadoop_bam.SplittingBAMIndexer;
 
 /**
  * A miscellaneous collection of utilities for working with reads, headers, etc.
@@ -110,6 +118,18 @@ public final class ReadUtils {
         }
     }
 
+    /**
+     * Checks whether the header says that the reads of each template are next to each other, either because the reads
+     * are sorted by name or because they are grouped by name.
+     *
+     * @param header the header of the reads
+     * @return true if the reads are queryname sorted or query grouped
+     */
+    public static boolean isQueryGrouped( final SAMFileHeader header ) {
+        Utils.nonNull(header);
+        return header.getSortOrder() == SAMFileHeader.SortOrder.queryname || header.getGroupOrder() == SAMFileHeader.GroupOrder.query;
+    }
+
     /**
      * Retrieve the original base qualities of the given read, if present,
      * as stored in the OQ attribute.
@@ -1059,6 +1079,32 @@ public final class ReadUtils {
         final boolean preSorted,
         boolean createOutputBamIndex,
         final boolean createMD5)
+    {
+        return createCommonSAMWriter(outputPath, referenceFile, header, preSorted, createOutputBamIndex, createMD5, false);
+    }
+
+    /**
+     * Create a common SAMFileWriter for use with GATK tools.
+     *
+     * @param outputPath - if this file has a .cram extension then a reference is required. Can not be null.
+     * @param referenceFile - the reference source to use. Can not be null if a output file has a .cram extension.
+     * @param header - header to be used for the output writer
+     * @param preSorted - if true then the records must already be sorted to match the header sort order
+     * @param createOutputBamIndex - if true an index will be created for .BAM and .CRAM files
+     * @param createMD5 - if true an MD5 file will be created
+     * @param createSplittingIndex - if true a Hadoop-BAM splitting index will be created for .BAM files while they are
+     *                             written, so that they can be split efficiently by Spark tools
+     *
+     * @return SAMFileWriter
+     */
+    public static SAMFileWriter createCommonSAMWriter(
+        final Path outputPath,
+        final File referenceFile,
+        final SAMFileHeader header,
+        final boolean preSorted,
+        boolean createOutputBamIndex,
+        final boolean createMD5,
+        boolean createSplittingIndex)
     {
         Utils.nonNull(outputPath);
         Utils.nonNull(header);
@@ -1068,11 +1114,52 @@ public final class ReadUtils {
                 outputPath +  ". Index file creation requires reads in coordinate sorted order.");
             createOutputBamIndex = false;
         }
+        if (createSplittingIndex && !IOUtils.isBamFileName(outputPath.toString())) {
+            logger.warn("Skipping splitting index file creation for: " +
+                outputPath +  ". Splitting index file creation requires a BAM file.");
+            createSplittingIndex = false;
+        }
 
+        if (createSplittingIndex) {
+            return createSplittingIndexingBAMWriter(outputPath, header, preSorted, createOutputBamIndex, createMD5);
+        }
         final SAMFileWriterFactory factory = new SAMFileWriterFactory().setCreateIndex(createOutputBamIndex).setCreateMd5File(createMD5);
         return ReadUtils.createCommonSAMWriterFromFactory(factory, outputPath, referenceFile, header, preSorted);
     }
 
+    /**
+     * Create a BAM file writer that writes the Hadoop-BAM splitting index of the file (and optionally its BAM index and
+     * MD5 digest) next to it, as it writes the records.
+     */
+    private static SAMFileWriter createSplittingIndexingBAMWriter(
+        final Path outputPath,
+        final SAMFileHeader header,
+        final boolean preSorted,
+        final boolean createOutputBamIndex,
+        final boolean createMD5)
+    {
+        try {
+            OutputStream output = new BufferedOutputStream(Files.newOutputStream(outputPath));
+            if (createMD5) {
+                output = new Md5CalculatingOutputStream(output, outputPath.resolveSibling(outputPath.getFileName() + ".md5"));
+            }
+            final OutputStream splittingIndexOutput = new BufferedOutputStream(Files.newOutputStream(
+                    outputPath.resolveSibling(outputPath.getFileName() + SplittingBAMIndexer.OUTPUT_FILE_EXTENSION)));
+            // the BAM index is named as htsjdk names it
+            final OutputStream indexOutput = createOutputBamIndex ? new BufferedOutputStream(Files.newOutputStream(
+                    outputPath.resolveSibling(IOUtils.replaceExtension(outputPath.getFileName().toString(), BAMIndex.BAMIndexSuffix)))) : null;
+
+            final SplittingIndexingBAMFileWriter writer = new SplittingIndexingBAMFileWriter(output, outputPath.toUri().toString(),
+                    splittingIndexOutput, SplittingBAMIndexer.DEFAULT_GRANULARITY, indexOutput);
+            final SAMFileHeader writerHeader = header.clone();
+            writer.setSortOrder(writerHeader.getSortOrder(), preSorted);
+            writer.setHeader(writerHeader);
+            return writer;
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(outputPath.toUri().toString(), "couldn't create the BAM writer", e);
+        }
+    }
+
     /**
      * Create a common SAMFileWriter from a factory for use with GATK tools. Assumes that if the factory has been set
      * to create an index, the header must be set to coordinate sorted.
@@ -0,0 +1,208 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.broadinstitute.hellbender.utils.MathUtils.fastRound;
+import static org.broadinstitute.hellbender.utils.QualityUtils.boundQual;
+import static org.broadinstitute.hellbender.utils.recalibration.RecalDatum.MAX_RECALIBRATED_Q_SCORE;
+
+/**
+ * A dense lookup table of the recalibrated base substitution qualities of a {@link RecalibrationTables}, for applying
+ * BQSR to many bases.
+ *
+ * The recalibrated quality of a base is the sum of a prior that only depends on its read group and reported quality,
+ * and of a shift for each additional covariate (context and cycle) that only depends on the read group, the reported
+ * quality and the key of that covariate (see {@link org.broadinstitute.hellbender.transformers.BQSRReadTransformer#hierarchicalBayesianQualityEstimate}).
+ * The table keeps these as primitive arrays indexed by the keys, so a base takes a few array reads rather than a
+ * {@link org.broadinstitute.hellbender.utils.collections.NestedIntegerArray} lookup and the Bayesian estimate per covariate.
+ * The final quantization of the qualities is a byte array too.
+ *
+ * The table is filled in lazily, as the keys are met: a row for each (read group, reported quality), with a column for
+ * each key of an additional covariate met so far, so only the combinations present in the data take memory. The
+ * qualities are exactly those of the Bayesian estimate.
+ *
+ * This class is not thread-safe: each thread applying BQSR should have its own table, as it has its own
+ * {@link org.broadinstitute.hellbender.transformers.BQSRReadTransformer}.
+ */
+public final class RecalibratedQualityTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
+
+    private final RecalibrationTables recalibrationTables;
+    private final double globalQScorePrior;
+    private final int specialCovariateCount;
+    private final int additionalCovariateCount;
+
+    // the final (quantized) quality of each recalibrated quality
+    private final byte[] finalQuals;
+
+    // for each additional covariate, the column of each of its keys in the rows (-1 for keys not met yet)
+    private final int[][] keyColumns;
+    private final int[] columnCounts;
+
+    // by read group key, null for read groups not met yet
+    private ReadGroupRow[] readGroupRows;
+    private final int numQualityKeys;
+
+    /**
+     * @param recalibrationTables the recalibration tables
+     * @param covariates the covariates of the tables
+     * @param globalQScorePrior the global prior of the reported qualities, or a non-positive value to use the reported
+     *                          quality of each read group
+     * @param quantizedQuals the quantized quality of each recalibrated quality
+     * @param staticQuantizedMapping the static quantization of the quantized qualities, or null for none
+     */
+    public RecalibratedQualityTable(final RecalibrationTables recalibrationTables, final StandardCovariateList covariates,
+                                    final double globalQScorePrior, final List<Byte> quantizedQuals, final byte[] staticQuantizedMapping) {
+        Utils.nonNull(recalibrationTables);
+        Utils.nonNull(covariates);
+        Utils.nonNull(quantizedQuals);
+        this.recalibrationTables = recalibrationTables;
+        this.globalQScorePrior = globalQScorePrior;
+        specialCovariateCount = covariates.numberOfSpecialCovariates();
+        additionalCovariateCount = covariates.size() - specialCovariateCount;
+
+        finalQuals = new byte[Math.min(quantizedQuals.size(), MAX_RECALIBRATED_Q_SCORE + 1)];
+        for (int qual = 0; qual < finalQuals.length; qual++) {
+            final byte quantizedQual = quantizedQuals.get(qual);
+            finalQuals[qual] = staticQuantizedMapping == null ? quantizedQual : staticQuantizedMapping[quantizedQual];
+        }
+
+        keyColumns = new int[additionalCovariateCount][];
+        for (int i = 0; i < additionalCovariateCount; i++) {
+            keyColumns[i] = new int[covariates.get(specialCovariateCount + i).maximumKeyValue() + 1];
+            Arrays.fill(keyColumns[i], -1);
+        }
+        columnCounts = new int[additionalCovariateCount];
+
+        readGroupRows = new ReadGroupRow[covariates.getReadGroupCovariate().maximumKeyValue() + 1];
+        numQualityKeys = covariates.getQualityScoreCovariate().maximumKeyValue() + 1;
+    }
+
+    /**
+     * @param readGroupKey the key of a read group
+     * @return whether the tables have data for the read group, and so whether its reads may be recalibrated
+     */
+    public boolean hasReadGroup(final int readGroupKey) {
+        return getReadGroupRow(readGroupKey).empiricalQualRG != null;
+    }
+
+    /**
+     * Returns the recalibrated, quantized quality of a base, which must be in a read group for which
+     * {@link #hasReadGroup} is true.
+     *
+     * @param keySet the base substitution keys of the covariates of the base
+     * @return the recalibrated quality of the base
+     */
+    public byte getRecalibratedQual(final int[] keySet) {
+        final int readGroupKey = keySet[0];
+        final int qualityKey = keySet[1];
+        final QualityRow row = getQualityRow(getReadGroupRow(readGroupKey), readGroupKey, qualityKey);
+
+        //Note: this is under very heavy use in applyBQSR. Keep it slim.
+        double deltaQCovariates = 0.0;
+        for (int i = 0; i < additionalCovariateCount; i++) {
+            final int key = keySet[specialCovariateCount + i];
+            if (key >= 0) {
+                final int[] columns = keyColumns[i];
+                final int column = key < columns.length ? columns[key] : -1;
+                final double[] deltas = row.deltas[i];
+                final double delta = column >= 0 && column < deltas.length ? deltas[column] : Double.NaN;
+                deltaQCovariates += Double.isNaN(delta) ? computeDelta(row, readGroupKey, qualityKey, i, key) : delta;
+            }
+        }
+        return finalQuals[boundQual(fastRound(row.conditionalPrior + deltaQCovariates), MAX_RECALIBRATED_Q_SCORE)];
+    }
+
+    private ReadGroupRow getReadGroupRow(final int readGroupKey) {
+        if (readGroupKey >= readGroupRows.length) {
+            readGroupRows = Arrays.copyOf(readGroupRows, readGroupKey + 1);
+        }
+        ReadGroupRow row = readGroupRows[readGroupKey];
+        if (row == null) {
+            row = new ReadGroupRow(recalibrationTables.getReadGroupTable().get2Keys(readGroupKey, BASE_SUBSTITUTION_INDEX), globalQScorePrior, numQualityKeys);
+            readGroupRows[readGroupKey] = row;
+        }
+        return row;
+    }
+
+    private QualityRow getQualityRow(final ReadGroupRow readGroupRow, final int readGroupKey, final int qualityKey) {
+        if (qualityKey >= readGroupRow.qualityRows.length) {
+            readGroupRow.qualityRows = Arrays.copyOf(readGroupRow.qualityRows, qualityKey + 1);
+        }
+        QualityRow row = readGroupRow.qualityRows[qualityKey];
+        if (row == null) {
+            final RecalDatum empiricalQualQS = recalibrationTables.getQualityScoreTable().get3Keys(readGroupKey, qualityKey, BASE_SUBSTITUTION_INDEX);
+            row = new QualityRow(readGroupRow, empiricalQualQS, additionalCovariateCount);
+            readGroupRow.qualityRows[qualityKey] = row;
+        }
+        return row;
+    }
+
+    // computes the shift of an additional covariate for a key, and stores it in the row
+    private double computeDelta(final QualityRow row, final int readGroupKey, final int qualityKey, final int covariate, final int key) {
+        int[] columns = keyColumns[covariate];
+        if (key >= columns.length) {
+            final int length = columns.length;
+            columns = keyColumns[covariate] = Arrays.copyOf(columns, key + 1);
+            Arrays.fill(columns, length, columns.length, -1);
+        }
+        if (columns[key] < 0) {
+            columns[key] = columnCounts[covariate]++;
+        }
+        final int column = columns[key];
+        double[] deltas = row.deltas[covariate];
+        if (column >= deltas.length) {
+            final int length = deltas.length;
+            deltas = row.deltas[covariate] = Arrays.copyOf(deltas, Math.max(columnCounts[covariate], 2 * length));
+            Arrays.fill(deltas, length, deltas.length, Double.NaN);
+        }
+
+        final RecalDatum empiricalQualCov = recalibrationTables.getTable(specialCovariateCount + covariate).get4Keys(readGroupKey, qualityKey, key, BASE_SUBSTITUTION_INDEX);
+        final double delta = empiricalQualCov == null ? 0.0 : empiricalQualCov.getEmpiricalQuality(row.conditionalPrior) - row.conditionalPrior;
+        deltas[column] = delta;
+        return delta;
+    }
+
+    private static final class ReadGroupRow implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final RecalDatum empiricalQualRG;
+        private final double epsilon;
+        private final double globalDeltaQ;
+        private QualityRow[] qualityRows;
+
+        ReadGroupRow(final RecalDatum empiricalQualRG, final double globalQScorePrior, final int numQualityKeys) {
+            this.empiricalQualRG = empiricalQualRG;
+            if (empiricalQualRG == null) {
+                epsilon = globalDeltaQ = 0.0;
+            } else {
+                epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+                globalDeltaQ = empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
+            }
+            qualityRows = new QualityRow[numQualityKeys];
+        }
+    }
+
+    private static final class QualityRow implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final double conditionalPrior;
+        // by additional covariate and then by column, NaN for keys whose shift is not known yet
+        private final double[][] deltas;
+
+        QualityRow(final ReadGroupRow readGroupRow, final RecalDatum empiricalQualQS, final int additionalCovariateCount) {
+            final double globalDeltaQ = readGroupRow.globalDeltaQ;
+            final double epsilon = readGroupRow.epsilon;
+            final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
+            conditionalPrior = deltaQReported + globalDeltaQ + epsilon;
+            deltas = new double[additionalCovariateCount][0];
+        }
+    }
+}
@@ -16,7 +16,10 @@ import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.storage.StorageLevel;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSink;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.read.*;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -25,6 +28,7 @@ import scala.Tuple2;
 
 import java.io.*;
 import java.util.Comparator;
+import java.util.Iterator;
 
 /**
  * Miscellaneous Spark-related utilities
@@ -119,6 +123,21 @@ public final class SparkUtils {
         }
     }
 
+    /**
+     * Gets a Spark storage level from its name (such as MEMORY_AND_DISK_SER), as given by a command line argument.
+     * @param argumentName the name of the argument, for the error message
+     * @param storageLevelName the name of the storage level
+     * @return the storage level
+     */
+    public static StorageLevel getStorageLevel(final String argumentName, final String storageLevelName) {
+        Utils.nonNull(storageLevelName);
+        try {
+            return StorageLevel.fromString(storageLevelName);
+        } catch (final IllegalArgumentException e) {
+            throw new CommandLineException.BadArgumentValue(argumentName, storageLevelName, "not a Spark storage level");
+        }
+    }
+
     /**
      * Sorts the given reads in coordinate sort order.
      * @param reads the reads to sort
@@ -169,6 +188,43 @@ public final class SparkUtils {
         return readVoidPairs.keys();
     }
 
+    /**
+     * Checks that reads that are expected to be coordinate sorted already are sorted by position (ties, which are
+     * ordered in different ways by different tools, are not checked). The reads are passed through unchanged as they
+     * are consumed, and an exception is thrown at the first read that has a lower position than the previous read of
+     * its partition. The order across partitions is not checked, and reads in any other sort order are not checked.
+     * @param reads the reads, which should be sorted and partitioned so that all the reads in partition i are less
+     *              than those in partition i+1
+     * @param header the header specifying the sort order
+     * @return the reads
+     */
+    public static JavaRDD<SAMRecord> checkReadsAreSortedWithinPartitions(final JavaRDD<SAMRecord> reads, final SAMFileHeader header) {
+        if (header.getSortOrder() != SAMFileHeader.SortOrder.coordinate) {
+            return reads;
+        }
+        final HeaderlessSAMRecordCoordinateComparator comparator = new HeaderlessSAMRecordCoordinateComparator(header);
+        return reads.mapPartitions(readIterator -> new Iterator<SAMRecord>() {
+            private SAMRecord previous = null;
+
+            @Override
+            public boolean hasNext() {
+                return readIterator.hasNext();
+            }
+
+            @Override
+            public SAMRecord next() {
+                final SAMRecord read = readIterator.next();
+                if (previous != null && comparator.compareCoordinates(previous, read) > 0) {
+                    throw new GATKException("Reads are not in coordinate order: " + read.getReadName() + " at "
+                            + read.getReferenceName() + ":" + read.getAlignmentStart() + " comes after " + previous.getReadName()
+                            + " at " + previous.getReferenceName() + ":" + previous.getAlignmentStart());
+                }
+                previous = read;
+                return read;
+            }
+        });
+    }
+
     //Returns the comparator to use or null if no sorting is required.
     private static Comparator<SAMRecord> getSAMRecordComparator(final SAMFileHeader header) {
         switch (header.getSortOrder()){
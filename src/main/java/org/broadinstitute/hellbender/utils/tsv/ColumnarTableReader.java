@@ -0,0 +1,232 @@
+package org.broadinstitute.hellbender.utils.tsv;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the typed, binary columnar sidecar of a tab-separated-value table written by a {@link ColumnarTableWriter}.
+ * <p>
+ * Each column is memory-mapped and decoded directly into a primitive array (or, for dictionary-encoded string columns,
+ * into an array that shares a single instance per distinct value), so that large tables can be loaded without
+ * the per-value string parsing performed by {@link TableReader}.
+ * </p>
+ * <p>
+ * A sidecar is only used if it is current, that is, if the length and modification time of the table file match those
+ * recorded when the sidecar was written; callers should check {@link #hasCurrentSidecar(File)} and otherwise fall back
+ * to reading the table with a {@link TableReader}.
+ * </p>
+ */
+public final class ColumnarTableReader implements Closeable {
+
+    /**
+     * Extension appended to the table file name to obtain the sidecar file name.
+     */
+    public static final String SIDECAR_EXTENSION = ".columns";
+
+    static final int MAGIC = 0x47434F4C;    //"GCOL"
+    static final int VERSION = 1;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;     //column data; the header is big-endian
+
+    enum ColumnType {
+        INT, DOUBLE, STRING;
+
+        static ColumnType of(final Object values) {
+            if (values instanceof int[]) {
+                return INT;
+            }
+            if (values instanceof double[]) {
+                return DOUBLE;
+            }
+            if (values instanceof String[]) {
+                return STRING;
+            }
+            throw new IllegalArgumentException("Unsupported column type: " + values.getClass());
+        }
+    }
+
+    private static final class Column {
+        private final ColumnType type;
+        private final long offset;
+        private final int length;
+
+        private Column(final ColumnType type, final long offset, final int length) {
+            this.type = type;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class Header {
+        private final long tableLength;
+        private final long tableLastModified;
+        private final int numRows;
+        private final Map<String, Column> columns;
+
+        private Header(final long tableLength, final long tableLastModified, final int numRows, final Map<String, Column> columns) {
+            this.tableLength = tableLength;
+            this.tableLastModified = tableLastModified;
+            this.numRows = numRows;
+            this.columns = columns;
+        }
+
+        private boolean matches(final File tableFile) {
+            return tableFile.length() == tableLength && tableFile.lastModified() == tableLastModified;
+        }
+    }
+
+    private final File sidecarFile;
+    private final FileChannel channel;
+    private final Header header;
+    private final TableColumnCollection columns;
+
+    /**
+     * Opens the current sidecar of a table file.
+     *
+     * @param tableFile the table file.
+     * @throws IllegalArgumentException if {@code tableFile} is {@code null}.
+     * @throws IOException              if one was raised when opening or reading the sidecar.
+     * @throws UserException.BadInput   if the sidecar is malformed or does not match the table file.
+     */
+    public ColumnarTableReader(final File tableFile) throws IOException {
+        Utils.nonNull(tableFile, "The table file cannot be null.");
+        sidecarFile = getSidecarFile(tableFile);
+        header = readHeader(sidecarFile);
+        if (!header.matches(tableFile)) {
+            throw new UserException.BadInput(String.format("Columnar sidecar %s does not match table file %s.", sidecarFile, tableFile));
+        }
+        columns = new TableColumnCollection(new ArrayList<>(header.columns.keySet()));
+        channel = FileChannel.open(sidecarFile.toPath(), StandardOpenOption.READ);
+    }
+
+    /**
+     * Returns the sidecar file corresponding to a table file.
+     */
+    public static File getSidecarFile(final File tableFile) {
+        Utils.nonNull(tableFile, "The table file cannot be null.");
+        return new File(tableFile.getPath() + SIDECAR_EXTENSION);
+    }
+
+    /**
+     * Returns whether a table file has a well-formed sidecar that matches its current length and modification time.
+     */
+    public static boolean hasCurrentSidecar(final File tableFile) {
+        final File sidecarFile = getSidecarFile(tableFile);
+        if (!sidecarFile.isFile()) {
+            return false;
+        }
+        try {
+            return readHeader(sidecarFile).matches(tableFile);
+        } catch (final IOException | UserException.BadInput e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return never {@code null}.
+     */
+    public TableColumnCollection columns() {
+        return columns;
+    }
+
+    public int numRows() {
+        return header.numRows;
+    }
+
+    public int[] getIntColumn(final String name) throws IOException {
+        final int[] values = new int[header.numRows];
+        mapColumn(name, ColumnType.INT).asIntBuffer().get(values);
+        return values;
+    }
+
+    public double[] getDoubleColumn(final String name) throws IOException {
+        final double[] values = new double[header.numRows];
+        mapColumn(name, ColumnType.DOUBLE).asDoubleBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Returns the values of a string column; rows with equal values share the same {@link String} instance.
+     */
+    public String[] getStringColumn(final String name) throws IOException {
+        final ByteBuffer buffer = mapColumn(name, ColumnType.STRING);
+        final int[] codes = new int[header.numRows];
+        buffer.asIntBuffer().get(codes);
+        buffer.position(codes.length * Integer.BYTES);
+        final String[] dictionary = new String[buffer.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            final byte[] entry = new byte[buffer.getInt()];
+            buffer.get(entry);
+            dictionary[i] = new String(entry, StandardCharsets.UTF_8);
+        }
+        final String[] values = new String[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            values[i] = dictionary[codes[i]];
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer mapColumn(final String name, final ColumnType type) throws IOException {
+        Utils.nonNull(name, "The column name cannot be null.");
+        final Column column = header.columns.get(name);
+        if (column == null) {
+            throw new UserException.BadInput(String.format("Columnar sidecar %s does not contain column %s.", sidecarFile, name));
+        }
+        if (column.type != type) {
+            throw new UserException.BadInput(String.format("Column %s in columnar sidecar %s has type %s, not %s.", name, sidecarFile, column.type, type));
+        }
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, column.offset, column.length);
+        buffer.order(BYTE_ORDER);
+        return buffer;
+    }
+
+    private static Header readHeader(final File sidecarFile) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecarFile)))) {
+            final int headerLength = in.readInt();
+            if (in.readInt() != MAGIC) {
+                throw new UserException.BadInput(String.format("File %s is not a columnar table sidecar.", sidecarFile));
+            }
+            final int version = in.readInt();
+            if (version != VERSION) {
+                throw new UserException.BadInput(String.format("Columnar table sidecar %s has unsupported version %d.", sidecarFile, version));
+            }
+            final long tableLength = in.readLong();
+            final long tableLastModified = in.readLong();
+            final int numRows = in.readInt();
+            final int numColumns = in.readInt();
+            final Map<String, Column> columns = new LinkedHashMap<>(numColumns);
+            long offset = Integer.BYTES + headerLength;
+            for (int i = 0; i < numColumns; i++) {
+                final String name = in.readUTF();
+                final int typeOrdinal = in.readByte();
+                if (typeOrdinal < 0 || typeOrdinal >= ColumnType.values().length) {
+                    throw new UserException.BadInput(String.format("Columnar table sidecar %s has unknown column type %d.", sidecarFile, typeOrdinal));
+                }
+                final int length = in.readInt();
+                columns.put(name, new Column(ColumnType.values()[typeOrdinal], offset, length));
+                offset += length;
+            }
+            if (offset != sidecarFile.length()) {
+                throw new UserException.BadInput(String.format("Columnar table sidecar %s is truncated or malformed.", sidecarFile));
+            }
+            return new Header(tableLength, tableLastModified, numRows, columns);
+        } catch (final EOFException e) {
+            throw new UserException.BadInput(String.format("Columnar table sidecar %s is truncated.", sidecarFile), e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.broadinstitute.hellbender.utils.tsv;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a typed, binary columnar sidecar for a tab-separated-value table that has already been written
+ * by a {@link TableWriter}, so that the table can later be loaded by a {@link ColumnarTableReader}
+ * without parsing each value from a string.
+ * <p>
+ * The sidecar is written to {@link ColumnarTableReader#getSidecarFile(File)} and records the length and
+ * modification time of the table file; readers ignore sidecars that no longer match the table.
+ * Columns are added in table-column order using the typed {@code add*Column} methods and are written to disk on {@link #close()}.
+ * </p>
+ * <p>
+ * Example:
+ * <pre>
+ *         try (final ColumnarTableWriter writer = new ColumnarTableWriter(tableFile, people.size())) {
+ *             writer.addStringColumn("name", people.stream().map(p -&gt; p.name).toArray(String[]::new));
+ *             writer.addIntColumn("age", people.stream().mapToInt(p -&gt; p.age).toArray());
+ *             writer.addDoubleColumn("net.worth", people.stream().mapToDouble(p -&gt; p.netWorth).toArray());
+ *         }
+ * </pre>
+ * </p>
+ */
+public final class ColumnarTableWriter implements Closeable {
+
+    private final File tableFile;
+    private final int numRows;
+
+    /**
+     * Column values, keyed by column name in insertion order; values are {@code int[]}, {@code double[]} or {@code String[]}.
+     */
+    private final Map<String, Object> columns = new LinkedHashMap<>();
+
+    private boolean closed = false;
+
+    /**
+     * Creates a new sidecar writer for a table file.
+     *
+     * @param tableFile the table file, which must already have been written.
+     * @param numRows   the number of data lines in the table.
+     * @throws IllegalArgumentException if {@code tableFile} is {@code null} or {@code numRows} is negative.
+     */
+    public ColumnarTableWriter(final File tableFile, final int numRows) {
+        this.tableFile = Utils.nonNull(tableFile, "The table file cannot be null.");
+        this.numRows = ParamUtils.isPositiveOrZero(numRows, "The number of rows cannot be negative.");
+    }
+
+    public ColumnarTableWriter addIntColumn(final String name, final int[] values) {
+        return addColumn(name, Utils.nonNull(values), values.length);
+    }
+
+    public ColumnarTableWriter addDoubleColumn(final String name, final double[] values) {
+        return addColumn(name, Utils.nonNull(values), values.length);
+    }
+
+    /**
+     * Adds a string column, which is dictionary-encoded; this is efficient for columns with few distinct values
+     * (e.g., contig names).
+     */
+    public ColumnarTableWriter addStringColumn(final String name, final String[] values) {
+        return addColumn(name, Utils.nonNull(values), values.length);
+    }
+
+    private ColumnarTableWriter addColumn(final String name, final Object values, final int length) {
+        Utils.nonNull(name, "The column name cannot be null.");
+        Utils.validate(!closed, "The writer has already been closed.");
+        Utils.validateArg(!columns.containsKey(name), () -> "Duplicate column name: " + name);
+        Utils.validateArg(length == numRows,
+                () -> String.format("Column %s has %d values but the table has %d rows.", name, length, numRows));
+        columns.put(name, values);
+        return this;
+    }
+
+    /**
+     * Writes the header and all columns to the sidecar file.
+     *
+     * @throws IOException if one was raised when writing the sidecar file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        final List<byte[]> encodedColumns = new ArrayList<>(columns.size());
+        for (final Object values : columns.values()) {
+            encodedColumns.add(encodeColumn(values));
+        }
+
+        final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        final DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(ColumnarTableReader.MAGIC);
+        header.writeInt(ColumnarTableReader.VERSION);
+        header.writeLong(tableFile.length());
+        header.writeLong(tableFile.lastModified());
+        header.writeInt(numRows);
+        header.writeInt(columns.size());
+        int index = 0;
+        for (final Map.Entry<String, Object> column : columns.entrySet()) {
+            header.writeUTF(column.getKey());
+            header.writeByte(ColumnarTableReader.ColumnType.of(column.getValue()).ordinal());
+            header.writeInt(encodedColumns.get(index++).length);
+        }
+        header.flush();
+
+        final File sidecarFile = ColumnarTableReader.getSidecarFile(tableFile);
+        try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(sidecarFile))) {
+            //the header is written big-endian by DataOutputStream and is prefixed by its length so that readers can skip to the columns
+            out.write(ByteBuffer.allocate(Integer.BYTES).putInt(headerBytes.size()).array());
+            headerBytes.writeTo(out);
+            for (final byte[] encodedColumn : encodedColumns) {
+                out.write(encodedColumn);
+            }
+        }
+    }
+
+    //columns are written in a fixed byte order so that readers can view them directly as primitive buffers
+    private static byte[] encodeColumn(final Object values) {
+        if (values instanceof int[]) {
+            final int[] intValues = (int[]) values;
+            final ByteBuffer buffer = ByteBuffer.allocate(intValues.length * Integer.BYTES).order(ColumnarTableReader.BYTE_ORDER);
+            buffer.asIntBuffer().put(intValues);
+            return buffer.array();
+        }
+        if (values instanceof double[]) {
+            final double[] doubleValues = (double[]) values;
+            final ByteBuffer buffer = ByteBuffer.allocate(doubleValues.length * Double.BYTES).order(ColumnarTableReader.BYTE_ORDER);
+            buffer.asDoubleBuffer().put(doubleValues);
+            return buffer.array();
+        }
+        //string columns are stored as the per-row dictionary codes followed by the dictionary itself
+        final String[] stringValues = (String[]) values;
+        final Map<String, Integer> dictionary = new HashMap<>();
+        final List<byte[]> dictionaryEntries = new ArrayList<>();
+        final int[] codes = new int[stringValues.length];
+        int dictionaryLength = 0;
+        for (int i = 0; i < stringValues.length; i++) {
+            final String value = Utils.nonNull(stringValues[i], "String column values cannot be null.");
+            Integer code = dictionary.get(value);
+            if (code == null) {
+                code = dictionaryEntries.size();
+                dictionary.put(value, code);
+                final byte[] entry = value.getBytes(StandardCharsets.UTF_8);
+                dictionaryEntries.add(entry);
+                dictionaryLength += Integer.BYTES + entry.length;
+            }
+            codes[i] = code;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(codes.length * Integer.BYTES + Integer.BYTES + dictionaryLength)
+                .order(ColumnarTableReader.BYTE_ORDER);
+        buffer.asIntBuffer().put(codes);
+        buffer.position(codes.length * Integer.BYTES);
+        buffer.putInt(dictionaryEntries.size());
+        for (final byte[] entry : dictionaryEntries) {
+            buffer.putInt(entry.length);
+            buffer.put(entry);
+        }
+        return buffer.array();
+    }
+}
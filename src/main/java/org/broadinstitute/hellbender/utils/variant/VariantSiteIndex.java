@@ -0,0 +1,222 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFConstants;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.engine.FeatureInput;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+
+/**
+ * An in-memory index of the sites of a VCF resource, such as a panel of normals or a germline resource (gnomAD),
+ * for tools that look the resource up at many loci but only need the positions of its records, and sometimes their
+ * alleles and allele frequencies.
+ *
+ * The index is built by reading the resource once (optionally only within some intervals). As in
+ * {@link DbSnpBitSetUtil}, the positions covered by records are kept in a {@link BitSet} per contig, so that most
+ * lookups are answered without finding a record. The alleles and the allele frequencies (the AF INFO field) of the
+ * records are kept in primitive arrays, from which minimal VariantContexts are made on request; all other fields
+ * of the records are dropped.
+ */
+public final class VariantSiteIndex {
+
+    private final String name;
+
+    private final Map<String, ContigSites> sitesByContig = new HashMap<>();
+
+    /**
+     * The records of one contig, in the order of the resource (that is, sorted by start).
+     * The alleles (ref first) of record r are alleles firstAllele[r] to firstAllele[r + 1] - 1, and the bases of allele a
+     * are bases[alleleEnd[a - 1]] to bases[alleleEnd[a] - 1]. Similarly for the AF values, with NaN for a missing value.
+     */
+    private static final class ContigSites {
+        private final BitSet covered = new BitSet();
+        private final BitSet started = new BitSet();
+        private final IntArrayList starts = new IntArrayList();
+        private final IntArrayList ends = new IntArrayList();
+        private final IntArrayList firstAllele = new IntArrayList();
+        private final IntArrayList alleleEnd = new IntArrayList();
+        private final ByteArrayList bases = new ByteArrayList();
+        private final BitSet hasAlleleFrequencies = new BitSet();
+        private final IntArrayList firstAlleleFrequency = new IntArrayList();
+        private final DoubleArrayList alleleFrequencies = new DoubleArrayList();
+        // the length of the longest record, which bounds how far before a position its overlapping records can start
+        private int maxLength = 0;
+
+        private void add(final VariantContext vc) {
+            Utils.validateArg(starts.isEmpty() || starts.getInt(starts.size() - 1) <= vc.getStart(),
+                    () -> "Records are not sorted by position at " + vc.getContig() + ":" + vc.getStart());
+            final int record = starts.size();
+            starts.add(vc.getStart());
+            ends.add(vc.getEnd());
+            covered.set(vc.getStart(), vc.getEnd() + 1);
+            started.set(vc.getStart());
+            maxLength = Math.max(maxLength, vc.getEnd() - vc.getStart() + 1);
+
+            firstAllele.add(alleleEnd.size());
+            for (final Allele allele : vc.getAlleles()) {
+                for (final byte base : allele.getDisplayBases()) {
+                    bases.add(base);
+                }
+                alleleEnd.add(bases.size());
+            }
+
+            firstAlleleFrequency.add(alleleFrequencies.size());
+            if (vc.hasAttribute(VCFConstants.ALLELE_FREQUENCY_KEY)) {
+                hasAlleleFrequencies.set(record);
+                for (final Object value : vc.getAttributeAsList(VCFConstants.ALLELE_FREQUENCY_KEY)) {
+                    alleleFrequencies.add(parseAlleleFrequency(value));
+                }
+            }
+        }
+
+        // NaN for a missing (or malformed) value
+        private static double parseAlleleFrequency(final Object value) {
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            try {
+                return value == null || VCFConstants.MISSING_VALUE_v4.equals(value) ? Double.NaN : Double.parseDouble(value.toString());
+            } catch (final NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        private int size() {
+            return starts.size();
+        }
+
+        // the index of the first record that starts at or after the position
+        private int firstStartingAtOrAfter(final int position) {
+            int low = 0;
+            int high = starts.size();
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (starts.getInt(mid) < position) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private VariantContext makeVariantContext(final String source, final String contig, final int record) {
+            final int alleleStop = record + 1 < size() ? firstAllele.getInt(record + 1) : alleleEnd.size();
+            final List<Allele> alleles = new ArrayList<>(alleleStop - firstAllele.getInt(record));
+            for (int a = firstAllele.getInt(record); a < alleleStop; a++) {
+                final int from = a == 0 ? 0 : alleleEnd.getInt(a - 1);
+                alleles.add(Allele.create(Arrays.copyOfRange(bases.elements(), from, alleleEnd.getInt(a)), alleles.isEmpty()));
+            }
+            final VariantContextBuilder builder = new VariantContextBuilder(source, contig, starts.getInt(record), ends.getInt(record), alleles);
+            if (hasAlleleFrequencies.get(record)) {
+                final int afStop = record + 1 < size() ? firstAlleleFrequency.getInt(record + 1) : alleleFrequencies.size();
+                final List<Object> afs = new ArrayList<>(afStop - firstAlleleFrequency.getInt(record));
+                for (int i = firstAlleleFrequency.getInt(record); i < afStop; i++) {
+                    final double af = alleleFrequencies.getDouble(i);
+                    afs.add(Double.isNaN(af) ? VCFConstants.MISSING_VALUE_v4 : af);
+                }
+                builder.attribute(VCFConstants.ALLELE_FREQUENCY_KEY, afs);
+            }
+            return builder.make();
+        }
+    }
+
+    /**
+     * Makes an empty index, to which records are added with {@link #add}.
+     *
+     * @param name the name of the resource, used as the source of the VariantContexts made by the index
+     */
+    public VariantSiteIndex(final String name) {
+        this.name = Utils.nonNull(name);
+    }
+
+    /**
+     * Reads the records of a resource into a new index.
+     *
+     * @param resource the resource to index
+     * @param intervals if not null, only the records overlapping these intervals are indexed; they must be sorted and
+     *                  non-overlapping (see {@link FeatureDataSource#setIntervalsForTraversal})
+     */
+    public static VariantSiteIndex fromFeatureInput(final FeatureInput<VariantContext> resource, final List<SimpleInterval> intervals) {
+        Utils.nonNull(resource);
+        final VariantSiteIndex index = new VariantSiteIndex(resource.getName());
+        try (final FeatureDataSource<VariantContext> source = new FeatureDataSource<>(resource, 0, VariantContext.class)) {
+            if (intervals != null) {
+                source.setIntervalsForTraversal(intervals);
+            }
+            source.forEach(index::add);
+        }
+        return index;
+    }
+
+    /**
+     * Adds a record to the index. Within a contig, records must be added in order of their start.
+     */
+    public void add(final VariantContext vc) {
+        Utils.nonNull(vc);
+        sitesByContig.computeIfAbsent(vc.getContig(), contig -> new ContigSites()).add(vc);
+    }
+
+    /**
+     * @return the number of records in the index
+     */
+    public int size() {
+        return sitesByContig.values().stream().mapToInt(ContigSites::size).sum();
+    }
+
+    /**
+     * @return true if a record of the resource overlaps the position
+     */
+    public boolean overlaps(final String contig, final int position) {
+        final ContigSites sites = sitesByContig.get(contig);
+        return sites != null && position >= 0 && sites.covered.get(position);
+    }
+
+    /**
+     * @return true if a record of the resource starts at the position
+     */
+    public boolean hasSiteStartingAt(final String contig, final int position) {
+        final ContigSites sites = sitesByContig.get(contig);
+        return sites != null && position >= 0 && sites.started.get(position);
+    }
+
+    /**
+     * Gets the records that start at a position, in the order of the resource, with only their alleles and AF field.
+     */
+    public List<VariantContext> getSitesStartingAt(final String contig, final int position) {
+        if (!hasSiteStartingAt(contig, position)) {
+            return Collections.emptyList();
+        }
+        final ContigSites sites = sitesByContig.get(contig);
+        final List<VariantContext> result = new ArrayList<>(1);
+        for (int record = sites.firstStartingAtOrAfter(position); record < sites.size() && sites.starts.getInt(record) == position; record++) {
+            result.add(sites.makeVariantContext(name, contig, record));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the records that overlap a position, in the order of the resource, with only their alleles and AF field.
+     */
+    public List<VariantContext> getSitesOverlapping(final String contig, final int position) {
+        if (!overlaps(contig, position)) {
+            return Collections.emptyList();
+        }
+        final ContigSites sites = sitesByContig.get(contig);
+        final List<VariantContext> result = new ArrayList<>(1);
+        for (int record = sites.firstStartingAtOrAfter(position - sites.maxLength + 1); record < sites.size() && sites.starts.getInt(record) <= position; record++) {
+            if (sites.ends.getInt(record) >= position) {
+                result.add(sites.makeVariantContext(name, contig, record));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+
+import java.util.Arrays;
+
+/**
+ * A destination for the records of a reference-confidence (GVCF) caller, in coordinate order.
+ *
+ * Variant sites are added as VariantContexts, whereas hom-ref sites can be added as primitive values with
+ * {@link #addHomRefSite}, so that a sink that combines them into blocks (see {@link GVCFWriter}) never has to
+ * materialize a VariantContext per site. Any other sink (for example {@code list::add} or {@code writer::add})
+ * receives the hom-ref sites as the VariantContexts made by {@link #makeHomRefSite}.
+ */
+@FunctionalInterface
+public interface GVCFRecordSink {
+
+    /**
+     * Source of the VariantContexts made for hom-ref sites.
+     */
+    String HOM_REF_SITE_SOURCE = "HC";
+
+    /**
+     * Add a record (a variant site, or a hom-ref site as a VariantContext).
+     *
+     * @param vc a non-null VariantContext with a single genotype
+     */
+    void add(VariantContext vc);
+
+    /**
+     * Add a single-base hom-ref site, whose alleles are the reference base and {@link Allele#NON_REF_ALLELE}.
+     *
+     * @param sampleName the name of the single sample
+     * @param contig the contig of the site
+     * @param position the position of the site
+     * @param refAllele the reference allele at the site
+     * @param ploidy the ploidy of the hom-ref genotype
+     * @param ad the allele depths of the reference and non-reference alleles
+     * @param dp the depth at the site
+     * @param gq the genotype quality of the hom-ref genotype
+     * @param pls the genotype likelihoods, as PLs; the sink may keep (but not modify) this array
+     */
+    default void addHomRefSite(final String sampleName, final String contig, final int position, final Allele refAllele,
+                               final int ploidy, final int[] ad, final int dp, final int gq, final int[] pls) {
+        add(makeHomRefSite(sampleName, contig, position, refAllele, ploidy, ad, dp, gq, pls));
+    }
+
+    /**
+     * Make the VariantContext for a hom-ref site given to {@link #addHomRefSite}.
+     */
+    static VariantContext makeHomRefSite(final String sampleName, final String contig, final int position, final Allele refAllele,
+                                         final int ploidy, final int[] ad, final int dp, final int gq, final int[] pls) {
+        final GenotypeBuilder gb = new GenotypeBuilder(sampleName, GATKVariantContextUtils.homozygousAlleleList(refAllele, ploidy));
+        gb.AD(ad);
+        gb.DP(dp);
+        gb.GQ(gq);
+        gb.PL(pls);
+        return new VariantContextBuilder(HOM_REF_SITE_SOURCE, contig, position, position, Arrays.asList(refAllele, Allele.NON_REF_ALLELE))
+                .genotypes(gb.make()).make();
+    }
+}
@@ -23,8 +23,11 @@ import static htsjdk.variant.vcf.VCFConstants.MAX_GENOTYPE_QUAL;
 
 /**
  * Genome-wide VCF writer
+ *
+ * Hom-ref sites may be added either as VariantContexts or, as a {@link GVCFRecordSink}, as primitive values, in which
+ * case VariantContexts are only made for the blocks that are emitted.
  */
-public final class GVCFWriter implements VariantContextWriter {
+public final class GVCFWriter implements VariantContextWriter, GVCFRecordSink {
 
     /** Where we'll ultimately write our VCF records */
     private final VariantContextWriter underlyingWriter;
@@ -32,6 +35,10 @@ public final class GVCFWriter implements VariantContextWriter {
     private final RangeMap<Integer, Range<Integer>> gqPartitions;
     private final int defaultPloidy;
 
+    /** the lower (inclusive) and upper (exclusive) GQ bounds of the partition of each GQ from 0 to MAX_GENOTYPE_QUAL */
+    private final int[] partitionLowerBoundOfGQ = new int[MAX_GENOTYPE_QUAL + 1];
+    private final int[] partitionUpperBoundOfGQ = new int[MAX_GENOTYPE_QUAL + 1];
+
     /** fields updated on the fly during GVCFWriter operation */
     private int nextAvailableStart = -1;
     private String contigOfNextAvailableStart = null;
@@ -60,6 +67,11 @@ public final class GVCFWriter implements VariantContextWriter {
         this.underlyingWriter = Utils.nonNull(underlyingWriter);
         this.gqPartitions = parsePartitions(gqPartitions);
         this.defaultPloidy = defaultPloidy;
+        for (int gq = 0; gq <= MAX_GENOTYPE_QUAL; gq++) {
+            final Range<Integer> partition = this.gqPartitions.get(gq);
+            partitionLowerBoundOfGQ[gq] = partition.lowerEndpoint();
+            partitionUpperBoundOfGQ[gq] = partition.upperEndpoint();
+        }
     }
 
     /**
@@ -153,19 +165,12 @@ public final class GVCFWriter implements VariantContextWriter {
      * @return a VariantContext to be emitted, or null if non is appropriate
      */
     protected VariantContext addHomRefSite(final VariantContext vc, final Genotype g) {
-
-        if (nextAvailableStart != -1) {
-            // don't create blocks while the hom-ref site falls before nextAvailableStart (for deletions)
-            if (vc.getStart() <= nextAvailableStart && vc.getContig().equals(contigOfNextAvailableStart)) {
-                return null;
-            }
-            // otherwise, reset to non-relevant
-            nextAvailableStart = -1;
-            contigOfNextAvailableStart = null;
+        if (isCoveredByPreviousVariant(vc.getContig(), vc.getStart())) {
+            return null;
         }
 
         final VariantContext result;
-        if (genotypeCanBeMergedInCurrentBlock(g)) {
+        if (genotypeCanBeMergedInCurrentBlock(g.getGQ(), g.getPloidy(), g.hasPL() ? g.getPL() : null)) {
             currentBlock.add(vc.getStart(), g);
             result = null;
         } else {
@@ -175,11 +180,63 @@ public final class GVCFWriter implements VariantContextWriter {
         return result;
     }
 
-    private boolean genotypeCanBeMergedInCurrentBlock(final Genotype g) {
+    /**
+     * Add a hom-ref site given as primitive values, with the same result as adding the VariantContext made for it
+     * by {@link GVCFRecordSink#makeHomRefSite}, but without making that VariantContext.
+     */
+    @Override
+    public void addHomRefSite(final String sampleName, final String contig, final int position, final Allele refAllele,
+                              final int ploidy, final int[] ad, final int dp, final int gq, final int[] pls) {
+        Utils.nonNull(contig);
+        Utils.nonNull(refAllele);
+        Utils.nonNull(pls, "genotype must have PL field");
+        if (ploidy == 0) {
+            // a genotype without alleles isn't hom-ref, so it's emitted as is
+            add(GVCFRecordSink.makeHomRefSite(sampleName, contig, position, refAllele, ploidy, ad, dp, gq, pls));
+            return;
+        }
+        if (this.sampleName == null) {
+            this.sampleName = sampleName;
+        }
+
+        if (currentBlock != null && !currentBlock.isContiguous(contig, position)) {
+            emitCurrentBlock();
+        }
+        if (isCoveredByPreviousVariant(contig, position)) {
+            return;
+        }
+
+        if (genotypeCanBeMergedInCurrentBlock(gq, ploidy, pls)) {
+            currentBlock.add(position, ploidy, gq, dp, pls);
+        } else {
+            emitCurrentBlock();
+            final int cappedGQ = Math.min(gq, MAX_GENOTYPE_QUAL);
+            if (cappedGQ < 0) {
+                throw new GATKException("GQ " + gq + " at " + contig + ":" + position + " didn't fit into any partition");
+            }
+            currentBlock = new HomRefBlock(contig, position, refAllele, ploidy, partitionLowerBoundOfGQ[cappedGQ], partitionUpperBoundOfGQ[cappedGQ]);
+            currentBlock.add(position, ploidy, gq, dp, pls);
+        }
+    }
+
+    // don't create blocks while the hom-ref site falls before nextAvailableStart (for deletions)
+    private boolean isCoveredByPreviousVariant(final String contig, final int position) {
+        if (nextAvailableStart != -1) {
+            if (position <= nextAvailableStart && contig.equals(contigOfNextAvailableStart)) {
+                return true;
+            }
+            // otherwise, reset to non-relevant
+            nextAvailableStart = -1;
+            contigOfNextAvailableStart = null;
+        }
+        return false;
+    }
+
+    private boolean genotypeCanBeMergedInCurrentBlock(final int gq, final int ploidy, final int[] pls) {
         return currentBlock != null
-                && currentBlock.withinBounds(Math.min(g.getGQ(), MAX_GENOTYPE_QUAL))
-                && currentBlock.getPloidy() == g.getPloidy()
-                && (currentBlock.getMinPLs() == null || !g.hasPL() || (currentBlock.getMinPLs().length == g.getPL().length));
+                && currentBlock.withinBounds(Math.min(gq, MAX_GENOTYPE_QUAL))
+                && currentBlock.getPloidy() == ploidy
+                && (currentBlock.getMinPLs() == null || pls == null || (currentBlock.getMinPLs().length == pls.length));
     }
 
     /**
@@ -203,14 +260,12 @@ public final class GVCFWriter implements VariantContextWriter {
     private HomRefBlock createNewBlock(final VariantContext vc, final Genotype g) {
         // figure out the GQ limits to use based on the GQ of g
         final int gq = Math.min(g.getGQ(), MAX_GENOTYPE_QUAL);
-        final Range<Integer> partition = gqPartitions.get(gq);
-
-        if( partition == null) {
+        if (gq < 0) {
             throw new GATKException("GQ " + g + " from " + vc + " didn't fit into any partition");
         }
 
         // create the block, add g to it, and return it for use
-        final HomRefBlock block = new HomRefBlock(vc, partition.lowerEndpoint(), partition.upperEndpoint(), defaultPloidy);
+        final HomRefBlock block = new HomRefBlock(vc, partitionLowerBoundOfGQ[gq], partitionUpperBoundOfGQ[gq], defaultPloidy);
         block.add(vc.getStart(), g);
         return block;
     }
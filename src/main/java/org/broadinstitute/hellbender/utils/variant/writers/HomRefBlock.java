@@ -8,15 +8,13 @@ import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFConstants;
 import org.broadinstitute.hellbender.exceptions.GATKException;
-import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
-import java.util.List;
 
 /**
  * Helper class for calculating a GQ band in the GVCF writer
@@ -29,10 +27,14 @@ import java.util.List;
 final class HomRefBlock implements Locatable {
 
     private static final int HOM_REF_PL_POSITION = 0;  //the first value in the minPL[] is always the HomRef
+    private static final int INITIAL_DP_CAPACITY = 16;
 
-    private final VariantContext startingVC;
+    private final VariantContext startingVC;    // null if the block was started from primitive values
+    private final String contig;
+    private final int start;
     private final int minGQ, maxGQ;
-    private final List<Integer> DPs = new ArrayList<>();
+    private int[] DPs = new int[INITIAL_DP_CAPACITY];
+    private int numberOfDPs = 0;
     private final Allele ref;
     private final int ploidy;
 
@@ -52,6 +54,8 @@ final class HomRefBlock implements Locatable {
         if ( lowerGQBound > upperGQBound ) { throw new IllegalArgumentException("bad lowerGQBound " + lowerGQBound + " as it's >= upperGQBound " + upperGQBound); }
 
         this.startingVC = startingVC;
+        this.contig = startingVC.getContig();
+        this.start = startingVC.getStart();
         this.end = getStart() - 1;
         this.ref = startingVC.getReference();
         this.minGQ = lowerGQBound;
@@ -59,6 +63,32 @@ final class HomRefBlock implements Locatable {
         this.ploidy = startingVC.getMaxPloidy(defaultPloidy);
     }
 
+    /**
+     * Create a new HomRefBlock starting at a hom-ref site given as primitive values, for which no VariantContext exists
+     *
+     * @param contig the contig of the site that starts this band
+     * @param start the position of the site that starts this band
+     * @param ref the reference allele at the site that starts this band
+     * @param ploidy the ploidy of the genotypes in this band
+     * @param lowerGQBound the lowerGQBound (inclusive) to use in this band
+     * @param upperGQBound the upperGQBound (exclusive) to use in this band
+     */
+    HomRefBlock(final String contig, final int start, final Allele ref, final int ploidy, final int lowerGQBound, final int upperGQBound) {
+        Utils.nonNull(contig, "contig cannot be null");
+        Utils.nonNull(ref, "ref cannot be null");
+        Utils.validateArg(upperGQBound <= VCFConstants.MAX_GENOTYPE_QUAL + 1, "upperGQBound must be <= " + (VCFConstants.MAX_GENOTYPE_QUAL + 1));
+        if ( lowerGQBound > upperGQBound ) { throw new IllegalArgumentException("bad lowerGQBound " + lowerGQBound + " as it's >= upperGQBound " + upperGQBound); }
+
+        this.startingVC = null;
+        this.contig = contig;
+        this.start = start;
+        this.end = start - 1;
+        this.ref = ref;
+        this.minGQ = lowerGQBound;
+        this.maxGQ = upperGQBound;
+        this.ploidy = ploidy;
+    }
+
     /**
      * Convert a HomRefBlock into a VariantContext
      *
@@ -68,7 +98,8 @@ final class HomRefBlock implements Locatable {
      * is no variant-context to be output into the VCF.
      */
     public VariantContext toVariantContext(String sampleName) {
-        final VariantContextBuilder vcb = new VariantContextBuilder(getStartingVC());
+        final VariantContextBuilder vcb = startingVC != null ? new VariantContextBuilder(startingVC)
+                : new VariantContextBuilder(GVCFRecordSink.HOM_REF_SITE_SOURCE, contig, start, start, Arrays.asList(ref, Allele.NON_REF_ALLELE));
         vcb.attributes(new LinkedHashMap<>(2)); // clear the attributes
         vcb.stop(getEnd());
         vcb.attribute(VCFConstants.END_KEY, getEnd());
@@ -102,18 +133,33 @@ final class HomRefBlock implements Locatable {
     public void add(final int pos, final Genotype genotype) {
         Utils.nonNull(genotype, "genotype cannot be null");
         if ( ! genotype.hasPL() ) { throw new IllegalArgumentException("genotype must have PL field");}
+        add(pos, genotype.getPloidy(), genotype.getGQ(), genotype.getDP(), genotype.getPL());
+    }
+
+    /**
+     * Add the GQ, DP and PLs of a hom-ref genotype to this band.
+     *
+     * Treats GQ values > 99 as 99.
+     *
+     * @param pos Current genomic position. Must be 1 base after the previous position
+     * @param genotypePloidy the ploidy of the genotype
+     * @param gq the GQ of the genotype
+     * @param dp the DP of the genotype (negative values are treated as 0)
+     * @param pls the non-null PLs of the genotype, which are not modified
+     */
+    void add(final int pos, final int genotypePloidy, final int gq, final int dp, final int[] pls) {
+        Utils.nonNull(pls, "genotype must have PL field");
         if ( pos != end + 1 ) { throw new IllegalArgumentException("adding genotype at pos " + pos + " isn't contiguous with previous end " + end); }
-        if ( genotype.getPloidy() != ploidy) { throw new IllegalArgumentException("cannot add a genotype with a different ploidy: " + genotype.getPloidy() + " != " + ploidy); }
+        if ( genotypePloidy != ploidy) { throw new IllegalArgumentException("cannot add a genotype with a different ploidy: " + genotypePloidy + " != " + ploidy); }
         // Make sure the GQ is within the bounds of this band. Treat GQs > 99 as 99.
-        if ( !withinBounds(Math.min(genotype.getGQ(), VCFConstants.MAX_GENOTYPE_QUAL))) {
-            throw new IllegalArgumentException("cannot add a genotype with GQ=" + genotype.getGQ() + " because it's not within bounds ["
+        if ( !withinBounds(Math.min(gq, VCFConstants.MAX_GENOTYPE_QUAL))) {
+            throw new IllegalArgumentException("cannot add a genotype with GQ=" + gq + " because it's not within bounds ["
                     + this.getGQLowerBound() + ',' + this.getGQUpperBound() + ')');
         }
 
         if( minPLs == null ) {
-            minPLs = genotype.getPL();
+            minPLs = pls.clone();
         } else { // otherwise take the min with the provided genotype's PLs
-            final int[] pls = genotype.getPL();
             if (pls.length != minPLs.length) {
                 throw new GATKException("trying to merge different PL array sizes: " + pls.length + " != " + minPLs.length);
             }
@@ -122,7 +168,10 @@ final class HomRefBlock implements Locatable {
             }
         }
         end = pos;
-        DPs.add(Math.max(genotype.getDP(), 0)); // DP must be >= 0
+        if (numberOfDPs == DPs.length) {
+            DPs = Arrays.copyOf(DPs, 2 * DPs.length);
+        }
+        DPs[numberOfDPs++] = Math.max(dp, 0); // DP must be >= 0
     }
 
     /**
@@ -136,13 +185,22 @@ final class HomRefBlock implements Locatable {
 
     /** Get the min DP observed within this band */
     public int getMinDP() {
-        return Collections.min(DPs);
+        Utils.validate(numberOfDPs > 0, "no DPs have been added to this band");
+        int min = DPs[0];
+        for (int i = 1; i < numberOfDPs; i++) {
+            min = Math.min(min, DPs[i]);
+        }
+        return min;
     }
 
     /** Get the median DP observed within this band
      * If there are an even number of DPs recorded in this band the median is the mean of the two middle values */
     public int getMedianDP() {
-        return (int) Math.round(MathUtils.median(DPs));
+        Utils.validate(numberOfDPs > 0, "no DPs have been added to this band");
+        final int[] sorted = Arrays.copyOf(DPs, numberOfDPs);
+        Arrays.sort(sorted);
+        final int middle = numberOfDPs / 2;
+        return (int) Math.round(numberOfDPs % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + (double) sorted[middle]) / 2);
     }
 
     /** Get the min PLs observed within this band, can be null if no PLs have yet been observed */
@@ -158,21 +216,27 @@ final class HomRefBlock implements Locatable {
     }
 
     public boolean isContiguous(final VariantContext vc) {
-        return (vc.getEnd() == getEnd() + 1) && startingVC.getContig().equals(vc.getContig());
+        return isContiguous(vc.getContig(), vc.getEnd());
+    }
+
+    /** Is a record ending at {@code recordEnd} on {@code recordContig} contiguous with this band */
+    boolean isContiguous(final String recordContig, final int recordEnd) {
+        return (recordEnd == getEnd() + 1) && contig.equals(recordContig);
     }
 
+    /** Get the VariantContext that started this band, or null if it was started from primitive values */
     public VariantContext getStartingVC() {
         return startingVC;
     }
 
     @Override
     public String getContig() {
-        return startingVC.getContig();
+        return contig;
     }
 
     @Override
     public int getStart() {
-        return startingVC.getStart();
+        return start;
     }
 
     @Override
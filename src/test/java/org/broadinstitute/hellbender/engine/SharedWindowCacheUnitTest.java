@@ -0,0 +1,171 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
+import org.broadinstitute.hellbender.cmdline.TestProgramGroup;
+import org.broadinstitute.hellbender.engine.datasources.ReferenceFileSource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class SharedWindowCacheUnitTest extends GATKBaseTest {
+
+    private static final String FEATURE_FILE = publicTestDir + "org/broadinstitute/hellbender/engine/feature_data_source_test.vcf";
+
+    @CommandLineProgramProperties(summary = "", oneLineSummary = "", programGroup = TestProgramGroup.class)
+    private static class FeatureArgumentSource extends CommandLineProgram {
+        @Argument(fullName = "variants")
+        public FeatureInput<VariantContext> variants = new FeatureInput<>(FEATURE_FILE);
+
+        @Override
+        protected Object doWork() {
+            return null;
+        }
+    }
+
+    @DataProvider(name = "referenceIntervals")
+    public Object[][] referenceIntervals() {
+        return new Object[][]{
+                {new SimpleInterval("1", 1, 1)},
+                {new SimpleInterval("1", 1, 100)},
+                {new SimpleInterval("1", 95, 105)},
+                {new SimpleInterval("1", 101, 101)},
+                {new SimpleInterval("1", 150, 480)},
+                {new SimpleInterval("2", 15950, 16000)},
+        };
+    }
+
+    @Test(dataProvider = "referenceIntervals")
+    public void testReferenceBases(final SimpleInterval interval) throws IOException {
+        final ReferenceFileSource source = new ReferenceFileSource(hg19MiniReference);
+        final SAMSequenceDictionary dictionary = source.getReferenceSequenceDictionary(null);
+        final SharedWindowCache cache = new SharedWindowCache(100, 1000, 100, 1000);
+
+        // ask twice, so that the second request is served from the cache
+        for ( int i = 0; i < 2; i++ ) {
+            Assert.assertEquals(cache.getReferenceBases(source, null, interval, dictionary).getBases(),
+                    source.getReferenceBases(null, interval).getBases());
+        }
+        final long blocks = (interval.getEnd() - 1) / 100 - (interval.getStart() - 1) / 100 + 1;
+        Assert.assertEquals(cache.getReferenceStats().missCount(), blocks);
+        Assert.assertEquals(cache.getReferenceStats().hitCount(), blocks);
+    }
+
+    @Test
+    public void testReferenceBlocksAreEvicted() throws IOException {
+        final ReferenceFileSource source = new ReferenceFileSource(hg19MiniReference);
+        final SAMSequenceDictionary dictionary = source.getReferenceSequenceDictionary(null);
+        final SharedWindowCache cache = new SharedWindowCache(100, 200, 100, 1000);
+
+        // three blocks of 100 bases don't fit in 200 bases
+        cache.getReferenceBases(source, null, new SimpleInterval("1", 1, 300), dictionary);
+        Assert.assertEquals(cache.getReferenceStats().missCount(), 3);
+        Assert.assertTrue(cache.getReferenceStats().evictionCount() > 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReferenceIntervalOffContig() throws IOException {
+        final ReferenceFileSource source = new ReferenceFileSource(hg19MiniReference);
+        new SharedWindowCache(100, 1000, 100, 1000).getReferenceBases(source, null,
+                new SimpleInterval("1", 15990, 16010), source.getReferenceSequenceDictionary(null));
+    }
+
+    @DataProvider(name = "featureIntervals")
+    public Object[][] featureIntervals() {
+        return new Object[][]{
+                {new SimpleInterval("1", 1, 2000)},
+                {new SimpleInterval("1", 100, 100)},
+                // records spanning block boundaries
+                {new SimpleInterval("1", 199, 205)},
+                {new SimpleInterval("1", 205, 285)},
+                {new SimpleInterval("1", 1001, 1200)},
+                {new SimpleInterval("2", 1, 1000)},
+                {new SimpleInterval("2", 301, 399)},
+        };
+    }
+
+    @Test(dataProvider = "featureIntervals")
+    public void testFeatures(final SimpleInterval interval) {
+        final FeatureArgumentSource tool = new FeatureArgumentSource();
+        final FeatureManager manager = new FeatureManager(tool);
+        final SharedWindowCache cache = new SharedWindowCache(100, 1000, 50, 100000);
+
+        final List<String> expected = ids(manager.getFeatures(tool.variants, interval));
+        Assert.assertEquals(ids(cache.getFeatures(manager, tool.variants, interval)), expected);
+        Assert.assertEquals(ids(cache.getFeatures(manager, tool.variants, interval)), expected);
+        Assert.assertTrue(cache.getFeatureStats().hitCount() > 0);
+    }
+
+    @Test
+    public void testFeatureManagerUsesSharedCache() {
+        final FeatureArgumentSource tool = new FeatureArgumentSource();
+        final FeatureManager manager = new FeatureManager(tool);
+        final SimpleInterval interval = new SimpleInterval("1", 150, 1100);
+        final List<String> expected = ids(manager.getFeatures(tool.variants, interval));
+
+        final SharedWindowCache.Settings settings = new SharedWindowCache.Settings(1000, 1000);
+        manager.setSharedWindowCacheSettings(settings);
+        final long requests = SharedWindowCache.getInstance(settings).getFeatureStats().requestCount();
+        Assert.assertEquals(ids(manager.getFeatures(tool.variants, interval)), expected);
+        Assert.assertTrue(SharedWindowCache.getInstance(settings).getFeatureStats().requestCount() > requests);
+    }
+
+    @Test
+    public void testInstanceSettings() {
+        final SharedWindowCache.Settings settings = new SharedWindowCache.Settings(1000, 100);
+        final SharedWindowCache cache = SharedWindowCache.getInstance(settings);
+        Assert.assertEquals(cache.getSettings(), settings);
+        Assert.assertSame(SharedWindowCache.getInstance(new SharedWindowCache.Settings(1000, 100)), cache);
+        Assert.assertSame(SharedWindowCache.getInstance(), cache);
+
+        // other sizes replace the cache of the JVM
+        final SharedWindowCache.Settings otherSettings = new SharedWindowCache.Settings(2000, 100);
+        Assert.assertNotSame(SharedWindowCache.getInstance(otherSettings), cache);
+        Assert.assertEquals(SharedWindowCache.getInstance().getSettings(), otherSettings);
+    }
+
+    @Test
+    public void testFetchReferenceBasesWithoutCache() throws IOException {
+        final ReferenceFileSource source = new ReferenceFileSource(hg19MiniReference);
+        final SAMSequenceDictionary dictionary = source.getReferenceSequenceDictionary(null);
+        final SimpleInterval interval = new SimpleInterval("1", 150, 480);
+        final long requests = SharedWindowCache.getInstance().getReferenceStats().requestCount();
+        Assert.assertEquals(SharedWindowCache.fetchReferenceBases(null, source, null, interval, dictionary).getBases(),
+                source.getReferenceBases(null, interval).getBases());
+        Assert.assertEquals(SharedWindowCache.getInstance().getReferenceStats().requestCount(), requests);
+    }
+
+    @Test
+    public void testSourcesAreNotKeptAlive() throws IOException {
+        final SharedWindowCache cache = new SharedWindowCache(100, 1000, 100, 1000);
+        ReferenceFileSource source = new ReferenceFileSource(hg19MiniReference);
+        final SAMSequenceDictionary dictionary = source.getReferenceSequenceDictionary(null);
+        cache.getReferenceBases(source, null, new SimpleInterval("1", 1, 300), dictionary);
+
+        final WeakReference<ReferenceFileSource> sourceReference = new WeakReference<>(source);
+        source = null;
+        for ( int i = 0; i < 100 && sourceReference.get() != null; i++ ) {
+            System.gc();
+        }
+        Assert.assertNull(sourceReference.get(), "the cache keeps its source alive");
+
+        // a new source does not reuse the blocks of the collected one
+        final ReferenceFileSource newSource = new ReferenceFileSource(hg19MiniReference);
+        cache.getReferenceBases(newSource, null, new SimpleInterval("1", 1, 300), dictionary);
+        Assert.assertEquals(cache.getReferenceStats().missCount(), 6);
+    }
+
+    private static List<String> ids(final List<VariantContext> variants) {
+        return variants.stream().map(VariantContext::getID).collect(Collectors.toList());
+    }
+}
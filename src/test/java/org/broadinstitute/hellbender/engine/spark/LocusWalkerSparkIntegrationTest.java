@@ -0,0 +1,165 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import com.google.common.collect.Iterators;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.TestProgramGroup;
+import org.broadinstitute.hellbender.engine.FeatureInput;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
+import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+public final class LocusWalkerSparkIntegrationTest extends CommandLineProgramTest {
+
+    private static final String TEST_DATA_DIRECTORY = publicTestDir + "org/broadinstitute/hellbender/engine/";
+
+    /**
+     * Writes a line per locus, describing its pileup, reference base and overlapping variants, using either the
+     * RDD of contexts or the streaming API, or writes the totals of these using the aggregator API.
+     */
+    @CommandLineProgramProperties(summary = "Describes the loci", oneLineSummary = "Describes the loci", programGroup = TestProgramGroup.class)
+    public static final class DescribeLociSpark extends LocusWalkerSpark {
+        private static final long serialVersionUID = 1L;
+
+        @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME)
+        public String output;
+
+        @Argument(fullName = StandardArgumentDefinitions.VARIANT_LONG_NAME, shortName = StandardArgumentDefinitions.VARIANT_SHORT_NAME, optional = true)
+        public FeatureInput<VariantContext> variants;
+
+        @Argument(fullName = "mode")
+        public String mode;
+
+        @Override
+        public boolean requiresReference() {
+            return true;
+        }
+
+        @Override
+        protected void runTool(final JavaSparkContext ctx) {
+            final FeatureInput<VariantContext> variants = this.variants;
+            switch (mode) {
+                case "rdd":
+                    super.runTool(ctx);
+                    break;
+                case "streaming":
+                    mapLociByPartition(ctx, (FlatMapFunction<Iterator<LocusWalkerContext>, String>) loci ->
+                            Iterators.transform(loci, context -> describe(context, variants)))
+                            .coalesce(1).saveAsTextFile(output);
+                    break;
+                case "aggregate":
+                    final long[] totals = aggregateLoci(ctx, new TotalsAggregator(variants));
+                    try (final PrintStream out = new PrintStream(output)) {
+                        out.println(totals[0] + " " + totals[1] + " " + totals[2]);
+                    } catch (final IOException e) {
+                        throw new GATKException("Can't write " + output, e);
+                    }
+                    break;
+                default:
+                    throw new GATKException("Unknown mode " + mode);
+            }
+        }
+
+        @Override
+        protected void processAlignments(final JavaRDD<LocusWalkerContext> rdd, final JavaSparkContext ctx) {
+            final FeatureInput<VariantContext> variants = this.variants;
+            rdd.map(context -> describe(context, variants)).coalesce(1).saveAsTextFile(output);
+        }
+
+        private static String describe(final LocusWalkerContext context, final FeatureInput<VariantContext> variants) {
+            final ReadPileup pileup = context.getAlignmentContext().getBasePileup();
+            return String.format("%s %d %d", pileup.getPileupString((char) context.getReferenceContext().getBase()),
+                    pileup.size(), context.getFeatureContext().getValues(variants).size());
+        }
+    }
+
+    /**
+     * Counts the loci, their total depth and the total number of variants overlapping them.
+     */
+    private static final class TotalsAggregator implements LocusAggregator<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final FeatureInput<VariantContext> variants;
+
+        TotalsAggregator(final FeatureInput<VariantContext> variants) {
+            this.variants = variants;
+        }
+
+        @Override
+        public long[] createSummary() {
+            return new long[3];
+        }
+
+        @Override
+        public long[] add(final long[] summary, final LocusWalkerContext context) {
+            summary[0]++;
+            summary[1] += context.getAlignmentContext().getBasePileup().size();
+            summary[2] += context.getFeatureContext().getValues(variants).size();
+            return summary;
+        }
+
+        @Override
+        public long[] merge(final long[] summary1, final long[] summary2) {
+            for (int i = 0; i < summary1.length; i++) {
+                summary1[i] += summary2[i];
+            }
+            return summary1;
+        }
+    }
+
+    @Override
+    public String getTestedClassName() {
+        return DescribeLociSpark.class.getSimpleName();
+    }
+
+    private List<String> runMode(final String mode, final boolean isOutputDirectory) throws IOException {
+        final File output = createTempFile("loci", ".txt");
+        output.delete();
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addReference(new File(hg19MiniReference))
+                .addInput(new File(TEST_DATA_DIRECTORY, "reads_data_source_test1.bam"))
+                .addVCF(new File(TEST_DATA_DIRECTORY, "feature_data_source_test.vcf"))
+                .addOutput(output)
+                .addArgument("mode", mode)
+                .addArgument("readShardSize", "200")
+                .addArgument("readShardPadding", "100");
+        runCommandLine(args);
+        return Files.readAllLines((isOutputDirectory ? new File(output, "part-00000") : output).toPath());
+    }
+
+    @Test
+    public void testStreamingMatchesRDD() throws IOException {
+        final List<String> expected = runMode("rdd", true);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(runMode("streaming", true), expected);
+    }
+
+    @Test
+    public void testAggregateMatchesRDD() throws IOException {
+        final List<String> loci = runMode("rdd", true);
+        long depth = 0;
+        long features = 0;
+        for (final String locus : loci) {
+            final String[] fields = locus.split(" ");
+            depth += Long.parseLong(fields[fields.length - 2]);
+            features += Long.parseLong(fields[fields.length - 1]);
+        }
+        Assert.assertEquals(runMode("aggregate", false), Collections.singletonList(loci.size() + " " + depth + " " + features));
+    }
+}
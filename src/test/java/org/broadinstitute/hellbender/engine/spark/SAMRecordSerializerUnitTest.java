@@ -1,15 +1,20 @@
 package org.broadinstitute.hellbender.engine.spark;
 
 import com.esotericsoftware.kryo.Kryo;
-import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.*;
 import org.apache.spark.SparkConf;
 import org.apache.spark.serializer.KryoRegistrator;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.utils.test.SparkTestUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
 public class SAMRecordSerializerUnitTest {
     public static class TestGATKRegistrator implements KryoRegistrator {
         @SuppressWarnings("unchecked")
@@ -46,4 +51,63 @@ public class SAMRecordSerializerUnitTest {
         final SAMRecord roundTrippedRead2 = SparkTestUtils.roundTripInKryo(read, SAMRecord.class, conf);
         Assert.assertEquals(roundTrippedRead2, read, "\nActual read: " + roundTrippedRead2.getSAMString() + "\nExpected read: " + read.getSAMString());
     }
+
+    @Test
+    public void testRoundTripRecordsWithoutBinaryRepresentation() {
+        final SparkConf conf = new SparkConf().set("spark.kryo.registrator",
+                "org.broadinstitute.hellbender.engine.spark.SAMRecordSerializerUnitTest$TestGATKRegistrator");
+
+        final SAMRecord withTags = ((SAMRecordToGATKReadAdapter)ArtificialReadUtils.createHeaderlessSamBackedRead("read1", "1", 100, 50)).getEncapsulatedSamRecord();
+        withTags.setMateReferenceName("2");
+        withTags.setMateAlignmentStart(5000);
+        withTags.setInferredInsertSize(-4000);
+        withTags.setBaseQualities(Utils.dupBytes((byte) 37, 50));
+        withTags.setAttribute("RG", "group1");
+        withTags.setAttribute("NM", 3);
+        withTags.setAttribute("XF", 1.5f);
+        withTags.setAttribute("XB", new byte[]{1, 2, 3});
+        withTags.setAttribute("XI", new int[]{-1, 100000});
+
+        final SAMRecord withoutQualities = ((SAMRecordToGATKReadAdapter)ArtificialReadUtils.createHeaderlessSamBackedRead("read2", "1", 200, 10)).getEncapsulatedSamRecord();
+        withoutQualities.setBaseQualities(SAMRecord.NULL_QUALS);
+
+        final SAMRecord unmapped = ((SAMRecordToGATKReadAdapter)ArtificialReadUtils.createHeaderlessSamBackedRead("read3", SAMRecord.NO_ALIGNMENT_REFERENCE_NAME, 0, 20)).getEncapsulatedSamRecord();
+        unmapped.setReadUnmappedFlag(true);
+        unmapped.setCigarString(SAMRecord.NO_ALIGNMENT_CIGAR);
+
+        for (final SAMRecord read : Arrays.asList(withTags, withoutQualities, unmapped)) {
+            final String expected = read.getSAMString();
+            final SAMRecord roundTrippedRead = SparkTestUtils.roundTripInKryo(read, SAMRecord.class, conf);
+            Assert.assertEquals(roundTrippedRead, read, "\nActual read: " + roundTrippedRead.getSAMString() + "\nExpected read: " + expected);
+            Assert.assertEquals(roundTrippedRead.getSAMString(), expected);
+        }
+    }
+
+    @Test
+    public void testCompactCodecIsSmallerThanBamEncoding() {
+        final SAMRecord read = ((SAMRecordToGATKReadAdapter)ArtificialReadUtils.createHeaderlessSamBackedRead("read1", "1", 1000000, 150)).getEncapsulatedSamRecord();
+        final byte[] binnedQualities = new byte[150];
+        for (int i = 0; i < binnedQualities.length; i++) {
+            binnedQualities[i] = (byte) (i % 30 < 25 ? 37 : 12);
+        }
+        read.setBaseQualities(binnedQualities);
+
+        final ByteArrayOutputStream bamEncoding = new ByteArrayOutputStream();
+        final SAMRecordSparkCodec bamCodec = new SAMRecordSparkCodec();
+        bamCodec.setOutputStream(bamEncoding);
+        bamCodec.encode(read);
+
+        final ByteArrayOutputStream compactEncoding = new ByteArrayOutputStream();
+        final CompactSAMRecordSparkCodec compactCodec = new CompactSAMRecordSparkCodec();
+        compactCodec.setOutputStream(compactEncoding);
+        compactCodec.encode(read);
+        Assert.assertTrue(compactEncoding.size() < bamEncoding.size() - 150 / 2, compactEncoding.size() + " vs " + bamEncoding.size());
+
+        compactCodec.setInputStream(new ByteArrayInputStream(compactEncoding.toByteArray()));
+        final SAMRecord decoded = compactCodec.decode();
+        decoded.setReferenceName(read.getReferenceName());
+        decoded.setMateReferenceName(read.getMateReferenceName());
+        Assert.assertEquals(decoded.getSAMString(), read.getSAMString());
+        Assert.assertNull(compactCodec.decode());
+    }
 }
@@ -1,8 +1,12 @@
 package org.broadinstitute.hellbender.engine.spark;
 
 import com.esotericsoftware.kryo.Kryo;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
 import org.apache.spark.SparkConf;
 import org.apache.spark.serializer.KryoRegistrator;
+import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
@@ -10,6 +14,11 @@ import org.broadinstitute.hellbender.utils.test.SparkTestUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 public class SAMRecordToGATKReadAdapterSerializerUnitTest {
 
     public static class TestGATKRegistrator implements KryoRegistrator {
@@ -43,4 +52,27 @@ public class SAMRecordToGATKReadAdapterSerializerUnitTest {
         final GATKRead roundTrippedRead2 = SparkTestUtils.roundTripInKryo(read, GATKRead.class, conf);
         Assert.assertEquals(roundTrippedRead2, read);
     }
+
+    @Test
+    public void testRoundTripReadsFromBam() throws IOException {
+        final SparkConf conf = new SparkConf().set("spark.kryo.registrator",
+                "org.broadinstitute.hellbender.engine.spark.SAMRecordToGATKReadAdapterSerializerUnitTest$TestGATKRegistrator");
+        final File bam = new File(GATKBaseTest.publicTestDir + "org/broadinstitute/hellbender/engine/CEUTrio.HiSeq.WGS.b37.NA12878.20.21.10000000-10000020.with.unmapped.bam");
+        final ArrayList<GATKRead> reads = new ArrayList<>();
+        final List<String> expected = new ArrayList<>();
+        try (final SamReader reader = SamReaderFactory.makeDefault().open(bam)) {
+            for (final SAMRecord record : reader) {
+                expected.add(record.getSAMString());
+                reads.add(new SAMRecordToGATKReadAdapter(record));
+            }
+        }
+        Assert.assertFalse(reads.isEmpty());
+
+        final List<GATKRead> roundTrippedReads = SparkTestUtils.roundTripInKryo(reads, ArrayList.class, conf);
+        Assert.assertEquals(roundTrippedReads.size(), reads.size());
+        for (int i = 0; i < reads.size(); i++) {
+            Assert.assertEquals(roundTrippedReads.get(i), reads.get(i));
+            Assert.assertEquals(((SAMRecordToGATKReadAdapter) roundTrippedReads.get(i)).getEncapsulatedSamRecord().getSAMString(), expected.get(i));
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+public final class ShardCostPartitionerUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testCostlyShardsGoToDifferentPartitions() {
+        final long[] costs = {1, 100, 1, 1, 90, 1, 1, 80, 1, 1};
+        final ShardCostPartitioner partitioner = new ShardCostPartitioner(costs, 3);
+        Assert.assertEquals(partitioner.numPartitions(), 3);
+        Assert.assertEquals(partitioner.getPartition(1), 0);
+        Assert.assertEquals(partitioner.getPartition(4), 1);
+        Assert.assertEquals(partitioner.getPartition(7), 2);
+        // the cheap shards fill the partition with the lowest cost
+        for (final int shard : new int[]{0, 2, 3, 5, 6, 8, 9}) {
+            Assert.assertEquals(partitioner.getPartition(shard), 2);
+        }
+    }
+
+    @Test
+    public void testPartitionsAreBalanced() {
+        final Random random = new Random(13);
+        final long[] costs = new long[1000];
+        long maxCost = 0;
+        long totalCost = 0;
+        for (int shard = 0; shard < costs.length; shard++) {
+            // mostly cheap shards, with a few costly ones
+            costs[shard] = shard % 97 == 0 ? 10000 + random.nextInt(10000) : random.nextInt(100);
+            maxCost = Math.max(maxCost, costs[shard]);
+            totalCost += costs[shard];
+        }
+        final int numPartitions = 8;
+        final ShardCostPartitioner partitioner = new ShardCostPartitioner(costs, numPartitions);
+        final long[] loads = new long[numPartitions];
+        for (int shard = 0; shard < costs.length; shard++) {
+            loads[partitioner.getPartition(shard)] += costs[shard];
+        }
+        for (final long load : loads) {
+            Assert.assertTrue(load <= totalCost / numPartitions + maxCost, "unbalanced partition: " + load);
+        }
+    }
+
+    @Test
+    public void testMorePartitionsThanShards() {
+        final ShardCostPartitioner partitioner = new ShardCostPartitioner(new long[]{5, 7}, 4);
+        Assert.assertEquals(partitioner.numPartitions(), 4);
+        Assert.assertEquals(partitioner.getPartition(1), 0);
+        Assert.assertEquals(partitioner.getPartition(0), 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNoPartitions() {
+        new ShardCostPartitioner(new long[]{1}, 0);
+    }
+}
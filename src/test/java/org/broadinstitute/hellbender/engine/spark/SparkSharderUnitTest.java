@@ -244,6 +244,50 @@ public class SparkSharderUnitTest extends GATKBaseTest implements Serializable {
 
     }
 
+    @Test
+    public void testShardBalancedByCount() throws IOException {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+
+        // the reads of testSingleContig, out of order
+        JavaRDD<TestRead> reads = ctx.parallelize(ImmutableList.of(
+                new TestRead(25, 27), new TestRead(5, 7), new TestRead(7, 9),
+                new TestRead(7, 9), new TestRead(7, 9), new TestRead(1, 3),
+                new TestRead(7, 9), new TestRead(11, 13), new TestRead(12, 14),
+                new TestRead(17, 19), new TestRead(21, 23), new TestRead(7, 9)
+        ), 4);
+
+        List<ShardBoundary> shardBoundaries = ImmutableList.of(
+                new ShardBoundary(new SimpleInterval("1", 2, 4), new SimpleInterval("1", 1, 5)),
+                new ShardBoundary(new SimpleInterval("1", 8, 12), new SimpleInterval("1", 7, 13)),
+                new ShardBoundary(new SimpleInterval("1", 11, 22), new SimpleInterval("1", 10, 23)),
+                new ShardBoundary(new SimpleInterval("2", 1, 50), new SimpleInterval("2", 1, 50)));
+
+        assertEquals(SparkSharder.countOverlapping(ctx, reads, shardBoundaries), new long[]{2, 8, 4, 0});
+
+        // no shard is split: the shards are those of the shuffle implementation
+        List<Shard<TestRead>> shards = SparkSharder.shardBalancedByCount(ctx, reads, sequenceDictionary, shardBoundaries, 1, 100, 1).collect();
+        Map<SimpleInterval, Integer> readsPerShard = shards.stream().collect(Collectors.toMap(Shard::getInterval, shard -> Iterators.size(shard.iterator())));
+        assertEquals(readsPerShard, ImmutableMap.of(shardBoundaries.get(0).getInterval(), 2, shardBoundaries.get(1).getInterval(), 8, shardBoundaries.get(2).getInterval(), 4));
+        Map<SimpleInterval, Integer> readsPerShuffledShard =
+                SparkSharder.shard(ctx, reads, TestRead.class, sequenceDictionary, shardBoundaries, STANDARD_READ_LENGTH, true).collect().stream()
+                .collect(Collectors.toMap(Shard::getInterval, shard -> Iterators.size(shard.iterator())));
+        assertEquals(readsPerShard, readsPerShuffledShard);
+
+        // with at most 2 reads per shard, the second and third shards are split in two (the first shard and the pieces
+        // of the second shard cannot be smaller than 2 bases)
+        JavaRDD<Shard<TestRead>> balancedShards = SparkSharder.shardBalancedByCount(ctx, reads, sequenceDictionary, shardBoundaries, 1, 2, 2);
+        assertEquals(balancedShards.getNumPartitions(), reads.getNumPartitions());
+        Map<SimpleInterval, Integer> readsPerSplitShard = balancedShards.collect().stream()
+                .collect(Collectors.toMap(Shard::getInterval, shard -> Iterators.size(shard.iterator())));
+        assertEquals(readsPerSplitShard, ImmutableMap.builder()
+                .put(new SimpleInterval("1", 2, 4), 2)
+                .put(new SimpleInterval("1", 8, 10), 7)
+                .put(new SimpleInterval("1", 11, 12), 2)
+                .put(new SimpleInterval("1", 11, 16), 3)
+                .put(new SimpleInterval("1", 17, 22), 2)
+                .build());
+    }
+
     @Test
     public void testPartitionReadExtents() throws IOException {
         JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
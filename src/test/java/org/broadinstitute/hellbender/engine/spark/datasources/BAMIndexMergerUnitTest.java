@@ -0,0 +1,105 @@
+package org.broadinstitute.hellbender.engine.spark.datasources;
+
+import htsjdk.samtools.BAMIndexer;
+import htsjdk.samtools.IndexingBAMRecordWriter;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SamInputResource;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.seqdoop.hadoop_bam.SAMFormat;
+import org.seqdoop.hadoop_bam.util.SAMOutputPreparer;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BAMIndexMergerUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "bams")
+    public Object[][] bams() {
+        return new Object[][]{
+                {publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/CEUTrio.HiSeq.WGS.b37.NA12878.20.21.10m-10m100.bam", 3},
+                // unmapped reads placed at the position of their mates
+                {publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam", 4},
+                // unplaced unmapped reads
+                {publicTestDir + "org/broadinstitute/hellbender/engine/CEUTrio.HiSeq.WGS.b37.NA12878.snippet_with_unmapped.bam", 5},
+                {publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/HiSeq.1mb.1RG.2k_lines.bam", 1}
+        };
+    }
+
+    // writes the records in parts as the executors would, and merges the parts and their indices as ReadsSparkSink does
+    @Test(dataProvider = "bams")
+    public void testMergedIndexMatchesIndexOfMergedFile(final String bam, final int numParts) throws IOException {
+        final SAMFileHeader header;
+        final List<SAMRecord> records = new ArrayList<>();
+        try (final SamReader reader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(new File(bam))) {
+            header = reader.getFileHeader();
+            reader.forEach(records::add);
+        }
+        Assert.assertEquals(header.getSortOrder(), SAMFileHeader.SortOrder.coordinate);
+
+        final File merged = createTempFile("merged", ".bam");
+        final BAMIndexMerger indexMerger = new BAMIndexMerger(header.getSequenceDictionary().size());
+        final long headerLength;
+        try (final OutputStream out = new FileOutputStream(merged)) {
+            final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+            new SAMOutputPreparer().prepareForRecords(headerBytes, SAMFormat.BAM, header);
+            headerLength = headerBytes.size();
+            out.write(headerBytes.toByteArray());
+            // the last part is empty
+            for (int part = 0; part <= numParts; part++) {
+                final ByteArrayOutputStream partBytes = new ByteArrayOutputStream();
+                final ByteArrayOutputStream partIndex = new ByteArrayOutputStream();
+                final IndexingBAMRecordWriter<?> writer = new IndexingBAMRecordWriter<>(partBytes, partIndex, null, header);
+                for (final SAMRecord record : records.subList(records.size() * part / numParts, Math.min(records.size() * (part + 1) / numParts, records.size()))) {
+                    writer.writeAlignment(record);
+                }
+                writer.close();
+                indexMerger.addPart(new ByteArrayInputStream(partIndex.toByteArray()), partBytes.size());
+                out.write(partBytes.toByteArray());
+            }
+            out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+        }
+        Assert.assertEquals(merged.length(), headerLength + indexMerger.getPartsLength() + BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK.length);
+
+        final File mergedIndex = createTempFile("merged", ".bai");
+        try (final OutputStream out = new FileOutputStream(mergedIndex)) {
+            indexMerger.writeIndex(out, headerLength);
+        }
+        final File expectedIndex = createTempFile("expected", ".bai");
+        try (final SamReader reader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).enable(SamReaderFactory.Option.INCLUDE_SOURCE_IN_RECORDS).open(merged)) {
+            BAMIndexer.createIndex(reader, expectedIndex);
+        }
+        Assert.assertEquals(Files.readAllBytes(mergedIndex.toPath()), Files.readAllBytes(expectedIndex.toPath()));
+
+        // the merged index finds the records of the merged file
+        try (final SamReader reader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(SamInputResource.of(merged).index(mergedIndex))) {
+            final SAMRecord last = records.stream().filter(r -> !r.getReadUnmappedFlag()).reduce((a, b) -> b).get();
+            try (final SAMRecordIterator it = reader.queryOverlapping(last.getContig(), last.getStart(), last.getEnd())) {
+                Assert.assertTrue(it.hasNext());
+            }
+            try (final SAMRecordIterator it = reader.queryUnmapped()) {
+                int unplaced = 0;
+                while (it.hasNext()) {
+                    it.next();
+                    unplaced++;
+                }
+                Assert.assertEquals(unplaced, records.stream().filter(r -> r.getReferenceIndex() == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX).count());
+            }
+        }
+    }
+}
@@ -1,16 +1,25 @@
 package org.broadinstitute.hellbender.engine.spark.datasources;
 
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import htsjdk.samtools.BAMIndex;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordCoordinateComparator;
+import htsjdk.samtools.SamInputResource;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hdfs.MiniDFSCluster;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.SparkException;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.broadinstitute.hellbender.engine.spark.SparkContextFactory;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -122,9 +131,11 @@ public class ReadsSparkSinkUnitTest extends GATKBaseTest {
 
         ReadsSparkSink.writeReads(ctx, outputPath, referenceFile, rddParallelReads, header, ReadsWriteFormat.SINGLE);
 
-        // check that a splitting bai file is created
+        // check that a splitting bai file is created, and a bai file for coordinate-sorted output
         if (IOUtils.isBamFileName(outputPath)) {
             Assert.assertTrue(Files.exists(IOUtils.getPath(outputPath + SplittingBAMIndexer.OUTPUT_FILE_EXTENSION)));
+            Assert.assertEquals(Files.exists(IOUtils.getPath(outputPath + BAMIndex.BAMIndexSuffix)),
+                    header.getSortOrder() == SAMFileHeader.SortOrder.coordinate);
         }
 
         JavaRDD<GATKRead> rddParallelReads2 = readSource.getParallelReads(outputPath, referenceFile);
@@ -146,6 +157,44 @@ public class ReadsSparkSinkUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(groups = "spark")
+    public void testWritingSortedReadsWithoutSorting() throws IOException {
+        final String inputBam = testDataDir + "tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam";
+        final File outputFile = createTempFile("ReadsSparkSinkUnitTest_presorted", ".bam");
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+
+        // parallelizing a sorted list gives sorted reads that are partitioned by position
+        final ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        final JavaRDD<GATKRead> reads = ctx.parallelize(readSource.getParallelReads(inputBam, null).collect(), 4);
+        final SAMFileHeader header = readSource.getHeader(inputBam, null);
+        ReadsSparkSink.writeReads(ctx, outputFile.getAbsolutePath(), null, reads, header, ReadsWriteFormat.SINGLE, 0, false);
+
+        final List<GATKRead> writtenReads = readSource.getParallelReads(outputFile.getAbsolutePath(), null).collect();
+        Assert.assertEquals(writtenReads, reads.collect());
+
+        // the merged index finds the reads
+        final File index = new File(outputFile.getAbsolutePath() + BAMIndex.BAMIndexSuffix);
+        try (final SamReader reader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT)
+                .open(SamInputResource.of(outputFile).index(index))) {
+            final SimpleInterval interval = new SimpleInterval("20", 1000500, 1000600);
+            final long expected = writtenReads.stream().filter(read -> !read.isUnmapped() && read.overlaps(interval)).count();
+            Assert.assertTrue(expected > 0);
+            Assert.assertEquals(Iterators.size(reader.queryOverlapping(interval.getContig(), interval.getStart(), interval.getEnd())), expected);
+        }
+    }
+
+    @Test(groups = "spark", expectedExceptions = SparkException.class)
+    public void testWritingUnsortedReadsWithoutSorting() throws IOException {
+        final String inputBam = testDataDir + "tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam";
+        final File outputFile = createTempFile("ReadsSparkSinkUnitTest_unsorted", ".bam");
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+
+        final ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        final JavaRDD<GATKRead> reads = ctx.parallelize(Lists.reverse(readSource.getParallelReads(inputBam, null).collect()), 4);
+        final SAMFileHeader header = readSource.getHeader(inputBam, null);
+        ReadsSparkSink.writeReads(ctx, outputFile.getAbsolutePath(), null, reads, header, ReadsWriteFormat.SINGLE, 0, false);
+    }
+
     @Test(dataProvider = "loadReadsBAM", groups = "spark")
     public void readsSinkShardedTest(String inputBam, String outputFileName, String referenceFile, String outputFileExtension) throws IOException {
         final File outputFile = createTempFile(outputFileName, outputFileExtension);
@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.testng.Assert.assertEquals;
 
@@ -303,6 +304,68 @@ public class ReadsSparkSourceUnitTest extends GATKBaseTest {
         assertEquals(Arrays.stream(expectedReadsPerPartition).sum(), numPairs * 2);
     }
 
+    @Test
+    public void testPutPairsInSamePartitionQueryGrouped() throws IOException {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        header.setSortOrder(SAMFileHeader.SortOrder.unsorted);
+        header.setGroupOrder(SAMFileHeader.GroupOrder.query);
+        JavaRDD<GATKRead> reads = createPairedReads(ctx, header, 3, 2);
+        ReadsSparkSource readsSparkSource = new ReadsSparkSource(ctx);
+        JavaRDD<GATKRead> pairedReads = readsSparkSource.putPairsInSamePartition(header, reads);
+        assertEquals(pairedReads.glom().map(List::size).collect(), Arrays.asList(4, 2));
+
+        // reads that are not grouped by name are left as they are
+        header.setGroupOrder(SAMFileHeader.GroupOrder.none);
+        assertEquals(readsSparkSource.putPairsInSamePartition(header, reads).glom().map(List::size).collect(), Arrays.asList(3, 3));
+    }
+
+    @Test
+    public void testPutPairsInSamePartitionQueryGroupedTemplates() throws IOException {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        header.setSortOrder(SAMFileHeader.SortOrder.unsorted);
+        header.setGroupOrder(SAMFileHeader.GroupOrder.query);
+
+        // templates of two and three records, with the mates in either order and supplementary alignments anywhere
+        List<GATKRead> reads = new ArrayList<>();
+        reads.addAll(createTemplate(header, "b", false, false));
+        reads.addAll(createTemplate(header, "a", true, true));
+        reads.addAll(createTemplate(header, "d", false, true));
+        reads.addAll(createTemplate(header, "c", true, false));
+        List<GATKRead> supplementary = createTemplate(header, "e", false, false);
+        supplementary.get(0).setIsSupplementaryAlignment(true);
+        reads.add(supplementary.get(0));
+        reads.addAll(createTemplate(header, "e", true, false));
+
+        ReadsSparkSource readsSparkSource = new ReadsSparkSource(ctx);
+        for (int numPartitions = 1; numPartitions <= reads.size(); numPartitions++) {
+            List<List<GATKRead>> partitions = readsSparkSource.putPairsInSamePartition(header, ctx.parallelize(reads, numPartitions)).glom().collect();
+            assertEquals(partitions.size(), numPartitions);
+            // the records are kept in order, and each template is in a single partition
+            assertEquals(partitions.stream().flatMap(List::stream).map(GATKRead::getName).collect(Collectors.toList()),
+                    reads.stream().map(GATKRead::getName).collect(Collectors.toList()));
+            for (List<GATKRead> partition : partitions) {
+                for (GATKRead read : partition) {
+                    assertEquals(partitions.stream().filter(p -> p.stream().anyMatch(r -> r.getName().equals(read.getName()))).count(), 1,
+                            "template " + read.getName() + " is split with " + numPartitions + " partitions");
+                }
+            }
+        }
+    }
+
+    // a pair, with the second of pair first if secondFirst, followed by a supplementary alignment of the first if withSupplementary
+    private List<GATKRead> createTemplate(SAMFileHeader header, String name, boolean secondFirst, boolean withSupplementary) {
+        List<GATKRead> pair = ArtificialReadUtils.createPair(header, name, 151, 10000, 10249, true, false);
+        List<GATKRead> template = new ArrayList<>(secondFirst ? Arrays.asList(pair.get(1), pair.get(0)) : pair);
+        if (withSupplementary) {
+            GATKRead supplementary = pair.get(0).copy();
+            supplementary.setIsSupplementaryAlignment(true);
+            template.add(supplementary);
+        }
+        return template;
+    }
+
     private JavaRDD<GATKRead> createPairedReads(JavaSparkContext ctx, SAMFileHeader header, int numPairs, int numPartitions) {
         final int readSize = 151;
         final int fragmentLen = 400;
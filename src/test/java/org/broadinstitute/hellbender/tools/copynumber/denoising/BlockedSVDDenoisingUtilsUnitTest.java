@@ -0,0 +1,149 @@
+package org.broadinstitute.hellbender.tools.copynumber.denoising;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.apache.commons.math3.stat.descriptive.rank.Percentile;
+import org.broadinstitute.hellbender.tools.copynumber.utils.FileBackedDoubleMatrix;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public final class BlockedSVDDenoisingUtilsUnitTest extends BaseTest {
+    private static final int RANDOM_SEED = 7;
+    private static final int NUM_SAMPLES = 30;
+    private static final int NUM_INTERVALS = 500;
+    private static final int MEAN_READ_DEPTH = 100;
+    private static final double ZERO_PROBABILITY = 0.01;
+    private static final double EPSILON = 1E-9;
+
+    private static final double MINIMUM_INTERVAL_MEDIAN_PERCENTILE = 10.;
+    private static final double MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE = 5.;
+    private static final double MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE = 5.;
+    private static final double EXTREME_SAMPLE_MEDIAN_PERCENTILE = 2.5;
+    private static final double EXTREME_OUTLIER_TRUNCATION_PERCENTILE = 0.1;
+
+    private static double[][] simulateReadCounts() {
+        final Random random = new Random(RANDOM_SEED);
+        final double[] intervalBiases = IntStream.range(0, NUM_INTERVALS).mapToDouble(i -> Math.exp(0.5 * random.nextGaussian())).toArray();
+        final double[][] readCounts = new double[NUM_SAMPLES][NUM_INTERVALS];
+        for (int sampleIndex = 0; sampleIndex < NUM_SAMPLES; sampleIndex++) {
+            final double sampleDepth = MEAN_READ_DEPTH * (1. + 0.2 * random.nextDouble());
+            for (int intervalIndex = 0; intervalIndex < NUM_INTERVALS; intervalIndex++) {
+                readCounts[sampleIndex][intervalIndex] = random.nextDouble() < ZERO_PROBABILITY
+                        ? 0.
+                        : (int) (sampleDepth * intervalBiases[intervalIndex] * Math.exp(0.1 * random.nextGaussian()));
+            }
+        }
+        return readCounts;
+    }
+
+    private static FileBackedDoubleMatrix toFileBackedMatrix(final double[][] matrix) {
+        final FileBackedDoubleMatrix fileBackedMatrix = new FileBackedDoubleMatrix(matrix.length, matrix[0].length);
+        IntStream.range(0, matrix.length).forEach(i -> fileBackedMatrix.setRow(i, matrix[i]));
+        return fileBackedMatrix;
+    }
+
+    @DataProvider(name = "dataBlockedPreprocessing")
+    public Object[][] dataBlockedPreprocessing() {
+        return new Object[][]{
+                {1, 1, true},
+                {7, 2, true},
+                {64, 4, false},
+                {NUM_INTERVALS, 3, true},
+                {2 * NUM_INTERVALS, 1, false}
+        };
+    }
+
+    @Test(dataProvider = "dataBlockedPreprocessing")
+    public void testBlockedPreprocessingAndSVD(final int numIntervalsPerBlock,
+                                               final int numThreads,
+                                               final boolean doImputeZeros) {
+        final double[][] readCounts = simulateReadCounts();
+        final SVDDenoisingUtils.PreprocessedStandardizedResult expected = SVDDenoisingUtils.preprocessAndStandardizePanel(
+                new Array2DRowRealMatrix(readCounts, true), null,
+                MINIMUM_INTERVAL_MEDIAN_PERCENTILE, MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE, MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE,
+                EXTREME_SAMPLE_MEDIAN_PERCENTILE, doImputeZeros, EXTREME_OUTLIER_TRUNCATION_PERCENTILE);
+
+        final ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try (final FileBackedDoubleMatrix fileBackedReadCounts = toFileBackedMatrix(readCounts)) {
+            final BlockedSVDDenoisingUtils.BlockedPreprocessedStandardizedResult result = BlockedSVDDenoisingUtils.preprocessAndStandardizePanel(
+                    fileBackedReadCounts, null,
+                    MINIMUM_INTERVAL_MEDIAN_PERCENTILE, MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE, MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE,
+                    EXTREME_SAMPLE_MEDIAN_PERCENTILE, doImputeZeros, EXTREME_OUTLIER_TRUNCATION_PERCENTILE,
+                    numIntervalsPerBlock, pool);
+
+            Assert.assertEquals(result.filterSamples, expected.filterSamples);
+            Assert.assertEquals(result.filterIntervals, expected.filterIntervals);
+            Assert.assertEquals(result.panelIntervalFractionalMedians, expected.panelIntervalFractionalMedians);
+
+            final RealMatrix expectedValues = expected.preprocessedStandardizedValues;
+            Assert.assertEquals(result.getNumPanelSamples(), expectedValues.getRowDimension());
+            Assert.assertEquals(result.getNumPanelIntervals(), expectedValues.getColumnDimension());
+            final double[][] values = result.getStandardizedBlock(0, result.getNumPanelIntervals());
+            for (int i = 0; i < values.length; i++) {
+                Assert.assertEquals(values[i], expectedValues.getRow(i));
+            }
+
+            //compare singular values and (up to sign) eigensample vectors to those from a direct SVD of the transposed standardized matrix
+            final int numEigensamples = 5;
+            final BlockedSVDDenoisingUtils.BlockedSVDResult svd = BlockedSVDDenoisingUtils.computeTruncatedSVD(
+                    result, numEigensamples, EPSILON, numIntervalsPerBlock, pool);
+            final SingularValueDecomposition expectedSVD = new SingularValueDecomposition(expectedValues.transpose());
+            Assert.assertEquals(svd.singularValues.length, numEigensamples);
+            Assert.assertEquals(svd.transposedEigensampleVectors.length, numEigensamples);
+            for (int k = 0; k < numEigensamples; k++) {
+                Assert.assertEquals(svd.singularValues[k], expectedSVD.getSingularValues()[k], 1E-6 * expectedSVD.getSingularValues()[0]);
+                final double[] expectedEigensampleVector = expectedSVD.getU().getColumn(k);
+                final double sign = Math.signum(dot(svd.transposedEigensampleVectors[k], expectedEigensampleVector));
+                for (int i = 0; i < expectedEigensampleVector.length; i++) {
+                    Assert.assertEquals(sign * svd.transposedEigensampleVectors[k][i], expectedEigensampleVector[i], 1E-6);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCalculatePercentiles() {
+        final Random random = new Random(RANDOM_SEED);
+        final int numBlocks = 13;
+        final double[][][] blocks = new double[numBlocks][][];
+        for (int blockIndex = 0; blockIndex < numBlocks; blockIndex++) {
+            blocks[blockIndex] = new double[3][blockIndex + 1];
+            for (final double[] row : blocks[blockIndex]) {
+                for (int i = 0; i < row.length; i++) {
+                    //include ties, negative values, and NaNs
+                    row[i] = random.nextInt(20) == 0 ? Double.NaN : Math.round(10. * random.nextGaussian()) / 4.;
+                }
+            }
+        }
+        final double[] allValues = Arrays.stream(blocks).flatMap(Arrays::stream).flatMapToDouble(Arrays::stream).toArray();
+        final double[] percentiles = {0., 0.1, 2.5, 33.3, 50., 97.5, 99.9, 100.};
+
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            final double[] result = BlockedSVDDenoisingUtils.calculatePercentiles(pool, numBlocks, blockIndex -> blocks[blockIndex], percentiles);
+            for (int i = 0; i < percentiles.length; i++) {
+                final double expected = percentiles[i] == 0.
+                        ? Arrays.stream(allValues).filter(x -> !Double.isNaN(x)).min().getAsDouble()
+                        : new Percentile(percentiles[i]).evaluate(allValues);
+                Assert.assertEquals(result[i], expected, "Percentile " + percentiles[i]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static double dot(final double[] x,
+                              final double[] y) {
+        return IntStream.range(0, x.length).mapToDouble(i -> x[i] * y[i]).sum();
+    }
+}
@@ -6,10 +6,14 @@ import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCount;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableReader;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -56,4 +60,27 @@ public final class SimpleCountCollectionUnitTest extends GATKBaseTest {
     public void testReadDoubleCounts() {
         SimpleCountCollection.read(DOUBLE_COUNTS_FILE);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testReadWithColumnarSidecar() throws IOException {
+        final SimpleCountCollection scc = SimpleCountCollection.read(INTEGER_COUNTS_FILE);
+        final File outputFile = new File(createTempDir("sidecar"), "counts.tsv");
+        final File sidecarFile = ColumnarTableReader.getSidecarFile(outputFile);
+
+        scc.writeWithColumnarSidecar(outputFile);
+        Assert.assertTrue(ColumnarTableReader.hasCurrentSidecar(outputFile));
+        Assert.assertEquals(SimpleCountCollection.read(outputFile), scc);
+
+        //a sidecar that no longer matches the TSV file is ignored
+        try (final Writer writer = new FileWriter(outputFile, true)) {
+            writer.write(String.join("\t", "20", "160001", "170000", "1") + "\n");
+        }
+        Assert.assertFalse(ColumnarTableReader.hasCurrentSidecar(outputFile));
+        Assert.assertEquals(SimpleCountCollection.read(outputFile).size(), scc.size() + 1);
+
+        //writing without a sidecar removes any existing sidecar
+        scc.write(outputFile);
+        Assert.assertFalse(sidecarFile.exists());
+        Assert.assertEquals(SimpleCountCollection.read(outputFile), scc);
+    }
+}
@@ -8,12 +8,15 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSam
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.ModeledSegment;
 import org.broadinstitute.hellbender.utils.mcmc.Decile;
 import org.broadinstitute.hellbender.utils.mcmc.DecileCollection;
+import org.broadinstitute.hellbender.utils.mcmc.IndependentBlockSampler;
 import org.broadinstitute.hellbender.utils.test.BaseTest;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -55,6 +58,40 @@ public final class AlleleFractionModellerUnitTest extends BaseTest {
         assertAlleleFractionPosteriorCenters(modeller, simulatedData);
     }
 
+    /**
+     * Tests that sampling minor-allele fractions of segments in parallel recovers posterior centers
+     * and gives results that do not depend on the number of threads.
+     */
+    @Test
+    public void testMCMCWithParallelSegmentSampling() {
+        final AlleleFractionGlobalParameters globalParameters = new AlleleFractionGlobalParameters(1.2, 0.04, 0.02);
+        final AlleleFractionPrior prior = new AlleleFractionPrior(1.);
+        final int numSamples = 150;
+        final int numBurnIn = 50;
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+
+        final SampleMetadata sampleMetadata = new SimpleSampleMetadata("test");
+        final AlleleFractionSimulatedData simulatedData = new AlleleFractionSimulatedData(
+                sampleMetadata, globalParameters, 50, 50., 50., rng);
+
+        final List<AlleleFractionModeller> modellers = new ArrayList<>();
+        for (final int numThreads : new int[]{1, 4}) {
+            final ForkJoinPool pool = new ForkJoinPool(numThreads);
+            try {
+                final AlleleFractionModeller modeller = new AlleleFractionModeller(
+                        simulatedData.getData().getAllelicCounts(), simulatedData.getData().getSegments(), prior,
+                        IndependentBlockSampler.parallel(pool));
+                modeller.fitMCMC(numSamples, numBurnIn);
+                assertAlleleFractionPosteriorCenters(modeller, simulatedData);
+                modellers.add(modeller);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        Assert.assertEquals(modellers.get(0).getMeanBiasSamples(), modellers.get(1).getMeanBiasSamples());
+        Assert.assertEquals(modellers.get(0).getMinorFractionsSamples(), modellers.get(1).getMinorFractionsSamples());
+    }
+
     static void assertAlleleFractionPosteriorCenters(final AlleleFractionModeller modeller,
                                                      final AlleleFractionSimulatedData simulatedData) {
         final AlleleFractionState trueState = simulatedData.getTrueState();
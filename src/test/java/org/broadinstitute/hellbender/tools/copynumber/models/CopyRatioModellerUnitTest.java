@@ -8,12 +8,15 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSam
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.ModeledSegment;
 import org.broadinstitute.hellbender.utils.mcmc.Decile;
 import org.broadinstitute.hellbender.utils.mcmc.DecileCollection;
+import org.broadinstitute.hellbender.utils.mcmc.IndependentBlockSampler;
 import org.broadinstitute.hellbender.utils.test.BaseTest;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -50,6 +53,38 @@ public final class CopyRatioModellerUnitTest extends BaseTest {
         assertCopyRatioPosteriorCenters(modeller, simulatedData);
     }
 
+    /**
+     * Tests that sampling segment means and outlier indicators of segments in parallel recovers posterior centers
+     * and gives results that do not depend on the number of threads.
+     */
+    @Test
+    public void testMCMCWithParallelSegmentSampling() {
+        final int numSamples = 150;
+        final int numBurnIn = 50;
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+
+        final SampleMetadata sampleMetadata = new SimpleSampleMetadata("test");
+        final CopyRatioSimulatedData simulatedData = new CopyRatioSimulatedData(
+                sampleMetadata, 0.01, 0.05, 100, 100., rng);
+
+        final List<CopyRatioModeller> modellers = new ArrayList<>();
+        for (final int numThreads : new int[]{1, 4}) {
+            final ForkJoinPool pool = new ForkJoinPool(numThreads);
+            try {
+                final CopyRatioModeller modeller = new CopyRatioModeller(
+                        simulatedData.getData().getCopyRatios(), simulatedData.getData().getSegments(),
+                        IndependentBlockSampler.parallel(pool));
+                modeller.fitMCMC(numSamples, numBurnIn);
+                assertCopyRatioPosteriorCenters(modeller, simulatedData);
+                modellers.add(modeller);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        Assert.assertEquals(modellers.get(0).getVarianceSamples(), modellers.get(1).getVarianceSamples());
+        Assert.assertEquals(modellers.get(0).getSegmentMeansSamples(), modellers.get(1).getSegmentMeansSamples());
+    }
+
     static void assertCopyRatioPosteriorCenters(final CopyRatioModeller modeller,
                                                 final CopyRatioSimulatedData simulatedData) {
         final CopyRatioState trueState = simulatedData.getTrueState();
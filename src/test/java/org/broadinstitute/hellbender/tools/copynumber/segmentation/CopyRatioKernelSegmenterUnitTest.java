@@ -15,6 +15,7 @@ import org.testng.annotations.Test;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -89,4 +90,25 @@ public class CopyRatioKernelSegmenterUnitTest {
                         windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor);
         Assert.assertEquals(segments, segmentsExpected);
     }
-}
\ No newline at end of file
+
+    @Test(dataProvider = "dataCopyRatioKernelSegmenter")
+    public void testCopyRatioKernelSegmenterParallel(final CopyRatioCollection denoisedCopyRatios,
+                                                     final CopyRatioSegmentCollection segmentsExpected) {
+        final int maxNumChangepointsPerChromosome = 25;
+        final double kernelVariance = 0.;
+        final int kernelApproximationDimension = 20;
+        final List<Integer> windowSizes = Arrays.asList(8, 16, 32, 64);
+        final double numChangepointsPenaltyLinearFactor = 2.;
+        final double numChangepointsPenaltyLogLinearFactor = 2.;
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final CopyRatioSegmentCollection segments = new CopyRatioKernelSegmenter(denoisedCopyRatios)
+                    .findSegmentation(maxNumChangepointsPerChromosome, kernelVariance, kernelApproximationDimension,
+                            windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, pool);
+            Assert.assertEquals(segments, segmentsExpected);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
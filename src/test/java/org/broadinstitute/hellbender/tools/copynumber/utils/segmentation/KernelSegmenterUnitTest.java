@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -143,6 +144,33 @@ public final class KernelSegmenterUnitTest extends GATKBaseTest {
         Assert.assertEquals(changepoints.subList(0, changepointsExpected.size()), changepointsExpected);
     }
 
+    @Test(dataProvider = "dataKernelSegmenter")
+    public void testKernelSegmenterParallel(final List<Double> data,
+                                            final BiFunction<Double, Double, Double> kernel,
+                                            final List<Integer> changepointsExpected) {
+        final int maxNumChangepoints = 25;
+        final int kernelApproximationDimension = 20;
+        final List<Integer> windowSizes = Arrays.asList(8, 16, 32, 64, 2000);   //include a window size that exceeds the number of data points
+        final double numChangepointsPenaltyLinearFactor = 0.;
+        final double numChangepointsPenaltyLogLinearFactor = 0.;
+
+        final List<Integer> changepoints = new KernelSegmenter<>(data)
+                .findChangepoints(maxNumChangepoints, kernel, kernelApproximationDimension, windowSizes,
+                        numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, ChangepointSortOrder.BACKWARD_SELECTION);
+        for (final int numThreads : new int[]{1, 2, 4}) {
+            final ForkJoinPool pool = new ForkJoinPool(numThreads);
+            try {
+                final List<Integer> changepointsParallel = new KernelSegmenter<>(data)
+                        .findChangepoints(maxNumChangepoints, kernel, kernelApproximationDimension, windowSizes,
+                                numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, ChangepointSortOrder.BACKWARD_SELECTION,
+                                pool);
+                Assert.assertEquals(changepointsParallel, changepoints);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testKernelSegmenterEmptyWindowSizes() {
         final int maxNumChangepoints = 25;
@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.tools.examples;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
@@ -12,8 +13,13 @@ public final class ExampleReadWalkerWithReferenceSparkIntegrationTest extends Co
     private static final String TEST_DATA_DIRECTORY = publicTestDir + "org/broadinstitute/hellbender/engine/";
     private static final String TEST_OUTPUT_DIRECTORY = publicTestDir + "org/broadinstitute/hellbender/tools/examples/";
 
-    @Test
-    public void testExampleReadWalkerWithReferenceSpark() throws IOException {
+    @DataProvider(name = "sharedWindowCache")
+    public Object[][] sharedWindowCache() {
+        return new Object[][]{{true}, {false}};
+    }
+
+    @Test(dataProvider = "sharedWindowCache")
+    public void testExampleReadWalkerWithReferenceSpark(final boolean useSharedWindowCache) throws IOException {
         final File out = File.createTempFile("out", ".txt");
         out.delete();
         out.deleteOnExit();
@@ -24,6 +30,8 @@ public final class ExampleReadWalkerWithReferenceSparkIntegrationTest extends Co
         args.add(out.getAbsolutePath());
         args.add("--reference");
         args.add(hg19MiniReference);
+        args.add("--sharedWindowCache");
+        args.add(useSharedWindowCache);
         this.runCommandLine(args.getArgsArray());
         File expected = new File(TEST_OUTPUT_DIRECTORY, "expected_ExampleReadWalkerWithReferenceIntegrationTest_output.txt");
         IntegrationTestSpec.assertEqualTextFiles(new File(out, "part-00000"), expected);
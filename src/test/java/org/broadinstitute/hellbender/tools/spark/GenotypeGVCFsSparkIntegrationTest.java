@@ -0,0 +1,88 @@
+package org.broadinstitute.hellbender.tools.spark;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import org.apache.commons.collections.IteratorUtils;
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.tools.walkers.CombineGVCFs;
+import org.broadinstitute.hellbender.tools.walkers.GenotypeGVCFs;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
+import org.broadinstitute.hellbender.utils.test.VariantContextTestUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+public final class GenotypeGVCFsSparkIntegrationTest extends CommandLineProgramTest {
+
+    private static final File GENOTYPE_GVCFS_TEST_DIR = new File(getTestDataDir(), "walkers/GenotypeGVCFs");
+    private static final File COMBINE_GVCFS_TEST_DIR = new File(getTestDataDir(), "walkers/CombineGVCFs");
+
+    @DataProvider(name = "singleGVCFs")
+    public Object[][] singleGVCFs() {
+        return new Object[][]{
+                {new File(GENOTYPE_GVCFS_TEST_DIR, "gvcfExample1.vcf"), new File(GENOTYPE_GVCFS_TEST_DIR, "gvcfExample1.gatk3.7_30_ga4f720357.expected.vcf")},
+                {new File(GENOTYPE_GVCFS_TEST_DIR, "gvcf.basepairResolution.gvcf"), new File(GENOTYPE_GVCFS_TEST_DIR, "gvcf.basepairResolution.gatk3.7_30_ga4f720357.output.vcf")},
+                {new File(GENOTYPE_GVCFS_TEST_DIR, "spanningDel.delOnly.g.vcf"), new File(GENOTYPE_GVCFS_TEST_DIR, "spanningDel.delOnly.gatk3.7_30_ga4f720357.expected.vcf")},
+        };
+    }
+
+    @Test(dataProvider = "singleGVCFs")
+    public void testSingleGVCF(final File input, final File expected) {
+        final File output = createTempFile("genotypegvcfsspark", ".vcf");
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addReference(new File(b37_2bit_reference_20_21))
+                .addVCF(input)
+                .addOutput(output);
+        Utils.resetRandomGenerator();
+        runCommandLine(args);
+
+        assertSameGenotypes(output, expected);
+    }
+
+    @Test
+    public void testMatchesCombineGVCFsAndGenotypeGVCFs() {
+        final List<File> inputs = Arrays.asList(new File(COMBINE_GVCFS_TEST_DIR, "gvcfExample1.vcf"), new File(COMBINE_GVCFS_TEST_DIR, "gvcfExample2.vcf"));
+
+        final File combined = createTempFile("combined", ".g.vcf");
+        final ArgumentsBuilder combineArgs = new ArgumentsBuilder();
+        combineArgs.addReference(new File(b37_reference_20_21)).addOutput(combined);
+        inputs.forEach(combineArgs::addVCF);
+        new CombineGVCFs().instanceMain(combineArgs.getArgsArray());
+
+        final File expected = createTempFile("genotyped", ".vcf");
+        final ArgumentsBuilder genotypeArgs = new ArgumentsBuilder();
+        genotypeArgs.addReference(new File(b37_reference_20_21)).addVCF(combined).addOutput(expected);
+        Utils.resetRandomGenerator();
+        new GenotypeGVCFs().instanceMain(genotypeArgs.getArgsArray());
+
+        // use small shards so that some of the reference blocks span several shards
+        final File output = createTempFile("genotypegvcfsspark", ".vcf");
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addReference(new File(b37_2bit_reference_20_21))
+                .addOutput(output)
+                .addArgument("variantShardSize", "100");
+        inputs.forEach(args::addVCF);
+        Utils.resetRandomGenerator();
+        runCommandLine(args);
+
+        assertSameGenotypes(output, expected);
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private static void assertSameGenotypes(final File actual, final File expected) {
+        try (final FeatureDataSource<VariantContext> actualSource = new FeatureDataSource<>(actual);
+             final FeatureDataSource<VariantContext> expectedSource = new FeatureDataSource<>(expected)) {
+            final List<VariantContext> actualVCs = IteratorUtils.toList(actualSource.iterator());
+            final List<VariantContext> expectedVCs = IteratorUtils.toList(expectedSource.iterator());
+            Assert.assertEquals(actualVCs.size(), expectedVCs.size());
+            for (int i = 0; i < actualVCs.size(); i++) {
+                VariantContextTestUtils.assertVariantContextsHaveSameGenotypes(actualVCs.get(i), expectedVCs.get(i));
+            }
+        }
+    }
+}
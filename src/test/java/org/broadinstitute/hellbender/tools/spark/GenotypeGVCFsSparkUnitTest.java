@@ -0,0 +1,93 @@
+package org.broadinstitute.hellbender.tools.spark;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.SampleList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import scala.Tuple2;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class GenotypeGVCFsSparkUnitTest extends GATKBaseTest {
+
+    private static final Allele REF = Allele.create("A", true);
+
+    private static final VariantContext S1_BLOCK_1 = refBlock("s1", 1, 9);
+    private static final VariantContext S1_SNP = record("s1", 10, 10, REF, Allele.create("C"), Allele.NON_REF_ALLELE);
+    private static final VariantContext S1_BLOCK_2 = refBlock("s1", 11, 30);
+    private static final VariantContext S2_BLOCK_1 = refBlock("s2", 1, 4);
+    private static final VariantContext S2_DELETION = record("s2", 5, 7, Allele.create("ACG", true), Allele.create("A"), Allele.NON_REF_ALLELE);
+    private static final VariantContext S2_BLOCK_2 = refBlock("s2", 8, 30);
+    private static final VariantContext S3_BLOCK = refBlock("s3", 1, 30);
+
+    private static final List<VariantContext> RECORDS = Arrays.asList(
+            S3_BLOCK, S2_BLOCK_2, S1_SNP, S1_BLOCK_2, S2_DELETION, S1_BLOCK_1, S2_BLOCK_1);
+
+    private static final SampleList SAMPLES = new IndexedSampleList("s1", "s2", "s3");
+
+    private static VariantContext refBlock(final String sample, final int start, final int end) {
+        return record(sample, start, end, REF, Allele.NON_REF_ALLELE);
+    }
+
+    private static VariantContext record(final String sample, final int start, final int end, final Allele... alleles) {
+        return new VariantContextBuilder(sample, "1", start, end, Arrays.asList(alleles))
+                .genotypes(new GenotypeBuilder(sample, Arrays.asList(alleles[0], alleles[0])).make())
+                .make();
+    }
+
+    private static List<VariantContext> overlapping(final SimpleInterval interval) {
+        return RECORDS.stream().filter(vc -> vc.overlaps(interval)).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testOverlappingRecordsAtSites() {
+        final SimpleInterval interval = new SimpleInterval("1", 1, 20);
+        final List<Tuple2<SimpleInterval, List<VariantContext>>> sites =
+                GenotypeGVCFsSpark.getOverlappingRecordsAtSites(overlapping(interval), interval, SAMPLES);
+        Assert.assertEquals(sites.size(), 2);
+
+        Assert.assertEquals(sites.get(0)._1(), new SimpleInterval("1", 5, 7));
+        Assert.assertEquals(sites.get(0)._2(), Arrays.asList(S2_DELETION, S3_BLOCK, S1_BLOCK_1));
+
+        Assert.assertEquals(sites.get(1)._1(), new SimpleInterval("1", 10, 10));
+        Assert.assertEquals(sites.get(1)._2(), Arrays.asList(S1_SNP, S2_BLOCK_2, S3_BLOCK));
+    }
+
+    @Test
+    public void testSitesStartingBeforeIntervalAreSkipped() {
+        final SimpleInterval interval = new SimpleInterval("1", 6, 20);
+        final List<Tuple2<SimpleInterval, List<VariantContext>>> sites =
+                GenotypeGVCFsSpark.getOverlappingRecordsAtSites(overlapping(interval), interval, SAMPLES);
+        Assert.assertEquals(sites.size(), 1);
+        Assert.assertEquals(sites.get(0)._1(), new SimpleInterval("1", 10, 10));
+        Assert.assertEquals(sites.get(0)._2(), Arrays.asList(S1_SNP, S2_BLOCK_2, S3_BLOCK));
+    }
+
+    @Test
+    public void testNoSitesInReferenceBlocks() {
+        final SimpleInterval interval = new SimpleInterval("1", 11, 30);
+        Assert.assertTrue(GenotypeGVCFsSpark.getOverlappingRecordsAtSites(overlapping(interval), interval, SAMPLES).isEmpty());
+    }
+
+    @Test
+    public void testRecordsEndAtNextRecordOfSameSample() {
+        // in base pair resolution, a SNP can start within a deletion of the same sample
+        final VariantContext deletion = record("s1", 5, 8, Allele.create("ACGT", true), Allele.create("A"), Allele.NON_REF_ALLELE);
+        final VariantContext snp = record("s1", 7, 7, REF, Allele.create("C"), Allele.NON_REF_ALLELE);
+        final VariantContext block = refBlock("s2", 1, 10);
+        final SimpleInterval interval = new SimpleInterval("1", 1, 10);
+        final List<Tuple2<SimpleInterval, List<VariantContext>>> sites =
+                GenotypeGVCFsSpark.getOverlappingRecordsAtSites(Arrays.asList(snp, block, deletion), interval, SAMPLES);
+        Assert.assertEquals(sites.size(), 2);
+        Assert.assertEquals(sites.get(0)._2(), Arrays.asList(deletion, block));
+        Assert.assertEquals(sites.get(1)._2(), Arrays.asList(snp, block));
+    }
+}
@@ -1,14 +1,18 @@
 package org.broadinstitute.hellbender.tools.spark.pipelines;
 
+import htsjdk.samtools.BAMIndex;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.spark.SparkException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.ReadsDataSource;
@@ -139,6 +143,46 @@ public final class PrintReadsSparkIntegrationTest extends CommandLineProgramTest
         SamAssertionUtils.assertSamsEqual(outBam, expectedBam);
     }
 
+    @Test(groups = "spark")
+    public void testCoordinateSortedManyPartitions() throws Exception {
+        // the reads of a coordinate-sorted input are written in input order without sorting them, across many partitions
+        final File inBam = new File(getTestDataDir(), "print_reads.sorted.bam");
+        final File outBam = GATKBaseTest.createTempFile("print_reads_spark", ".bam");
+        ArgumentsBuilder args = new ArgumentsBuilder();
+        args.add("--" + StandardArgumentDefinitions.INPUT_LONG_NAME);
+        args.add(inBam.getCanonicalPath());
+        args.add("--" + StandardArgumentDefinitions.OUTPUT_LONG_NAME);
+        args.add(outBam.getCanonicalPath());
+        args.add("--bamPartitionSize 1000");
+
+        this.runCommandLine(args.getArgsArray());
+
+        SamAssertionUtils.assertSamsEqual(outBam, inBam);
+        Assert.assertTrue(new File(outBam.getPath() + BAMIndex.BAMIndexSuffix).exists());
+    }
+
+    @Test(groups = "spark", expectedExceptions = SparkException.class)
+    public void testCoordinateSortedInputIsNotSortedAgain() throws Exception {
+        // an input whose header claims it is coordinate sorted is trusted, so reads that are out of order are reported
+        // rather than sorted
+        final List<String> lines = Files.readAllLines(new File(getTestDataDir(), "print_reads.sorted.sam").toPath());
+        final List<String> headerLines = lines.stream().filter(line -> line.startsWith("@")).collect(Collectors.toList());
+        final List<String> readLines = lines.stream().filter(line -> !line.startsWith("@")).collect(Collectors.toList());
+        Collections.reverse(readLines);
+        final File unsortedSam = GATKBaseTest.createTempFile("print_reads_unsorted", ".sam");
+        headerLines.addAll(readLines);
+        Files.write(unsortedSam.toPath(), headerLines);
+
+        final File outBam = GATKBaseTest.createTempFile("print_reads_spark", ".bam");
+        ArgumentsBuilder args = new ArgumentsBuilder();
+        args.add("--" + StandardArgumentDefinitions.INPUT_LONG_NAME);
+        args.add(unsortedSam.getCanonicalPath());
+        args.add("--" + StandardArgumentDefinitions.OUTPUT_LONG_NAME);
+        args.add(outBam.getCanonicalPath());
+
+        this.runCommandLine(args.getArgsArray());
+    }
+
     @Test(expectedExceptions = UserException.IncompatibleSequenceDictionaries.class, groups="spark")
     public void testSequenceDictionaryValidation() throws Exception {
         final File inCram = new File(getTestDataDir(), "print_reads.sorted.cram");
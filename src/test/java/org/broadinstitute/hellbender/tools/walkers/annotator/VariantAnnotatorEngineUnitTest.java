@@ -25,6 +25,7 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -328,6 +329,59 @@ public final class VariantAnnotatorEngineUnitTest extends GATKBaseTest {
         Assert.assertNull(resultVC.getCommonInfo().getAttribute(GATKVCFConstants.STRAND_ODDS_RATIO_KEY));
     }
 
+    @Test
+    public void testRankSumTestsAnnotatedTogether() throws Exception {
+        final List<RankSumTest> rankSumTests = Arrays.asList(new MappingQualityRankSumTest(), new BaseQualityRankSumTest(), new ReadPosRankSumTest(), new ClippingRankSumTest());
+        final List<String> annotationsToUse = rankSumTests.stream().map(a -> a.getClass().getSimpleName()).collect(Collectors.toList());
+        final VariantAnnotatorEngine vae = VariantAnnotatorEngine.ofSelectedMinusExcluded(Collections.emptyList(), annotationsToUse, Collections.emptyList(), null, Collections.emptyList());
+
+        final Allele refAllele = Allele.create("A", true);
+        final Allele altAllele = Allele.create("T");
+        final List<GATKRead> refReads = Arrays.stream(new int[]{20, 25, 30, 30, 0, 40}).mapToObj(mq -> ArtificialAnnotationUtils.makeRead(30, mq)).collect(Collectors.toList());
+        final List<GATKRead> altReads = Arrays.stream(new int[]{10, 15, 20, 60}).mapToObj(mq -> ArtificialAnnotationUtils.makeRead(20, mq)).collect(Collectors.toList());
+        final ReadLikelihoods<Allele> likelihoods = ArtificialAnnotationUtils.makeLikelihoods("sample1", refReads, altReads, -100.0, -100.0, refAllele, altAllele);
+        final int position = refReads.get(0).getStart() + 4;
+        final VariantContext vc = new VariantContextBuilder("test", refReads.get(0).getContig(), position, position, Arrays.asList(refAllele, altAllele))
+                .genotypes(new GenotypeBuilder("sample1", Arrays.asList(refAllele, altAllele)).make()).make();
+
+        final Map<String, Object> expected = new LinkedHashMap<>();
+        rankSumTests.forEach(a -> expected.putAll(a.annotate(null, vc, likelihoods)));
+        Assert.assertFalse(expected.isEmpty());
+        final VariantContext resultVC = vae.annotateContext(vc, new FeatureContext(), null, likelihoods, a -> true);
+        for (final Map.Entry<String, Object> entry : expected.entrySet()) {
+            Assert.assertEquals(resultVC.getAttribute(entry.getKey()), entry.getValue(), entry.getKey());
+        }
+        Assert.assertEquals(RankSumTest.annotateAll(rankSumTests, vc, likelihoods),
+                rankSumTests.stream().map(a -> a.annotate(null, vc, likelihoods)).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testRankSumTestsAnnotatedTogetherReuseBuffers() throws Exception {
+        // the buffers of annotateAll are reused from site to site, so values left from a larger site must not leak
+        // into the next one
+        final List<RankSumTest> rankSumTests = Arrays.asList(new MappingQualityRankSumTest(), new BaseQualityRankSumTest());
+        final Allele refAllele = Allele.create("A", true);
+        final Allele altAllele = Allele.create("T");
+
+        final List<GATKRead> smallRefReads = Arrays.stream(new int[]{20, 25, 30}).mapToObj(mq -> ArtificialAnnotationUtils.makeRead(30, mq)).collect(Collectors.toList());
+        final List<GATKRead> smallAltReads = Arrays.stream(new int[]{10, 15}).mapToObj(mq -> ArtificialAnnotationUtils.makeRead(20, mq)).collect(Collectors.toList());
+        final ReadLikelihoods<Allele> smallLikelihoods = ArtificialAnnotationUtils.makeLikelihoods("sample1", smallRefReads, smallAltReads, -100.0, -100.0, refAllele, altAllele);
+        final List<GATKRead> largeRefReads = IntStream.range(0, 30).mapToObj(i -> ArtificialAnnotationUtils.makeRead(10 + i, 60 - i)).collect(Collectors.toList());
+        final List<GATKRead> largeAltReads = IntStream.range(0, 20).mapToObj(i -> ArtificialAnnotationUtils.makeRead(40 - i, i)).collect(Collectors.toList());
+        final ReadLikelihoods<Allele> largeLikelihoods = ArtificialAnnotationUtils.makeLikelihoods("sample1", largeRefReads, largeAltReads, -100.0, -100.0, refAllele, altAllele);
+
+        final int position = smallRefReads.get(0).getStart() + 4;
+        final VariantContext vc = new VariantContextBuilder("test", smallRefReads.get(0).getContig(), position, position, Arrays.asList(refAllele, altAllele))
+                .genotypes(new GenotypeBuilder("sample1", Arrays.asList(refAllele, altAllele)).make()).make();
+
+        final List<Map<String, Object>> small = RankSumTest.annotateAll(rankSumTests, vc, smallLikelihoods);
+        final List<Map<String, Object>> large = RankSumTest.annotateAll(rankSumTests, vc, largeLikelihoods);
+        Assert.assertNotEquals(large, small);
+        Assert.assertEquals(RankSumTest.annotateAll(rankSumTests, vc, smallLikelihoods), small);
+        Assert.assertEquals(RankSumTest.annotateAll(rankSumTests.subList(0, 1), vc, smallLikelihoods), small.subList(0, 1));
+        Assert.assertEquals(RankSumTest.annotateAll(rankSumTests, vc, largeLikelihoods), large);
+    }
+
     @Test
     public void testCoverageAnnotationOnDbSnpSite() throws Exception {
         final List<String> annotationGroupsToUse= Collections.emptyList();
@@ -49,6 +49,11 @@ public class HaplotypeCallerEngineUnitTest extends GATKBaseTest {
 
             final HaplotypeCallerEngine hcEngine = new HaplotypeCallerEngine(hcArgs, false, false, reads.getHeader(), referenceReader);
 
+            // evaluates the full model at every locus, which should give the same results as the pre-screened engine
+            final HaplotypeCallerArgumentCollection unscreenedHcArgs = new HaplotypeCallerArgumentCollection();
+            unscreenedHcArgs.minEvidenceForActivityModel = 0;
+            final HaplotypeCallerEngine unscreenedHcEngine = new HaplotypeCallerEngine(unscreenedHcArgs, false, false, reads.getHeader(), referenceReader);
+
             List<ReadFilter> hcFilters = HaplotypeCallerEngine.makeStandardHCReadFilters();
             hcFilters.forEach(filter -> filter.setHeader(reads.getHeader()));
             ReadFilter hcCombinedFilter = hcFilters.get(0);
@@ -67,6 +72,10 @@ public class HaplotypeCallerEngineUnitTest extends GATKBaseTest {
 
                 final double expectedIsActiveValue = expectedActiveSites.contains(pileupInterval) ? 1.0 : 0.0;
                 Assert.assertEquals(isActiveResult.isActiveProb(), expectedIsActiveValue, "Wrong isActive probability for site " + pileupInterval);
+
+                final ActivityProfileState unscreenedIsActiveResult = unscreenedHcEngine.isActive(pileup, pileupRefContext, new FeatureContext(null, pileupInterval));
+                Assert.assertEquals(isActiveResult.isActiveProb(), unscreenedIsActiveResult.isActiveProb(), "Pre-screen changed isActive probability for site " + pileupInterval);
+                Assert.assertEquals(isActiveResult.getResultState(), unscreenedIsActiveResult.getResultState(), "Pre-screen changed isActive result state for site " + pileupInterval);
             });
         }
     }
@@ -7,6 +7,7 @@ import htsjdk.variant.variantcontext.Allele;
 import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
 import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
 import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
@@ -165,43 +166,98 @@ public final class PairHMMLikelihoodCalculationEngineUnitTest extends GATKBaseTe
         final LikelihoodEngineArgumentCollection LEAC = new LikelihoodEngineArgumentCollection();
 
         PairHMMLikelihoodCalculationEngine.writeLikelihoodsToFile = true;
+        try {
+            final ReadLikelihoodCalculationEngine lce = new PairHMMLikelihoodCalculationEngine((byte) SAMUtils.MAX_PHRED_SCORE, new PairHMMNativeArguments(),
+                    PairHMM.Implementation.LOGLESS_CACHING, MathUtils.logToLog10(QualityUtils.qualToErrorProbLog10(LEAC.phredScaledGlobalReadMismappingRate)),
+                    PairHMMLikelihoodCalculationEngine.PCRErrorModel.CONSERVATIVE);
+
+            final Map<String, List<GATKRead>> perSampleReadList= new HashMap<>();
+            final int n = 10 ;
+            final GATKRead read1= ArtificialReadUtils.createArtificialRead(TextCigarCodec.decode(n + "M"));
+            read1.setMappingQuality(60);
+            final String sample1 = "sample1";
+            perSampleReadList.put(sample1, Arrays.asList(read1));
+
+            final SampleList samples = new IndexedSampleList(sample1);
+
+            final AssemblyResultSet assemblyResultSet = new AssemblyResultSet();
+            final byte[] bases = Strings.repeat("A", n+1).getBytes();
+            final Haplotype hap1 = new Haplotype(bases, true);
+            hap1.setGenomeLocation(read1);
+            assemblyResultSet.add(hap1);
+
+            final byte[] basesModified= bases;
+            basesModified[5] = 'C';//different bases
+            final Haplotype hap2 = new Haplotype(basesModified, false);
+            hap2.setGenomeLocation(read1);//use same loc
+            assemblyResultSet.add(hap2);
+
+
+            final ReadLikelihoods<Haplotype> likes = lce.computeReadLikelihoods(assemblyResultSet, samples, perSampleReadList);
+            final LikelihoodMatrix<Haplotype> mtx = likes.sampleMatrix(0);
+
+            Assert.assertEquals(mtx.numberOfAlleles(), 2);
+            Assert.assertEquals(mtx.numberOfReads(), 1);
+            final double v1 = mtx.get(0, 0);
+            final double v2 = mtx.get(1, 0);
+
+            Assert.assertTrue(v1 > v2, "matching haplotype should have a higher likelihood");
+            lce.close();
+        } finally {
+            PairHMMLikelihoodCalculationEngine.writeLikelihoodsToFile = false;
+            new File(PairHMMLikelihoodCalculationEngine.LIKELIHOODS_FILENAME).delete();
+        }
+    }
 
-        final ReadLikelihoodCalculationEngine lce = new PairHMMLikelihoodCalculationEngine((byte) SAMUtils.MAX_PHRED_SCORE, new PairHMMNativeArguments(),
-                PairHMM.Implementation.LOGLESS_CACHING, MathUtils.logToLog10(QualityUtils.qualToErrorProbLog10(LEAC.phredScaledGlobalReadMismappingRate)),
-                PairHMMLikelihoodCalculationEngine.PCRErrorModel.CONSERVATIVE);
-
-        final Map<String, List<GATKRead>> perSampleReadList= new HashMap<>();
-        final int n = 10 ;
-        final GATKRead read1= ArtificialReadUtils.createArtificialRead(TextCigarCodec.decode(n + "M"));
-        read1.setMappingQuality(60);
-        final String sample1 = "sample1";
-        perSampleReadList.put(sample1, Arrays.asList(read1));
-
-        final SampleList samples = new IndexedSampleList(sample1);
-
+    @Test
+    public void testDeduplicatedReadsGetSameLikelihoods() {
+        final String sample = "sample1";
+        final SampleList samples = new IndexedSampleList(sample);
         final AssemblyResultSet assemblyResultSet = new AssemblyResultSet();
-        final byte[] bases = Strings.repeat("A", n+1).getBytes();
-        final Haplotype hap1 = new Haplotype(bases, true);
-        hap1.setGenomeLocation(read1);
-        assemblyResultSet.add(hap1);
-
-        final byte[] basesModified= bases;
-        basesModified[5] = 'C';//different bases
-        final Haplotype hap2 = new Haplotype(basesModified, false);
-        hap2.setGenomeLocation(read1);//use same loc
-        assemblyResultSet.add(hap2);
-
-
-        final ReadLikelihoods<Haplotype> likes = lce.computeReadLikelihoods(assemblyResultSet, samples, perSampleReadList);
-        final LikelihoodMatrix<Haplotype> mtx = likes.sampleMatrix(0);
+        final GATKRead template = ArtificialReadUtils.createArtificialRead("20M");
+        for (final String bases : Arrays.asList("ACGTACGTACGTACGTACGTA", "ACGTACGTTCGTACGTACGTA", "ACGTACGTACGTACCGTACGT")) {
+            final Haplotype haplotype = new Haplotype(bases.getBytes(), assemblyResultSet.getHaplotypeCount() == 0);
+            haplotype.setGenomeLocation(template);
+            assemblyResultSet.add(haplotype);
+        }
 
-        Assert.assertEquals(mtx.numberOfAlleles(), 2);
-        Assert.assertEquals(mtx.numberOfReads(), 1);
-        final double v1 = mtx.get(0, 0);
-        final double v2 = mtx.get(1, 0);
+        // three distinct reads, two of them with duplicates; the last read differs from the first only in its mapping quality
+        final List<GATKRead> reads = new ArrayList<>();
+        final String[] readBases = {"ACGTACGTACGTACGTACGT", "ACGTACGTTCGTACGTACGT", "ACGTACGTACGTACGTACGT", "CGTACGTTCGTACGTACGTA",
+                "ACGTACGTTCGTACGTACGT", "ACGTACGTACGTACGTACGT"};
+        for (int i = 0; i < readBases.length; i++) {
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(readBases[i].getBytes(), Utils.dupBytes((byte) 30, 20), "20M");
+            read.setName("read" + i);
+            read.setMappingQuality(i == readBases.length - 1 ? 20 : 60);
+            reads.add(read);
+        }
+        final Map<String, List<GATKRead>> perSampleReadList = Collections.singletonMap(sample, reads);
+
+        // don't depend on the likelihoods file being written or not
+        final boolean writeLikelihoodsToFile = PairHMMLikelihoodCalculationEngine.writeLikelihoodsToFile;
+        PairHMMLikelihoodCalculationEngine.writeLikelihoodsToFile = false;
+        final List<ReadLikelihoods<Haplotype>> results = new ArrayList<>();
+        try {
+            for (final boolean deduplicateReads : new boolean[]{false, true}) {
+                final ReadLikelihoodCalculationEngine engine = new PairHMMLikelihoodCalculationEngine((byte) 10, new PairHMMNativeArguments(),
+                        PairHMM.Implementation.LOGLESS_CACHING, -4.5, PairHMMLikelihoodCalculationEngine.PCRErrorModel.CONSERVATIVE,
+                        PairHMM.BASE_QUALITY_SCORE_THRESHOLD, false, deduplicateReads);
+                results.add(engine.computeReadLikelihoods(assemblyResultSet, samples, perSampleReadList));
+                engine.close();
+            }
+        } finally {
+            PairHMMLikelihoodCalculationEngine.writeLikelihoodsToFile = writeLikelihoodsToFile;
+        }
 
-        Assert.assertTrue(v1 > v2, "matching haplotype should have a higher likelihood");
-        lce.close();
-        new File(PairHMMLikelihoodCalculationEngine.LIKELIHOODS_FILENAME).delete();
+        final LikelihoodMatrix<Haplotype> expected = results.get(0).sampleMatrix(0);
+        final LikelihoodMatrix<Haplotype> actual = results.get(1).sampleMatrix(0);
+        Assert.assertEquals(actual.numberOfReads(), expected.numberOfReads());
+        for (int r = 0; r < expected.numberOfReads(); r++) {
+            Assert.assertEquals(actual.getRead(r), expected.getRead(r));
+            for (int a = 0; a < expected.numberOfAlleles(); a++) {
+                Assert.assertEquals(actual.get(a, r), expected.get(a, r));
+            }
+        }
+        Assert.assertNotEquals(expected.get(1, 0), expected.get(1, reads.size() - 1));
     }
 }
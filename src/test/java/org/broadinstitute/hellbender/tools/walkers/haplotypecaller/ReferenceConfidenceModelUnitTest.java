@@ -18,6 +18,7 @@ import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
 import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
 import org.broadinstitute.hellbender.utils.genotyper.SampleList;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.pileup.ColumnarPileup;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -122,6 +123,40 @@ public final class ReferenceConfidenceModelUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testCountNonRefEvidence() {
+        final byte[] quals = Utils.dupBytes((byte) 30, 10);
+        final SimpleInterval loc = new SimpleInterval("20", 3, 3);
+        final GATKRead matching = ArtificialReadUtils.createArtificialRead("ACGTACGTAC".getBytes(), quals, "10M");
+        final GATKRead mismatching = ArtificialReadUtils.createArtificialRead("ACTTACGTAC".getBytes(), quals, "10M");
+        final GATKRead lowQualityMismatching = ArtificialReadUtils.createArtificialRead("ACTTACGTAC".getBytes(), Utils.dupBytes((byte) 5, 10), "10M");
+        final GATKRead afterSoftClip = ArtificialReadUtils.createArtificialRead("ACGTACGTAC".getBytes(), quals, "2S8M");
+        final byte refBase = 'G';
+        final byte minBaseQual = 10;
+
+        Assert.assertEquals(ReferenceConfidenceModel.countNonRefEvidence(new ReadPileup(loc, Arrays.asList(matching, matching), 2), refBase, minBaseQual, 10), 0);
+        Assert.assertEquals(ReferenceConfidenceModel.countNonRefEvidence(new ReadPileup(loc, Arrays.asList(matching, mismatching), 2), refBase, minBaseQual, 10), 1);
+        Assert.assertEquals(ReferenceConfidenceModel.countNonRefEvidence(new ReadPileup(loc, Arrays.asList(matching, lowQualityMismatching), 2), refBase, minBaseQual, 10), 0);
+        Assert.assertEquals(ReferenceConfidenceModel.countNonRefEvidence(new ReadPileup(loc, Arrays.asList(afterSoftClip, mismatching), 2), refBase, minBaseQual, 10), 2);
+        Assert.assertEquals(ReferenceConfidenceModel.countNonRefEvidence(new ReadPileup(loc, Arrays.asList(afterSoftClip, mismatching), 2), refBase, minBaseQual, 1), 1);
+
+        // the columnar version agrees with the element-based one
+        for (final List<GATKRead> reads : Arrays.asList(Arrays.asList(matching, mismatching), Arrays.asList(matching, lowQualityMismatching), Arrays.asList(afterSoftClip, mismatching))) {
+            final ReadPileup pileup = new ReadPileup(loc, reads, 2);
+            final ColumnarPileup columnarPileup = new ColumnarPileup();
+            columnarPileup.reset(loc.getContig(), loc.getStart());
+            pileup.forEach(columnarPileup::add);
+            for (final int maxCount : new int[]{1, 10}) {
+                Assert.assertEquals(ReferenceConfidenceModel.countNonRefEvidence(columnarPileup, refBase, minBaseQual, maxCount),
+                        ReferenceConfidenceModel.countNonRefEvidence(pileup, refBase, minBaseQual, maxCount));
+            }
+        }
+
+        // loci without evidence have only hom-ref support in the full calculation
+        final RefVsAnyResult result = model.calcGenotypeLikelihoodsOfRefVsAny(2, new ReadPileup(loc, Arrays.asList(matching, lowQualityMismatching), 2), refBase, minBaseQual, null);
+        Assert.assertEquals(result.getAD()[1], 0);
+    }
+
     @Test
     public void testWorstGL() {
         final GenotypeLikelihoods gq10 = GenotypeLikelihoods.fromPLField("0,10,100");
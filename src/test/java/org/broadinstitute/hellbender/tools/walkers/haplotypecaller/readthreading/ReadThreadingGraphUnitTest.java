@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
 
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
 import htsjdk.samtools.TextCigarCodec;
 import org.apache.commons.lang3.tuple.Pair;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
@@ -180,6 +181,85 @@ public final class ReadThreadingGraphUnitTest extends GATKBaseTest {
         Assert.assertEquals(new KBestHaplotypeFinder(graph, graph.getReferenceSourceVertex(), graph.getReferenceSinkVertex()).size(), 1);
     }
 
+    @Test(enabled = !DEBUG)
+    public void testNonUniqueKmersOfSequenceSharedAcrossKmerSizes() {
+        final Random random = new Random(5);
+        for ( int trial = 0; trial < 200; trial++ ) {
+            // short repeat units make non-unique kmers of many sizes
+            final StringBuilder bases = new StringBuilder();
+            while ( bases.length() < 80 ) {
+                final String unit = random.nextBoolean() ? "ACGT".substring(random.nextInt(4), 4) : "CA";
+                bases.append(random.nextInt(3) == 0 ? Utils.dupString(unit, 1 + random.nextInt(4)) : unit.substring(0, 1));
+            }
+            final byte[] sequence = bases.toString().getBytes();
+            final ReadThreadingGraph.SequenceForKmers shared = new ReadThreadingGraph.SequenceForKmers("shared", sequence, 3, sequence.length, 1, false);
+            for ( int kmerSize = 2; kmerSize < 40; kmerSize++ ) {
+                final Set<String> seen = new HashSet<>();
+                final List<String> expected = new ArrayList<>();
+                for ( int i = 0; i + kmerSize <= sequence.length; i++ ) {
+                    final String kmer = new String(sequence, i, kmerSize);
+                    if ( !seen.add(kmer) ) {
+                        expected.add(kmer);
+                    }
+                }
+                final List<String> actual = new ArrayList<>();
+                ReadThreadingGraph.determineNonUniqueKmers(shared, kmerSize).forEach(kmer -> actual.add(new String(kmer.bases())));
+                Assert.assertEquals(actual, expected, "kmer size " + kmerSize + " of " + bases);
+            }
+        }
+    }
+
+    @Test(enabled = !DEBUG)
+    public void testAddSequencesMatchesAddRead() {
+        final String ref = "CATGCACTTTAAAACTTGCCTTTTTAACAAGACTTCCAGATGCACACACACATTTAGGACCTTAGGACCTTAGACCATGACCATGAAATTTC";
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord("rg1");
+        readGroup.setSample("sample1");
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeaderWithReadGroup(readGroup);
+        final List<GATKRead> reads = new ArrayList<>();
+        final Random random = new Random(7);
+        for ( int start = 0; start + 40 <= ref.length(); start += 3 ) {
+            final byte[] bases = Arrays.copyOfRange(ref.getBytes(), start, start + 40);
+            final byte[] quals = Utils.dupBytes((byte) 30, 40);
+            bases[random.nextInt(40)] = 'G';
+            quals[random.nextInt(40)] = 5;
+            if ( start % 2 == 0 ) {
+                bases[random.nextInt(40)] = 'N';
+            }
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(bases, quals, "40M");
+            read.setName("read" + start);
+            if ( start % 4 == 0 ) {
+                read.setReadGroup("rg1");
+            }
+            reads.add(read);
+        }
+
+        final Map<String, List<ReadThreadingGraph.SequenceForKmers>> sequences = ReadThreadingGraph.splitReadsIntoSequences(reads, header, (byte) 10);
+        for ( final int kmerSize : Arrays.asList(10, 15, 25, 35) ) {
+            final ReadThreadingGraph fromReads = new ReadThreadingGraph(kmerSize, false, (byte) 10, 1);
+            fromReads.addSequence("ref", ref.getBytes(), true);
+            reads.forEach(read -> fromReads.addRead(read, header));
+            fromReads.buildGraphIfNecessary();
+
+            final ReadThreadingGraph fromSequences = new ReadThreadingGraph(kmerSize, false, (byte) 10, 1);
+            fromSequences.addSequence("ref", ref.getBytes(), true);
+            fromSequences.addSequences(sequences);
+            fromSequences.buildGraphIfNecessary();
+
+            Assert.assertEquals(fromSequences.getNonUniqueKmers(), fromReads.getNonUniqueKmers());
+            Assert.assertEquals(describeEdges(fromSequences), describeEdges(fromReads));
+        }
+    }
+
+    private static List<String> describeEdges(final ReadThreadingGraph graph) {
+        final List<String> result = new ArrayList<>();
+        for ( final MultiSampleEdge edge : graph.edgeSet() ) {
+            result.add(graph.getEdgeSource(edge).getSequenceString() + "->" + graph.getEdgeTarget(edge).getSequenceString()
+                    + ":" + edge.getMultiplicity() + ":" + edge.isRef());
+        }
+        Collections.sort(result);
+        return result;
+    }
+
 // TODO -- update to use determineKmerSizeAndNonUniques directly
 //    @DataProvider(name = "KmerSizeData")
 //    public Object[][] makeKmerSizeDataProvider() {
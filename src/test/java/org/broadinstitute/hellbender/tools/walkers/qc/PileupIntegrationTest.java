@@ -74,6 +74,20 @@ public class PileupIntegrationTest extends CommandLineProgramTest {
         testSpec.executeTest("testInsertLengthPileup", this);
     }
 
+    @Test
+    public void testColumnarPileupMatchesAlignmentContextTraversal() throws IOException {
+        // Pileup traverses columnar pileups; the expected output was produced by the AlignmentContext traversal
+        IntegrationTestSpec testSpec = new IntegrationTestSpec(
+                " -L 1:200-300 -L 2:1-16000" +
+                        " -R " + hg19MiniReference +
+                        " -I " + publicTestDir + "org/broadinstitute/hellbender/engine/reads_data_source_test1.bam" +
+                        " -verbose -outputInsertLength" +
+                        " -O %s",
+                Arrays.asList(TEST_OUTPUT_DIRECTORY + "expectedSmallPileup.txt")
+        );
+        testSpec.executeTest("testColumnarPileupMatchesAlignmentContextTraversal", this);
+    }
+
     @Test(expectedExceptions = UserException.CouldNotCreateOutputFile.class)
     public void testInvalidOutputFile() throws IOException {
         // GATK 3.5 code have a the last line with a REDUCE RESULT that was removed in this implementation
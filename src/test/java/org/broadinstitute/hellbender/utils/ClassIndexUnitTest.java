@@ -0,0 +1,88 @@
+package org.broadinstitute.hellbender.utils;
+
+import htsjdk.tribble.FeatureCodec;
+import org.broadinstitute.barclay.argparser.ClassFinder;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.broadinstitute.hellbender.tools.walkers.annotator.Annotation;
+import org.broadinstitute.hellbender.tools.walkers.annotator.InfoFieldAnnotation;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public final class ClassIndexUnitTest extends GATKBaseTest {
+    private static final String ANNOTATOR_PACKAGE = Annotation.class.getPackage().getName();
+    private static final String CODECS_PACKAGE = "org.broadinstitute.hellbender.utils.codecs";
+
+    private static Set<Class<?>> scan(final String packageName, final Class<?> baseClass) {
+        final ClassFinder finder = new ClassFinder();
+        finder.find(packageName, baseClass);
+        return new HashSet<>(finder.getClasses());
+    }
+
+    private static ClassIndex writeAndRead(final String... specs) throws IOException {
+        final StringWriter writer = new StringWriter();
+        ClassIndex.write(writer, Arrays.asList(specs));
+        return ClassIndex.read(new StringReader(writer.toString()));
+    }
+
+    @Test
+    public void testIndexMatchesScan() throws IOException {
+        final ClassIndex index = writeAndRead(
+                InfoFieldAnnotation.class.getName() + "=" + ANNOTATOR_PACKAGE,
+                FeatureCodec.class.getName() + "=" + CODECS_PACKAGE);
+        final Set<Class<?>> annotations = index.findClasses(ANNOTATOR_PACKAGE, InfoFieldAnnotation.class);
+        Assert.assertFalse(annotations.isEmpty());
+        Assert.assertEquals(annotations, scan(ANNOTATOR_PACKAGE, InfoFieldAnnotation.class));
+        Assert.assertEquals(index.findClasses(CODECS_PACKAGE, FeatureCodec.class), scan(CODECS_PACKAGE, FeatureCodec.class));
+    }
+
+    @Test
+    public void testUnindexedLookupsAreScanned() throws IOException {
+        final ClassIndex index = writeAndRead(InfoFieldAnnotation.class.getName() + "=" + ANNOTATOR_PACKAGE);
+        final String filtersPackage = ReadFilter.class.getPackage().getName();
+        Assert.assertEquals(index.findClasses(filtersPackage, ReadFilter.class), scan(filtersPackage, ReadFilter.class));
+        Assert.assertEquals(ClassIndex.find(filtersPackage, ReadFilter.class), scan(filtersPackage, ReadFilter.class));
+    }
+
+    @Test
+    public void testStaleIndexIsScanned() throws IOException {
+        final String missingClass = "@" + InfoFieldAnnotation.class.getName() + " " + ANNOTATOR_PACKAGE + "\n"
+                + ANNOTATOR_PACKAGE + ".NoSuchAnnotation\n";
+        Assert.assertEquals(ClassIndex.read(new StringReader(missingClass)).findClasses(ANNOTATOR_PACKAGE, InfoFieldAnnotation.class),
+                scan(ANNOTATOR_PACKAGE, InfoFieldAnnotation.class));
+
+        final String wrongType = "@" + InfoFieldAnnotation.class.getName() + " " + ANNOTATOR_PACKAGE + "\n"
+                + String.class.getName() + "\n";
+        Assert.assertEquals(ClassIndex.read(new StringReader(wrongType)).findClasses(ANNOTATOR_PACKAGE, InfoFieldAnnotation.class),
+                scan(ANNOTATOR_PACKAGE, InfoFieldAnnotation.class));
+    }
+
+    @Test
+    public void testEmptyEntry() throws IOException {
+        final String empty = "# comment\n@" + ReadFilter.class.getName() + " no.such.pkg\n";
+        Assert.assertEquals(ClassIndex.read(new StringReader(empty)).findClasses("no.such.pkg", ReadFilter.class), Collections.emptySet());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testClassNameOutsideOfEntry() throws IOException {
+        ClassIndex.read(new StringReader(String.class.getName() + "\n"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMalformedEntry() throws IOException {
+        ClassIndex.read(new StringReader("@" + ReadFilter.class.getName() + "\n"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMalformedSpec() throws IOException {
+        writeAndRead(ReadFilter.class.getName());
+    }
+}
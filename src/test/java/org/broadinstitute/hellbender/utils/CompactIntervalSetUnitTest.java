@@ -0,0 +1,176 @@
+package org.broadinstitute.hellbender.utils;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for {@link CompactIntervalSet} and {@link IntervalFileCache}.
+ */
+public final class CompactIntervalSetUnitTest extends GATKBaseTest {
+    private static final int CONTIG_LENGTH = 500;
+    private static final List<String> CONTIGS = Arrays.asList("1", "2", "3");
+    private static final SAMSequenceDictionary DICTIONARY = new SAMSequenceDictionary(
+            CONTIGS.stream().map(c -> new SAMSequenceRecord(c, CONTIG_LENGTH)).collect(Collectors.toList()));
+
+    private static List<SimpleInterval> randomIntervals(final Random random, final int numIntervals, final int maxLength) {
+        final List<SimpleInterval> intervals = new ArrayList<>(numIntervals);
+        for (int i = 0; i < numIntervals; i++) {
+            final String contig = CONTIGS.get(random.nextInt(CONTIGS.size() - 1));  //leave the last contig empty
+            final int start = 1 + random.nextInt(CONTIG_LENGTH);
+            final int end = Math.min(CONTIG_LENGTH, start + random.nextInt(maxLength));
+            intervals.add(new SimpleInterval(contig, start, end));
+        }
+        return intervals;
+    }
+
+    //per-contig coverage of each base, as the reference against which set operations are checked
+    private static Map<String, BitSet> coverage(final Collection<SimpleInterval> intervals) {
+        final Map<String, BitSet> coverage = new HashMap<>();
+        CONTIGS.forEach(c -> coverage.put(c, new BitSet()));
+        intervals.forEach(i -> coverage.get(i.getContig()).set(i.getStart(), i.getEnd() + 1));
+        return coverage;
+    }
+
+    private static void assertSortedAndNonOverlapping(final CompactIntervalSet set) {
+        final List<SimpleInterval> intervals = set.toSimpleIntervals();
+        for (int i = 1; i < intervals.size(); i++) {
+            final SimpleInterval previous = intervals.get(i - 1);
+            final SimpleInterval current = intervals.get(i);
+            Assert.assertTrue(!previous.getContig().equals(current.getContig()) || previous.getEnd() < current.getStart());
+        }
+    }
+
+    @DataProvider(name = "randomIntervals")
+    public Object[][] randomIntervalsData() {
+        final List<Object[]> data = new ArrayList<>();
+        final Random random = new Random(13);
+        for (final int numIntervals : new int[]{0, 1, 10, 100}) {
+            for (final int maxLength : new int[]{1, 20, 200}) {
+                data.add(new Object[]{randomIntervals(random, numIntervals, maxLength), randomIntervals(random, numIntervals / 2 + 1, maxLength)});
+            }
+        }
+        return data.toArray(new Object[data.size()][]);
+    }
+
+    @Test(dataProvider = "randomIntervals")
+    public void testMergingMatchesIntervalUtils(final List<SimpleInterval> intervals, final List<SimpleInterval> unused) {
+        final GenomeLocParser parser = new GenomeLocParser(DICTIONARY);
+        final List<GenomeLoc> locs = IntervalUtils.genomeLocsFromLocatables(parser, intervals);
+        for (final IntervalMergingRule rule : IntervalMergingRule.values()) {
+            final CompactIntervalSet set = CompactIntervalSet.fromLocatables(intervals, rule);
+            Assert.assertEquals(set.toGenomeLocs(parser), IntervalUtils.sortAndMergeIntervals(parser, locs, rule).toList());
+            Assert.assertEquals(set.coveredSize(), IntervalUtils.sortAndMergeIntervals(parser, locs, rule).coveredSize());
+        }
+    }
+
+    @Test(dataProvider = "randomIntervals")
+    public void testSetOperations(final List<SimpleInterval> first, final List<SimpleInterval> second) {
+        final CompactIntervalSet firstSet = CompactIntervalSet.fromLocatables(first, IntervalMergingRule.OVERLAPPING_ONLY);
+        final CompactIntervalSet secondSet = CompactIntervalSet.fromLocatables(second, IntervalMergingRule.OVERLAPPING_ONLY);
+        final Map<String, BitSet> firstCoverage = coverage(first);
+        final Map<String, BitSet> secondCoverage = coverage(second);
+
+        final CompactIntervalSet union = firstSet.union(secondSet, IntervalMergingRule.ALL);
+        final CompactIntervalSet intersection = firstSet.intersect(secondSet);
+        final CompactIntervalSet difference = firstSet.subtract(secondSet);
+        for (final CompactIntervalSet result : Arrays.asList(union, intersection, difference)) {
+            assertSortedAndNonOverlapping(result);
+        }
+        Assert.assertEquals(union.toSimpleIntervals(),
+                CompactIntervalSet.fromLocatables(union.toSimpleIntervals(), IntervalMergingRule.ALL).toSimpleIntervals());
+
+        for (final String contig : CONTIGS) {
+            final BitSet expectedUnion = (BitSet) firstCoverage.get(contig).clone();
+            expectedUnion.or(secondCoverage.get(contig));
+            final BitSet expectedIntersection = (BitSet) firstCoverage.get(contig).clone();
+            expectedIntersection.and(secondCoverage.get(contig));
+            final BitSet expectedDifference = (BitSet) firstCoverage.get(contig).clone();
+            expectedDifference.andNot(secondCoverage.get(contig));
+
+            Assert.assertEquals(coverage(union.toSimpleIntervals()).get(contig), expectedUnion);
+            Assert.assertEquals(coverage(intersection.toSimpleIntervals()).get(contig), expectedIntersection);
+            Assert.assertEquals(coverage(difference.toSimpleIntervals()).get(contig), expectedDifference);
+
+            for (int start = 1; start <= CONTIG_LENGTH; start += 7) {
+                final int end = start + 5;
+                final boolean expectedOverlap = firstCoverage.get(contig).get(start, end + 1).cardinality() > 0;
+                Assert.assertEquals(firstSet.overlaps(contig, start, end), expectedOverlap);
+                Assert.assertEquals(!firstSet.getOverlapping(new SimpleInterval(contig, start, end)).isEmpty(), expectedOverlap);
+            }
+        }
+        Assert.assertEquals(union.coveredSize(), intersection.coveredSize() + difference.coveredSize() + secondSet.subtract(firstSet).coveredSize());
+    }
+
+    @Test(dataProvider = "randomIntervals")
+    public void testPaddingMatchesIntervalUtils(final List<SimpleInterval> intervals, final List<SimpleInterval> unused) {
+        final GenomeLocParser parser = new GenomeLocParser(DICTIONARY);
+        final List<GenomeLoc> locs = IntervalUtils.genomeLocsFromLocatables(parser, intervals);
+        for (final int padding : new int[]{0, 1, 50}) {
+            final CompactIntervalSet padded = CompactIntervalSet.fromLocatables(intervals, IntervalMergingRule.ALL).pad(padding, DICTIONARY);
+            Assert.assertEquals(padded.toGenomeLocs(parser), IntervalUtils.getIntervalsWithFlanks(parser, locs, padding));
+        }
+    }
+
+    @Test
+    public void testSubtractKeepsAbuttingBoundaries() {
+        final CompactIntervalSet set = CompactIntervalSet.fromLocatables(
+                Arrays.asList(new SimpleInterval("1", 1, 10), new SimpleInterval("1", 11, 20), new SimpleInterval("2", 1, 5)),
+                IntervalMergingRule.OVERLAPPING_ONLY);
+        final CompactIntervalSet toRemove = CompactIntervalSet.fromLocatables(
+                Arrays.asList(new SimpleInterval("1", 5, 15), new SimpleInterval("3", 1, 5)), IntervalMergingRule.ALL);
+        Assert.assertEquals(set.subtract(toRemove).toSimpleIntervals(),
+                Arrays.asList(new SimpleInterval("1", 1, 4), new SimpleInterval("1", 16, 20), new SimpleInterval("2", 1, 5)));
+        Assert.assertEquals(set.intersect(toRemove).toSimpleIntervals(),
+                Arrays.asList(new SimpleInterval("1", 5, 10), new SimpleInterval("1", 11, 15)));
+        Assert.assertEquals(set.size(), 3);
+        Assert.assertEquals(set.getContigs(), Arrays.asList("1", "2"));
+    }
+
+    @Test
+    public void testFromSequenceDictionary() {
+        final CompactIntervalSet set = CompactIntervalSet.fromSequenceDictionary(DICTIONARY);
+        Assert.assertEquals(set.getContigs(), CONTIGS);
+        Assert.assertEquals(set.coveredSize(), (long) CONTIGS.size() * CONTIG_LENGTH);
+        Assert.assertTrue(set.subtract(set).isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnmappedNotAllowed() {
+        CompactIntervalSet.fromLocatables(Collections.singletonList(GenomeLoc.UNMAPPED), IntervalMergingRule.ALL);
+    }
+
+    @Test
+    public void testIntervalFileCache() {
+        final File cacheDirectory = new File(createTempDir("intervalCache"), "cache");
+        final IntervalFileCache cache = new IntervalFileCache(cacheDirectory);
+        final File intervalFile = new File(hg19MiniIntervalFile);
+        final List<GenomeLoc> expected = IntervalUtils.intervalFileToList(hg19GenomeLocParser, hg19MiniIntervalFile);
+
+        final List<GenomeLoc> first = cache.getOrParse(intervalFile, hg19GenomeLocParser,
+                () -> IntervalUtils.intervalFileToList(hg19GenomeLocParser, hg19MiniIntervalFile));
+        Assert.assertEquals(first, expected);
+        Assert.assertEquals(cacheDirectory.listFiles().length, 1);
+
+        final List<GenomeLoc> second = cache.getOrParse(intervalFile, hg19GenomeLocParser, () -> {
+            throw new AssertionError("The interval file should have been loaded from the cache.");
+        });
+        Assert.assertEquals(second, expected);
+
+        //a different sequence dictionary must not share the cache entry
+        final List<GenomeLoc> other = cache.getOrParse(intervalFile, new GenomeLocParser(DICTIONARY), Collections::emptyList);
+        Assert.assertTrue(other.isEmpty());
+        Assert.assertEquals(cacheDirectory.listFiles().length, 2);
+
+        Assert.assertEquals(IntervalUtils.loadIntervals(Collections.singletonList(hg19MiniIntervalFile), IntervalSetRule.UNION,
+                IntervalMergingRule.ALL, 0, hg19GenomeLocParser, cache).toList(),
+                IntervalUtils.sortAndMergeIntervals(hg19GenomeLocParser, expected, IntervalMergingRule.ALL).toList());
+    }
+}
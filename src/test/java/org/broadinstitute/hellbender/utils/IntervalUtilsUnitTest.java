@@ -25,6 +25,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -1049,6 +1050,21 @@ public final class IntervalUtilsUnitTest extends GATKBaseTest {
         Assert.assertEquals(actualIntervals, expectedIntervals, "Wrong intervals loaded from Feature file " + featureFile.getAbsolutePath());
     }
 
+    @Test
+    public void testLoadIntervalsIntersectionWithEmptyFeatureFile() throws IOException {
+        final File emptyVcf = createTempFile("empty_intervals", ".vcf");
+        try (final PrintWriter writer = new PrintWriter(emptyVcf)) {
+            writer.println("##fileformat=VCFv4.1");
+            writer.println("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO");
+        }
+
+        // an empty set of intervals is skipped, rather than making the intersection empty
+        for (final List<String> intervals : Arrays.asList(Arrays.asList(emptyVcf.getAbsolutePath(), "1:1-10"), Arrays.asList("1:1-10", emptyVcf.getAbsolutePath()))) {
+            final GenomeLocSortedSet loadedIntervals = IntervalUtils.loadIntervals(intervals, IntervalSetRule.INTERSECTION, IntervalMergingRule.ALL, 0, hg19GenomeLocParser);
+            Assert.assertEquals(loadedIntervals, intervalStringsToGenomeLocs("1:1-10"));
+        }
+    }
+
     // Note: because the file does not exist and all characters are allowed in contig names,
     // we will not know that this is supposed to be interpreted as a file.
     // So we'll blow up with MalformedGenomeLoc and not anything related to files
@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 public class MannWhitneyUUnitTest extends GATKBaseTest {
     private static double DELTA_PRECISION = 0.00001;
@@ -91,6 +92,82 @@ public class MannWhitneyUUnitTest extends GATKBaseTest {
         Assert.assertEquals(test.getZ(), Z, DELTA_PRECISION, name);
     }
 
+    // U1 and the transformed ties, from the ranks computed by counting (mid-ranks for ties)
+    private static double[] naiveU1AndTies(final double[] series1, final double[] series2) {
+        final double[] all = Doubles.concat(series1, series2);
+        double r1 = 0;
+        for (final double value : series1) {
+            int less = 0, equal = 0;
+            for (final double other : all) {
+                less += other < value ? 1 : 0;
+                equal += other == value ? 1 : 0;
+            }
+            r1 += less + (equal + 1) / 2.0;
+        }
+        double ties = 0;
+        final double[] sorted = all.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; ) {
+            int j = i;
+            while (j < sorted.length && sorted[j] == sorted[i]) {
+                j++;
+            }
+            final int count = j - i;
+            if (count > 1 && count != sorted.length) {
+                ties += Math.pow(count, 3) - count;
+            }
+            i = j;
+        }
+        return new double[]{r1 - series1.length * (series1.length + 1) / 2.0, ties};
+    }
+
+    @Test
+    public void testU1andU2MatchesNaiveRanks() {
+        final Random random = new Random(17);
+        for (int trial = 0; trial < 200; trial++) {
+            final double[] series1 = new double[1 + random.nextInt(60)];
+            final double[] series2 = new double[1 + random.nextInt(60)];
+            final int range = 1 + random.nextInt(20);
+            for (int i = 0; i < series1.length; i++) {
+                series1[i] = random.nextInt(range);
+            }
+            for (int i = 0; i < series2.length; i++) {
+                series2[i] = random.nextInt(range) + (trial % 2 == 0 ? 0.5 : 0);
+            }
+            final double[] expected = naiveU1AndTies(series1, series2);
+            final MannWhitneyU.TestStatistic stat = rst.calculateU1andU2(series1.clone(), series2.clone());
+            Assert.assertEquals(stat.getU1(), expected[0], DELTA_PRECISION);
+            Assert.assertEquals(stat.getU1() + stat.getU2(), (double) series1.length * series2.length, DELTA_PRECISION);
+            Assert.assertEquals(stat.getTies(), expected[1]);
+        }
+    }
+
+    @Test
+    public void testPrefixOfBuffers() {
+        final Random random = new Random(5);
+        for (final int n : new int[]{3, 8, 25}) {
+            final double[] series1 = new double[n];
+            final double[] series2 = new double[n + 2];
+            for (int i = 0; i < n; i++) {
+                series1[i] = random.nextInt(10);
+                series2[i] = random.nextInt(10);
+            }
+            // buffers with unused values past the data, which must be ignored
+            final double[] buffer1 = Arrays.copyOf(series1, n + 7);
+            final double[] buffer2 = Arrays.copyOf(series2, n + 9);
+            Arrays.fill(buffer1, n, buffer1.length, -1);
+            Arrays.fill(buffer2, n + 2, buffer2.length, 100);
+            for (final MannWhitneyU.TestType type : MannWhitneyU.TestType.values()) {
+                final MannWhitneyU.Result expected = rst.test(series1.clone(), series2.clone(), type);
+                final MannWhitneyU.Result actual = rst.test(buffer1, n, buffer2, n + 2, type);
+                Assert.assertEquals(actual.getU(), expected.getU());
+                Assert.assertEquals(actual.getZ(), expected.getZ());
+                Assert.assertEquals(actual.getP(), expected.getP());
+                Assert.assertEquals(actual.getMedianShift(), expected.getMedianShift());
+            }
+        }
+    }
+
     @Test
     public void testTooManyTies(){
         ArrayList<Integer> listOfNumberOfTies = new ArrayList<>(Arrays.asList(26,3,6,4,13,18,29,36,60,58,87,63,98,125,158,185,193,171,17592,115,100,141,216,298,451,719,1060,1909,3210,5167,7135,10125,11035,3541,732,9));
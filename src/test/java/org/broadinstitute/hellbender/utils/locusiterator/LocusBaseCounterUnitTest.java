@@ -0,0 +1,148 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link LocusBaseCounter}, which must agree with the pileups of {@link LocusIteratorByState}.
+ */
+public final class LocusBaseCounterUnitTest extends GATKBaseTest {
+    private static final int CONTIG_LENGTH = 5000;
+    private static final SAMFileHeader HEADER = ArtificialReadUtils.createArtificialSamHeader(3, 1, CONTIG_LENGTH);
+    private static final int[] QUALITY_BINS = {0, 10, 30};
+    private static final String[] CIGARS = {"50M", "10S40M", "20M5D30M", "15M3I32M", "25M300N25M", "40M10S", "2H50M", "20M1D10M2I18M"};
+
+    private static List<GATKRead> randomReads(final Random random, final int numReads) {
+        final List<GATKRead> reads = new ArrayList<>();
+        for (int i = 0; i < numReads; i++) {
+            final byte[] bases = new byte[50];
+            final byte[] quals = new byte[50];
+            for (int j = 0; j < bases.length; j++) {
+                bases[j] = "ACGTNacgt".getBytes()[random.nextInt(9)];
+                quals[j] = (byte) random.nextInt(41);
+            }
+            // contig 1 is left without reads
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(HEADER, "read" + i, random.nextBoolean() ? 0 : 2,
+                    1 + random.nextInt(CONTIG_LENGTH - 500), bases, quals, CIGARS[random.nextInt(CIGARS.length)]);
+            read.setIsReverseStrand(random.nextBoolean());
+            if (random.nextInt(4) == 0) {
+                // a short fragment, so that some bases are inside the adaptor
+                read.setMatePosition(read.getContig(), read.getStart() + random.nextInt(30));
+                read.setFragmentLength((read.isReverseStrand() ? -1 : 1) * (10 + random.nextInt(40)));
+            }
+            reads.add(read);
+        }
+        reads.sort(new ReadCoordinateComparator(HEADER));
+        return reads;
+    }
+
+    // the counts of LocusBaseCounts, as a string, computed from a pileup
+    private static String countsFromPileup(final AlignmentContext context) {
+        final int[] counts = new int[LocusBaseCounts.countsPerLocus(QUALITY_BINS.length)];
+        for (final PileupElement element : context.getBasePileup()) {
+            final int category = element.isDeletion() ? LocusBaseCounts.DELETION : LocusBaseCounts.baseCategory(element.getBase());
+            int bin = QUALITY_BINS.length - 1;
+            while (QUALITY_BINS[bin] > element.getQual()) {
+                bin--;
+            }
+            counts[LocusBaseCounts.index(category, element.getRead().isReverseStrand(), bin, QUALITY_BINS.length)]++;
+        }
+        return context.getContig() + ":" + context.getStart() + Arrays.toString(counts);
+    }
+
+    private static String countsToString(final LocusBaseCounts baseCounts) {
+        final int[] counts = new int[LocusBaseCounts.countsPerLocus(QUALITY_BINS.length)];
+        for (int category = 0; category < LocusBaseCounts.NUMBER_OF_BASE_CATEGORIES; category++) {
+            for (int bin = 0; bin < QUALITY_BINS.length; bin++) {
+                for (final boolean isReverseStrand : new boolean[]{false, true}) {
+                    counts[LocusBaseCounts.index(category, isReverseStrand, bin, QUALITY_BINS.length)] = baseCounts.getCount(category, isReverseStrand, bin);
+                }
+            }
+        }
+        return baseCounts.getContig() + ":" + baseCounts.getStart() + Arrays.toString(counts);
+    }
+
+    private static List<String> countWithLocusBaseCounter(final List<GATKRead> reads, final List<SimpleInterval> intervals, final boolean emitEmptyLoci) {
+        final List<String> result = new ArrayList<>();
+        final LocusBaseCounter counter = new LocusBaseCounter(HEADER.getSequenceDictionary(), intervals, emitEmptyLoci, QUALITY_BINS,
+                baseCounts -> result.add(countsToString(baseCounts)));
+        reads.forEach(counter::add);
+        counter.finish();
+        return result;
+    }
+
+    @Test
+    public void testMatchesLocusIteratorByState() {
+        final List<GATKRead> reads = randomReads(new Random(7), 500);
+        final List<String> expected = new ArrayList<>();
+        new LocusIteratorByState(reads.iterator(), DownsamplingMethod.NONE, false,
+                LocusIteratorByStateBaseTest.sampleListForSAMWithoutReadGroups(), HEADER, true)
+                .forEachRemaining(context -> expected.add(countsFromPileup(context)));
+
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(countWithLocusBaseCounter(reads, null, false), expected);
+    }
+
+    @Test
+    public void testIntervalsAndEmptyLoci() {
+        final List<GATKRead> reads = randomReads(new Random(11), 200);
+        final List<SimpleInterval> intervals = Arrays.asList(
+                new SimpleInterval("1", 1, 10), new SimpleInterval("1", 900, 1200), new SimpleInterval("2", 100, 110),
+                new SimpleInterval("3", 2000, 2100), new SimpleInterval("3", CONTIG_LENGTH - 5, CONTIG_LENGTH));
+        final Map<String, String> allCovered = new LinkedHashMap<>();
+        countWithLocusBaseCounter(reads, null, false).forEach(s -> allCovered.put(s.substring(0, s.indexOf('[')), s));
+
+        final List<String> withinIntervals = countWithLocusBaseCounter(reads, intervals, false);
+        final List<String> withEmptyLoci = countWithLocusBaseCounter(reads, intervals, true);
+        final String emptyCounts = Arrays.toString(new int[LocusBaseCounts.countsPerLocus(QUALITY_BINS.length)]);
+        final List<String> expectedWithEmptyLoci = new ArrayList<>();
+        final List<String> expectedWithinIntervals = new ArrayList<>();
+        for (final SimpleInterval interval : intervals) {
+            for (int position = interval.getStart(); position <= interval.getEnd(); position++) {
+                final String locus = interval.getContig() + ":" + position;
+                expectedWithEmptyLoci.add(allCovered.getOrDefault(locus, locus + emptyCounts));
+                if (allCovered.containsKey(locus)) {
+                    expectedWithinIntervals.add(allCovered.get(locus));
+                }
+            }
+        }
+        Assert.assertEquals(withinIntervals, expectedWithinIntervals);
+        Assert.assertEquals(withEmptyLoci, expectedWithEmptyLoci);
+    }
+
+    @Test
+    public void testWindowGrowsForLongReads() {
+        final GATKRead longRead = ArtificialReadUtils.createArtificialRead(HEADER, "long", 0, 10, new byte[]{'A', 'C'}, new byte[]{30, 30}, "1M3000N1M");
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(HEADER, "short", 0, 20, new byte[]{'G'}, new byte[]{30}, "1M");
+        final List<String> loci = new ArrayList<>();
+        final LocusBaseCounter counter = new LocusBaseCounter(HEADER.getSequenceDictionary(), null, false, new int[]{0},
+                baseCounts -> loci.add(baseCounts.getStart() + ":" + baseCounts.getDepth()));
+        counter.add(longRead);
+        counter.add(read);
+        counter.finish();
+        Assert.assertEquals(loci, Arrays.asList("10:1", "20:1", "3011:1"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsortedReads() {
+        final LocusBaseCounter counter = new LocusBaseCounter(HEADER.getSequenceDictionary(), null, false, new int[]{0}, baseCounts -> { });
+        counter.add(ArtificialReadUtils.createArtificialRead(HEADER, "read1", 0, 100, 10));
+        counter.add(ArtificialReadUtils.createArtificialRead(HEADER, "read2", 0, 50, 10));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBadQualityBins() {
+        new LocusBaseCounter(HEADER.getSequenceDictionary(), null, false, new int[]{0, 20, 20}, baseCounts -> { });
+    }
+}
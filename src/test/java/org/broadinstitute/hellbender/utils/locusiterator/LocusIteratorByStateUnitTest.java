@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.utils.QualityUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.DownsampleType;
 import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
+import org.broadinstitute.hellbender.utils.pileup.ColumnarPileup;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.ArtificialBAMBuilder;
@@ -445,6 +446,76 @@ public final class LocusIteratorByStateUnitTest extends LocusIteratorByStateBase
         Assert.assertEquals(bpVisited, expectedBpToVisit, "Didn't visit the expected number of bp");
     }
 
+    @Test(enabled = true, dataProvider = "MyLIBSTest")
+    public void testColumnarPileup(final LIBSTest params) {
+        final List<GATKRead> reads = Arrays.asList(params.makeRead(), params.makeRead(), ArtificialReadUtils.createArtificialRead(header, "read", 0, 2, 3));
+        final LocusIteratorByState contexts = makeLIBS(new ArrayList<>(reads), header);
+        final LocusIteratorByState columns = makeLIBS(new ArrayList<>(reads), header);
+        final ColumnarPileup pileup = new ColumnarPileup();
+
+        while ( contexts.hasNext() ) {
+            Assert.assertTrue(columns.nextColumnarPileup(pileup));
+            assertColumnarPileupMatches(pileup, contexts.next());
+        }
+        Assert.assertFalse(columns.nextColumnarPileup(pileup));
+    }
+
+    @Test
+    public void testColumnarPileupInterleavedWithNext() {
+        final List<GATKRead> reads = Arrays.asList(
+                ArtificialReadUtils.createArtificialRead(header, "read1", 0, 1, "AACCGGTT".getBytes(), Utils.dupBytes((byte) 30, 8), "2M1I2M2D3M"),
+                ArtificialReadUtils.createArtificialRead(header, "read2", 0, 3, "AACCGGTT".getBytes(), Utils.dupBytes((byte) 20, 8), "2S6M"),
+                ArtificialReadUtils.createArtificialRead(header, "read3", 0, 20, "AACC".getBytes(), Utils.dupBytes((byte) 10, 4), "4M"));
+        final List<AlignmentContext> expected = new ArrayList<>();
+        makeLIBS(new ArrayList<>(reads), header).forEachRemaining(expected::add);
+
+        final LocusIteratorByState libs = makeLIBS(new ArrayList<>(reads), header);
+        final ColumnarPileup pileup = new ColumnarPileup();
+        for ( int i = 0; i < expected.size(); i++ ) {
+            if ( i % 3 == 0 ) {
+                Assert.assertTrue(libs.hasNext());
+                Assert.assertTrue(libs.nextColumnarPileup(pileup));
+                assertColumnarPileupMatches(pileup, expected.get(i));
+            } else if ( i % 3 == 1 ) {
+                Assert.assertTrue(libs.nextColumnarPileup(pileup));
+                assertColumnarPileupMatches(pileup, expected.get(i));
+                Assert.assertEquals(pileup.toAlignmentContext().getBasePileup().toString(), expected.get(i).getBasePileup().toString());
+            } else {
+                final AlignmentContext context = libs.next();
+                Assert.assertEquals(context.getLocation(), expected.get(i).getLocation());
+            }
+        }
+        Assert.assertFalse(libs.hasNext());
+        Assert.assertFalse(libs.nextColumnarPileup(pileup));
+    }
+
+    private static void assertColumnarPileupMatches(final ColumnarPileup pileup, final AlignmentContext context) {
+        Assert.assertEquals(pileup.getLocation(), context.getLocation());
+        final List<PileupElement> elements = new ArrayList<>();
+        context.getBasePileup().forEach(elements::add);
+        Assert.assertEquals(pileup.size(), elements.size());
+        for ( int i = 0; i < elements.size(); i++ ) {
+            final PileupElement pe = elements.get(i);
+            Assert.assertSame(pileup.getRead(i), pe.getRead());
+            Assert.assertEquals(pileup.getOffset(i), pe.getOffset());
+            Assert.assertEquals(pileup.getBase(i), pe.getBase());
+            Assert.assertEquals(pileup.getQual(i), pe.getQual());
+            Assert.assertEquals(pileup.getMappingQual(i), pe.getMappingQual());
+            Assert.assertEquals(pileup.isDeletion(i), pe.isDeletion());
+            Assert.assertEquals(pileup.hasAnyFlag(i, ColumnarPileup.BEFORE_DELETION_START), pe.isBeforeDeletionStart());
+            Assert.assertEquals(pileup.hasAnyFlag(i, ColumnarPileup.AFTER_DELETION_END), pe.isAfterDeletionEnd());
+            Assert.assertEquals(pileup.hasAnyFlag(i, ColumnarPileup.BEFORE_INSERTION), pe.isBeforeInsertion());
+            Assert.assertEquals(pileup.hasAnyFlag(i, ColumnarPileup.AFTER_INSERTION), pe.isAfterInsertion());
+            Assert.assertEquals(pileup.hasAnyFlag(i, ColumnarPileup.BEFORE_SOFT_CLIP), pe.isBeforeSoftClip());
+            Assert.assertEquals(pileup.hasAnyFlag(i, ColumnarPileup.AFTER_SOFT_CLIP), pe.isAfterSoftClip());
+
+            final PileupElement materialized = pileup.getPileupElement(i);
+            Assert.assertEquals(materialized.getCurrentCigarElement(), pe.getCurrentCigarElement());
+            Assert.assertEquals(materialized.getCurrentCigarOffset(), pe.getCurrentCigarOffset());
+            Assert.assertEquals(materialized.getOffsetInCurrentCigar(), pe.getOffsetInCurrentCigar());
+        }
+    }
+
     // ------------------------------------------------------------
     //
     // Tests for keeping reads
@@ -0,0 +1,79 @@
+package org.broadinstitute.hellbender.utils.mcmc;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.RandomGeneratorFactory;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for {@link IndependentBlockSampler}.
+ */
+public final class IndependentBlockSamplerUnitTest extends BaseTest {
+    private static final int RANDOM_SEED = 13;
+    private static final int NUM_BLOCKS = 1000;
+
+    private static final IndependentBlockSampler.BlockSampler<Double> BLOCK_SAMPLER =
+            (rng, blockIndex) -> blockIndex + rng.nextDouble();
+
+    private static RandomGenerator createRandomGenerator() {
+        return RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+    }
+
+    @Test
+    public void testSerial() {
+        final RandomGenerator rng = createRandomGenerator();
+        final List<Double> expected = new ArrayList<>();
+        for (int blockIndex = 0; blockIndex < NUM_BLOCKS; blockIndex++) {
+            expected.add(blockIndex + rng.nextDouble());
+        }
+        final IndependentBlockSampler sampler = IndependentBlockSampler.serial();
+        Assert.assertFalse(sampler.isParallel());
+        Assert.assertEquals(sampler.sample(createRandomGenerator(), NUM_BLOCKS, BLOCK_SAMPLER), expected);
+    }
+
+    @Test
+    public void testParallelIsReproducibleAndIndependentOfNumberOfThreads() {
+        final List<List<Double>> results = new ArrayList<>();
+        for (final int numThreads : new int[]{1, 2, 8}) {
+            final ForkJoinPool pool = new ForkJoinPool(numThreads);
+            try {
+                final IndependentBlockSampler sampler = IndependentBlockSampler.parallel(pool);
+                Assert.assertTrue(sampler.isParallel());
+                final RandomGenerator rng = createRandomGenerator();
+                final List<Double> first = sampler.sample(rng, NUM_BLOCKS, BLOCK_SAMPLER);
+                final List<Double> second = sampler.sample(rng, NUM_BLOCKS, BLOCK_SAMPLER);
+                Assert.assertNotEquals(first, second);
+                for (int blockIndex = 0; blockIndex < NUM_BLOCKS; blockIndex++) {
+                    Assert.assertEquals(Math.floor(first.get(blockIndex)), (double) blockIndex);
+                }
+                results.add(first);
+                results.add(second);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        for (int i = 2; i < results.size(); i++) {
+            Assert.assertEquals(results.get(i), results.get(i % 2));
+        }
+        //streams for different blocks should not be identical
+        Assert.assertEquals(results.get(0).stream().map(x -> x - Math.floor(x)).distinct().count(), NUM_BLOCKS);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testParallelExceptionIsRethrown() {
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            IndependentBlockSampler.parallel(pool).sample(createRandomGenerator(), NUM_BLOCKS, (rng, blockIndex) -> {
+                throw new IllegalStateException();
+            });
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -532,6 +532,60 @@ public final class PairHMMUnitTest extends GATKBaseTest {
 
     }
 
+    @Test
+    public void testHaplotypePrefixOrder() {
+        final List<Haplotype> haplotypes = Arrays.asList(new Haplotype("ACGTT".getBytes(), true), new Haplotype("ACTTT".getBytes()),
+                new Haplotype("ACG".getBytes()), new Haplotype("ACGTA".getBytes()), new Haplotype("AAG".getBytes()));
+        final PairHMM.HaplotypePrefixOrder prefixOrder = new PairHMM.HaplotypePrefixOrder(haplotypes);
+        Assert.assertEquals(prefixOrder.order, new int[]{4, 2, 3, 0, 1});
+        Assert.assertEquals(prefixOrder.sharedPrefixLength, new int[]{0, 1, 0, 4, 2});
+    }
+
+    @Test(dataProvider = "JustHMMProvider")
+    public void testReuseHaplotypePrefixesGivesSameLikelihoods(final PairHMM hmm) {
+        final Random random = new Random(13);
+        final byte[] bases = {'A', 'C', 'G', 'T'};
+        final byte[] root = new byte[60];
+        for (int i = 0; i < root.length; i++) {
+            root[i] = bases[random.nextInt(bases.length)];
+        }
+        // haplotypes with SNPs and indels relative to the root, so that some share long prefixes and some differ in length
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        haplotypes.add(new Haplotype(root, true));
+        for (int h = 0; h < 12; h++) {
+            final byte[] haplotype = root.clone();
+            for (int v = 0; v < 1 + random.nextInt(3); v++) {
+                haplotype[random.nextInt(haplotype.length)] = bases[random.nextInt(bases.length)];
+            }
+            final int indel = random.nextInt(4) == 0 ? random.nextInt(haplotype.length) : -1;
+            haplotypes.add(new Haplotype(indel < 0 ? haplotype : Utils.concat(Arrays.copyOf(haplotype, indel), Arrays.copyOfRange(haplotype, indel + 1, haplotype.length))));
+        }
+        final List<GATKRead> reads = new ArrayList<>();
+        for (int r = 0; r < 10; r++) {
+            final int length = 20 + random.nextInt(30);
+            final int start = random.nextInt(root.length - length);
+            final byte[] readBases = Arrays.copyOfRange(haplotypes.get(random.nextInt(haplotypes.size())).getBases(), start, start + length);
+            final byte[] readQuals = new byte[length];
+            for (int i = 0; i < length; i++) {
+                readQuals[i] = (byte) (10 + random.nextInt(30));
+            }
+            reads.add(ArtificialReadUtils.createArtificialRead(readBases, readQuals, length + "M"));
+        }
+        final Map<GATKRead, byte[]> gcps = buildGapContinuationPenalties(reads, (byte) 10);
+
+        try {
+            hmm.setReuseHaplotypePrefixes(false);
+            hmm.computeLog10Likelihoods(matrix(haplotypes), reads, gcps);
+            final double[] expected = hmm.getLogLikelihoodArray().clone();
+
+            hmm.setReuseHaplotypePrefixes(true);
+            hmm.computeLog10Likelihoods(matrix(haplotypes), reads, gcps);
+            Assert.assertEquals(hmm.getLogLikelihoodArray(), expected);
+        } finally {
+            hmm.setReuseHaplotypePrefixes(false);
+        }
+    }
+
     private LikelihoodMatrix<Haplotype> matrix(final List<Haplotype> haplotypes) {
         return new LikelihoodMatrix<Haplotype>() {
             @Override
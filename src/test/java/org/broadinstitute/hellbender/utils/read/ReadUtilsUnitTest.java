@@ -18,8 +18,12 @@ import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.TextCigarCodec;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -41,6 +45,7 @@ import org.broadinstitute.hellbender.utils.RandomDNA;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.seqdoop.hadoop_bam.SplittingBAMIndexer;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -489,6 +494,25 @@ public final class ReadUtilsUnitTest extends GATKBaseTest {
         Assert.assertEquals(ReadUtils.readHasNoAssignedPosition(read), expectedResult);
     }
 
+    @DataProvider(name="queryGroupedHeaders")
+    public Object[][] queryGroupedHeaders() {
+        return new Object[][] {
+                {SAMFileHeader.SortOrder.queryname, SAMFileHeader.GroupOrder.none, true},
+                {SAMFileHeader.SortOrder.unsorted, SAMFileHeader.GroupOrder.query, true},
+                {SAMFileHeader.SortOrder.coordinate, SAMFileHeader.GroupOrder.none, false},
+                {SAMFileHeader.SortOrder.unsorted, SAMFileHeader.GroupOrder.reference, false},
+                {SAMFileHeader.SortOrder.unsorted, SAMFileHeader.GroupOrder.none, false}
+        };
+    }
+
+    @Test(dataProvider = "queryGroupedHeaders")
+    public void testIsQueryGrouped(final SAMFileHeader.SortOrder sortOrder, final SAMFileHeader.GroupOrder groupOrder, final boolean expected) {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        header.setSortOrder(sortOrder);
+        header.setGroupOrder(groupOrder);
+        Assert.assertEquals(ReadUtils.isQueryGrouped(header), expected);
+    }
+
     @DataProvider(name="createSAMWriter")
     public Object[][] createSAMWriterData() {
         return new Object[][] {
@@ -589,6 +613,70 @@ public final class ReadUtilsUnitTest extends GATKBaseTest {
         }
     }
 
+    @DataProvider(name="createSplittingIndexingSAMWriter")
+    public Object[][] createSplittingIndexingSAMWriterData() {
+        return new Object[][] {
+            {getTestFile("coordinate_sorted.bam"), false, true,  true},
+            {getTestFile("coordinate_sorted.bam"), true,  true,  false},
+            {getTestFile("coordinate_sorted.bam"), true,  false, false},
+            {getTestFile("query_sorted.bam"),      true,  true,  true}
+        };
+    }
+
+    @Test(dataProvider="createSplittingIndexingSAMWriter")
+    public void testCreateSplittingIndexingSAMWriter(
+        final File bamFile,
+        final boolean preSorted,
+        final boolean createIndex,
+        final boolean createMD5) throws Exception {
+
+        final File expectedDir = createTempDir("samWriterTest");
+        final File actualDir = createTempDir("samWriterTest");
+        final File expectedFile = new File(expectedDir, "samWriterTest.bam");
+        final File actualFile = new File(actualDir, "samWriterTest.bam");
+        writeSAMFile(bamFile, expectedFile, preSorted, createIndex, createMD5, false);
+        writeSAMFile(bamFile, actualFile, preSorted, createIndex, createMD5, true);
+
+        // the BAM file and its BAM index and MD5 digest are as htsjdk writes them
+        Assert.assertEquals(Files.readAllBytes(actualFile.toPath()), Files.readAllBytes(expectedFile.toPath()));
+        Assert.assertEquals(null != SamFiles.findIndex(actualFile), null != SamFiles.findIndex(expectedFile));
+        if (null != SamFiles.findIndex(expectedFile)) {
+            Assert.assertEquals(Files.readAllBytes(SamFiles.findIndex(actualFile).toPath()),
+                    Files.readAllBytes(SamFiles.findIndex(expectedFile).toPath()));
+        }
+        final File md5File = new File(actualFile.getAbsolutePath() + ".md5");
+        Assert.assertEquals(md5File.exists(), createMD5);
+        if (createMD5) {
+            Assert.assertEquals(Files.readAllBytes(md5File.toPath()), Files.readAllBytes(new File(expectedFile.getAbsolutePath() + ".md5").toPath()));
+        }
+
+        // the splitting index is the one that Hadoop-BAM makes from the finished file
+        final ByteArrayOutputStream expectedSplittingIndex = new ByteArrayOutputStream();
+        try (final InputStream in = new FileInputStream(expectedFile)) {
+            SplittingBAMIndexer.index(in, expectedSplittingIndex, expectedFile.length(), SplittingBAMIndexer.DEFAULT_GRANULARITY);
+        }
+        Assert.assertEquals(Files.readAllBytes(new File(actualFile.getAbsolutePath() + SplittingBAMIndexer.OUTPUT_FILE_EXTENSION).toPath()),
+                expectedSplittingIndex.toByteArray());
+    }
+
+    @Test
+    public void testSplittingIndexIsOnlyCreatedForBAM() throws Exception {
+        final File outputFile = createTempFile("samWriterTest", ".sam");
+        writeSAMFile(getTestFile("coordinate_sorted.bam"), outputFile, true, false, false, true);
+        Assert.assertFalse(new File(outputFile.getAbsolutePath() + SplittingBAMIndexer.OUTPUT_FILE_EXTENSION).exists());
+    }
+
+    private static void writeSAMFile(final File inputFile, final File outputFile, final boolean preSorted, final boolean createIndex,
+                                     final boolean createMD5, final boolean createSplittingIndex) throws IOException {
+        try (final SamReader samReader = SamReaderFactory.makeDefault().open(inputFile);
+             final SAMFileWriter samWriter = ReadUtils.createCommonSAMWriter
+                     (outputFile.toPath(), null, samReader.getFileHeader(), preSorted, createIndex, createMD5, createSplittingIndex)) {
+            for (final SAMRecord read : samReader) {
+                samWriter.addAlignment(read);
+            }
+        }
+    }
+
     @DataProvider(name="hasCRAMFileContents")
     public Object[][] createHasCRAMFileContentsData() {
         return new Object[][] {
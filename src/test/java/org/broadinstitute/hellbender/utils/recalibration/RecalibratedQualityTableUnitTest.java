@@ -0,0 +1,118 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.transformers.BQSRReadTransformer;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.broadinstitute.hellbender.utils.MathUtils.fastRound;
+import static org.broadinstitute.hellbender.utils.QualityUtils.boundQual;
+import static org.broadinstitute.hellbender.utils.recalibration.RecalDatum.MAX_RECALIBRATED_Q_SCORE;
+
+public final class RecalibratedQualityTableUnitTest extends GATKBaseTest {
+
+    private static final String RECALIBRATION_DIRECTORY = publicTestDir + "org/broadinstitute/hellbender/utils/recalibration/";
+    private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
+
+    @DataProvider(name = "recalibrationReports")
+    public Object[][] recalibrationReports() {
+        return new Object[][]{
+                {"HiSeq.1mb.1RG.noSG.table", 0.0, null},
+                {"NA12878.rg_subset.chr1.recal_data.table", 0.0, null},
+                {"NA12878.rg_subset.chr1.recal_data.table", 30.0, null},
+                {"NA12878.rg_subset.chr1.recal_data.table", 0.0, BQSRReadTransformer.constructStaticQuantizedMapping(Arrays.asList(10, 20, 30), false)},
+        };
+    }
+
+    @Test(dataProvider = "recalibrationReports")
+    public void testMatchesBayesianEstimate(final String reportFile, final double globalQScorePrior, final byte[] staticQuantizedMapping) {
+        final RecalibrationReport report = new RecalibrationReport(new File(RECALIBRATION_DIRECTORY, reportFile));
+        final RecalibrationTables tables = report.getRecalibrationTables();
+        final StandardCovariateList covariates = report.getCovariates();
+        final List<Byte> quantizedQuals = report.getQuantizationInfo().getQuantizedQuals();
+        final RecalibratedQualityTable table = new RecalibratedQualityTable(tables, covariates, globalQScorePrior, quantizedQuals, staticQuantizedMapping);
+
+        // the context and cycle keys of each (read group, reported quality) in the tables
+        final Map<List<Integer>, List<List<Integer>>> keysByRow = new LinkedHashMap<>();
+        for (int covariate = covariates.numberOfSpecialCovariates(); covariate < covariates.size(); covariate++) {
+            for (final NestedIntegerArray.Leaf<RecalDatum> leaf : tables.getTable(covariate).getAllLeaves()) {
+                if (leaf.keys[3] == BASE_SUBSTITUTION_INDEX) {
+                    final List<List<Integer>> keys = keysByRow.computeIfAbsent(Arrays.asList(leaf.keys[0], leaf.keys[1]), row -> newKeyLists(covariates.size()));
+                    keys.get(covariate).add(leaf.keys[2]);
+                }
+            }
+        }
+        Assert.assertFalse(keysByRow.isEmpty());
+
+        int bases = 0;
+        for (final Map.Entry<List<Integer>, List<List<Integer>>> row : keysByRow.entrySet()) {
+            final int readGroupKey = row.getKey().get(0);
+            final int qualityKey = row.getKey().get(1);
+            Assert.assertTrue(table.hasReadGroup(readGroupKey));
+            // the keys of the first additional covariate against a few of the second, both ways round
+            final List<Integer> contextKeys = row.getValue().get(2);
+            final List<Integer> cycleKeys = row.getValue().get(3);
+            for (final int contextKey : contextKeys) {
+                for (final int cycleKey : cycleKeys.subList(0, Math.min(3, cycleKeys.size()))) {
+                    final int[] keySet = {readGroupKey, qualityKey, contextKey, cycleKey};
+                    Assert.assertEquals(table.getRecalibratedQual(keySet), expectedQual(tables, globalQScorePrior, quantizedQuals, staticQuantizedMapping, keySet));
+                    bases++;
+                }
+            }
+            for (final int cycleKey : cycleKeys) {
+                for (final int contextKey : contextKeys.subList(0, Math.min(3, contextKeys.size()))) {
+                    final int[] keySet = {readGroupKey, qualityKey, contextKey, cycleKey};
+                    Assert.assertEquals(table.getRecalibratedQual(keySet), expectedQual(tables, globalQScorePrior, quantizedQuals, staticQuantizedMapping, keySet));
+                }
+                final int[] keySet = {readGroupKey, qualityKey, -1, cycleKey};
+                Assert.assertEquals(table.getRecalibratedQual(keySet), expectedQual(tables, globalQScorePrior, quantizedQuals, staticQuantizedMapping, keySet));
+            }
+        }
+        Assert.assertTrue(bases > 0);
+    }
+
+    @Test
+    public void testReadGroupWithoutData() {
+        final RecalibrationReport report = new RecalibrationReport(new File(RECALIBRATION_DIRECTORY, "HiSeq.1mb.1RG.noSG.table"));
+        final RecalibratedQualityTable table = new RecalibratedQualityTable(report.getRecalibrationTables(), report.getCovariates(),
+                0.0, report.getQuantizationInfo().getQuantizedQuals(), null);
+        Assert.assertTrue(table.hasReadGroup(0));
+        Assert.assertFalse(table.hasReadGroup(1));
+        Assert.assertFalse(table.hasReadGroup(100));
+    }
+
+    private static List<List<Integer>> newKeyLists(final int numCovariates) {
+        final List<List<Integer>> keys = new ArrayList<>();
+        for (int i = 0; i < numCovariates; i++) {
+            keys.add(new ArrayList<>());
+        }
+        return keys;
+    }
+
+    // the recalibrated quality of a base as computed by the Bayesian estimate
+    private static byte expectedQual(final RecalibrationTables tables, final double globalQScorePrior, final List<Byte> quantizedQuals,
+                                     final byte[] staticQuantizedMapping, final int[] keySet) {
+        final RecalDatum empiricalQualRG = tables.getReadGroupTable().get2Keys(keySet[0], BASE_SUBSTITUTION_INDEX);
+        final RecalDatum empiricalQualQS = tables.getQualityScoreTable().get3Keys(keySet[0], keySet[1], BASE_SUBSTITUTION_INDEX);
+        final RecalDatum[] empiricalQualCovs = new RecalDatum[keySet.length - 2];
+        for (int i = 2; i < keySet.length; i++) {
+            if (keySet[i] >= 0) {
+                empiricalQualCovs[i - 2] = tables.getTable(i).get4Keys(keySet[0], keySet[1], keySet[i], BASE_SUBSTITUTION_INDEX);
+            }
+        }
+        final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+        final double qual = BQSRReadTransformer.hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG, empiricalQualQS, empiricalQualCovs);
+        final byte quantizedQual = quantizedQuals.get(boundQual(fastRound(qual), MAX_RECALIBRATED_Q_SCORE));
+        return staticQuantizedMapping == null ? quantizedQual : staticQuantizedMapping[quantizedQual];
+    }
+}
@@ -5,6 +5,8 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.storage.StorageLevel;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.engine.ReadsDataSource;
 import org.broadinstitute.hellbender.engine.spark.SparkContextFactory;
 import org.broadinstitute.hellbender.exceptions.UserException;
@@ -71,4 +73,16 @@ public class SparkUtilsUnitTest extends GATKBaseTest {
         });
 
     }
+
+    @Test
+    public void testGetStorageLevel() {
+        Assert.assertEquals(SparkUtils.getStorageLevel("storageLevel", "MEMORY_AND_DISK_SER"), StorageLevel.MEMORY_AND_DISK_SER());
+        Assert.assertEquals(SparkUtils.getStorageLevel("storageLevel", "DISK_ONLY"), StorageLevel.DISK_ONLY());
+        Assert.assertEquals(SparkUtils.getStorageLevel("storageLevel", "NONE"), StorageLevel.NONE());
+    }
+
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testGetUnknownStorageLevel() {
+        SparkUtils.getStorageLevel("storageLevel", "MEMORY_AND_TAPE");
+    }
 }
@@ -0,0 +1,104 @@
+package org.broadinstitute.hellbender.utils.tsv;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link ColumnarTableReader} and {@link ColumnarTableWriter}.
+ */
+public final class ColumnarTableReaderUnitTest extends GATKBaseTest {
+    private static final String[] STRINGS = {"chr1", "chr1", "chrX", "", "chr1", "\u00e9t\u00e9"};
+    private static final int[] INTS = {0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 42, 7};
+    private static final double[] DOUBLES = {0., -0.5, Double.NaN, Double.POSITIVE_INFINITY, 1E-300, Math.PI};
+
+    private static File writeTableAndSidecar(final int numRows) throws IOException {
+        final File tableFile = new File(createTempDir("columnar"), "table.tsv");
+        try (final Writer writer = new FileWriter(tableFile)) {
+            writer.write("STRING\tINT\tDOUBLE\n");
+        }
+        try (final ColumnarTableWriter writer = new ColumnarTableWriter(tableFile, numRows)) {
+            writer.addStringColumn("STRING", Arrays.copyOf(STRINGS, numRows))
+                    .addIntColumn("INT", Arrays.copyOf(INTS, numRows))
+                    .addDoubleColumn("DOUBLE", Arrays.copyOf(DOUBLES, numRows));
+        }
+        return tableFile;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final File tableFile = writeTableAndSidecar(STRINGS.length);
+        Assert.assertTrue(ColumnarTableReader.hasCurrentSidecar(tableFile));
+        try (final ColumnarTableReader reader = new ColumnarTableReader(tableFile)) {
+            Assert.assertEquals(reader.numRows(), STRINGS.length);
+            Assert.assertEquals(reader.columns().names(), Arrays.asList("STRING", "INT", "DOUBLE"));
+            final String[] strings = reader.getStringColumn("STRING");
+            Assert.assertEquals(strings, STRINGS);
+            Assert.assertSame(strings[0], strings[4]);
+            Assert.assertEquals(reader.getIntColumn("INT"), INTS);
+            Assert.assertEquals(reader.getDoubleColumn("DOUBLE"), DOUBLES);
+        }
+    }
+
+    @Test
+    public void testEmptyTable() throws IOException {
+        final File tableFile = writeTableAndSidecar(0);
+        try (final ColumnarTableReader reader = new ColumnarTableReader(tableFile)) {
+            Assert.assertEquals(reader.numRows(), 0);
+            Assert.assertEquals(reader.getStringColumn("STRING").length, 0);
+            Assert.assertEquals(reader.getIntColumn("INT").length, 0);
+            Assert.assertEquals(reader.getDoubleColumn("DOUBLE").length, 0);
+        }
+    }
+
+    @Test
+    public void testMissingSidecar() throws IOException {
+        final File tableFile = createTempFile("table", ".tsv");
+        Assert.assertFalse(ColumnarTableReader.hasCurrentSidecar(tableFile));
+    }
+
+    @Test
+    public void testStaleSidecar() throws IOException {
+        final File tableFile = writeTableAndSidecar(STRINGS.length);
+        try (final Writer writer = new FileWriter(tableFile, true)) {
+            writer.write("chr1\t1\t1.0\n");
+        }
+        Assert.assertFalse(ColumnarTableReader.hasCurrentSidecar(tableFile));
+        Assert.assertThrows(UserException.BadInput.class, () -> new ColumnarTableReader(tableFile));
+    }
+
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testWrongColumnType() throws IOException {
+        final File tableFile = writeTableAndSidecar(STRINGS.length);
+        try (final ColumnarTableReader reader = new ColumnarTableReader(tableFile)) {
+            reader.getDoubleColumn("INT");
+        }
+    }
+
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testMissingColumn() throws IOException {
+        final File tableFile = writeTableAndSidecar(STRINGS.length);
+        try (final ColumnarTableReader reader = new ColumnarTableReader(tableFile)) {
+            reader.getIntColumn("MISSING");
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongNumberOfRows() {
+        new ColumnarTableWriter(createTempFile("table", ".tsv"), 2).addIntColumn("INT", INTS);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDuplicateColumn() {
+        new ColumnarTableWriter(createTempFile("table", ".tsv"), INTS.length)
+                .addIntColumn("INT", INTS)
+                .addDoubleColumn("INT", DOUBLES);
+    }
+}
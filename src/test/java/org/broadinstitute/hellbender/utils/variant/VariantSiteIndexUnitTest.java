@@ -0,0 +1,98 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFConstants;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.engine.FeatureInput;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class VariantSiteIndexUnitTest extends GATKBaseTest {
+    private static final File VCF = new File(publicTestDir + "org/broadinstitute/hellbender/engine/feature_data_source_test.vcf");
+
+    private static String describe(final List<VariantContext> vcs) {
+        return vcs.stream().map(vc -> vc.getContig() + ":" + vc.getStart() + "-" + vc.getEnd() + vc.getAlleles()).collect(Collectors.toList()).toString();
+    }
+
+    @Test
+    public void testMatchesFeatureQueries() {
+        final FeatureInput<VariantContext> input = new FeatureInput<>(VCF.getAbsolutePath(), "resource", Collections.emptyMap());
+        final VariantSiteIndex index = VariantSiteIndex.fromFeatureInput(input, null);
+        try (final FeatureDataSource<VariantContext> source = new FeatureDataSource<>(VCF)) {
+            Assert.assertEquals(index.size(), 26);
+            for (final String contig : Arrays.asList("1", "2", "3", "4", "5")) {
+                for (int position = 1; position < 1300; position++) {
+                    final List<VariantContext> overlapping = source.queryAndPrefetch(new SimpleInterval(contig, position, position));
+                    final int start = position;
+                    final List<VariantContext> starting = overlapping.stream().filter(vc -> vc.getStart() == start).collect(Collectors.toList());
+                    Assert.assertEquals(index.overlaps(contig, position), !overlapping.isEmpty());
+                    Assert.assertEquals(index.hasSiteStartingAt(contig, position), !starting.isEmpty());
+                    Assert.assertEquals(describe(index.getSitesOverlapping(contig, position)), describe(overlapping));
+                    Assert.assertEquals(describe(index.getSitesStartingAt(contig, position)), describe(starting));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIntervals() {
+        final FeatureInput<VariantContext> input = new FeatureInput<>(VCF.getAbsolutePath(), "resource", Collections.emptyMap());
+        final VariantSiteIndex index = VariantSiteIndex.fromFeatureInput(input,
+                Arrays.asList(new SimpleInterval("1", 200, 281), new SimpleInterval("1", 1000, 1000), new SimpleInterval("3", 302, 400)));
+        // b, c, d, e; j, k; v, w
+        Assert.assertEquals(index.size(), 8);
+        Assert.assertTrue(index.hasSiteStartingAt("1", 199));
+        Assert.assertFalse(index.overlaps("1", 100));
+        Assert.assertFalse(index.overlaps("2", 200));
+        Assert.assertEquals(index.getSitesStartingAt("1", 1000).size(), 2);
+        Assert.assertFalse(index.hasSiteStartingAt("3", 1));
+        Assert.assertTrue(index.hasSiteStartingAt("3", 300));
+    }
+
+    @Test
+    public void testAllelesAndAlleleFrequencies() {
+        final Allele ref = Allele.create("AC", true);
+        final Allele snp = Allele.create("GC");
+        final Allele deletion = Allele.create("A");
+        final VariantSiteIndex index = new VariantSiteIndex("gnomad");
+        index.add(new VariantContextBuilder("test", "20", 10, 11, Arrays.asList(ref, snp, deletion))
+                .attribute(VCFConstants.ALLELE_FREQUENCY_KEY, Arrays.asList("0.25", VCFConstants.MISSING_VALUE_v4)).make());
+        index.add(new VariantContextBuilder("test", "20", 15, 15, Arrays.asList(Allele.create("T", true), Allele.SPAN_DEL)).make());
+        index.add(new VariantContextBuilder("test", "20", 20, 20, Arrays.asList(Allele.create("T", true), Allele.create("C")))
+                .attribute(VCFConstants.ALLELE_FREQUENCY_KEY, "1e-4").make());
+
+        final VariantContext first = index.getSitesStartingAt("20", 10).get(0);
+        Assert.assertEquals(first.getSource(), "gnomad");
+        Assert.assertEquals(first.getEnd(), 11);
+        Assert.assertEquals(first.getAlleles(), Arrays.asList(ref, snp, deletion));
+        Assert.assertEquals(first.getAttributeAsDoubleList(VCFConstants.ALLELE_FREQUENCY_KEY, 0.001), Arrays.asList(0.25, 0.001));
+        Assert.assertEquals(index.getSitesOverlapping("20", 11).get(0).getAlleles(), Arrays.asList(ref, snp, deletion));
+
+        final VariantContext second = index.getSitesStartingAt("20", 15).get(0);
+        Assert.assertEquals(second.getAlternateAllele(0), Allele.SPAN_DEL);
+        Assert.assertFalse(second.hasAttribute(VCFConstants.ALLELE_FREQUENCY_KEY));
+
+        Assert.assertEquals(index.getSitesStartingAt("20", 20).get(0).getAttributeAsDoubleList(VCFConstants.ALLELE_FREQUENCY_KEY, 0.0),
+                Collections.singletonList(1e-4));
+        Assert.assertEquals(index.getSitesStartingAt("20", 12), Collections.emptyList());
+        Assert.assertEquals(index.getSitesOverlapping("21", 10), Collections.emptyList());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsortedRecords() {
+        final VariantSiteIndex index = new VariantSiteIndex("resource");
+        final List<Allele> alleles = Arrays.asList(Allele.create("T", true), Allele.create("C"));
+        index.add(new VariantContextBuilder("test", "20", 20, 20, alleles).make());
+        index.add(new VariantContextBuilder("test", "20", 10, 10, alleles).make());
+    }
+}
@@ -593,4 +593,43 @@ public class GVCFWriterUnitTest extends GATKBaseTest {
 
     }
 
+    @Test
+    public void testHomRefSitesAsPrimitivesMatchVariantContexts() {
+        final MockWriter fromVariantContexts = new MockWriter();
+        final MockWriter fromPrimitives = new MockWriter();
+        final GVCFWriter vcWriter = new GVCFWriter(fromVariantContexts, standardPartition, HomoSapiensConstants.DEFAULT_PLOIDY);
+        final GVCFWriter primitiveWriter = new GVCFWriter(fromPrimitives, standardPartition, HomoSapiensConstants.DEFAULT_PLOIDY);
+
+        final Random random = new Random(5);
+        String contig = CHR1;
+        for (int position = 1; position < 2000; position++) {
+            if (random.nextInt(200) == 0) {
+                // a new contig or a gap, either of which ends the current block
+                contig = random.nextBoolean() ? CHR2 : contig;
+                position += 1 + random.nextInt(5);
+            }
+            if (random.nextInt(50) == 0) {
+                // a variant (possibly a deletion, which hides the following hom-ref sites)
+                final VariantContext variant = new VariantContextBuilder(makeDeletion(position, 2 + random.nextInt(4))).chr(contig).make();
+                vcWriter.add(variant);
+                primitiveWriter.add(variant);
+                continue;
+            }
+            final int gq = random.nextInt(120);
+            final int dp = random.nextInt(40) - 1;
+            final int[] pls = {0, gq + random.nextInt(10), gq + 10 + random.nextInt(100)};
+            final int[] ad = {Math.max(dp, 0), 0};
+            vcWriter.add(GVCFRecordSink.makeHomRefSite(SAMPLE_NAME, contig, position, REF, 2, ad, dp, gq, pls.clone()));
+            primitiveWriter.addHomRefSite(SAMPLE_NAME, contig, position, REF, 2, ad, dp, gq, pls);
+        }
+        vcWriter.close();
+        primitiveWriter.close();
+
+        Assert.assertTrue(fromPrimitives.emitted.size() > 10);
+        Assert.assertEquals(fromPrimitives.emitted.size(), fromVariantContexts.emitted.size());
+        for (int i = 0; i < fromPrimitives.emitted.size(); i++) {
+            Assert.assertEquals(fromPrimitives.emitted.get(i).toStringDecodeGenotypes(), fromVariantContexts.emitted.get(i).toStringDecodeGenotypes());
+        }
+    }
+
 }